@@ -26,17 +26,32 @@ import android.content.pm.ResolveInfo;
 import android.net.NetworkTemplate;
 import android.net.Uri;
 import android.os.IBinder;
+import android.os.SystemClock;
 import android.os.storage.StorageManager;
 import android.os.storage.VolumeInfo;
 import android.telephony.SubscriptionInfo;
 import android.telephony.SubscriptionManager;
 import android.telephony.TelephonyManager;
+import android.util.JsonWriter;
+import android.util.Log;
 
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.applications.ProcStatsData;
+import com.android.settings.core.PreferenceMetadataCache;
+import com.android.settings.core.instrumentation.LoaderLatencyStats;
+import com.android.settings.core.instrumentation.PerformanceLogWriter;
+import com.android.settings.core.instrumentation.SettingsMetricsFeatureProvider;
+import com.android.settings.dashboard.DynamicDataObserverTracker;
+import com.android.settings.dashboard.TileIconCache;
 import com.android.settings.datausage.lib.DataUsageLib;
 import com.android.settings.fuelgauge.batterytip.AnomalyConfigJobService;
+import com.android.settings.homepage.contextualcards.CardEligibilityCache;
+import com.android.settings.homepage.contextualcards.logging.ContextualCardLogUtils;
+import com.android.settings.overlay.FeatureFactory;
+import com.android.settings.search.SearchIndexFingerprintCache;
+import com.android.settings.slices.SlicesDatabaseAccessor;
+import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
 import com.android.settingslib.net.DataUsageController;
 
 import org.json.JSONArray;
@@ -45,7 +60,26 @@ import org.json.JSONObject;
 
 import java.io.File;
 import java.io.FileDescriptor;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class SettingsDumpService extends Service {
     @VisibleForTesting
@@ -61,8 +95,34 @@ public class SettingsDumpService extends Service {
     @VisibleForTesting
     static final String KEY_ANOMALY_DETECTION = "anomaly_detection";
     @VisibleForTesting
+    static final String KEY_PERFORMANCE_TRACE = "performance_trace";
+    @VisibleForTesting
+    static final String KEY_PERF = "perf";
+    @VisibleForTesting
     static final Intent BROWSER_INTENT =
             new Intent("android.intent.action.VIEW", Uri.parse("http://"));
+    // Writes each section as soon as it is collected instead of printing one JSON object.
+    @VisibleForTesting
+    static final String ARG_STREAM = "--stream";
+    @VisibleForTesting
+    static final long SECTION_TIMEOUT_MILLIS = 1000L;
+    // Memory and data usage query system services, which may take a while on a loaded device.
+    @VisibleForTesting
+    static final long SLOW_SECTION_TIMEOUT_MILLIS = 3000L;
+
+    private static final String TAG = "SettingsDumpService";
+    // More than twice the number of sections, so that sections of an earlier dump still running
+    // past their deadline don't starve the next dump.
+    private static final int SECTION_MAX_THREADS = 16;
+    private static final long SECTION_KEEP_ALIVE_SECONDS = 10L;
+
+    private static ExecutorService sSectionExecutor;
+
+    /** Writes a section collected in the background to the dump. */
+    @VisibleForTesting
+    interface SectionWriter {
+        void write(JsonWriter json) throws IOException;
+    }
 
     @Override
     public IBinder onBind(Intent intent) {
@@ -71,22 +131,153 @@ public class SettingsDumpService extends Service {
 
     @Override
     protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
-        JSONObject dump = new JSONObject();
+        final long startTime = SystemClock.elapsedRealtime();
+        final Map<String, Future<SectionWriter>> sections = collectSections();
+        if (args != null && Arrays.asList(args).contains(ARG_STREAM)) {
+            writeSections(writer, sections, startTime);
+            writer.println();
+            return;
+        }
 
+        final StringWriter buffer = new StringWriter();
+        writeSections(buffer, sections, startTime);
+        JSONObject dump = new JSONObject();
         try {
-            dump.put(KEY_SERVICE, "Settings State");
-            dump.put(KEY_STORAGE, dumpStorage());
-            dump.put(KEY_DATAUSAGE, dumpDataUsage());
-            dump.put(KEY_MEMORY, dumpMemory());
-            dump.put(KEY_DEFAULT_BROWSER_APP, dumpDefaultBrowser());
-            dump.put(KEY_ANOMALY_DETECTION, dumpAnomalyDetection());
-        } catch (Exception e) {
+            dump = new JSONObject(buffer.toString());
+        } catch (JSONException e) {
             e.printStackTrace();
         }
 
         writer.println(dump);
     }
 
+    /**
+     * Starts collecting every section in parallel, in the order they are printed. The sections of
+     * a small, bounded size are collected as JSON values; the ones growing with the recorded
+     * events are written record by record.
+     */
+    private Map<String, Future<SectionWriter>> collectSections() {
+        final Map<String, Future<SectionWriter>> sections = new LinkedHashMap<>();
+        sections.put(KEY_STORAGE, submit(() -> valueOf(dumpStorage())));
+        sections.put(KEY_DATAUSAGE, submit(() -> valueOf(dumpDataUsage())));
+        sections.put(KEY_MEMORY, submit(() -> valueOf(dumpMemory())));
+        sections.put(KEY_DEFAULT_BROWSER_APP, submit(() -> valueOf(dumpDefaultBrowser())));
+        sections.put(KEY_ANOMALY_DETECTION, submit(() -> valueOf(dumpAnomalyDetection())));
+        sections.put(KEY_PERFORMANCE_TRACE, submit(this::dumpPerformanceTrace));
+        sections.put(KEY_PERF, submit(this::dumpPerf));
+        return sections;
+    }
+
+    private static long getSectionTimeoutMillis(String key) {
+        return KEY_MEMORY.equals(key) || KEY_DATAUSAGE.equals(key)
+                ? SLOW_SECTION_TIMEOUT_MILLIS : SECTION_TIMEOUT_MILLIS;
+    }
+
+    private static Future<SectionWriter> submit(Callable<SectionWriter> section) {
+        try {
+            return getSectionExecutor().submit(section);
+        } catch (RejectedExecutionException e) {
+            // Every thread is still busy with sections of earlier dumps.
+            final FutureTask<SectionWriter> rejected = new FutureTask<>(() -> {
+                throw e;
+            });
+            rejected.run();
+            return rejected;
+        }
+    }
+
+    private static SectionWriter valueOf(Object value) {
+        return json -> writeValue(json, value);
+    }
+
+    /**
+     * Returns the writer of a section, or of an error object if it failed or is not ready by
+     * {@code deadline}, in {@link SystemClock#elapsedRealtime()}.
+     */
+    @VisibleForTesting
+    static SectionWriter getSection(String key, Future<SectionWriter> section, long deadline) {
+        final String error;
+        try {
+            return section.get(Math.max(0L, deadline - SystemClock.elapsedRealtime()),
+                    TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            section.cancel(true /* mayInterruptIfRunning */);
+            error = "timeout";
+        } catch (InterruptedException e) {
+            section.cancel(true /* mayInterruptIfRunning */);
+            Thread.currentThread().interrupt();
+            error = "interrupted";
+        } catch (ExecutionException e) {
+            error = String.valueOf(e.getCause());
+        }
+        Log.w(TAG, "Failed to dump " + key + ": " + error);
+        return json -> json.beginObject().name("error").value(error).endObject();
+    }
+
+    private void writeSections(Writer writer, Map<String, Future<SectionWriter>> sections,
+            long startTime) {
+        // Not closed, since that would close the dump writer.
+        final JsonWriter json = new JsonWriter(writer);
+        try {
+            json.beginObject();
+            json.name(KEY_SERVICE).value("Settings State");
+            for (Map.Entry<String, Future<SectionWriter>> section : sections.entrySet()) {
+                json.name(section.getKey());
+                // Every section started when it was submitted, so their deadlines count from the
+                // start of the dump.
+                getSection(section.getKey(), section.getValue(),
+                        startTime + getSectionTimeoutMillis(section.getKey())).write(json);
+                json.flush();
+            }
+            json.endObject();
+            json.flush();
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write dump", e);
+        }
+    }
+
+    @VisibleForTesting
+    static void writeValue(JsonWriter json, Object value) throws IOException {
+        if (value == null || value == JSONObject.NULL) {
+            json.nullValue();
+        } else if (value instanceof JSONObject) {
+            final JSONObject obj = (JSONObject) value;
+            json.beginObject();
+            for (Iterator<String> keys = obj.keys(); keys.hasNext(); ) {
+                final String key = keys.next();
+                json.name(key);
+                writeValue(json, obj.opt(key));
+            }
+            json.endObject();
+        } else if (value instanceof JSONArray) {
+            final JSONArray array = (JSONArray) value;
+            json.beginArray();
+            for (int i = 0; i < array.length(); i++) {
+                writeValue(json, array.opt(i));
+            }
+            json.endArray();
+        } else if (value instanceof Boolean) {
+            json.value((Boolean) value);
+        } else if (value instanceof Number) {
+            json.value((Number) value);
+        } else {
+            json.value(value.toString());
+        }
+    }
+
+    private static synchronized ExecutorService getSectionExecutor() {
+        if (sSectionExecutor == null) {
+            // Sections are never queued, so a section starts as soon as the dump does and does
+            // not wait behind slower ones, or behind sections of an earlier dump that ignored
+            // their cancellation.
+            sSectionExecutor = new ThreadPoolExecutor(
+                    0 /* corePoolSize */, SECTION_MAX_THREADS,
+                    SECTION_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new SynchronousQueue<>());
+        }
+        return sSectionExecutor;
+    }
+
     private JSONObject dumpMemory() throws JSONException {
         JSONObject obj = new JSONObject();
         ProcStatsData statsManager = new ProcStatsData(this, false);
@@ -186,4 +377,110 @@ public class SettingsDumpService extends Service {
 
         return obj;
     }
+
+    @VisibleForTesting
+    SectionWriter dumpPerformanceTrace() {
+        final PerformanceLogWriter performanceLogWriter = getPerformanceLogWriter();
+        final List<PerformanceLogWriter.Record> records = performanceLogWriter != null
+                ? performanceLogWriter.getRecords()
+                : Collections.emptyList();
+        return json -> {
+            json.beginArray();
+            for (PerformanceLogWriter.Record record : records) {
+                json.beginObject();
+                json.name("page").value(record.mPageId);
+                json.name("phase").value(PerformanceLogWriter.getPhaseName(record.mPhase));
+                json.name("start_ms").value(TimeUnit.NANOSECONDS.toMillis(record.mStartNanos));
+                json.name("duration_us")
+                        .value(TimeUnit.NANOSECONDS.toMicros(record.mDurationNanos));
+                json.endObject();
+            }
+            json.endArray();
+        };
+    }
+
+    /**
+     * Returns the hit and miss counters of the caches and the latencies of the loaders of this
+     * process. The page startup phases, including the time until a page is fully drawn, are in
+     * the {@link #KEY_PERFORMANCE_TRACE} section.
+     */
+    @VisibleForTesting
+    SectionWriter dumpPerf() {
+        final int trackedObservers = DynamicDataObserverTracker.getTrackedCount();
+        final int timedOutObservers = DynamicDataObserverTracker.getTimedOutCount();
+        final long sliceHits = SlicesDatabaseAccessor.getCacheHitCount();
+        final long sliceMisses = SlicesDatabaseAccessor.getCacheMissCount();
+        final long metadataHits = PreferenceMetadataCache.getHitCount();
+        final long metadataMisses = PreferenceMetadataCache.getMissCount();
+        final long tileIconHits = TileIconCache.getHitCount();
+        final long tileIconMisses = TileIconCache.getMissCount();
+        final long fingerprintHits = SearchIndexFingerprintCache.getHitCount();
+        final long fingerprintMisses = SearchIndexFingerprintCache.getMissCount();
+        final long eligibilityHits = CardEligibilityCache.getHitCount();
+        final long eligibilityMisses = CardEligibilityCache.getMissCount();
+        final List<ContextualCardLogUtils.EligibilityCheckStats> eligibilityChecks =
+                ContextualCardLogUtils.getEligibilityCheckStats();
+        final List<LoaderLatencyStats.Stats> loaders = LoaderLatencyStats.getStats();
+        return json -> {
+            json.beginObject();
+
+            json.name("dynamic_data_observers").beginObject();
+            json.name("tracked").value(trackedObservers);
+            json.name("timed_out").value(timedOutObservers);
+            json.endObject();
+
+            writeCacheCounters(json, "slice_data_cache", sliceHits, sliceMisses);
+            writeCacheCounters(json, "preference_metadata_cache", metadataHits, metadataMisses);
+            writeCacheCounters(json, "tile_icon_cache", tileIconHits, tileIconMisses);
+            writeCacheCounters(json, "search_index_fingerprint_cache", fingerprintHits,
+                    fingerprintMisses);
+            writeCacheCounters(json, "card_eligibility_cache", eligibilityHits,
+                    eligibilityMisses);
+
+            json.name("loaders").beginArray();
+            for (LoaderLatencyStats.Stats stats : loaders) {
+                json.beginObject();
+                json.name("loader").value(stats.getLoader());
+                json.name("count").value(stats.getCount());
+                json.name("avg_latency_ms").value(stats.getTotalLatencyMs() / stats.getCount());
+                json.name("max_latency_ms").value(stats.getMaxLatencyMs());
+                json.name("last_latency_ms").value(stats.getLastLatencyMs());
+                json.endObject();
+            }
+            json.endArray();
+
+            json.name("card_eligibility_checks").beginArray();
+            for (ContextualCardLogUtils.EligibilityCheckStats stats : eligibilityChecks) {
+                json.beginObject();
+                json.name("slice_uri").value(stats.getSliceUri());
+                json.name("count").value(stats.getCount());
+                json.name("timeouts").value(stats.getTimeoutCount());
+                json.name("avg_latency_ms").value(
+                        stats.getCount() == 0 ? 0 : stats.getTotalLatencyMs() / stats.getCount());
+                json.name("max_latency_ms").value(stats.getMaxLatencyMs());
+                json.endObject();
+            }
+            json.endArray();
+
+            json.endObject();
+        };
+    }
+
+    private static void writeCacheCounters(JsonWriter json, String name, long hits, long misses)
+            throws IOException {
+        json.name(name).beginObject();
+        json.name("hits").value(hits);
+        json.name("misses").value(misses);
+        json.name("hit_rate").value(hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+        json.endObject();
+    }
+
+    @VisibleForTesting
+    PerformanceLogWriter getPerformanceLogWriter() {
+        final MetricsFeatureProvider provider =
+                FeatureFactory.getFactory(this).getMetricsFeatureProvider();
+        return provider instanceof SettingsMetricsFeatureProvider
+                ? ((SettingsMetricsFeatureProvider) provider).getPerformanceLogWriter()
+                : null;
+    }
 }
@@ -479,6 +479,12 @@ public class AccessibilitySettings extends DashboardFragment {
 
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
             new BaseSearchIndexProvider(R.xml.accessibility_settings) {
+                @Override
+                public boolean isStaticDataSnapshotable() {
+                    // The rows depend on the installed accessibility services.
+                    return false;
+                }
+
                 @Override
                 public List<SearchIndexableRaw> getRawDataToIndex(Context context,
                         boolean enabled) {
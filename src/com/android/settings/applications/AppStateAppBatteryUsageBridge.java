@@ -20,6 +20,8 @@ import android.annotation.IntDef;
 import android.app.AppOpsManager;
 import android.content.Context;
 import android.os.Build;
+import android.os.UserHandle;
+import android.util.ArrayMap;
 import android.util.Log;
 
 import com.android.internal.annotations.VisibleForTesting;
@@ -30,6 +32,7 @@ import com.android.settingslib.fuelgauge.PowerAllowlistBackend;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.List;
 
 /**
  * Class for bridging the app battery usage information to ApplicationState.
@@ -84,21 +87,43 @@ public class AppStateAppBatteryUsageBridge extends AppStateBaseBridge {
         if (DEBUG) {
             Log.d(TAG, "Start loadAllExtraInfo()");
         }
-        mAppSession.getAllApps().stream().forEach(appEntry ->
-                updateExtraInfo(appEntry, appEntry.info.packageName, appEntry.info.uid));
+        // The allowlist is cached by PowerAllowlistBackend and the app op modes of all packages
+        // are read once, so no batch makes a per-app binder call.
+        final List<AppOpsManager.PackageOps> packageOps = mAppOpsManager.getPackagesForOps(
+                new int[]{AppOpsManager.OP_RUN_ANY_IN_BACKGROUND});
+        loadAllExtraInfoInBatches(new BatchLoader<ArrayMap<String, Integer>>() {
+            @Override
+            public ArrayMap<String, Integer> loadUserState(int userId) {
+                return getAppOpsModesForUser(packageOps, userId);
+            }
+
+            @Override
+            public void loadExtraInfo(int userId, ArrayMap<String, Integer> userModes,
+                    List<AppEntry> apps) {
+                for (AppEntry app : apps) {
+                    final Integer aomMode = userModes.get(app.info.packageName);
+                    app.extraInfo = getAppBatteryUsageStateForMode(app.info.packageName,
+                            aomMode != null ? aomMode : AppOpsManager.opToDefaultMode(
+                                    AppOpsManager.OP_RUN_ANY_IN_BACKGROUND));
+                }
+            }
+        });
         if (DEBUG) {
             Log.d(TAG, "End loadAllExtraInfo()");
         }
     }
 
     protected Object getAppBatteryUsageState(String pkg, int uid) {
+        return getAppBatteryUsageStateForMode(pkg,
+                mAppOpsManager.checkOpNoThrow(AppOpsManager.OP_RUN_ANY_IN_BACKGROUND, uid, pkg));
+    }
+
+    private Object getAppBatteryUsageStateForMode(String pkg, int aomMode) {
         // Restricted = AppOpsManager.MODE_IGNORED + !allowListed
         // Unrestricted = AppOpsManager.MODE_ALLOWED + allowListed
         // Optimized = AppOpsManager.MODE_ALLOWED + !allowListed
 
         boolean allowListed = mPowerAllowlistBackend.isAllowlisted(pkg);
-        int aomMode =
-                mAppOpsManager.checkOpNoThrow(AppOpsManager.OP_RUN_ANY_IN_BACKGROUND, uid, pkg);
         @OptimizationMode int mode = MODE_UNKNOWN;
         String modeName = "";
         if (aomMode == AppOpsManager.MODE_IGNORED && !allowListed) {
@@ -118,6 +143,21 @@ public class AppStateAppBatteryUsageBridge extends AppStateBaseBridge {
         return new AppBatteryUsageDetails(mode);
     }
 
+    private static ArrayMap<String, Integer> getAppOpsModesForUser(
+            List<AppOpsManager.PackageOps> packageOps, int userId) {
+        final ArrayMap<String, Integer> modes = new ArrayMap<>();
+        final int packageOpsCount = packageOps != null ? packageOps.size() : 0;
+        for (int i = 0; i < packageOpsCount; i++) {
+            final AppOpsManager.PackageOps packageOp = packageOps.get(i);
+            if (UserHandle.getUserId(packageOp.getUid()) != userId
+                    || packageOp.getOps().isEmpty()) {
+                continue;
+            }
+            modes.put(packageOp.getPackageName(), packageOp.getOps().get(0).getMode());
+        }
+        return modes;
+    }
+
     @VisibleForTesting
     @OptimizationMode
     static int getAppBatteryUsageDetailsMode(AppEntry entry) {
@@ -145,32 +145,66 @@ public abstract class AppStateAppOpsBridge extends AppStateBaseBridge {
 
     @Override
     protected void loadAllExtraInfo() {
-        SparseArray<ArrayMap<String, PermissionState>> entries = getEntries();
+        // Fetched once in bulk for all users.
+        final Set<String> packagesSet = getPackagesRequestingPermissions();
+        final List<AppOpsManager.PackageOps> packageOps = packagesSet != null
+                ? mAppOpsManager.getPackagesForOps(mAppOpsOpCodes) : null;
+
+        // Map states to application info, one user at a time.
+        loadAllExtraInfoInBatches(new BatchLoader<ArrayMap<String, PermissionState>>() {
+            @Override
+            public ArrayMap<String, PermissionState> loadUserState(int userId) {
+                final UserHandle profile = getProfile(userId);
+                if (packagesSet == null || profile == null) {
+                    return null;
+                }
+                final SparseArray<ArrayMap<String, PermissionState>> entries =
+                        new SparseArray<>();
+                try {
+                    entries.put(userId, getEntriesForProfile(packagesSet, profile));
+                    loadPermissionsStates(profile, entries.get(userId));
+                } catch (RemoteException e) {
+                    Log.w(TAG, "PackageManager is dead. Can't load permission states of user "
+                            + userId, e);
+                    return null;
+                }
+                loadAppOpsStates(entries, packageOps);
+                return entries.get(userId);
+            }
 
-        // Load state info.
-        loadPermissionsStates(entries);
-        loadAppOpsStates(entries);
+            @Override
+            public void loadExtraInfo(int userId, ArrayMap<String, PermissionState> userMap,
+                    List<AppEntry> apps) {
+                for (AppEntry app : apps) {
+                    app.extraInfo = userMap != null ? userMap.get(app.info.packageName) : null;
+                    if (app.extraInfo instanceof PermissionState) {
+                        onPermissionStateLoaded(app, (PermissionState) app.extraInfo);
+                    }
+                }
+            }
+        });
+    }
 
-        // Map states to application info.
-        List<AppEntry> apps = mAppSession.getAllApps();
-        final int N = apps.size();
-        for (int i = 0; i < N; i++) {
-            AppEntry app = apps.get(i);
-            int userId = UserHandle.getUserId(app.info.uid);
-            if (entries != null) {
-                ArrayMap<String, PermissionState> userMap = entries.get(userId);
-                app.extraInfo = userMap != null ? userMap.get(app.info.packageName) : null;
-            } else {
-                app.extraInfo = null;
+    /**
+     * Called on a worker thread by {@link #loadAllExtraInfo()} for each app whose
+     * {@link PermissionState} has been loaded, before the state is published.
+     */
+    protected void onPermissionStateLoaded(AppEntry app, PermissionState permissionState) {
+    }
+
+    private UserHandle getProfile(int userId) {
+        for (UserHandle profile : mProfiles) {
+            if (profile.getIdentifier() == userId) {
+                return profile;
             }
         }
+        return null;
     }
 
     /*
-     * Gets a sparse array that describes every user on the device and all the associated packages
-     * of each user, together with the packages available for that user.
+     * Gets the packages requesting any of mPermissions, or null if there are none.
      */
-    private SparseArray<ArrayMap<String, PermissionState>> getEntries() {
+    private Set<String> getPackagesRequestingPermissions() {
         try {
             Set<String> packagesSet = new HashSet<>();
             for (String permission : mPermissions) {
@@ -179,27 +213,30 @@ public abstract class AppStateAppOpsBridge extends AppStateBaseBridge {
                     packagesSet.addAll(Arrays.asList(pkgs));
                 }
             }
+            // Null if no packages are requesting permission as specified by mPermissions.
+            return packagesSet.isEmpty() ? null : packagesSet;
+        } catch (RemoteException e) {
+            Log.w(TAG, "PackageManager is dead. Can't get list of packages requesting "
+                    + mPermissions[0], e);
+            return null;
+        }
+    }
 
-            if (packagesSet.isEmpty()) {
-                // No packages are requesting permission as specified by mPermissions.
-                return null;
-            }
-
+    /*
+     * Gets a sparse array that describes every user on the device and all the associated packages
+     * of each user, together with the packages available for that user.
+     */
+    private SparseArray<ArrayMap<String, PermissionState>> getEntries() {
+        final Set<String> packagesSet = getPackagesRequestingPermissions();
+        if (packagesSet == null) {
+            return null;
+        }
+        try {
             // Create a sparse array that maps profileIds to an ArrayMap that maps package names to
             // an associated PermissionState object
             SparseArray<ArrayMap<String, PermissionState>> entries = new SparseArray<>();
             for (final UserHandle profile : mProfiles) {
-                final ArrayMap<String, PermissionState> entriesForProfile = new ArrayMap<>();
-                final int profileId = profile.getIdentifier();
-                entries.put(profileId, entriesForProfile);
-                for (final String packageName : packagesSet) {
-                    final boolean isAvailable = mIPackageManager.isPackageAvailable(packageName,
-                            profileId);
-                    if (!shouldIgnorePackage(packageName) && isAvailable) {
-                        final PermissionState newEntry = new PermissionState(packageName, profile);
-                        entriesForProfile.put(packageName, newEntry);
-                    }
-                }
+                entries.put(profile.getIdentifier(), getEntriesForProfile(packagesSet, profile));
             }
 
             return entries;
@@ -210,6 +247,21 @@ public abstract class AppStateAppOpsBridge extends AppStateBaseBridge {
         }
     }
 
+    private ArrayMap<String, PermissionState> getEntriesForProfile(Set<String> packagesSet,
+            UserHandle profile) throws RemoteException {
+        final ArrayMap<String, PermissionState> entriesForProfile = new ArrayMap<>();
+        final int profileId = profile.getIdentifier();
+        for (final String packageName : packagesSet) {
+            final boolean isAvailable = mIPackageManager.isPackageAvailable(packageName,
+                    profileId);
+            if (!shouldIgnorePackage(packageName) && isAvailable) {
+                final PermissionState newEntry = new PermissionState(packageName, profile);
+                entriesForProfile.put(packageName, newEntry);
+            }
+        }
+        return entriesForProfile;
+    }
+
     /*
      * This method will set the packageInfo and staticPermissionGranted field of the associated
      * PermissionState, which describes a particular package.
@@ -222,24 +274,12 @@ public abstract class AppStateAppOpsBridge extends AppStateBaseBridge {
 
         try {
             for (final UserHandle profile : mProfiles) {
-                final int profileId = profile.getIdentifier();
-                final ArrayMap<String, PermissionState> entriesForProfile = entries.get(profileId);
+                final ArrayMap<String, PermissionState> entriesForProfile =
+                        entries.get(profile.getIdentifier());
                 if (entriesForProfile == null) {
                     continue;
                 }
-                @SuppressWarnings("unchecked") final List<PackageInfo> packageInfos =
-                        mIPackageManager
-                                .getPackagesHoldingPermissions(mPermissions, 0,
-                                        profileId).getList();
-                final int packageInfoCount = packageInfos != null ? packageInfos.size() : 0;
-                for (int i = 0; i < packageInfoCount; i++) {
-                    final PackageInfo packageInfo = packageInfos.get(i);
-                    final PermissionState pe = entriesForProfile.get(packageInfo.packageName);
-                    if (pe != null) {
-                        pe.packageInfo = packageInfo;
-                        pe.staticPermissionGranted = true;
-                    }
-                }
+                loadPermissionsStates(profile, entriesForProfile);
             }
         } catch (RemoteException e) {
             Log.w(TAG, "PackageManager is dead. Can't get list of packages granted "
@@ -248,6 +288,23 @@ public abstract class AppStateAppOpsBridge extends AppStateBaseBridge {
         }
     }
 
+    private void loadPermissionsStates(UserHandle profile,
+            ArrayMap<String, PermissionState> entriesForProfile) throws RemoteException {
+        @SuppressWarnings("unchecked") final List<PackageInfo> packageInfos =
+                mIPackageManager
+                        .getPackagesHoldingPermissions(mPermissions, 0,
+                                profile.getIdentifier()).getList();
+        final int packageInfoCount = packageInfos != null ? packageInfos.size() : 0;
+        for (int i = 0; i < packageInfoCount; i++) {
+            final PackageInfo packageInfo = packageInfos.get(i);
+            final PermissionState pe = entriesForProfile.get(packageInfo.packageName);
+            if (pe != null) {
+                pe.packageInfo = packageInfo;
+                pe.staticPermissionGranted = true;
+            }
+        }
+    }
+
     /*
      * This method will set the appOpMode field of the associated PermissionState, which describes
      * a particular package.
@@ -258,8 +315,11 @@ public abstract class AppStateAppOpsBridge extends AppStateBaseBridge {
         }
 
         // Find out which packages have been granted permission from AppOps.
-        final List<AppOpsManager.PackageOps> packageOps = mAppOpsManager.getPackagesForOps(
-                mAppOpsOpCodes);
+        loadAppOpsStates(entries, mAppOpsManager.getPackagesForOps(mAppOpsOpCodes));
+    }
+
+    private void loadAppOpsStates(SparseArray<ArrayMap<String, PermissionState>> entries,
+            List<AppOpsManager.PackageOps> packageOps) {
         final int packageOpsCount = packageOps != null ? packageOps.size() : 0;
         for (int i = 0; i < packageOpsCount; i++) {
             final AppOpsManager.PackageOps packageOp = packageOps.get(i);
@@ -18,18 +18,43 @@ package com.android.settings.applications;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
+import android.os.UserHandle;
+import android.util.ArrayMap;
+import android.util.Log;
+import android.util.Pair;
+import android.util.SparseArray;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 
 import com.android.settingslib.applications.ApplicationsState;
 import com.android.settingslib.applications.ApplicationsState.AppEntry;
 import com.android.settingslib.applications.ApplicationsState.Session;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Common base class for bridging information to ApplicationsState.
  */
 public abstract class AppStateBaseBridge implements ApplicationsState.Callbacks {
 
+    private static final String TAG = "AppStateBaseBridge";
+    @VisibleForTesting
+    static final int BATCH_SIZE = 32;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static ExecutorService sBatchExecutor;
+
     protected final ApplicationsState mAppState;
     protected final Session mAppSession;
     protected final Callback mCallback;
@@ -117,6 +142,105 @@ public abstract class AppStateBaseBridge implements ApplicationsState.Callbacks
 
     protected abstract void loadAllExtraInfo();
 
+    /**
+     * Loads the extra info of all apps in parallel batches, for use by
+     * {@link #loadAllExtraInfo()}.
+     *
+     * The apps are grouped by user. {@link BatchLoader#loadUserState(int)} fetches the state of
+     * each user in bulk, then {@link BatchLoader#loadExtraInfo} fills in batches of
+     * {@link #BATCH_SIZE} apps. Each finished batch is published to the {@link Callback}, so the
+     * list can render incrementally. If loading a user or a batch fails, its apps fall back to
+     * {@link #updateExtraInfo} one by one. Returns once every batch is done.
+     */
+    protected <T> void loadAllExtraInfoInBatches(BatchLoader<T> loader) {
+        final ArrayList<AppEntry> apps = mAppSession.getAllApps();
+        if (apps == null || apps.isEmpty()) {
+            return;
+        }
+        final SparseArray<List<AppEntry>> appsByUser = new SparseArray<>();
+        for (AppEntry app : apps) {
+            final int userId = UserHandle.getUserId(app.info.uid);
+            List<AppEntry> userApps = appsByUser.get(userId);
+            if (userApps == null) {
+                userApps = new ArrayList<>();
+                appsByUser.put(userId, userApps);
+            }
+            userApps.add(app);
+        }
+
+        // Fan out the users first, then the batches of each user once its state is loaded. The
+        // apps of each task are kept, so that a failed task can fall back to the per-app path.
+        final CompletionService<List<Pair<List<AppEntry>, Runnable>>> completionService =
+                new ExecutorCompletionService<>(getBatchExecutor());
+        final Map<Future<?>, List<AppEntry>> pendingApps = new ArrayMap<>();
+        for (int i = 0; i < appsByUser.size(); i++) {
+            final int userId = appsByUser.keyAt(i);
+            final List<AppEntry> userApps = appsByUser.valueAt(i);
+            pendingApps.put(completionService.submit(() -> {
+                final T userState = loader.loadUserState(userId);
+                final List<Pair<List<AppEntry>, Runnable>> batches = new ArrayList<>();
+                for (int start = 0; start < userApps.size(); start += BATCH_SIZE) {
+                    final List<AppEntry> batch = userApps.subList(start,
+                            Math.min(start + BATCH_SIZE, userApps.size()));
+                    batches.add(Pair.create(batch,
+                            () -> loader.loadExtraInfo(userId, userState, batch)));
+                }
+                return batches;
+            }), userApps);
+        }
+        while (!pendingApps.isEmpty()) {
+            final Future<List<Pair<List<AppEntry>, Runnable>>> future;
+            try {
+                future = completionService.take();
+            } catch (InterruptedException e) {
+                Log.w(TAG, "Interrupted while loading extra info", e);
+                Thread.currentThread().interrupt();
+                return;
+            }
+            final List<AppEntry> futureApps = pendingApps.remove(future);
+            List<Pair<List<AppEntry>, Runnable>> batches;
+            try {
+                batches = future.get();
+            } catch (InterruptedException e) {
+                Log.w(TAG, "Interrupted while loading extra info", e);
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                Log.w(TAG, "Failed to load extra info in bulk, loading "
+                        + futureApps.size() + " apps one by one", e);
+                loadExtraInfoPerApp(futureApps);
+                batches = null;
+            }
+            if (batches == null) {
+                // A finished batch or fallback, publish the partial result.
+                if (!mMainHandler.hasMessages(MainHandler.MSG_INFO_UPDATED)) {
+                    mMainHandler.sendEmptyMessage(MainHandler.MSG_INFO_UPDATED);
+                }
+                continue;
+            }
+            for (Pair<List<AppEntry>, Runnable> batch : batches) {
+                pendingApps.put(completionService.submit(batch.second, null), batch.first);
+            }
+        }
+    }
+
+    private void loadExtraInfoPerApp(List<AppEntry> apps) {
+        for (AppEntry app : apps) {
+            updateExtraInfo(app, app.info.packageName, app.info.uid);
+        }
+    }
+
+    private static synchronized ExecutorService getBatchExecutor() {
+        if (sBatchExecutor == null) {
+            final int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+            executor.allowCoreThreadTimeOut(true);
+            sBatchExecutor = executor;
+        }
+        return sBatchExecutor;
+    }
+
     protected abstract void updateExtraInfo(AppEntry app, String pkg, int uid);
 
     private class MainHandler extends Handler {
@@ -172,4 +296,19 @@ public abstract class AppStateBaseBridge implements ApplicationsState.Callbacks
     public interface Callback {
         void onExtraInfoUpdated();
     }
+
+    /**
+     * Loads the extra info of the apps of a user, see {@link #loadAllExtraInfoInBatches}.
+     * Both methods are called on worker threads.
+     *
+     * @param <T> the state fetched in bulk for each user
+     */
+    protected interface BatchLoader<T> {
+        /** Fetches the state shared by all apps of {@code userId}, e.g. with one binder call. */
+        @Nullable
+        T loadUserState(int userId);
+
+        /** Sets the extra info of {@code apps}, which all belong to {@code userId}. */
+        void loadExtraInfo(int userId, @Nullable T userState, List<AppEntry> apps);
+    }
 }
@@ -22,8 +22,6 @@ import android.content.Context;
 
 import com.android.settingslib.applications.ApplicationsState;
 
-import java.util.List;
-
 /**
  * Retrieves information from {@link AppOpsManager} and {@link android.content.pm.PackageManager}
  * regarding {@link AppOpsManager#OP_MANAGE_EXTERNAL_STORAGE} and
@@ -49,15 +47,10 @@ public class AppStateManageExternalStorageBridge extends AppStateAppOpsBridge {
     }
 
     @Override
-    protected void loadAllExtraInfo() {
-        super.loadAllExtraInfo();
-        List<ApplicationsState.AppEntry> apps = mAppSession.getAllApps();
-        for (ApplicationsState.AppEntry app : apps) {
-            if (app.extraInfo instanceof PermissionState) {
-                ((PermissionState) app.extraInfo).appOpMode =  mAppOpsManager.unsafeCheckOpNoThrow(
-                        APP_OP_STR, app.info.uid, app.info.packageName);
-            }
-        }
+    protected void onPermissionStateLoaded(ApplicationsState.AppEntry app,
+            PermissionState permissionState) {
+        permissionState.appOpMode = mAppOpsManager.unsafeCheckOpNoThrow(
+                APP_OP_STR, app.info.uid, app.info.packageName);
     }
 
     @Override
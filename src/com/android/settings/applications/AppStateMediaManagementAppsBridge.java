@@ -24,8 +24,6 @@ import com.android.settingslib.applications.ApplicationsState;
 import com.android.settingslib.applications.ApplicationsState.AppEntry;
 import com.android.settingslib.applications.ApplicationsState.AppFilter;
 
-import java.util.List;
-
 /**
  * Retrieves information from {@link AppOpsManager} and {@link android.content.pm.PackageManager}
  * regarding {@link AppOpsManager#OP_MANAGE_MEDIA} and
@@ -50,16 +48,8 @@ public class AppStateMediaManagementAppsBridge extends AppStateAppOpsBridge {
     }
 
     @Override
-    protected void loadAllExtraInfo() {
-        super.loadAllExtraInfo();
-        final List<AppEntry> allApps = mAppSession.getAllApps();
-        final int appCount = allApps.size();
-        for (int i = 0; i < appCount; i++) {
-            final AppEntry appEntry = allApps.get(i);
-            if (appEntry.extraInfo instanceof PermissionState) {
-                updateExtraInfo(appEntry, appEntry.info.packageName, appEntry.info.uid);
-            }
-        }
+    protected void onPermissionStateLoaded(AppEntry app, PermissionState permissionState) {
+        updateExtraInfo(app, app.info.packageName, app.info.uid);
     }
 
     /**
@@ -78,17 +78,30 @@ public class AppStateNotificationBridge extends AppStateBaseBridge {
             return;
         }
 
-        final Map<String, NotificationsSentState> map = getAggregatedUsageEvents();
-        for (AppEntry entry : apps) {
-            NotificationsSentState stats =
-                    map.get(getKey(UserHandle.getUserId(entry.info.uid), entry.info.packageName));
-            if (stats == null) {
-                stats = new NotificationsSentState();
+        loadAllExtraInfoInBatches(new BatchLoader<Map<String, NotificationsSentState>>() {
+            @Override
+            public Map<String, NotificationsSentState> loadUserState(int userId) {
+                if (!mUserIds.contains(userId)) {
+                    return new ArrayMap<>();
+                }
+                return getAggregatedUsageEvents(userId);
             }
-            calculateAvgSentCounts(stats);
-            addBlockStatus(entry, stats);
-            entry.extraInfo = stats;
-        }
+
+            @Override
+            public void loadExtraInfo(int userId, Map<String, NotificationsSentState> userStats,
+                    List<AppEntry> userApps) {
+                for (AppEntry entry : userApps) {
+                    NotificationsSentState stats =
+                            userStats.get(getKey(userId, entry.info.packageName));
+                    if (stats == null) {
+                        stats = new NotificationsSentState();
+                    }
+                    calculateAvgSentCounts(stats);
+                    addBlockStatus(entry, stats);
+                    entry.extraInfo = stats;
+                }
+            }
+        });
     }
 
     @Override
@@ -136,38 +149,35 @@ public class AppStateNotificationBridge extends AppStateBaseBridge {
         }
     }
 
-    protected Map<String, NotificationsSentState> getAggregatedUsageEvents() {
+    protected Map<String, NotificationsSentState> getAggregatedUsageEvents(int userId) {
         ArrayMap<String, NotificationsSentState> aggregatedStats = new ArrayMap<>();
-
         long now = System.currentTimeMillis();
         long startTime = now - (DateUtils.DAY_IN_MILLIS * DAYS_TO_CHECK);
-        for (int userId : mUserIds) {
-            UsageEvents events = null;
-            try {
-                events = mUsageStatsManager.queryEventsForUser(
-                        startTime, now, userId, mContext.getPackageName());
-            } catch (RemoteException e) {
-                e.printStackTrace();
-            }
-            if (events != null) {
-                UsageEvents.Event event = new UsageEvents.Event();
-                while (events.hasNextEvent()) {
-                    events.getNextEvent(event);
-                    NotificationsSentState stats =
-                            aggregatedStats.get(getKey(userId, event.getPackageName()));
-                    if (stats == null) {
-                        stats = new NotificationsSentState();
-                        aggregatedStats.put(getKey(userId, event.getPackageName()), stats);
-                    }
+        UsageEvents events = null;
+        try {
+            events = mUsageStatsManager.queryEventsForUser(
+                    startTime, now, userId, mContext.getPackageName());
+        } catch (RemoteException e) {
+            e.printStackTrace();
+        }
+        if (events != null) {
+            UsageEvents.Event event = new UsageEvents.Event();
+            while (events.hasNextEvent()) {
+                events.getNextEvent(event);
+                NotificationsSentState stats =
+                        aggregatedStats.get(getKey(userId, event.getPackageName()));
+                if (stats == null) {
+                    stats = new NotificationsSentState();
+                    aggregatedStats.put(getKey(userId, event.getPackageName()), stats);
+                }
 
-                    if (event.getEventType() == UsageEvents.Event.NOTIFICATION_INTERRUPTION) {
-                        if (event.getTimeStamp() > stats.lastSent) {
-                            stats.lastSent = event.getTimeStamp();
-                        }
-                        stats.sentCount++;
+                if (event.getEventType() == UsageEvents.Event.NOTIFICATION_INTERRUPTION) {
+                    if (event.getTimeStamp() > stats.lastSent) {
+                        stats.lastSent = event.getTimeStamp();
                     }
-
+                    stats.sentCount++;
                 }
+
             }
         }
         return aggregatedStats;
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.manageapplications;
+
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A substring search index over a list of apps, matching both the label and the package name.
+ *
+ * Labels and package names are lowercased once when the index is built, and every pair of
+ * adjacent characters maps to the sorted positions of the apps containing it. A query of two or
+ * more characters only verifies the apps listed under its rarest character pair, and a query that
+ * narrows the previous one only verifies the previous matches.
+ */
+class AppSearchIndex {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final List<AppEntry> mEntries;
+    private final String[] mLabels;
+    private final String[] mPackageNames;
+    private final SparseArray<int[]> mBigrams = new SparseArray<>();
+
+    AppSearchIndex(@NonNull List<AppEntry> entries) {
+        mEntries = entries;
+        final int size = entries.size();
+        mLabels = new String[size];
+        mPackageNames = new String[size];
+        final SparseIntArray counts = new SparseIntArray();
+        for (int i = 0; i < size; i++) {
+            final AppEntry entry = entries.get(i);
+            mLabels[i] = normalize(entry.label);
+            mPackageNames[i] = normalize(entry.info == null ? null : entry.info.packageName);
+            addBigrams(mLabels[i], i, counts);
+            addBigrams(mPackageNames[i], i, counts);
+        }
+        for (int i = 0; i < mBigrams.size(); i++) {
+            mBigrams.setValueAt(i,
+                    Arrays.copyOf(mBigrams.valueAt(i), counts.get(mBigrams.keyAt(i))));
+        }
+    }
+
+    /** Returns whether this index was built from {@code entries}. */
+    boolean isBuiltFrom(@Nullable List<AppEntry> entries) {
+        return mEntries == entries;
+    }
+
+    /**
+     * Returns the sorted positions of the apps whose label or package name contains
+     * {@code normalizedQuery}.
+     *
+     * @param candidates the matches of a query contained in {@code normalizedQuery}, or
+     *                   {@code null} to search every app.
+     */
+    @NonNull
+    int[] search(@NonNull String normalizedQuery, @Nullable int[] candidates) {
+        int[] scan = candidates;
+        if (normalizedQuery.length() >= 2) {
+            final int[] postings = getRarestBigramPostings(normalizedQuery);
+            if (postings == null) {
+                return EMPTY;
+            }
+            // Every match appears in both lists, so verifying the shorter one is enough.
+            if (scan == null || postings.length < scan.length) {
+                scan = postings;
+            }
+        }
+        final int count = scan == null ? mEntries.size() : scan.length;
+        final int[] matches = new int[count];
+        int matchCount = 0;
+        for (int i = 0; i < count; i++) {
+            final int position = scan == null ? i : scan[i];
+            if (mLabels[position].contains(normalizedQuery)
+                    || mPackageNames[position].contains(normalizedQuery)) {
+                matches[matchCount++] = position;
+            }
+        }
+        return Arrays.copyOf(matches, matchCount);
+    }
+
+    /** Returns the apps at {@code positions}, in order. */
+    @NonNull
+    ArrayList<AppEntry> getEntries(@NonNull int[] positions) {
+        final ArrayList<AppEntry> entries = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            entries.add(mEntries.get(position));
+        }
+        return entries;
+    }
+
+    /** Returns {@code text} in the form used by the index. */
+    @NonNull
+    static String normalize(@Nullable CharSequence text) {
+        return text == null ? "" : text.toString().toLowerCase();
+    }
+
+    private int[] getRarestBigramPostings(String query) {
+        int[] rarest = null;
+        for (int i = 0; i < query.length() - 1; i++) {
+            final int[] postings = mBigrams.get(getBigram(query, i));
+            if (postings == null) {
+                return null;
+            }
+            if (rarest == null || postings.length < rarest.length) {
+                rarest = postings;
+            }
+        }
+        return rarest;
+    }
+
+    private void addBigrams(String text, int position, SparseIntArray counts) {
+        for (int i = 0; i < text.length() - 1; i++) {
+            final int bigram = getBigram(text, i);
+            int[] postings = mBigrams.get(bigram);
+            final int count = counts.get(bigram);
+            if (postings == null) {
+                postings = new int[4];
+                mBigrams.put(bigram, postings);
+            } else if (postings[count - 1] == position) {
+                // Already listed through an earlier occurrence in the label or package name.
+                continue;
+            } else if (count == postings.length) {
+                postings = Arrays.copyOf(postings, count * 2);
+                mBigrams.put(bigram, postings);
+            }
+            postings[count] = position;
+            counts.put(bigram, count + 1);
+        }
+    }
+
+    private static int getBigram(String text, int index) {
+        return (text.charAt(index) << 16) | text.charAt(index + 1);
+    }
+}
@@ -57,9 +57,11 @@ import android.os.UserHandle;
 import android.os.UserManager;
 import android.preference.PreferenceFrameLayout;
 import android.text.TextUtils;
+import android.util.ArrayMap;
 import android.util.ArraySet;
 import android.util.IconDrawableFactory;
 import android.util.Log;
+import android.view.Choreographer;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuInflater;
@@ -78,6 +80,7 @@ import androidx.annotation.VisibleForTesting;
 import androidx.annotation.WorkerThread;
 import androidx.coordinatorlayout.widget.CoordinatorLayout;
 import androidx.core.view.ViewCompat;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -150,6 +153,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -1101,6 +1105,11 @@ public class ManageApplications extends InstrumentedFragment
         private boolean mHasReceivedBridgeCallback;
         private SearchFilter mSearchFilter;
         private PowerAllowlistBackend mBackend;
+        // Adapter positions of each package in mEntries, built on demand.
+        private ArrayMap<String, int[]> mPackagePositions;
+        private final ArraySet<String> mPendingSizeChanges = new ArraySet<>();
+        private final Choreographer.FrameCallback mSizeChangesCallback =
+                frameTimeNanos -> notifyPendingSizeChanges();
 
         // This is to remember and restore the last scroll position when this
         // fragment is paused. We need this special handling because app entries are added gradually
@@ -1243,6 +1252,7 @@ public class ManageApplications extends InstrumentedFragment
         }
 
         public void release() {
+            cancelPendingSizeChanges();
             mSession.onDestroy();
             if (mExtraInfoBridge != null) {
                 mExtraInfoBridge.release();
@@ -1419,8 +1429,10 @@ public class ManageApplications extends InstrumentedFragment
                     || filterType == FILTER_APPS_POWER_ALLOWLIST_ALL) {
                 entries = removeDuplicateIgnoringUser(entries);
             }
-            mEntries = entries;
+            setEntries(entries);
             mOriginalEntries = entries;
+            // Every row is rebound below, including those with pending size changes.
+            cancelPendingSizeChanges();
             notifyDataSetChanged();
             if (getItemCount() == 0) {
                 mLoadingViewController.showEmpty(false /* animate */);
@@ -1492,27 +1504,76 @@ public class ManageApplications extends InstrumentedFragment
 
         @Override
         public void onPackageSizeChanged(String packageName) {
-            if (mEntries == null) {
+            if (mEntries == null || !getPackagePositions().containsKey(packageName)) {
+                return;
+            }
+            if (TextUtils.equals(mManageApplications.mCurrentPkgName, packageName)) {
+                // We got the size information for the last app the
+                // user viewed, and are sorting by size...  they may
+                // have cleared data, so we immediately want to resort
+                // the list with the new size to reflect it to the user.
+                rebuild();
                 return;
             }
+            // Sizes are computed one package at a time, so the affected rows are rebound
+            // together on the next frame.
+            if (mPendingSizeChanges.isEmpty()) {
+                Choreographer.getInstance().postFrameCallback(mSizeChangesCallback);
+            }
+            mPendingSizeChanges.add(packageName);
+        }
+
+        @VisibleForTesting
+        void notifyPendingSizeChanges() {
+            if (mEntries != null && mOnScrollListener != null) {
+                final ArrayMap<String, int[]> packagePositions = getPackagePositions();
+                for (int i = 0; i < mPendingSizeChanges.size(); i++) {
+                    final int[] positions = packagePositions.get(mPendingSizeChanges.valueAt(i));
+                    if (positions == null) {
+                        continue;
+                    }
+                    for (int position : positions) {
+                        mOnScrollListener.postNotifyItemChange(position);
+                    }
+                }
+            }
+            mPendingSizeChanges.clear();
+        }
+
+        private void cancelPendingSizeChanges() {
+            if (!mPendingSizeChanges.isEmpty()) {
+                Choreographer.getInstance().removeFrameCallback(mSizeChangesCallback);
+                mPendingSizeChanges.clear();
+            }
+        }
+
+        private void setEntries(ArrayList<ApplicationsState.AppEntry> entries) {
+            mEntries = entries;
+            mPackagePositions = null;
+        }
+
+        private ArrayMap<String, int[]> getPackagePositions() {
+            if (mPackagePositions != null) {
+                return mPackagePositions;
+            }
+            // Adjust position due to header added.
+            final int offset = mManageApplications.mListType == LIST_TYPE_APPS_LOCALE ? 1 : 0;
             final int size = mEntries.size();
+            final ArrayMap<String, int[]> packagePositions = new ArrayMap<>(size);
             for (int i = 0; i < size; i++) {
-                final AppEntry entry = mEntries.get(i);
-                final ApplicationInfo info = entry.info;
-                if (info == null && !TextUtils.equals(packageName, info.packageName)) {
+                final ApplicationInfo info = mEntries.get(i).info;
+                if (info == null || info.packageName == null) {
                     continue;
                 }
-                if (TextUtils.equals(mManageApplications.mCurrentPkgName, info.packageName)) {
-                    // We got the size information for the last app the
-                    // user viewed, and are sorting by size...  they may
-                    // have cleared data, so we immediately want to resort
-                    // the list with the new size to reflect it to the user.
-                    rebuild();
-                    return;
-                } else {
-                    mOnScrollListener.postNotifyItemChange(i);
-                }
+                // The same package may be listed once per user.
+                final int[] positions = packagePositions.get(info.packageName);
+                final int[] newPositions = positions == null
+                        ? new int[1] : Arrays.copyOf(positions, positions.length + 1);
+                newPositions[newPositions.length - 1] = i + offset;
+                packagePositions.put(info.packageName, newPositions);
             }
+            mPackagePositions = packagePositions;
+            return packagePositions;
         }
 
         @Override
@@ -1752,33 +1813,120 @@ public class ManageApplications extends InstrumentedFragment
 
         /**
          * An array filter that constrains the content of the array adapter with a substring.
-         * Item that does not contains the specified substring will be removed from the list.</p>
+         * Item whose label or package name does not contain the specified substring will be
+         * removed from the list.</p>
          */
         private class SearchFilter extends Filter {
+            // Only accessed on the filter thread.
+            private AppSearchIndex mSearchIndex;
+            private String mLastQuery;
+            private int[] mLastMatches;
+
             @WorkerThread
             @Override
             protected FilterResults performFiltering(CharSequence query) {
+                final ArrayList<ApplicationsState.AppEntry> originalEntries = mOriginalEntries;
+                final ArrayList<ApplicationsState.AppEntry> previousEntries = mEntries;
                 final ArrayList<ApplicationsState.AppEntry> matchedEntries;
                 if (TextUtils.isEmpty(query)) {
-                    matchedEntries = mOriginalEntries;
+                    matchedEntries = originalEntries;
+                    mLastQuery = null;
+                    mLastMatches = null;
                 } else {
-                    matchedEntries = new ArrayList<>();
-                    for (ApplicationsState.AppEntry entry : mOriginalEntries) {
-                        if (entry.label.toLowerCase().contains(query.toString().toLowerCase())) {
-                            matchedEntries.add(entry);
-                        }
+                    if (mSearchIndex == null || !mSearchIndex.isBuiltFrom(originalEntries)) {
+                        mSearchIndex = new AppSearchIndex(originalEntries);
+                        mLastQuery = null;
+                        mLastMatches = null;
                     }
+                    final String normalizedQuery = AppSearchIndex.normalize(query);
+                    // A narrowing query can only match apps that matched the previous one.
+                    final int[] candidates = mLastQuery != null
+                            && normalizedQuery.contains(mLastQuery) ? mLastMatches : null;
+                    mLastMatches = mSearchIndex.search(normalizedQuery, candidates);
+                    mLastQuery = normalizedQuery;
+                    matchedEntries = mSearchIndex.getEntries(mLastMatches);
                 }
                 final FilterResults results = new FilterResults();
-                results.values = matchedEntries;
+                results.values = new SearchResults(previousEntries, matchedEntries,
+                        calculateDiff(previousEntries, matchedEntries));
                 results.count = matchedEntries.size();
                 return results;
             }
 
             @Override
             protected void publishResults(CharSequence constraint, FilterResults results) {
-                mEntries = (ArrayList<ApplicationsState.AppEntry>) results.values;
-                notifyDataSetChanged();
+                final SearchResults searchResults = (SearchResults) results.values;
+                final boolean canDispatchDiff = searchResults.mDiffResult != null
+                        && mEntries == searchResults.mPreviousEntries;
+                setEntries(searchResults.mEntries);
+                if (canDispatchDiff) {
+                    searchResults.mDiffResult.dispatchUpdatesTo(ApplicationsAdapter.this);
+                } else {
+                    notifyDataSetChanged();
+                }
+            }
+
+            @WorkerThread
+            private DiffUtil.DiffResult calculateDiff(
+                    ArrayList<ApplicationsState.AppEntry> oldEntries,
+                    ArrayList<ApplicationsState.AppEntry> newEntries) {
+                // Positions are shifted by the header in the locale list, and there is nothing
+                // worth animating when either side is empty.
+                if (mManageApplications.mListType == LIST_TYPE_APPS_LOCALE
+                        || oldEntries == null || oldEntries.isEmpty() || newEntries.isEmpty()) {
+                    return null;
+                }
+                return DiffUtil.calculateDiff(new AppEntryDiffCallback(oldEntries, newEntries),
+                        false /* detectMoves */);
+            }
+        }
+
+        private static class SearchResults {
+            final ArrayList<ApplicationsState.AppEntry> mPreviousEntries;
+            final ArrayList<ApplicationsState.AppEntry> mEntries;
+            final DiffUtil.DiffResult mDiffResult;
+
+            SearchResults(ArrayList<ApplicationsState.AppEntry> previousEntries,
+                    ArrayList<ApplicationsState.AppEntry> entries,
+                    DiffUtil.DiffResult diffResult) {
+                mPreviousEntries = previousEntries;
+                mEntries = entries;
+                mDiffResult = diffResult;
+            }
+        }
+
+        /**
+         * Search results are subsequences of the same entries, so items are compared by identity
+         * and their content never changes.
+         */
+        private static class AppEntryDiffCallback extends DiffUtil.Callback {
+            private final List<ApplicationsState.AppEntry> mOldEntries;
+            private final List<ApplicationsState.AppEntry> mNewEntries;
+
+            AppEntryDiffCallback(List<ApplicationsState.AppEntry> oldEntries,
+                    List<ApplicationsState.AppEntry> newEntries) {
+                mOldEntries = oldEntries;
+                mNewEntries = newEntries;
+            }
+
+            @Override
+            public int getOldListSize() {
+                return mOldEntries.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return mNewEntries.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                return mOldEntries.get(oldItemPosition) == mNewEntries.get(newItemPosition);
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                return true;
             }
         }
     }
@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.bluetooth;
+
+import android.util.ArrayMap;
+import android.util.ArraySet;
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settings.dashboard.DashboardFragment;
+import com.android.settingslib.bluetooth.CachedBluetoothDevice;
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Coalesces the device updates of the {@link BluetoothDeviceUpdater}s of a page.
+ *
+ * During discovery every updater of the page is told about every change of every device, many
+ * times per frame. Instead of updating the list on each callback, the changed devices are
+ * collected per updater and, once per frame, matched against the filter of their updater on a
+ * background thread, since the filters query the Bluetooth service. The preferences are then added
+ * and removed together on the main thread. Full updates requested by several updaters in the same
+ * frame read the cached devices once.
+ *
+ * Must only be used from the main thread.
+ */
+final class BluetoothDeviceUpdateCoalescer {
+
+    // The coalescer of each page, released with the page.
+    private static final Map<DashboardFragment, BluetoothDeviceUpdateCoalescer> sCoalescers =
+            new WeakHashMap<>();
+
+    // The devices changed since the last batch, per updater.
+    private final ArrayMap<BluetoothDeviceUpdater, ArraySet<CachedBluetoothDevice>> mDirtyDevices =
+            new ArrayMap<>();
+    // The devices deleted while the batch was matched, per updater.
+    private final ArrayMap<BluetoothDeviceUpdater, ArraySet<CachedBluetoothDevice>>
+            mDeletedDevices = new ArrayMap<>();
+    // The updaters that need all the cached devices to be updated.
+    private final ArraySet<BluetoothDeviceUpdater> mFullUpdates = new ArraySet<>();
+    private final Choreographer.FrameCallback mFrameCallback = frameTimeNanos -> {
+        mFrameScheduled = false;
+        flush();
+    };
+    private boolean mFrameScheduled;
+    // Whether a batch is being matched on the background thread.
+    private boolean mBatchInFlight;
+
+    /** Returns the coalescer shared by the updaters of {@code fragment}. */
+    @NonNull
+    static BluetoothDeviceUpdateCoalescer get(@NonNull DashboardFragment fragment) {
+        BluetoothDeviceUpdateCoalescer coalescer = sCoalescers.get(fragment);
+        if (coalescer == null) {
+            coalescer = new BluetoothDeviceUpdateCoalescer();
+            sCoalescers.put(fragment, coalescer);
+        }
+        return coalescer;
+    }
+
+    @VisibleForTesting
+    BluetoothDeviceUpdateCoalescer() {
+    }
+
+    /** Updates {@code cachedDevice} in the list of {@code updater} on the next frame. */
+    void markDirty(@NonNull BluetoothDeviceUpdater updater,
+            @NonNull CachedBluetoothDevice cachedDevice) {
+        getDevices(mDirtyDevices, updater).add(cachedDevice);
+        scheduleFrame();
+    }
+
+    /** Updates every cached device in the list of {@code updater} on the next frame. */
+    void markAllDirty(@NonNull BluetoothDeviceUpdater updater) {
+        mFullUpdates.add(updater);
+        scheduleFrame();
+    }
+
+    /**
+     * Drops the pending update of {@code cachedDevice} in the list of {@code updater}, including
+     * the one of the batch being matched, once the device was deleted.
+     */
+    void remove(@NonNull BluetoothDeviceUpdater updater,
+            @NonNull CachedBluetoothDevice cachedDevice) {
+        final ArraySet<CachedBluetoothDevice> devices = mDirtyDevices.get(updater);
+        if (devices != null && devices.remove(cachedDevice) && devices.isEmpty()) {
+            mDirtyDevices.remove(updater);
+            removeFrameIfIdle();
+        }
+        if (mBatchInFlight) {
+            getDevices(mDeletedDevices, updater).add(cachedDevice);
+        }
+    }
+
+    /**
+     * Drops the pending updates of {@code updater}, including the ones of the batch being matched,
+     * e.g. once its list was cleared.
+     */
+    void cancel(@NonNull BluetoothDeviceUpdater updater) {
+        mDirtyDevices.remove(updater);
+        mFullUpdates.remove(updater);
+        updater.mUpdateGeneration++;
+        removeFrameIfIdle();
+    }
+
+    @VisibleForTesting
+    boolean hasPendingUpdates() {
+        return !mDirtyDevices.isEmpty() || !mFullUpdates.isEmpty();
+    }
+
+    private static ArraySet<CachedBluetoothDevice> getDevices(
+            ArrayMap<BluetoothDeviceUpdater, ArraySet<CachedBluetoothDevice>> devicesByUpdater,
+            BluetoothDeviceUpdater updater) {
+        ArraySet<CachedBluetoothDevice> devices = devicesByUpdater.get(updater);
+        if (devices == null) {
+            devices = new ArraySet<>();
+            devicesByUpdater.put(updater, devices);
+        }
+        return devices;
+    }
+
+    private void removeFrameIfIdle() {
+        if (mFrameScheduled && !hasPendingUpdates()) {
+            Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+            mFrameScheduled = false;
+        }
+    }
+
+    private void scheduleFrame() {
+        if (!mFrameScheduled && !mBatchInFlight) {
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+            mFrameScheduled = true;
+        }
+    }
+
+    /** Matches the pending devices on a background thread, then updates the lists. */
+    @VisibleForTesting
+    void flush() {
+        if (mBatchInFlight || !hasPendingUpdates()) {
+            return;
+        }
+        Collection<CachedBluetoothDevice> cachedDevices = null;
+        for (int i = 0; i < mFullUpdates.size(); i++) {
+            final BluetoothDeviceUpdater updater = mFullUpdates.valueAt(i);
+            if (cachedDevices == null) {
+                cachedDevices = updater.mLocalManager.getCachedDeviceManager()
+                        .getCachedDevicesCopy();
+            }
+            getDevices(mDirtyDevices, updater).addAll(cachedDevices);
+        }
+        mFullUpdates.clear();
+
+        final List<Update> batch = new ArrayList<>();
+        for (int i = 0; i < mDirtyDevices.size(); i++) {
+            final BluetoothDeviceUpdater updater = mDirtyDevices.keyAt(i);
+            for (CachedBluetoothDevice cachedDevice : mDirtyDevices.valueAt(i)) {
+                batch.add(new Update(updater, cachedDevice));
+            }
+        }
+        mDirtyDevices.clear();
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        mBatchInFlight = true;
+        ThreadUtils.postOnBackgroundThread(() -> {
+            for (Update update : batch) {
+                update.mFilterMatched = update.mUpdater.isFilterMatched(update.mCachedDevice);
+            }
+            ThreadUtils.postOnMainThread(() -> apply(batch));
+        });
+    }
+
+    private void apply(List<Update> batch) {
+        mBatchInFlight = false;
+        for (Update update : batch) {
+            final ArraySet<CachedBluetoothDevice> deletedDevices =
+                    mDeletedDevices.get(update.mUpdater);
+            if (update.mGeneration == update.mUpdater.mUpdateGeneration
+                    && (deletedDevices == null || !deletedDevices.contains(update.mCachedDevice))) {
+                update.mUpdater.applyFilterResult(update.mCachedDevice, update.mFilterMatched);
+            }
+        }
+        mDeletedDevices.clear();
+        // The devices that changed while the batch was matched wait for the next frame.
+        if (hasPendingUpdates()) {
+            scheduleFrame();
+        }
+    }
+
+    private static final class Update {
+        final BluetoothDeviceUpdater mUpdater;
+        final CachedBluetoothDevice mCachedDevice;
+        final int mGeneration;
+        // Written on the background thread, read on the main thread after the handoff.
+        boolean mFilterMatched;
+
+        Update(BluetoothDeviceUpdater updater, CachedBluetoothDevice cachedDevice) {
+            mUpdater = updater;
+            mCachedDevice = cachedDevice;
+            mGeneration = updater.mUpdateGeneration;
+        }
+    }
+}
@@ -61,6 +61,9 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
     protected DashboardFragment mFragment;
     @VisibleForTesting
     protected LocalBluetoothManager mLocalManager;
+    // Incremented to drop the coalesced updates being matched, only accessed on the main thread.
+    int mUpdateGeneration;
+    private BluetoothDeviceUpdateCoalescer mUpdateCoalescer;
 
     @VisibleForTesting
     final GearPreference.OnGearClickListener mDeviceProfilesListener = pref -> {
@@ -82,6 +85,16 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
         mMetricsFeatureProvider = FeatureFactory.getFactory(context).getMetricsFeatureProvider();
     }
 
+    /**
+     * Coalesce the device updates with the other updaters of the page, so the list is updated
+     * at most once per frame instead of on each bluetooth event.
+     */
+    public void enableUpdateCoalescing() {
+        if (mFragment != null) {
+            mUpdateCoalescer = BluetoothDeviceUpdateCoalescer.get(mFragment);
+        }
+    }
+
     /**
      * Register the bluetooth event callback and update the list
      */
@@ -107,6 +120,9 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
         mLocalManager.setForegroundActivity(null);
         mLocalManager.getEventManager().unregisterCallback(this);
         mLocalManager.getProfileManager().removeServiceListener(this);
+        if (mUpdateCoalescer != null) {
+            mUpdateCoalescer.cancel(this);
+        }
     }
 
     /**
@@ -118,6 +134,10 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
             return;
         }
         if (BluetoothAdapter.getDefaultAdapter().isEnabled()) {
+            if (mUpdateCoalescer != null) {
+                mUpdateCoalescer.markAllDirty(this);
+                return;
+            }
             final Collection<CachedBluetoothDevice> cachedDevices =
                     mLocalManager.getCachedDeviceManager().getCachedDevicesCopy();
             for (CachedBluetoothDevice cachedBluetoothDevice : cachedDevices) {
@@ -133,6 +153,9 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
             Log.e(TAG, "removeAllDevicesFromPreference() BT is not supported on this device");
             return;
         }
+        if (mUpdateCoalescer != null) {
+            mUpdateCoalescer.cancel(this);
+        }
         final Collection<CachedBluetoothDevice> cachedDevices =
                 mLocalManager.getCachedDeviceManager().getCachedDevicesCopy();
         for (CachedBluetoothDevice cachedBluetoothDevice : cachedDevices) {
@@ -151,7 +174,7 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
 
     @Override
     public void onDeviceAdded(CachedBluetoothDevice cachedDevice) {
-        update(cachedDevice);
+        scheduleUpdate(cachedDevice);
     }
 
     @Override
@@ -159,12 +182,15 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
         // Used to combine the hearing aid entries just after pairing. Once both the hearing aids
         // get connected and their hiSyncId gets populated, this gets called for one of the
         // 2 hearing aids so that only one entry in the connected devices list will be seen.
+        if (mUpdateCoalescer != null) {
+            mUpdateCoalescer.remove(this, cachedDevice);
+        }
         removePreference(cachedDevice);
     }
 
     @Override
     public void onDeviceBondStateChanged(CachedBluetoothDevice cachedDevice, int bondState) {
-        update(cachedDevice);
+        scheduleUpdate(cachedDevice);
     }
 
     @Override
@@ -174,7 +200,7 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
             Log.d(TAG, "onProfileConnectionStateChanged() device: " + cachedDevice.getName()
                     + ", state: " + state + ", bluetoothProfile: " + bluetoothProfile);
         }
-        update(cachedDevice);
+        scheduleUpdate(cachedDevice);
     }
 
     @Override
@@ -183,7 +209,7 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
             Log.d(TAG, "onAclConnectionStateChanged() device: " + cachedDevice.getName()
                     + ", state: " + state);
         }
-        update(cachedDevice);
+        scheduleUpdate(cachedDevice);
     }
 
     @Override
@@ -207,6 +233,8 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
     /**
      * Return {@code true} if {@code cachedBluetoothDevice} matches this
      * {@link BluetoothDeviceUpdater} and should stay in the list, otherwise return {@code false}
+     *
+     * When the updates are coalesced, this is called on a background thread.
      */
     public abstract boolean isFilterMatched(CachedBluetoothDevice cachedBluetoothDevice);
 
@@ -219,7 +247,28 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
      * Update whether to show {@link CachedBluetoothDevice} in the list.
      */
     protected void update(CachedBluetoothDevice cachedBluetoothDevice) {
-        if (isFilterMatched(cachedBluetoothDevice)) {
+        applyFilterResult(cachedBluetoothDevice, isFilterMatched(cachedBluetoothDevice));
+    }
+
+    /**
+     * Update whether to show {@link CachedBluetoothDevice} in the list, on the next frame if the
+     * updates are coalesced.
+     */
+    protected void scheduleUpdate(CachedBluetoothDevice cachedBluetoothDevice) {
+        if (mUpdateCoalescer != null) {
+            mUpdateCoalescer.markDirty(this, cachedBluetoothDevice);
+        } else {
+            update(cachedBluetoothDevice);
+        }
+    }
+
+    /**
+     * Show or hide {@link CachedBluetoothDevice} according to the result of
+     * {@link #isFilterMatched(CachedBluetoothDevice)}.
+     */
+    protected void applyFilterResult(CachedBluetoothDevice cachedBluetoothDevice,
+            boolean filterMatched) {
+        if (filterMatched) {
             // Add the preference if it is new one
             addPreference(cachedBluetoothDevice);
         } else {
@@ -67,7 +67,7 @@ public class SavedBluetoothDeviceUpdater extends BluetoothDeviceUpdater
             for (BluetoothDevice device : bluetoothDevices) {
                 final CachedBluetoothDevice cachedDevice = cachedManager.findDevice(device);
                 if (cachedDevice != null && !cachedManager.isSubDevice(device)) {
-                    update(cachedDevice);
+                    scheduleUpdate(cachedDevice);
                 }
             }
         } else {
@@ -88,8 +88,8 @@ public class SavedBluetoothDeviceUpdater extends BluetoothDeviceUpdater
     }
 
     @Override
-    public void update(CachedBluetoothDevice cachedDevice) {
-        if (isFilterMatched(cachedDevice)) {
+    protected void applyFilterResult(CachedBluetoothDevice cachedDevice, boolean filterMatched) {
+        if (filterMatched) {
             // Add the preference if it is new one
             addPreference(cachedDevice, BluetoothDevicePreference.SortType.TYPE_NO_SORT);
         } else {
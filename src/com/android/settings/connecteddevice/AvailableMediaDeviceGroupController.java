@@ -132,6 +132,7 @@ public class AvailableMediaDeviceGroupController extends BasePreferenceControlle
         mFragmentManager = fragment.getParentFragmentManager();
         mBluetoothDeviceUpdater = new AvailableMediaBluetoothDeviceUpdater(fragment.getContext(),
                 fragment, AvailableMediaDeviceGroupController.this);
+        mBluetoothDeviceUpdater.enableUpdateCoalescing();
     }
 
     @VisibleForTesting
@@ -161,6 +161,9 @@ public class ConnectedDeviceGroupController extends BasePreferenceController
                         ? new ConnectedUsbDeviceUpdater(context, fragment, this)
                         : null,
                 connectedDockUpdater);
+        if (mBluetoothDeviceUpdater != null) {
+            mBluetoothDeviceUpdater.enableUpdateCoalescing();
+        }
     }
 
     private boolean hasBluetoothFeature() {
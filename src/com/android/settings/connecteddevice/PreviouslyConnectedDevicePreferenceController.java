@@ -126,6 +126,7 @@ public class PreviouslyConnectedDevicePreferenceController extends BasePreferenc
     public void init(DashboardFragment fragment) {
         mBluetoothDeviceUpdater = new SavedBluetoothDeviceUpdater(fragment.getContext(),
                 fragment, PreviouslyConnectedDevicePreferenceController.this);
+        mBluetoothDeviceUpdater.enableUpdateCoalescing();
     }
 
     @Override
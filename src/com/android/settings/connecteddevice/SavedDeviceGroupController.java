@@ -118,6 +118,7 @@ public class SavedDeviceGroupController extends BasePreferenceController
     public void init(DashboardFragment fragment) {
         mBluetoothDeviceUpdater = new SavedBluetoothDeviceUpdater(fragment.getContext(),
                 fragment, SavedDeviceGroupController.this);
+        mBluetoothDeviceUpdater.enableUpdateCoalescing();
     }
 
     @VisibleForTesting
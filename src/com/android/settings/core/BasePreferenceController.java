@@ -415,6 +415,22 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
     public interface UiBlocker {
     }
 
+    /**
+     * Used for {@link BasePreferenceController} whose state can be computed off the main thread.
+     *
+     * When the hosting {@link com.android.settings.dashboard.DashboardFragment} evaluates its
+     * controllers in parallel, {@link #loadStateInBackground()} is called on a worker thread after
+     * {@code isAvailable()} returns {@code true}, and {@code updateState(Preference)} is called
+     * on the main thread afterwards. Implementations should only cache data in the background and
+     * must not touch any view or preference there.
+     */
+    public interface BackgroundStateLoader {
+        /**
+         * Loads the data needed by {@code updateState(Preference)}. Called on a worker thread.
+         */
+        void loadStateInBackground();
+    }
+
     /**
      * Set the metrics category of the parent fragment.
      *
@@ -35,6 +35,7 @@ import androidx.lifecycle.LifecycleObserver;
 import androidx.lifecycle.OnLifecycleEvent;
 
 import com.android.settings.dashboard.CategoryManager;
+import com.android.settings.dashboard.TileIconCache;
 import com.android.settingslib.drawer.Tile;
 
 import java.util.ArrayList;
@@ -226,6 +227,9 @@ public class CategoryMixin implements LifecycleObserver {
     private class PackageReceiver extends BroadcastReceiver {
         @Override
         public void onReceive(Context context, Intent intent) {
+            if (intent.getData() != null) {
+                TileIconCache.invalidate(intent.getData().getSchemeSpecificPart());
+            }
             updateCategories(true /* fromBroadcast */);
         }
     }
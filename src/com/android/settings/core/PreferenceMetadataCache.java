@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_APPEND;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_CONTROLLER;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_FOR_WORK;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_HIGHLIGHTABLE_MENU_KEY;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_ICON;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_KEY;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_KEYWORDS;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_PREF_TYPE;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_SEARCHABLE;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_SUMMARY;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_TITLE;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_UNAVAILABLE_SLICE_SUBTITLE;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Bundle;
+import android.os.LocaleList;
+import android.util.ArrayMap;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settings.core.PreferenceXmlParserUtils.MetadataFlag;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide cache of the metadata parsed by
+ * {@link PreferenceXmlParserUtils#extractMetadata(Context, int, int)}, keyed by package, xml
+ * resource and flags.
+ *
+ * Entries are immutable {@link PreferenceMetadata} records rather than {@link Bundle}s. They are
+ * also keyed by the locales, density and ui mode they were parsed with, the parts of the
+ * {@link Configuration} the parsed titles, summaries and icons depend on. Other configuration
+ * changes, e.g. rotating the device, keep using the same entries, so each screen is parsed once
+ * per locale and theme per process.
+ */
+public class PreferenceMetadataCache {
+
+    private static final Object sLock = new Object();
+    private static final ArrayMap<Key, List<PreferenceMetadata>> sCache = new ArrayMap<>();
+    private static final AtomicLong sHits = new AtomicLong();
+    private static final AtomicLong sMisses = new AtomicLong();
+
+    private PreferenceMetadataCache() {
+    }
+
+    /**
+     * Returns the cached metadata for {@code xmlResId} and {@code flags}, or {@code null} if it
+     * has not been parsed for the current configuration of {@code context}.
+     */
+    @Nullable
+    static List<PreferenceMetadata> get(Context context, int xmlResId, int flags) {
+        final Configuration configuration = getConfiguration(context);
+        if (configuration == null) {
+            return null;
+        }
+        final List<PreferenceMetadata> metadata;
+        synchronized (sLock) {
+            metadata = sCache.get(new Key(context.getPackageName(), configuration, xmlResId,
+                    flags));
+        }
+        (metadata != null ? sHits : sMisses).incrementAndGet();
+        return metadata;
+    }
+
+    /** Stores {@code metadata} parsed with the current configuration of {@code context}. */
+    static void put(Context context, int xmlResId, int flags, List<PreferenceMetadata> metadata) {
+        final Configuration configuration = getConfiguration(context);
+        if (configuration == null) {
+            return;
+        }
+        synchronized (sLock) {
+            sCache.put(new Key(context.getPackageName(), configuration, xmlResId, flags),
+                    metadata);
+        }
+    }
+
+    /** Returns the number of lookups served from the cache. */
+    public static long getHitCount() {
+        return sHits.get();
+    }
+
+    /** Returns the number of lookups that had to parse the xml. */
+    public static long getMissCount() {
+        return sMisses.get();
+    }
+
+    /** Drops every cached entry. */
+    public static void clear() {
+        synchronized (sLock) {
+            sCache.clear();
+        }
+    }
+
+    @VisibleForTesting
+    static int size() {
+        synchronized (sLock) {
+            return sCache.size();
+        }
+    }
+
+    @Nullable
+    private static Configuration getConfiguration(Context context) {
+        if (context == null || context.getResources() == null) {
+            return null;
+        }
+        return context.getResources().getConfiguration();
+    }
+
+    /**
+     * Immutable metadata of a single preference, holding only the fields requested by the flags
+     * it was parsed with.
+     */
+    public static final class PreferenceMetadata {
+        final int mFlags;
+        final String mType;
+        final String mKey;
+        final String mController;
+        final String mTitle;
+        final String mSummary;
+        final int mIcon;
+        final String mKeywords;
+        final boolean mSearchable;
+        final boolean mAppend;
+        final String mUnavailableSliceSubtitle;
+        final boolean mForWork;
+        final String mHighlightableMenuKey;
+
+        PreferenceMetadata(int flags, String type, String key, String controller, String title,
+                String summary, int icon, String keywords, boolean searchable, boolean append,
+                String unavailableSliceSubtitle, boolean forWork, String highlightableMenuKey) {
+            mFlags = flags;
+            mType = type;
+            mKey = key;
+            mController = controller;
+            mTitle = title;
+            mSummary = summary;
+            mIcon = icon;
+            mKeywords = keywords;
+            mSearchable = searchable;
+            mAppend = append;
+            mUnavailableSliceSubtitle = unavailableSliceSubtitle;
+            mForWork = forWork;
+            mHighlightableMenuKey = highlightableMenuKey;
+        }
+
+        /** Returns a new {@link Bundle} with the same content as the legacy parser output. */
+        Bundle toBundle() {
+            final Bundle bundle = new Bundle();
+            if (hasFlag(MetadataFlag.FLAG_NEED_PREF_TYPE)) {
+                bundle.putString(METADATA_PREF_TYPE, mType);
+            }
+            if (hasFlag(MetadataFlag.FLAG_NEED_KEY)) {
+                bundle.putString(METADATA_KEY, mKey);
+            }
+            if (hasFlag(MetadataFlag.FLAG_NEED_PREF_CONTROLLER)) {
+                bundle.putString(METADATA_CONTROLLER, mController);
+            }
+            if (hasFlag(MetadataFlag.FLAG_NEED_PREF_TITLE)) {
+                bundle.putString(METADATA_TITLE, mTitle);
+            }
+            if (hasFlag(MetadataFlag.FLAG_NEED_PREF_SUMMARY)) {
+                bundle.putString(METADATA_SUMMARY, mSummary);
+            }
+            if (hasFlag(MetadataFlag.FLAG_NEED_PREF_ICON)) {
+                bundle.putInt(METADATA_ICON, mIcon);
+            }
+            if (hasFlag(MetadataFlag.FLAG_NEED_KEYWORDS)) {
+                bundle.putString(METADATA_KEYWORDS, mKeywords);
+            }
+            if (hasFlag(MetadataFlag.FLAG_NEED_SEARCHABLE)) {
+                bundle.putBoolean(METADATA_SEARCHABLE, mSearchable);
+            }
+            if (hasFlag(MetadataFlag.FLAG_NEED_PREF_APPEND)
+                    && hasFlag(MetadataFlag.FLAG_INCLUDE_PREF_SCREEN)) {
+                bundle.putBoolean(METADATA_APPEND, mAppend);
+            }
+            if (hasFlag(MetadataFlag.FLAG_UNAVAILABLE_SLICE_SUBTITLE)) {
+                bundle.putString(METADATA_UNAVAILABLE_SLICE_SUBTITLE, mUnavailableSliceSubtitle);
+            }
+            if (hasFlag(MetadataFlag.FLAG_FOR_WORK)) {
+                bundle.putBoolean(METADATA_FOR_WORK, mForWork);
+            }
+            if (hasFlag(MetadataFlag.FLAG_NEED_HIGHLIGHTABLE_MENU_KEY)) {
+                bundle.putString(METADATA_HIGHLIGHTABLE_MENU_KEY, mHighlightableMenuKey);
+            }
+            return bundle;
+        }
+
+        private boolean hasFlag(int flag) {
+            return (mFlags & flag) != 0;
+        }
+    }
+
+    private static final class Key {
+        private final String mPackageName;
+        private final LocaleList mLocales;
+        private final int mDensityDpi;
+        private final int mUiMode;
+        private final int mXmlResId;
+        private final int mFlags;
+
+        Key(String packageName, Configuration configuration, int xmlResId, int flags) {
+            mPackageName = packageName;
+            mLocales = configuration.getLocales();
+            mDensityDpi = configuration.densityDpi;
+            mUiMode = configuration.uiMode;
+            mXmlResId = xmlResId;
+            mFlags = flags;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return mXmlResId == other.mXmlResId && mFlags == other.mFlags
+                    && mDensityDpi == other.mDensityDpi && mUiMode == other.mUiMode
+                    && Objects.equals(mPackageName, other.mPackageName)
+                    && Objects.equals(mLocales, other.mLocales);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mPackageName, mLocales, mDensityDpi, mUiMode, mXmlResId, mFlags);
+        }
+    }
+}
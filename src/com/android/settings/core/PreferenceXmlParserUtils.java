@@ -33,6 +33,7 @@ import androidx.annotation.IntDef;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.R;
+import com.android.settings.core.PreferenceMetadataCache.PreferenceMetadata;
 
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
@@ -42,6 +43,7 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -173,6 +175,9 @@ public class PreferenceXmlParserUtils {
     /**
      * Extracts metadata from preference xml and put them into a {@link Bundle}.
      *
+     * The parsed metadata is cached per configuration by {@link PreferenceMetadataCache}, each
+     * call returns new {@link Bundle}s.
+     *
      * @param xmlResId xml res id of a preference screen
      * @param flags    Should be one or more of {@link MetadataFlag}.
      */
@@ -184,6 +189,20 @@ public class PreferenceXmlParserUtils {
             Log.d(TAG, xmlResId + " is invalid.");
             return metadata;
         }
+        List<PreferenceMetadata> records = PreferenceMetadataCache.get(context, xmlResId, flags);
+        if (records == null) {
+            records = parseMetadata(context, xmlResId, flags);
+            PreferenceMetadataCache.put(context, xmlResId, flags, records);
+        }
+        for (PreferenceMetadata record : records) {
+            metadata.add(record.toBundle());
+        }
+        return metadata;
+    }
+
+    private static List<PreferenceMetadata> parseMetadata(Context context, @XmlRes int xmlResId,
+            int flags) throws IOException, XmlPullParserException {
+        final List<PreferenceMetadata> metadata = new ArrayList<>();
         final XmlResourceParser parser = context.getResources().getXml(xmlResId);
 
         int type;
@@ -204,7 +223,6 @@ public class PreferenceXmlParserUtils {
             if (!SUPPORTED_PREF_TYPES.contains(nodeName) && !nodeName.endsWith("Preference")) {
                 continue;
             }
-            final Bundle preferenceMetadata = new Bundle();
             final AttributeSet attrs = Xml.asAttributeSet(parser);
 
             final TypedArray preferenceAttributes = context.obtainStyledAttributes(attrs,
@@ -215,55 +233,36 @@ public class PreferenceXmlParserUtils {
                         attrs, R.styleable.PreferenceScreen);
             }
 
-            if (hasFlag(flags, MetadataFlag.FLAG_NEED_PREF_TYPE)) {
-                preferenceMetadata.putString(METADATA_PREF_TYPE, nodeName);
-            }
-            if (hasFlag(flags, MetadataFlag.FLAG_NEED_KEY)) {
-                preferenceMetadata.putString(METADATA_KEY, getKey(preferenceAttributes));
-            }
-            if (hasFlag(flags, MetadataFlag.FLAG_NEED_PREF_CONTROLLER)) {
-                preferenceMetadata.putString(METADATA_CONTROLLER,
-                        getController(preferenceAttributes));
-            }
-            if (hasFlag(flags, MetadataFlag.FLAG_NEED_PREF_TITLE)) {
-                preferenceMetadata.putString(METADATA_TITLE, getTitle(preferenceAttributes));
-            }
-            if (hasFlag(flags, MetadataFlag.FLAG_NEED_PREF_SUMMARY)) {
-                preferenceMetadata.putString(METADATA_SUMMARY, getSummary(preferenceAttributes));
-            }
-            if (hasFlag(flags, MetadataFlag.FLAG_NEED_PREF_ICON)) {
-                preferenceMetadata.putInt(METADATA_ICON, getIcon(preferenceAttributes));
-            }
-            if (hasFlag(flags, MetadataFlag.FLAG_NEED_KEYWORDS)) {
-                preferenceMetadata.putString(METADATA_KEYWORDS, getKeywords(preferenceAttributes));
-            }
-            if (hasFlag(flags, MetadataFlag.FLAG_NEED_SEARCHABLE)) {
-                preferenceMetadata.putBoolean(METADATA_SEARCHABLE,
-                        isSearchable(preferenceAttributes));
-            }
-            if (hasFlag(flags, MetadataFlag.FLAG_NEED_PREF_APPEND) && hasPrefScreenFlag) {
-                preferenceMetadata.putBoolean(METADATA_APPEND,
-                        isAppended(preferenceScreenAttributes));
-            }
-            if (hasFlag(flags, MetadataFlag.FLAG_UNAVAILABLE_SLICE_SUBTITLE)) {
-                preferenceMetadata.putString(METADATA_UNAVAILABLE_SLICE_SUBTITLE,
-                        getUnavailableSliceSubtitle(preferenceAttributes));
-            }
-            if (hasFlag(flags, MetadataFlag.FLAG_FOR_WORK)) {
-                preferenceMetadata.putBoolean(METADATA_FOR_WORK,
-                        isForWork(preferenceAttributes));
-            }
-            if (hasFlag(flags, MetadataFlag.FLAG_NEED_HIGHLIGHTABLE_MENU_KEY)) {
-                preferenceMetadata.putString(METADATA_HIGHLIGHTABLE_MENU_KEY,
-                        getHighlightableMenuKey(preferenceAttributes));
-            }
-            metadata.add(preferenceMetadata);
+            metadata.add(new PreferenceMetadata(flags,
+                    hasFlag(flags, MetadataFlag.FLAG_NEED_PREF_TYPE) ? nodeName : null,
+                    hasFlag(flags, MetadataFlag.FLAG_NEED_KEY)
+                            ? getKey(preferenceAttributes) : null,
+                    hasFlag(flags, MetadataFlag.FLAG_NEED_PREF_CONTROLLER)
+                            ? getController(preferenceAttributes) : null,
+                    hasFlag(flags, MetadataFlag.FLAG_NEED_PREF_TITLE)
+                            ? getTitle(preferenceAttributes) : null,
+                    hasFlag(flags, MetadataFlag.FLAG_NEED_PREF_SUMMARY)
+                            ? getSummary(preferenceAttributes) : null,
+                    hasFlag(flags, MetadataFlag.FLAG_NEED_PREF_ICON)
+                            ? getIcon(preferenceAttributes) : 0,
+                    hasFlag(flags, MetadataFlag.FLAG_NEED_KEYWORDS)
+                            ? getKeywords(preferenceAttributes) : null,
+                    hasFlag(flags, MetadataFlag.FLAG_NEED_SEARCHABLE)
+                            && isSearchable(preferenceAttributes),
+                    hasFlag(flags, MetadataFlag.FLAG_NEED_PREF_APPEND) && hasPrefScreenFlag
+                            && isAppended(preferenceScreenAttributes),
+                    hasFlag(flags, MetadataFlag.FLAG_UNAVAILABLE_SLICE_SUBTITLE)
+                            ? getUnavailableSliceSubtitle(preferenceAttributes) : null,
+                    hasFlag(flags, MetadataFlag.FLAG_FOR_WORK)
+                            && isForWork(preferenceAttributes),
+                    hasFlag(flags, MetadataFlag.FLAG_NEED_HIGHLIGHTABLE_MENU_KEY)
+                            ? getHighlightableMenuKey(preferenceAttributes) : null));
 
             preferenceAttributes.recycle();
         } while ((type = parser.next()) != XmlPullParser.END_DOCUMENT
                 && (type != XmlPullParser.END_TAG || parser.getDepth() > outerDepth));
         parser.close();
-        return metadata;
+        return Collections.unmodifiableList(metadata);
     }
 
     /**
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core.instrumentation;
+
+import android.util.ArrayMap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Process-wide latency statistics of the background loaders, keyed by loader name, so that slow
+ * loads can be spotted from a dump.
+ */
+public final class LoaderLatencyStats {
+
+    /** Loads the storage usage of every user, see {@code StorageAsyncLoader}. */
+    public static final String LOADER_STORAGE = "storage";
+    /** Computes the battery usage map and loads its labels and icons. */
+    public static final String LOADER_BATTERY_USAGE_MAP = "battery_usage_map";
+
+    private static final ArrayMap<String, Stats> sStats = new ArrayMap<>();
+
+    private LoaderLatencyStats() {
+    }
+
+    /** Records that {@code loader} finished a load that took {@code latencyMs}. */
+    public static void log(@NonNull String loader, long latencyMs) {
+        synchronized (sStats) {
+            Stats stats = sStats.get(loader);
+            if (stats == null) {
+                stats = new Stats(loader);
+                sStats.put(loader, stats);
+            }
+            stats.add(latencyMs);
+        }
+    }
+
+    /** Returns a snapshot of the statistics of every loader that finished a load so far. */
+    public static List<Stats> getStats() {
+        final List<Stats> result = new ArrayList<>();
+        synchronized (sStats) {
+            for (Stats stats : sStats.values()) {
+                result.add(stats.copy());
+            }
+        }
+        return result;
+    }
+
+    @VisibleForTesting
+    public static void reset() {
+        synchronized (sStats) {
+            sStats.clear();
+        }
+    }
+
+    /** Latency statistics of the loads of a single loader. */
+    public static class Stats {
+        private final String mLoader;
+        private int mCount;
+        private long mTotalLatencyMs;
+        private long mMaxLatencyMs;
+        private long mLastLatencyMs;
+
+        Stats(String loader) {
+            mLoader = loader;
+        }
+
+        public String getLoader() {
+            return mLoader;
+        }
+
+        public int getCount() {
+            return mCount;
+        }
+
+        public long getTotalLatencyMs() {
+            return mTotalLatencyMs;
+        }
+
+        public long getMaxLatencyMs() {
+            return mMaxLatencyMs;
+        }
+
+        public long getLastLatencyMs() {
+            return mLastLatencyMs;
+        }
+
+        void add(long latencyMs) {
+            mCount++;
+            mTotalLatencyMs += latencyMs;
+            mMaxLatencyMs = Math.max(mMaxLatencyMs, latencyMs);
+            mLastLatencyMs = latencyMs;
+        }
+
+        Stats copy() {
+            final Stats copy = new Stats(mLoader);
+            copy.mCount = mCount;
+            copy.mTotalLatencyMs = mTotalLatencyMs;
+            copy.mMaxLatencyMs = mMaxLatencyMs;
+            copy.mLastLatencyMs = mLastLatencyMs;
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core.instrumentation;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Pair;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.core.instrumentation.LogWriter;
+
+import java.io.PrintWriter;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the most recent startup phases of each page in memory, so that the startup time of a page
+ * can be attributed from a dump without attaching a profiler.
+ *
+ * Each record holds the page, the phase, and its start time and duration in
+ * {@link SystemClock#elapsedRealtimeNanos()}. Records are stored as primitive columns in a ring
+ * buffer that overwrites the oldest record once full. Page visibility events are recorded as
+ * {@link #PHASE_VISIBLE} with the latency reported by the visibility logger; user actions are
+ * ignored.
+ */
+public class PerformanceLogWriter implements LogWriter {
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({PHASE_CREATE_CONTROLLERS,
+            PHASE_DISPLAY_PREFERENCE,
+            PHASE_FIRST_BIND,
+            PHASE_TILE_INJECTION,
+            PHASE_OBSERVER_WAIT,
+            PHASE_FULLY_DRAWN,
+            PHASE_VISIBLE})
+    public @interface Phase {}
+
+    /** Creating the preference controllers of a page. */
+    public static final int PHASE_CREATE_CONTROLLERS = 0;
+    /** Calling displayPreference on every controller of a page. */
+    public static final int PHASE_DISPLAY_PREFERENCE = 1;
+    /** From attaching a page until its preferences are first bound to the list. */
+    public static final int PHASE_FIRST_BIND = 2;
+    /** Binding the injected tiles of a page. */
+    public static final int PHASE_TILE_INJECTION = 3;
+    /** Waiting for the dynamic data observers of injected tiles. */
+    public static final int PHASE_OBSERVER_WAIT = 4;
+    /** From attaching a page until it reports being fully drawn. */
+    public static final int PHASE_FULLY_DRAWN = 5;
+    /** The latency of a page becoming visible. */
+    public static final int PHASE_VISIBLE = 6;
+
+    private static final String[] PHASE_NAMES = {
+            "create_controllers",
+            "display_preference",
+            "first_bind",
+            "tile_injection",
+            "observer_wait",
+            "fully_drawn",
+            "visible",
+    };
+
+    @VisibleForTesting
+    static final int CAPACITY = 512;
+
+    private final int mCapacity;
+    private final int[] mPageIds;
+    private final int[] mPhases;
+    private final long[] mStartNanos;
+    private final long[] mDurationNanos;
+    // The total number of records, including the overwritten ones.
+    private long mRecordCount;
+
+    public PerformanceLogWriter() {
+        this(CAPACITY);
+    }
+
+    @VisibleForTesting
+    PerformanceLogWriter(int capacity) {
+        mCapacity = capacity;
+        mPageIds = new int[capacity];
+        mPhases = new int[capacity];
+        mStartNanos = new long[capacity];
+        mDurationNanos = new long[capacity];
+    }
+
+    /** Records that {@code phase} of page {@code pageId} ran from {@code startNanos} until now. */
+    public void phase(int pageId, @Phase int phase, long startNanos) {
+        phase(pageId, phase, startNanos, SystemClock.elapsedRealtimeNanos());
+    }
+
+    /**
+     * Records that {@code phase} of page {@code pageId} ran from {@code startNanos} to
+     * {@code endNanos}.
+     */
+    public synchronized void phase(int pageId, @Phase int phase, long startNanos, long endNanos) {
+        final int index = (int) (mRecordCount % mCapacity);
+        mPageIds[index] = pageId;
+        mPhases[index] = phase;
+        mStartNanos[index] = startNanos;
+        mDurationNanos[index] = Math.max(0L, endNanos - startNanos);
+        mRecordCount++;
+    }
+
+    @Override
+    public void visible(Context context, int attribution, int pageId, int latency) {
+        final long nowNanos = SystemClock.elapsedRealtimeNanos();
+        phase(pageId, PHASE_VISIBLE, nowNanos - TimeUnit.MILLISECONDS.toNanos(latency),
+                nowNanos);
+    }
+
+    @Override
+    public void hidden(Context context, int pageId, int visibleTime) {
+    }
+
+    @Override
+    public void action(Context context, int action, Pair<Integer, Object>... taggedData) {
+    }
+
+    @Override
+    public void action(Context context, int action, int value) {
+    }
+
+    @Override
+    public void action(Context context, int action, boolean value) {
+    }
+
+    @Override
+    public void action(Context context, int action, String pkg) {
+    }
+
+    @Override
+    public void action(int attribution, int action, int pageId, String key, int value) {
+    }
+
+    /** Returns the records still in the buffer, oldest first. */
+    @NonNull
+    public synchronized List<Record> getRecords() {
+        final int size = (int) Math.min(mRecordCount, mCapacity);
+        final List<Record> records = new ArrayList<>(size);
+        for (long i = mRecordCount - size; i < mRecordCount; i++) {
+            final int index = (int) (i % mCapacity);
+            records.add(new Record(mPageIds[index], mPhases[index], mStartNanos[index],
+                    mDurationNanos[index]));
+        }
+        return records;
+    }
+
+    /** Returns the number of records overwritten since this writer was created. */
+    public synchronized long getDroppedCount() {
+        return Math.max(0L, mRecordCount - mCapacity);
+    }
+
+    /** Prints the records still in the buffer, oldest first. */
+    public void dump(@NonNull PrintWriter writer) {
+        final List<Record> records = getRecords();
+        writer.println("PerformanceLogWriter: " + records.size() + " records, "
+                + getDroppedCount() + " dropped");
+        for (Record record : records) {
+            writer.println("  " + record);
+        }
+    }
+
+    /** Returns the name of {@code phase} used in dumps. */
+    @NonNull
+    public static String getPhaseName(@Phase int phase) {
+        return phase >= 0 && phase < PHASE_NAMES.length ? PHASE_NAMES[phase]
+                : String.valueOf(phase);
+    }
+
+    /** A copy of one record, made when the buffer is dumped. */
+    public static final class Record {
+        public final int mPageId;
+        @Phase
+        public final int mPhase;
+        public final long mStartNanos;
+        public final long mDurationNanos;
+
+        Record(int pageId, int phase, long startNanos, long durationNanos) {
+            mPageId = pageId;
+            mPhase = phase;
+            mStartNanos = startNanos;
+            mDurationNanos = durationNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "start=" + TimeUnit.NANOSECONDS.toMillis(mStartNanos) + "ms page=" + mPageId
+                    + " " + getPhaseName(mPhase) + " "
+                    + TimeUnit.NANOSECONDS.toMicros(mDurationNanos) + "us";
+        }
+    }
+}
@@ -32,16 +32,14 @@ import android.util.Pair;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.R;
-import com.android.settings.intelligence.LogProto.SettingsLog;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.core.instrumentation.LogWriter;
 
-import java.io.ByteArrayOutputStream;
-import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class SettingsIntelligenceLogWriter implements LogWriter {
     private static final String TAG = "IntelligenceLogWriter";
@@ -50,12 +48,24 @@ public class SettingsIntelligenceLogWriter implements LogWriter {
     private static final long MESSAGE_DELAY = DateUtils.MINUTE_IN_MILLIS; // 1 minute
     // Based on the exp, 99.5% users collect less than 150 data in 1 minute.
     private static final int CACHE_LOG_THRESHOLD = 150;
-
-    private List<SettingsLog> mSettingsLogList;
+    // Leaves room for bursts recorded while the worker thread is still sending a batch.
+    @VisibleForTesting
+    static final int BUFFER_CAPACITY = 1024;
+
+    private static final int FLUSH_IDLE = 0;
+    private static final int FLUSH_DELAYED = 1;
+    private static final int FLUSH_NOW = 2;
+
+    private final SettingsLogEventBuffer mEventBuffer =
+            new SettingsLogEventBuffer(BUFFER_CAPACITY);
+    // Only used on the worker thread.
+    private final SettingsLogEventBuffer.Event mEvent = new SettingsLogEventBuffer.Event();
+    private final SettingsLogEncoder mEncoder = new SettingsLogEncoder(16 * 1024);
+    // Whether a send is already posted, so that recording an event rarely touches the handler.
+    private final AtomicInteger mFlushState = new AtomicInteger(FLUSH_IDLE);
     private SendLogHandler mLogHandler;
 
     public SettingsIntelligenceLogWriter() {
-        mSettingsLogList = new LinkedList<>();
         final HandlerThread workerThread = new HandlerThread("SettingsIntelligenceLogWriter",
                 Process.THREAD_PRIORITY_BACKGROUND);
         workerThread.start();
@@ -118,50 +128,32 @@ public class SettingsIntelligenceLogWriter implements LogWriter {
 
     @Override
     public void action(int attribution, int action, int pageId, String key, int value) {
-        final ZonedDateTime now = ZonedDateTime.now(ZoneId.systemDefault());
-        final SettingsLog settingsLog = SettingsLog.newBuilder()
-                .setAttribution(attribution)
-                .setAction(action)
-                .setPageId(pageId)
-                .setChangedPreferenceKey(key != null ? key : "")
-                .setChangedPreferenceIntValue(value)
-                .setTimestamp(now.toString())
-                .build();
-        mLogHandler.post(() -> {
-            mSettingsLogList.add(settingsLog);
-        });
+        final int pending = mEventBuffer.offer(attribution, action, pageId,
+                key != null ? key : "", value, System.currentTimeMillis());
         if (action == SettingsEnums.ACTION_CONTEXTUAL_CARD_DISMISS
-                || mSettingsLogList.size() >= CACHE_LOG_THRESHOLD) {
+                || pending >= CACHE_LOG_THRESHOLD || pending < 0) {
             // Directly send this event to notify SI instantly that the card is dismissed
-            mLogHandler.sendLog();
-        } else {
+            if (mFlushState.getAndSet(FLUSH_NOW) != FLUSH_NOW) {
+                mLogHandler.sendLog();
+            }
+        } else if (mFlushState.compareAndSet(FLUSH_IDLE, FLUSH_DELAYED)) {
             mLogHandler.scheduleSendLog();
         }
     }
 
+    /**
+     * Moves the recorded events into the encoder, formatting their timestamps. Must only be
+     * called from the worker thread.
+     */
     @VisibleForTesting
-    static byte[] serialize(List<SettingsLog> settingsLogs) {
-        final int size = settingsLogs.size();
-        final ByteArrayOutputStream bout = new ByteArrayOutputStream();
-        final DataOutputStream output = new DataOutputStream(bout);
-        // The data format is "size, length, byte array, length, byte array ..."
-        try {
-            output.writeInt(size);
-            for (SettingsLog settingsLog : settingsLogs) {
-                final byte[] data = settingsLog.toByteArray();
-                output.writeInt(data.length);
-                output.write(data);
-            }
-            return bout.toByteArray();
-        } catch (Exception e) {
-            Log.e(TAG, "serialize error", e);
-            return null;
-        } finally {
-            try {
-                output.close();
-            } catch (Exception e) {
-                Log.e(TAG, "close error", e);
-            }
+    void drainEvents(SettingsLogEncoder encoder) throws IOException {
+        final ZoneId zone = ZoneId.systemDefault();
+        while (mEventBuffer.poll(mEvent)) {
+            final String timestamp = ZonedDateTime.ofInstant(
+                    Instant.ofEpochMilli(mEvent.mTimestampMillis), zone).toString();
+            encoder.append(mEvent.mAttribution, mEvent.mAction, mEvent.mPageId, mEvent.mKey,
+                    mEvent.mValue, timestamp);
+            mEvent.mKey = null;
         }
     }
 
@@ -172,7 +164,6 @@ public class SettingsIntelligenceLogWriter implements LogWriter {
         }
 
         void scheduleSendLog() {
-            removeCallbacks(mSendLogsRunnable);
             postDelayed(mSendLogsRunnable, MESSAGE_DELAY);
         }
 
@@ -183,6 +174,12 @@ public class SettingsIntelligenceLogWriter implements LogWriter {
     }
 
     private final Runnable mSendLogsRunnable = () -> {
+        // Events recorded from now on schedule the next send.
+        mFlushState.set(FLUSH_IDLE);
+        final int droppedCount = mEventBuffer.getAndResetDroppedCount();
+        if (droppedCount > 0) {
+            Log.w(TAG, "buffer full, dropped " + droppedCount + " logs");
+        }
         final Context context = FeatureFactory.getAppContext();
         if (context == null) {
             Log.e(TAG, "context is null");
@@ -190,14 +187,22 @@ public class SettingsIntelligenceLogWriter implements LogWriter {
         }
         final String action = context.getString(R.string
                 .config_settingsintelligence_log_action);
-        if (!TextUtils.isEmpty(action) && !mSettingsLogList.isEmpty()) {
+        mEncoder.reset();
+        try {
+            drainEvents(mEncoder);
+        } catch (IOException e) {
+            Log.e(TAG, "serialize error", e);
+            mEncoder.reset();
+            return;
+        }
+        if (!TextUtils.isEmpty(action) && mEncoder.getCount() > 0) {
             final Intent intent = new Intent();
             intent.setPackage(context.getString(R.string
                     .config_settingsintelligence_package_name));
             intent.setAction(action);
-            intent.putExtra(LOG, serialize(mSettingsLogList));
+            intent.putExtra(LOG, mEncoder.toByteArray());
             context.sendBroadcastAsUser(intent, UserHandle.CURRENT);
-            mSettingsLogList.clear();
         }
+        mEncoder.reset();
     };
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core.instrumentation;
+
+import static com.google.protobuf.CodedOutputStream.computeInt32Size;
+import static com.google.protobuf.CodedOutputStream.computeStringSize;
+
+import androidx.annotation.NonNull;
+
+import com.android.settings.intelligence.LogProto.SettingsLog;
+
+import com.google.protobuf.CodedOutputStream;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Encodes log events in the format read by Settings Intelligence: the number of events, then the
+ * length and the {@link SettingsLog} bytes of each event, with big-endian int lengths.
+ *
+ * Events are written field by field into a buffer that is kept across batches, without building
+ * a {@link SettingsLog} or copying each message.
+ */
+final class SettingsLogEncoder {
+
+    private static final int INT_SIZE = 4;
+
+    private byte[] mBuffer;
+    private int mPosition;
+    private int mCount;
+
+    SettingsLogEncoder(int initialCapacity) {
+        mBuffer = new byte[Math.max(initialCapacity, INT_SIZE)];
+        reset();
+    }
+
+    /** Drops the events of the current batch, keeping the buffer. */
+    void reset() {
+        mPosition = INT_SIZE;
+        mCount = 0;
+    }
+
+    /** Returns the number of events in the current batch. */
+    int getCount() {
+        return mCount;
+    }
+
+    /** Appends an event to the current batch. */
+    void append(int attribution, int action, int pageId, @NonNull String key, int value,
+            @NonNull String timestamp) throws IOException {
+        final int size = computeInt32Size(SettingsLog.ATTRIBUTION_FIELD_NUMBER, attribution)
+                + computeInt32Size(SettingsLog.ACTION_FIELD_NUMBER, action)
+                + computeInt32Size(SettingsLog.PAGE_ID_FIELD_NUMBER, pageId)
+                + computeStringSize(SettingsLog.CHANGED_PREFERENCE_KEY_FIELD_NUMBER, key)
+                + computeInt32Size(SettingsLog.CHANGED_PREFERENCE_INT_VALUE_FIELD_NUMBER, value)
+                + computeStringSize(SettingsLog.TIMESTAMP_FIELD_NUMBER, timestamp);
+        ensureCapacity(mPosition + INT_SIZE + size);
+        writeInt(mPosition, size);
+        final CodedOutputStream output =
+                CodedOutputStream.newInstance(mBuffer, mPosition + INT_SIZE, size);
+        output.writeInt32(SettingsLog.ATTRIBUTION_FIELD_NUMBER, attribution);
+        output.writeInt32(SettingsLog.ACTION_FIELD_NUMBER, action);
+        output.writeInt32(SettingsLog.PAGE_ID_FIELD_NUMBER, pageId);
+        output.writeString(SettingsLog.CHANGED_PREFERENCE_KEY_FIELD_NUMBER, key);
+        output.writeInt32(SettingsLog.CHANGED_PREFERENCE_INT_VALUE_FIELD_NUMBER, value);
+        output.writeString(SettingsLog.TIMESTAMP_FIELD_NUMBER, timestamp);
+        output.checkNoSpaceLeft();
+        mPosition += INT_SIZE + size;
+        mCount++;
+    }
+
+    /** Returns the encoded batch. */
+    @NonNull
+    byte[] toByteArray() {
+        writeInt(0, mCount);
+        return Arrays.copyOf(mBuffer, mPosition);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > mBuffer.length) {
+            mBuffer = Arrays.copyOf(mBuffer, Math.max(capacity, mBuffer.length * 2));
+        }
+    }
+
+    private void writeInt(int position, int value) {
+        mBuffer[position] = (byte) (value >>> 24);
+        mBuffer[position + 1] = (byte) (value >>> 16);
+        mBuffer[position + 2] = (byte) (value >>> 8);
+        mBuffer[position + 3] = (byte) value;
+    }
+}
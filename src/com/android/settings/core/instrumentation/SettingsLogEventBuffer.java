@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core.instrumentation;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded, lock-free ring buffer of log events, written by any number of threads and read by a
+ * single consumer thread.
+ *
+ * Events are stored as primitive columns, so recording one does not allocate. A producer claims a
+ * slot by advancing the tail, fills it, then publishes it by storing its sequence number; the
+ * consumer only reads slots that were published. An event that does not fit is dropped and
+ * counted.
+ */
+final class SettingsLogEventBuffer {
+
+    private final int mMask;
+    private final int[] mAttributions;
+    private final int[] mActions;
+    private final int[] mPageIds;
+    private final String[] mKeys;
+    private final int[] mValues;
+    private final long[] mTimestampMillis;
+    // The sequence number following the event stored in each slot, once it is readable.
+    private final AtomicLongArray mPublished;
+    // The sequence number of the next slot to claim.
+    private final AtomicLong mTail = new AtomicLong();
+    private final AtomicInteger mDroppedCount = new AtomicInteger();
+    // The sequence number of the next slot to read, only written by the consumer.
+    private volatile long mHead;
+
+    /** Creates a buffer holding up to {@code capacity} events, which must be a power of two. */
+    SettingsLogEventBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        mMask = capacity - 1;
+        mAttributions = new int[capacity];
+        mActions = new int[capacity];
+        mPageIds = new int[capacity];
+        mKeys = new String[capacity];
+        mValues = new int[capacity];
+        mTimestampMillis = new long[capacity];
+        mPublished = new AtomicLongArray(capacity);
+    }
+
+    /**
+     * Records an event. Safe to call from any thread.
+     *
+     * @return the number of events waiting to be read including this one, or {@code -1} if the
+     * buffer is full and the event was dropped.
+     */
+    int offer(int attribution, int action, int pageId, String key, int value,
+            long timestampMillis) {
+        long tail;
+        do {
+            tail = mTail.get();
+            if (tail - mHead > mMask) {
+                mDroppedCount.incrementAndGet();
+                return -1;
+            }
+        } while (!mTail.compareAndSet(tail, tail + 1));
+
+        final int index = (int) tail & mMask;
+        mAttributions[index] = attribution;
+        mActions[index] = action;
+        mPageIds[index] = pageId;
+        mKeys[index] = key;
+        mValues[index] = value;
+        mTimestampMillis[index] = timestampMillis;
+        mPublished.lazySet(index, tail + 1);
+        return (int) (tail + 1 - mHead);
+    }
+
+    /**
+     * Moves the oldest event into {@code event}. Must only be called from the consumer thread.
+     *
+     * @return {@code false} if no published event is waiting.
+     */
+    boolean poll(@NonNull Event event) {
+        final long head = mHead;
+        final int index = (int) head & mMask;
+        if (mPublished.get(index) != head + 1) {
+            return false;
+        }
+        event.mAttribution = mAttributions[index];
+        event.mAction = mActions[index];
+        event.mPageId = mPageIds[index];
+        event.mKey = mKeys[index];
+        event.mValue = mValues[index];
+        event.mTimestampMillis = mTimestampMillis[index];
+        mKeys[index] = null;
+        mHead = head + 1;
+        return true;
+    }
+
+    /** Returns the number of events claimed but not read yet. */
+    int size() {
+        return (int) (mTail.get() - mHead);
+    }
+
+    /** Returns the number of events dropped since the last call, and resets it. */
+    int getAndResetDroppedCount() {
+        return mDroppedCount.getAndSet(0);
+    }
+
+    /** A mutable copy of one event, reused by the consumer. */
+    static final class Event {
+        int mAttribution;
+        int mAction;
+        int mPageId;
+        String mKey;
+        int mValue;
+        long mTimestampMillis;
+    }
+}
@@ -25,11 +25,29 @@ import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
 public class SettingsMetricsFeatureProvider extends MetricsFeatureProvider {
     private static final String TAG = "SettingsMetricsFeature";
 
+    // Assigned by installLogWriters(), which runs in the super constructor.
+    private PerformanceLogWriter mPerformanceLogWriter;
+
     @Override
     protected void installLogWriters() {
+        mPerformanceLogWriter = new PerformanceLogWriter();
         mLoggerWriters.add(new StatsLogWriter());
         mLoggerWriters.add(new SettingsEventLogWriter());
         mLoggerWriters.add(new SettingsIntelligenceLogWriter());
+        mLoggerWriters.add(mPerformanceLogWriter);
+    }
+
+    /**
+     * Records that {@code phase} of page {@code pageId} ran from {@code startNanos}, in
+     * {@link android.os.SystemClock#elapsedRealtimeNanos()}, until now.
+     */
+    public void phase(int pageId, @PerformanceLogWriter.Phase int phase, long startNanos) {
+        mPerformanceLogWriter.phase(pageId, phase, startNanos);
+    }
+
+    /** Returns the writer keeping the performance trace of the pages. */
+    public PerformanceLogWriter getPerformanceLogWriter() {
+        return mPerformanceLogWriter;
     }
 
     /**
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.settings.dashboard;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.preference.Preference;
+
+import com.android.settings.core.BasePreferenceController;
+import com.android.settingslib.core.AbstractPreferenceController;
+import com.android.settingslib.utils.ThreadUtils;
+
+/**
+ * Evaluates the availability and background-safe state of a single controller off the main thread
+ * and records how long each phase took.
+ *
+ * The final preference mutation is left to the caller, which hands it over through
+ * {@link #runWhenFinished(Runnable)} on the main thread.
+ */
+public class ControllerTask implements Runnable {
+    private static final String TAG = "ControllerTask";
+
+    private final AbstractPreferenceController mController;
+
+    private boolean mAvailable;
+    private boolean mFinished;
+    private Runnable mPendingAction;
+    private long mAvailabilityMillis;
+    private long mBackgroundLoadMillis;
+    private long mUpdateStateMillis;
+
+    public ControllerTask(@NonNull AbstractPreferenceController controller) {
+        mController = controller;
+    }
+
+    @Override
+    public void run() {
+        try {
+            long startTime = SystemClock.elapsedRealtime();
+            mAvailable = mController.isAvailable();
+            mAvailabilityMillis = SystemClock.elapsedRealtime() - startTime;
+
+            if (mAvailable
+                    && mController instanceof BasePreferenceController.BackgroundStateLoader) {
+                startTime = SystemClock.elapsedRealtime();
+                ((BasePreferenceController.BackgroundStateLoader) mController)
+                        .loadStateInBackground();
+                mBackgroundLoadMillis = SystemClock.elapsedRealtime() - startTime;
+            }
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Failed to evaluate " + mController.getClass().getSimpleName(), e);
+            mAvailable = false;
+        } finally {
+            final Runnable pendingAction;
+            synchronized (this) {
+                mFinished = true;
+                pendingAction = mPendingAction;
+                mPendingAction = null;
+            }
+            if (pendingAction != null) {
+                ThreadUtils.postOnMainThread(pendingAction);
+            }
+        }
+    }
+
+    /**
+     * Runs {@code action} right away if the background phase has finished, otherwise posts it to
+     * the main thread as soon as the background phase completes.
+     *
+     * Must be called on the main thread.
+     */
+    public void runWhenFinished(@NonNull Runnable action) {
+        synchronized (this) {
+            if (!mFinished) {
+                mPendingAction = action;
+                return;
+            }
+        }
+        action.run();
+    }
+
+    /**
+     * Calls {@link AbstractPreferenceController#updateState} and records the time it took.
+     */
+    public void updateState(@NonNull Preference preference) {
+        final long startTime = SystemClock.elapsedRealtime();
+        mController.updateState(preference);
+        mUpdateStateMillis = SystemClock.elapsedRealtime() - startTime;
+    }
+
+    public AbstractPreferenceController getController() {
+        return mController;
+    }
+
+    /** Returns whether the controller reported itself as available. */
+    public synchronized boolean isAvailable() {
+        return mAvailable;
+    }
+
+    /** Returns whether the background phase has completed. */
+    public synchronized boolean isFinished() {
+        return mFinished;
+    }
+
+    /** Returns the total time spent on this controller, across threads. */
+    public long getTotalMillis() {
+        return mAvailabilityMillis + mBackgroundLoadMillis + mUpdateStateMillis;
+    }
+
+    @Override
+    public String toString() {
+        return mController.getClass().getSimpleName()
+                + " key=" + mController.getPreferenceKey()
+                + " available=" + mAvailabilityMillis + "ms"
+                + " load=" + mBackgroundLoadMillis + "ms"
+                + " updateState=" + mUpdateStateMillis + "ms";
+    }
+}
@@ -26,6 +26,8 @@ import static com.android.settingslib.drawer.SwitchesProvider.METHOD_GET_DYNAMIC
 import static com.android.settingslib.drawer.SwitchesProvider.METHOD_GET_PROVIDER_ICON;
 import static com.android.settingslib.drawer.SwitchesProvider.METHOD_IS_CHECKED;
 import static com.android.settingslib.drawer.SwitchesProvider.METHOD_ON_CHECKED_CHANGED;
+import static com.android.settingslib.drawer.TileUtils.META_DATA_PREFERENCE_ICON_BACKGROUND_ARGB;
+import static com.android.settingslib.drawer.TileUtils.META_DATA_PREFERENCE_ICON_BACKGROUND_HINT;
 import static com.android.settingslib.drawer.TileUtils.META_DATA_PREFERENCE_ICON_URI;
 import static com.android.settingslib.drawer.TileUtils.META_DATA_PREFERENCE_SUMMARY;
 import static com.android.settingslib.drawer.TileUtils.META_DATA_PREFERENCE_SUMMARY_URI;
@@ -39,6 +41,7 @@ import android.content.Context;
 import android.content.IContentProvider;
 import android.content.Intent;
 import android.content.pm.PackageManager;
+import android.content.res.Configuration;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.Icon;
 import android.graphics.drawable.LayerDrawable;
@@ -79,6 +82,8 @@ import com.android.settingslib.widget.AdaptiveIcon;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
 
 /**
  * Impl for {@code DashboardFeatureProvider}.
@@ -95,6 +100,8 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
     private final MetricsFeatureProvider mMetricsFeatureProvider;
     private final CategoryManager mCategoryManager;
     private final PackageManager mPackageManager;
+    // Icon being decoded for each preference, only accessed on the main thread.
+    private final Map<Preference, TileIconCache.Key> mPendingIconKeys = new WeakHashMap<>();
 
     public DashboardFeatureProviderImpl(Context context) {
         mContext = context.getApplicationContext();
@@ -278,6 +285,8 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
                     mContext, uri, providerMap, META_DATA_PREFERENCE_TITLE);
             if (!TextUtils.equals(titleFromUri, preference.getTitle())) {
                 observer.post(() -> preference.setTitle(titleFromUri));
+            } else {
+                observer.skipUpdate();
             }
         });
     }
@@ -306,6 +315,8 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
                     mContext, uri, providerMap, META_DATA_PREFERENCE_SUMMARY);
             if (!TextUtils.equals(summaryFromUri, preference.getSummary())) {
                 observer.post(() -> preference.setSummary(summaryFromUri));
+            } else {
+                observer.skipUpdate();
             }
         });
     }
@@ -423,11 +434,55 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
 
     private void setPreferenceIcon(Preference preference, Tile tile, boolean forceRoundedIcon,
             String iconPackage, Icon icon) {
-        Drawable iconDrawable = icon.loadDrawable(preference.getContext());
+        final Context context = preference.getContext();
+        if (icon.getType() != Icon.TYPE_RESOURCE) {
+            mPendingIconKeys.remove(preference);
+            applyPreferenceIcon(preference, iconPackage,
+                    loadPreferenceIcon(context, tile, forceRoundedIcon, iconPackage, icon));
+            return;
+        }
+
+        final TileIconCache.Key key =
+                getIconCacheKey(context, tile, forceRoundedIcon, iconPackage, icon);
+        final Drawable cachedIcon = TileIconCache.get(key);
+        if (cachedIcon != null) {
+            mPendingIconKeys.remove(preference);
+            preference.setIcon(cachedIcon);
+            return;
+        }
+
+        // Decode and tint the icon off the main thread. Reserve the icon space to avoid
+        // preference padding change.
+        preference.setIconSpaceReserved(true);
+        mPendingIconKeys.put(preference, key);
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final Drawable iconDrawable =
+                    loadPreferenceIcon(context, tile, forceRoundedIcon, iconPackage, icon);
+            TileIconCache.put(key, iconDrawable);
+            ThreadUtils.postOnMainThread(() -> {
+                // Skip if the preference has been bound to another icon in the meantime.
+                if (mPendingIconKeys.get(preference) != key) {
+                    return;
+                }
+                mPendingIconKeys.remove(preference);
+                applyPreferenceIcon(preference, iconPackage, iconDrawable);
+            });
+        });
+    }
+
+    private void applyPreferenceIcon(Preference preference, String iconPackage,
+            Drawable iconDrawable) {
         if (iconDrawable == null) {
             Log.w(TAG, "Set null preference icon for: " + iconPackage);
-            preference.setIcon(null);
-            return;
+        }
+        preference.setIcon(iconDrawable);
+    }
+
+    private Drawable loadPreferenceIcon(Context context, Tile tile, boolean forceRoundedIcon,
+            String iconPackage, Icon icon) {
+        Drawable iconDrawable = icon.loadDrawable(context);
+        if (iconDrawable == null) {
+            return null;
         }
         if (TextUtils.equals(tile.getCategory(), CategoryKey.CATEGORY_HOMEPAGE)) {
             if (iconPackage.equals(WELLBEING_PACKAGE) && iconDrawable instanceof LayerDrawable
@@ -435,13 +490,55 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
                 iconDrawable = ((LayerDrawable) iconDrawable).getDrawable(1);
                 iconDrawable.mutate();
             }
-            iconDrawable.setTint(Utils.getHomepageIconColor(preference.getContext()));
-        } else if (forceRoundedIcon && !TextUtils.equals(mContext.getPackageName(), iconPackage)) {
+            iconDrawable.setTint(Utils.getHomepageIconColor(context));
+        } else if (isRoundedIcon(forceRoundedIcon, iconPackage)) {
             iconDrawable = new AdaptiveIcon(mContext, iconDrawable,
                     R.dimen.dashboard_tile_foreground_image_inset);
             ((AdaptiveIcon) iconDrawable).setBackgroundColor(mContext, tile);
         }
-        preference.setIcon(iconDrawable);
+        return iconDrawable;
+    }
+
+    private TileIconCache.Key getIconCacheKey(Context context, Tile tile,
+            boolean forceRoundedIcon, String iconPackage, Icon icon) {
+        final boolean isHomepage = TextUtils.equals(tile.getCategory(),
+                CategoryKey.CATEGORY_HOMEPAGE);
+        final boolean rounded = !isHomepage && isRoundedIcon(forceRoundedIcon, iconPackage);
+        int backgroundHash = 0;
+        final Bundle metaData = tile.getMetaData();
+        if (rounded && metaData != null) {
+            backgroundHash = Objects.hash(metaData.get(META_DATA_PREFERENCE_ICON_BACKGROUND_HINT),
+                    metaData.get(META_DATA_PREFERENCE_ICON_BACKGROUND_ARGB));
+        }
+        // Tile#getIcon tints tintable icons with the colorControlNormal of the theme.
+        final boolean tintable = tile.isIconTintable(context);
+        final int tintColor;
+        if (isHomepage) {
+            tintColor = Utils.getHomepageIconColor(context);
+        } else if (tintable) {
+            tintColor = Utils.getColorAttrDefaultColor(context,
+                    android.R.attr.colorControlNormal);
+        } else {
+            tintColor = 0;
+        }
+        final Configuration config = context.getResources().getConfiguration();
+        return new TileIconCache.Key(icon.getResPackage(), getPackageUpdateTime(
+                icon.getResPackage()), icon.getResId(), tintable, tintColor, rounded,
+                backgroundHash, config.uiMode, config.densityDpi);
+    }
+
+    // Icons cached before the package was updated must not be reused, even if the update
+    // happened while no dashboard was listening for package broadcasts.
+    private long getPackageUpdateTime(String packageName) {
+        try {
+            return mPackageManager.getPackageInfo(packageName, 0 /* flags */).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            return 0;
+        }
+    }
+
+    private boolean isRoundedIcon(boolean forceRoundedIcon, String iconPackage) {
+        return forceRoundedIcon && !TextUtils.equals(mContext.getPackageName(), iconPackage);
     }
 
     private void launchIntentOrSelectProfile(FragmentActivity activity, Tile tile, Intent intent,
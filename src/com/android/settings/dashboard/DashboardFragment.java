@@ -20,8 +20,12 @@ import android.app.settings.SettingsEnums;
 import android.content.ContentResolver;
 import android.content.Context;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.text.TextUtils;
 import android.util.ArrayMap;
+import android.util.FeatureFlagUtils;
 import android.util.Log;
 
 import androidx.annotation.CallSuper;
@@ -38,7 +42,10 @@ import com.android.settings.SettingsPreferenceFragment;
 import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.CategoryMixin.CategoryHandler;
 import com.android.settings.core.CategoryMixin.CategoryListener;
+import com.android.settings.core.FeatureFlags;
 import com.android.settings.core.PreferenceControllerListHelper;
+import com.android.settings.core.instrumentation.PerformanceLogWriter;
+import com.android.settings.core.instrumentation.SettingsMetricsFeatureProvider;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.PrimarySwitchPreference;
 import com.android.settingslib.core.AbstractPreferenceController;
@@ -47,6 +54,7 @@ import com.android.settingslib.drawer.DashboardCategory;
 import com.android.settingslib.drawer.ProviderTile;
 import com.android.settingslib.drawer.Tile;
 import com.android.settingslib.search.Indexable;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -56,8 +64,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Base fragment for dashboard style UI containing a list of static and dynamic setting items.
@@ -67,7 +73,8 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         BasePreferenceController.UiBlockListener {
     public static final String CATEGORY = "category";
     private static final String TAG = "DashboardFragment";
-    private static final long TIMEOUT_MILLIS = 50L;
+    private static final long FRAME_BUDGET_MILLIS = 16L;
+    private static final long CONTROLLER_DEADLINE_MILLIS = 100L;
 
     @VisibleForTesting
     final ArrayMap<String, List<DynamicDataObserver>> mDashboardTilePrefKeys = new ArrayMap<>();
@@ -79,16 +86,30 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
     UiBlockerController mBlockerController;
     private DashboardFeatureProvider mDashboardFeatureProvider;
     private DashboardTilePlaceholderPreferenceController mPlaceholderPreferenceController;
+    private DynamicDataObserverTracker mObserverTracker;
+    private final DashboardTileDiffer mTileDiffer = new DashboardTileDiffer();
     private boolean mListeningToCategoryChange;
     private List<String> mSuppressInjectedTileKeys;
+    // Tasks of the latest parallel update, checked when its page deadline expires.
+    private List<ControllerTask> mControllerTasks = Collections.emptyList();
+    // Incremented by each parallel update and when the fragment stops, so that the controllers of
+    // a superseded update that finish late do not overwrite the state applied by the newer one.
+    private int mControllerUpdateGeneration;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mControllerDeadlineCheck = this::reportControllersOverDeadline;
+    // When this fragment was attached, in elapsed realtime nanos.
+    private long mAttachNanos;
+    private boolean mPreferencesBound;
 
     @Override
     public void onAttach(Context context) {
+        mAttachNanos = SystemClock.elapsedRealtimeNanos();
         super.onAttach(context);
         mSuppressInjectedTileKeys = Arrays.asList(context.getResources().getStringArray(
                 R.array.config_suppress_injected_tile_keys));
         mDashboardFeatureProvider = FeatureFactory.getFactory(context).
                 getDashboardFeatureProvider(context);
+        final long controllersStartNanos = SystemClock.elapsedRealtimeNanos();
         // Load preference controllers from code
         final List<AbstractPreferenceController> controllersFromCode =
                 createPreferenceControllers(context);
@@ -122,12 +143,16 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
             }
         });
 
+        mObserverTracker = new DynamicDataObserverTracker(getLogTag());
+        mObserverTracker.setOnWaitFinishedListener(startNanos ->
+                tracePhase(PerformanceLogWriter.PHASE_OBSERVER_WAIT, startNanos));
         mPlaceholderPreferenceController =
                 new DashboardTilePlaceholderPreferenceController(context);
         mControllers.add(mPlaceholderPreferenceController);
         for (AbstractPreferenceController controller : mControllers) {
             addPreferenceController(controller);
         }
+        tracePhase(PerformanceLogWriter.PHASE_CREATE_CONTROLLERS, controllersStartNanos);
     }
 
     @VisibleForTesting
@@ -175,7 +200,8 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         }
 
         if (categories == null) {
-            // force refreshing
+            // force refreshing, rebind every tile even if its content is unchanged
+            mTileDiffer.clear();
             refreshDashboardTiles(getLogTag());
         } else if (categories.contains(categoryKey)) {
             Log.i(TAG, "refresh tiles for " + categoryKey);
@@ -196,6 +222,15 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
                 });
     }
 
+    @Override
+    protected void onBindPreferences() {
+        super.onBindPreferences();
+        if (!mPreferencesBound) {
+            mPreferencesBound = true;
+            tracePhase(PerformanceLogWriter.PHASE_FIRST_BIND, mAttachNanos);
+        }
+    }
+
     @Override
     public void onStart() {
         super.onStart();
@@ -225,7 +260,7 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         super.onResume();
         updatePreferenceStates();
         writeElapsedTimeMetric(SettingsEnums.ACTION_DASHBOARD_VISIBLE_TIME,
-                "isParalleledControllers:false");
+                "isParalleledControllers:" + shouldUpdateInParallel());
     }
 
     @Override
@@ -247,6 +282,8 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
     @Override
     public void onStop() {
         super.onStop();
+        mObserverTracker.cancel();
+        cancelPreferenceStatesInParallel();
         unregisterDynamicDataObservers(new ArrayList<>(mRegisteredObservers));
         if (mListeningToCategoryChange) {
             final Activity activity = getActivity();
@@ -339,7 +376,9 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         addPreferencesFromResource(resId);
         final PreferenceScreen screen = getPreferenceScreen();
         screen.setOnExpandButtonClickListener(this);
+        final long startNanos = SystemClock.elapsedRealtimeNanos();
         displayResourceTilesToScreen(screen);
+        tracePhase(PerformanceLogWriter.PHASE_DISPLAY_PREFERENCE, startNanos);
     }
 
     /**
@@ -358,10 +397,31 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         return mPreferenceControllers.values();
     }
 
+    /**
+     * Returns {@code true} if the controllers of this fragment can be evaluated on a background
+     * thread. Availability checks and
+     * {@link BasePreferenceController.BackgroundStateLoader#loadStateInBackground()} then run on
+     * the shared worker pool, and only {@code updateState} runs on the main thread. The
+     * {@code isAvailable()} of every controller of the page must be safe to call off the main
+     * thread.
+     */
+    protected boolean isParalleledControllers() {
+        return false;
+    }
+
+    private boolean shouldUpdateInParallel() {
+        return isParalleledControllers() && getContext() != null
+                && FeatureFlagUtils.isEnabled(getContext(), FeatureFlags.CONTROLLER_ENHANCEMENT);
+    }
+
     /**
      * Update state of each preference managed by PreferenceController.
      */
     protected void updatePreferenceStates() {
+        if (shouldUpdateInParallel()) {
+            updatePreferenceStatesInParallel(false /* updateVisibility */);
+            return;
+        }
         final PreferenceScreen screen = getPreferenceScreen();
         Collection<List<AbstractPreferenceController>> controllerLists =
                 mPreferenceControllers.values();
@@ -400,6 +460,8 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
             // Intentionally do not cache PreferenceScreen because it will be recreated later.
             screen.removeAll();
         }
+        // Every tile has to be bound again on the new screen.
+        mTileDiffer.clear();
 
         // Add resource based tiles.
         displayResourceTiles();
@@ -410,6 +472,7 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         if (activity != null) {
             Log.d(tag, "All preferences added, reporting fully drawn");
             activity.reportFullyDrawn();
+            tracePhase(PerformanceLogWriter.PHASE_FULLY_DRAWN, mAttachNanos);
         }
 
         updatePreferenceVisibility(mPreferenceControllers);
@@ -423,6 +486,10 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         if (screen == null || mPreferenceControllers == null) {
             return;
         }
+        if (shouldUpdateInParallel()) {
+            updatePreferenceStatesInParallel(true /* updateVisibility */);
+            return;
+        }
         for (List<AbstractPreferenceController> controllerList : mPreferenceControllers.values()) {
             for (AbstractPreferenceController controller : controllerList) {
                 final String key = controller.getPreferenceKey();
@@ -439,6 +506,75 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         }
     }
 
+    /**
+     * Evaluates all controllers on the shared worker pool without blocking the main thread. The
+     * state of each controller is applied on the main thread as soon as it is evaluated, unless a
+     * newer update started or the fragment stopped in the meantime.
+     *
+     * The page has {@link #CONTROLLER_DEADLINE_MILLIS} to evaluate all of its controllers. The
+     * main thread never waits for it. Controllers that miss the deadline are logged with their
+     * timing breakdown and still applied when they finish.
+     */
+    @VisibleForTesting
+    void updatePreferenceStatesInParallel(boolean updateVisibility) {
+        final int generation = ++mControllerUpdateGeneration;
+        final List<ControllerTask> tasks = new ArrayList<>();
+        for (List<AbstractPreferenceController> controllerList : mPreferenceControllers.values()) {
+            for (AbstractPreferenceController controller : controllerList) {
+                final ControllerTask task = new ControllerTask(controller);
+                tasks.add(task);
+                task.runWhenFinished(
+                        () -> applyControllerTask(task, generation, updateVisibility));
+                ThreadUtils.postOnBackgroundThread(task);
+            }
+        }
+        mControllerTasks = tasks;
+        mMainHandler.removeCallbacks(mControllerDeadlineCheck);
+        mMainHandler.postDelayed(mControllerDeadlineCheck, CONTROLLER_DEADLINE_MILLIS);
+    }
+
+    private void cancelPreferenceStatesInParallel() {
+        mControllerUpdateGeneration++;
+        mControllerTasks = Collections.emptyList();
+        mMainHandler.removeCallbacks(mControllerDeadlineCheck);
+    }
+
+    private void reportControllersOverDeadline() {
+        for (ControllerTask task : mControllerTasks) {
+            if (!task.isFinished()) {
+                Log.w(TAG, getLogTag() + ": controller missed the " + CONTROLLER_DEADLINE_MILLIS
+                        + "ms page deadline, " + task);
+            }
+        }
+    }
+
+    private void applyControllerTask(ControllerTask task, int generation,
+            boolean updateVisibility) {
+        if (generation != mControllerUpdateGeneration) {
+            return;
+        }
+        final PreferenceScreen screen = getPreferenceScreen();
+        final AbstractPreferenceController controller = task.getController();
+        final String key = controller.getPreferenceKey();
+        if (screen == null || TextUtils.isEmpty(key)) {
+            return;
+        }
+        final Preference preference = screen.findPreference(key);
+        if (preference == null) {
+            return;
+        }
+        final boolean available = task.isAvailable();
+        if (available) {
+            task.updateState(preference);
+        }
+        if (updateVisibility) {
+            preference.setVisible(available);
+        }
+        if (task.getTotalMillis() > FRAME_BUDGET_MILLIS) {
+            Log.w(TAG, getLogTag() + ": controller over frame budget, " + task);
+        }
+    }
+
     @VisibleForTesting
     void updatePreferenceVisibility(
             Map<Class, List<AbstractPreferenceController>> preferenceControllers) {
@@ -471,6 +607,7 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
      * Refresh preference items backed by DashboardCategory.
      */
     private void refreshDashboardTiles(final String tag) {
+        final long startNanos = SystemClock.elapsedRealtimeNanos();
         final PreferenceScreen screen = getPreferenceScreen();
 
         final DashboardCategory category =
@@ -500,9 +637,15 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
                 continue;
             }
             final List<DynamicDataObserver> observers;
+            final boolean changed = mTileDiffer.hasChanged(getContext(), key, tile);
             if (mDashboardTilePrefKeys.containsKey(key)) {
-                // Have the key already, will rebind.
                 final Preference preference = screen.findPreference(key);
+                if (!changed && preference != null) {
+                    // Same content as last time, keep the bound preference in place.
+                    remove.remove(key);
+                    continue;
+                }
+                // Have the key already, will rebind.
                 observers = mDashboardFeatureProvider.bindPreferenceToTileAndGetObservers(
                         getActivity(), this, forceRoundedIcons, preference, tile, key,
                         mPlaceholderPreferenceController.getOrder());
@@ -526,25 +669,25 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         for (Map.Entry<String, List<DynamicDataObserver>> entry : remove.entrySet()) {
             final String key = entry.getKey();
             mDashboardTilePrefKeys.remove(key);
+            mTileDiffer.remove(key);
             final Preference preference = screen.findPreference(key);
             if (preference != null) {
                 screen.removePreference(preference);
             }
             unregisterDynamicDataObservers(entry.getValue());
         }
+        tracePhase(PerformanceLogWriter.PHASE_TILE_INJECTION, startNanos);
 
-        // Wait for pending observers to update UI.
+        // Tiles show placeholders until each observer patches in its result.
         if (!pendingObservers.isEmpty()) {
-            final CountDownLatch mainLatch = new CountDownLatch(1);
-            new Thread(() -> {
-                pendingObservers.forEach(observer ->
-                        awaitObserverLatch(observer.getCountDownLatch()));
-                mainLatch.countDown();
-            }).start();
-            Log.d(tag, "Start waiting observers");
-            awaitObserverLatch(mainLatch);
-            Log.d(tag, "Stop waiting observers");
-            pendingObservers.forEach(DynamicDataObserver::updateUi);
+            mObserverTracker.track(pendingObservers);
+        }
+    }
+
+    private void tracePhase(@PerformanceLogWriter.Phase int phase, long startNanos) {
+        if (mMetricsFeatureProvider instanceof SettingsMetricsFeatureProvider) {
+            ((SettingsMetricsFeatureProvider) mMetricsFeatureProvider).phase(
+                    getMetricsCategory(), phase, startNanos);
         }
     }
 
@@ -591,12 +734,4 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
             resolver.unregisterContentObserver(observer);
         });
     }
-
-    private void awaitObserverLatch(CountDownLatch latch) {
-        try {
-            latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            // Do nothing
-        }
-    }
 }
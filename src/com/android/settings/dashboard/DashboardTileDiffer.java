@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.settings.dashboard;
+
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.drawable.Icon;
+import android.os.Bundle;
+import android.util.ArrayMap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.drawer.Tile;
+
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Remembers a content hash for each bound dashboard tile, so that tiles whose title, summary,
+ * icon, intent, order or users did not change can keep their current {@link
+ * androidx.preference.Preference} instead of being rebound.
+ *
+ * The hash covers the tile intent, the whole metadata bundle, where injected tiles declare their
+ * switch and summary uris, and the resolved title, summary and icon, which may come from the
+ * injecting package's resources. It also covers the users the tile is available to, since the
+ * bound click listener launches the tile in one of them.
+ */
+public class DashboardTileDiffer {
+
+    private final ArrayMap<String, Integer> mContentHashes = new ArrayMap<>();
+
+    /**
+     * Returns {@code true} if {@code tile} differs from the one last recorded under {@code key},
+     * and records its current content.
+     */
+    public boolean hasChanged(@NonNull Context context, @NonNull String key, @NonNull Tile tile) {
+        final int hash = computeContentHash(context, tile);
+        final Integer previous = mContentHashes.put(key, hash);
+        return previous == null || previous != hash;
+    }
+
+    /** Forgets the tile recorded under {@code key}. */
+    public void remove(@NonNull String key) {
+        mContentHashes.remove(key);
+    }
+
+    /** Forgets all tiles, e.g. when the preference screen is rebuilt. */
+    public void clear() {
+        mContentHashes.clear();
+    }
+
+    @VisibleForTesting
+    static int computeContentHash(@NonNull Context context, @NonNull Tile tile) {
+        int hash = 17;
+        final Intent intent = tile.getIntent();
+        if (intent != null) {
+            hash = 31 * hash + intent.filterHashCode();
+        }
+        hash = 31 * hash + (tile.hasOrder() ? tile.getOrder() : 0);
+        hash = 31 * hash + Objects.hashCode(tile.userHandle);
+        hash = 31 * hash + Boolean.hashCode(tile.isPrimaryProfileOnly());
+        hash = 31 * hash + Objects.hashCode(toString(tile.getTitle(context)));
+        hash = 31 * hash + Objects.hashCode(toString(tile.getSummary(context)));
+        hash = 31 * hash + computeIconHash(tile.getIcon(context));
+        return 31 * hash + computeBundleHash(tile.getMetaData());
+    }
+
+    private static String toString(CharSequence text) {
+        return text != null ? text.toString() : null;
+    }
+
+    private static int computeIconHash(Icon icon) {
+        if (icon == null) {
+            return 0;
+        }
+        // Tiles declare their icons as resources, which can be compared without loading them.
+        if (icon.getType() != Icon.TYPE_RESOURCE) {
+            return icon.getType();
+        }
+        return Objects.hash(icon.getResPackage(), icon.getResId());
+    }
+
+    private static int computeBundleHash(Bundle bundle) {
+        if (bundle == null) {
+            return 0;
+        }
+        int hash = 0;
+        // Sorted so the hash doesn't depend on the bundle's internal ordering.
+        for (String key : new TreeSet<>(bundle.keySet())) {
+            final Object value = bundle.get(key);
+            hash = 31 * hash + key.hashCode();
+            hash = 31 * hash + (value instanceof Bundle
+                    ? computeBundleHash((Bundle) value) : Objects.hashCode(value));
+        }
+        return hash;
+    }
+}
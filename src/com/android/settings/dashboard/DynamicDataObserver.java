@@ -32,6 +32,7 @@ public abstract class DynamicDataObserver extends ContentObserver {
     private Runnable mUpdateRunnable;
     private CountDownLatch mCountDownLatch;
     private boolean mUpdateDelegated;
+    private Runnable mLoadedListener;
 
     protected DynamicDataObserver() {
         super(new Handler(Looper.getMainLooper()));
@@ -59,6 +60,20 @@ public abstract class DynamicDataObserver extends ContentObserver {
         return mCountDownLatch;
     }
 
+    /** Returns {@code true} if the first data load has finished. */
+    public boolean hasLoaded() {
+        return mCountDownLatch.getCount() == 0;
+    }
+
+    /** Runs {@code listener} on the main thread once the first data load has finished. */
+    public synchronized void runWhenLoaded(Runnable listener) {
+        if (hasLoaded()) {
+            ThreadUtils.postOnMainThread(listener);
+        } else {
+            mLoadedListener = listener;
+        }
+    }
+
     @Override
     public void onChange(boolean selfChange) {
         onDataChanged();
@@ -69,7 +84,21 @@ public abstract class DynamicDataObserver extends ContentObserver {
             ThreadUtils.postOnMainThread(runnable);
         } else {
             mUpdateRunnable = runnable;
-            mCountDownLatch.countDown();
+        }
+        mCountDownLatch.countDown();
+        notifyLoaded();
+    }
+
+    /** Called when data is loaded but the UI doesn't need to change. */
+    protected void skipUpdate() {
+        mCountDownLatch.countDown();
+        notifyLoaded();
+    }
+
+    private synchronized void notifyLoaded() {
+        if (mLoadedListener != null) {
+            ThreadUtils.postOnMainThread(mLoadedListener);
+            mLoadedListener = null;
         }
     }
 }
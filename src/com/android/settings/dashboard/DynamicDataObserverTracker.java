@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.settings.dashboard;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+/**
+ * Lets {@link DynamicDataObserver}s patch their results into the UI as they arrive, without
+ * blocking the main thread, and counts the observers that miss a combined timeout.
+ *
+ * Tiles are bound with placeholders first. Observers load their data on the shared
+ * {@link com.android.settingslib.utils.ThreadUtils} pool and post each result to the main thread
+ * once {@link DynamicDataObserver#updateUi()} has been called.
+ */
+public class DynamicDataObserverTracker {
+    private static final String TAG = "DynamicDataObserverTracker";
+    private static final long TIMEOUT_MILLIS = 300L;
+
+    private static final AtomicInteger sTrackedCount = new AtomicInteger();
+    private static final AtomicInteger sTimedOutCount = new AtomicInteger();
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final List<DynamicDataObserver> mPendingObservers = new ArrayList<>();
+    private final Runnable mTimeoutRunnable = this::onTimeout;
+    private final String mTag;
+    private final long mTimeoutMillis;
+    private LongConsumer mWaitFinishedListener;
+    // When the first of the pending observers started loading, in elapsed realtime nanos.
+    private long mWaitStartNanos;
+
+    public DynamicDataObserverTracker(@NonNull String tag) {
+        this(tag, TIMEOUT_MILLIS);
+    }
+
+    @VisibleForTesting
+    DynamicDataObserverTracker(@NonNull String tag, long timeoutMillis) {
+        mTag = tag;
+        mTimeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Applies any result already loaded by {@code observers} and lets later results go straight to
+     * the main thread. Observers that haven't loaded their data by the combined timeout are
+     * counted as timed out.
+     *
+     * Must be called on the main thread.
+     */
+    public void track(@NonNull List<DynamicDataObserver> observers) {
+        if (mPendingObservers.isEmpty()) {
+            mWaitStartNanos = SystemClock.elapsedRealtimeNanos();
+        }
+        for (DynamicDataObserver observer : observers) {
+            observer.updateUi();
+            sTrackedCount.incrementAndGet();
+            if (!observer.hasLoaded()) {
+                mPendingObservers.add(observer);
+                observer.runWhenLoaded(() -> onObserverLoaded(observer));
+            }
+        }
+        if (!mPendingObservers.isEmpty()) {
+            // One timeout covers every observer bound in this refresh.
+            mHandler.removeCallbacks(mTimeoutRunnable);
+            mHandler.postDelayed(mTimeoutRunnable, mTimeoutMillis);
+        }
+    }
+
+    /**
+     * Sets the listener called on the main thread with the time the wait started, in
+     * {@link SystemClock#elapsedRealtimeNanos()}, once every pending observer has loaded or the
+     * timeout has passed.
+     */
+    public void setOnWaitFinishedListener(@Nullable LongConsumer listener) {
+        mWaitFinishedListener = listener;
+    }
+
+    /** Stops waiting for pending observers without counting them as timed out. */
+    public void cancel() {
+        mHandler.removeCallbacks(mTimeoutRunnable);
+        mPendingObservers.clear();
+    }
+
+    private void onObserverLoaded(DynamicDataObserver observer) {
+        if (mPendingObservers.remove(observer) && mPendingObservers.isEmpty()) {
+            mHandler.removeCallbacks(mTimeoutRunnable);
+            notifyWaitFinished();
+        }
+    }
+
+    private void notifyWaitFinished() {
+        if (mWaitFinishedListener != null) {
+            mWaitFinishedListener.accept(mWaitStartNanos);
+        }
+    }
+
+    @VisibleForTesting
+    void onTimeout() {
+        if (mPendingObservers.isEmpty()) {
+            return;
+        }
+        int timedOut = 0;
+        for (DynamicDataObserver observer : mPendingObservers) {
+            if (!observer.hasLoaded()) {
+                timedOut++;
+            }
+        }
+        mPendingObservers.clear();
+        if (timedOut > 0) {
+            sTimedOutCount.addAndGet(timedOut);
+            Log.w(TAG, mTag + ": " + timedOut + " observer(s) timed out after "
+                    + mTimeoutMillis + "ms");
+        }
+        notifyWaitFinished();
+    }
+
+    /** Returns the number of observers tracked in this process. */
+    public static int getTrackedCount() {
+        return sTrackedCount.get();
+    }
+
+    /** Returns the number of observers that missed the timeout in this process. */
+    public static int getTimedOutCount() {
+        return sTimedOutCount.get();
+    }
+
+    @VisibleForTesting
+    static void resetCounts() {
+        sTrackedCount.set(0);
+        sTimedOutCount.set(0);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.settings.dashboard;
+
+import android.graphics.drawable.Drawable;
+import android.text.TextUtils;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide cache of decoded and tinted dashboard tile icons, bounded by the approximate size
+ * of the icon bitmaps.
+ *
+ * Icons are stored as {@link Drawable.ConstantState}s, so every preference gets its own drawable
+ * instance sharing the decoded content.
+ */
+public class TileIconCache {
+
+    @VisibleForTesting
+    static final int MAX_SIZE_BYTES = 2 * 1024 * 1024;
+    private static final int MIN_ENTRY_SIZE_BYTES = 1024;
+
+    private static final LruCache<Key, Entry> sCache = new LruCache<Key, Entry>(MAX_SIZE_BYTES) {
+        @Override
+        protected int sizeOf(Key key, Entry entry) {
+            return entry.mSizeBytes;
+        }
+    };
+
+    private static final AtomicLong sHits = new AtomicLong();
+    private static final AtomicLong sMisses = new AtomicLong();
+
+    private TileIconCache() {
+    }
+
+    /** Returns a new drawable for the icon cached under {@code key}, or {@code null}. */
+    @Nullable
+    public static Drawable get(@NonNull Key key) {
+        final Entry entry = sCache.get(key);
+        if (entry == null) {
+            sMisses.incrementAndGet();
+            return null;
+        }
+        sHits.incrementAndGet();
+        return entry.mState.newDrawable().mutate();
+    }
+
+    /** Caches {@code drawable} under {@code key}, if it can be shared. */
+    public static void put(@NonNull Key key, @Nullable Drawable drawable) {
+        final Drawable.ConstantState state = drawable == null ? null : drawable.getConstantState();
+        if (state == null) {
+            return;
+        }
+        final int size = Math.max(MIN_ENTRY_SIZE_BYTES,
+                drawable.getIntrinsicWidth() * drawable.getIntrinsicHeight() * 4);
+        sCache.put(key, new Entry(state, size));
+    }
+
+    /**
+     * Drops the icons of {@code packageName}, e.g. when the package is updated. Icons of a
+     * previous version are never returned anyway, this only frees their memory early.
+     */
+    public static void invalidate(@Nullable String packageName) {
+        if (TextUtils.isEmpty(packageName)) {
+            return;
+        }
+        for (Key key : sCache.snapshot().keySet()) {
+            if (packageName.equals(key.mPackageName)) {
+                sCache.remove(key);
+            }
+        }
+    }
+
+    /** Returns the number of lookups served from the cache. */
+    public static long getHitCount() {
+        return sHits.get();
+    }
+
+    /** Returns the number of lookups that had to load the icon. */
+    public static long getMissCount() {
+        return sMisses.get();
+    }
+
+    @VisibleForTesting
+    static void clear() {
+        sCache.evictAll();
+    }
+
+    @VisibleForTesting
+    static int size() {
+        return sCache.snapshot().size();
+    }
+
+    /**
+     * Identifies an icon by its resource and the way it is rendered for the tile, including the
+     * tint and the configuration it was loaded with, e.g. after switching to the dark theme.
+     * The last update time of the package keeps icons of a previous version from being reused.
+     */
+    public static final class Key {
+        private final String mPackageName;
+        private final long mPackageUpdateTime;
+        private final int mResId;
+        private final boolean mTintable;
+        private final int mTintColor;
+        private final boolean mRounded;
+        private final int mBackgroundHash;
+        private final int mUiMode;
+        private final int mDensityDpi;
+
+        public Key(String packageName, long packageUpdateTime, int resId, boolean tintable,
+                int tintColor, boolean rounded, int backgroundHash, int uiMode, int densityDpi) {
+            mPackageName = packageName;
+            mPackageUpdateTime = packageUpdateTime;
+            mResId = resId;
+            mTintable = tintable;
+            mTintColor = tintColor;
+            mRounded = rounded;
+            mBackgroundHash = backgroundHash;
+            mUiMode = uiMode;
+            mDensityDpi = densityDpi;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return mPackageUpdateTime == other.mPackageUpdateTime && mResId == other.mResId
+                    && mTintable == other.mTintable
+                    && mTintColor == other.mTintColor && mRounded == other.mRounded
+                    && mBackgroundHash == other.mBackgroundHash && mUiMode == other.mUiMode
+                    && mDensityDpi == other.mDensityDpi
+                    && Objects.equals(mPackageName, other.mPackageName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mPackageName, mPackageUpdateTime, mResId, mTintable, mTintColor, mRounded,
+                    mBackgroundHash, mUiMode, mDensityDpi);
+        }
+    }
+
+    private static class Entry {
+        final Drawable.ConstantState mState;
+        final int mSizeBytes;
+
+        Entry(Drawable.ConstantState state, int sizeBytes) {
+            mState = state;
+            mSizeBytes = sizeBytes;
+        }
+    }
+}
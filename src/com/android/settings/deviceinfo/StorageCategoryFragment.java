@@ -279,10 +279,18 @@ public class StorageCategoryFragment extends DashboardFragment
     public Loader<SparseArray<StorageAsyncLoader.StorageResult>> onCreateLoader(int id,
             Bundle args) {
         final Context context = getContext();
-        return new StorageAsyncLoader(context, mUserManager,
+        final StorageAsyncLoader loader = new StorageAsyncLoader(context, mUserManager,
                 mSelectedStorageEntry.getFsUuid(),
                 new StorageStatsSource(context),
                 context.getPackageManager());
+        loader.setCategoryListener(this::onCategorySizeLoaded);
+        return loader;
+    }
+
+    private void onCategorySizeLoaded(int userId, int category, long sizeBytes) {
+        if (userId == mUserId) {
+            mPreferenceController.onCategorySizeLoaded(category, sizeBytes);
+        }
     }
 
     @Override
@@ -41,6 +41,12 @@ public class FirmwareVersionSettings extends DashboardFragment {
         return SettingsEnums.DIALOG_FIRMWARE_VERSION;
     }
 
+    @Override
+    protected boolean isParalleledControllers() {
+        // The controllers only read build properties and resources to check their availability.
+        return true;
+    }
+
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
             new BaseSearchIndexProvider(R.xml.firmware_version);
 }
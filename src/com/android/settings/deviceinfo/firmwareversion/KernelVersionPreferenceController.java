@@ -28,12 +28,15 @@ import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 
-public class KernelVersionPreferenceController extends BasePreferenceController {
+public class KernelVersionPreferenceController extends BasePreferenceController
+        implements BasePreferenceController.BackgroundStateLoader {
 
     private static final String KEY_KERNEL_VERSION = "kernel_version";
     private static final String FILENAME_PROC_VERSION = "/proc/version";
     private static final String LOG_TAG = "KernelVersionPreferenceController";
     private boolean fullKernelVersion = false;
+    // Read from /proc/version off the main thread when the page loads its controllers in parallel.
+    private volatile String mKernelVersion;
 
     public KernelVersionPreferenceController(Context context, String preferenceKey) {
         super(context, preferenceKey);
@@ -44,9 +47,16 @@ public class KernelVersionPreferenceController extends BasePreferenceController
         return AVAILABLE;
     }
 
+    @Override
+    public void loadStateInBackground() {
+        mKernelVersion = DeviceInfoUtils.getFormattedKernelVersion(mContext);
+    }
+
     @Override
     public CharSequence getSummary() {
-        return DeviceInfoUtils.getFormattedKernelVersion(mContext);
+        final String kernelVersion = mKernelVersion;
+        return kernelVersion != null
+                ? kernelVersion : DeviceInfoUtils.getFormattedKernelVersion(mContext);
     }
 
     @Override
@@ -21,6 +21,7 @@ import static android.content.pm.ApplicationInfo.CATEGORY_GAME;
 import static android.content.pm.ApplicationInfo.CATEGORY_IMAGE;
 import static android.content.pm.ApplicationInfo.CATEGORY_VIDEO;
 
+import android.annotation.IntDef;
 import android.content.ContentResolver;
 import android.content.Context;
 import android.content.pm.ApplicationInfo;
@@ -30,35 +31,78 @@ import android.content.pm.UserInfo;
 import android.database.Cursor;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.os.UserHandle;
 import android.os.UserManager;
 import android.provider.MediaStore;
 import android.provider.MediaStore.Files.FileColumns;
 import android.provider.MediaStore.MediaColumns;
+import android.util.ArrayMap;
 import android.util.ArraySet;
 import android.util.Log;
 import android.util.SparseArray;
 
+import com.android.internal.util.ArrayUtils;
+import com.android.settings.core.instrumentation.LoaderLatencyStats;
 import com.android.settingslib.applications.StorageStatsSource;
 import com.android.settingslib.utils.AsyncLoaderCompat;
 
 import java.io.IOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * StorageAsyncLoader is a Loader which loads categorized app information and external stats for all
- * users
+ * users.
+ *
+ * The apps, media files, trash and external stats of every user are measured concurrently on a
+ * bounded pool, and each category is reported to the {@link CategoryListener} as soon as it is
+ * measured.
  */
 public class StorageAsyncLoader
         extends AsyncLoaderCompat<SparseArray<StorageAsyncLoader.StorageResult>> {
     private UserManager mUserManager;
     private static final String TAG = "StorageAsyncLoader";
+    private static final int MAX_THREADS = 4;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    public static final int SIZE_IMAGES = 0;
+    public static final int SIZE_VIDEOS = 1;
+    public static final int SIZE_AUDIO = 2;
+    public static final int SIZE_APPS = 3;
+    public static final int SIZE_GAMES = 4;
+    public static final int SIZE_DOCUMENTS_AND_OTHER = 5;
+    public static final int SIZE_TRASH = 6;
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({SIZE_IMAGES, SIZE_VIDEOS, SIZE_AUDIO, SIZE_APPS, SIZE_GAMES,
+            SIZE_DOCUMENTS_AND_OTHER, SIZE_TRASH})
+    public @interface SizeCategory {}
+
+    private static ExecutorService sExecutor;
+    // Set once MediaStore ignores the grouped media query, so that later loads go straight to
+    // one query per category.
+    private static volatile boolean sGroupedMediaQueryUnsupported;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicInteger mLoadGeneration = new AtomicInteger();
+    private volatile CategoryListener mCategoryListener;
 
     private String mUuid;
     private StorageStatsSource mStatsManager;
     private PackageManager mPackageManager;
-    private ArraySet<String> mSeenPackages;
 
     public StorageAsyncLoader(Context context, UserManager userManager,
             String uuid, StorageStatsSource source, PackageManager pm) {
@@ -69,13 +113,22 @@ public class StorageAsyncLoader
         mPackageManager = pm;
     }
 
+    /** Sets the listener notified on the main thread as each category is measured. */
+    public void setCategoryListener(CategoryListener listener) {
+        mCategoryListener = listener;
+    }
+
     @Override
     public SparseArray<StorageResult> loadInBackground() {
-        return getStorageResultsForUsers();
+        final long startTime = SystemClock.elapsedRealtime();
+        final SparseArray<StorageResult> results = getStorageResultsForUsers();
+        LoaderLatencyStats.log(LoaderLatencyStats.LOADER_STORAGE,
+                SystemClock.elapsedRealtime() - startTime);
+        return results;
     }
 
     private SparseArray<StorageResult> getStorageResultsForUsers() {
-        mSeenPackages = new ArraySet<>();
+        final int generation = mLoadGeneration.incrementAndGet();
         final SparseArray<StorageResult> results = new SparseArray<>();
         final List<UserInfo> infos = mUserManager.getUsers();
 
@@ -83,49 +136,205 @@ public class StorageAsyncLoader
         Collections.sort(infos,
                 (userInfo, otherUser) -> Integer.compare(userInfo.id, otherUser.id));
 
+        // Every task only writes its own fields of the user's result, which are read back once
+        // the task's future has completed.
+        final ExecutorService executor = getExecutor();
+        final List<Future<?>> futures = new ArrayList<>();
+        final SparseArray<ArrayMap<String, Long>> codeSizes = new SparseArray<>();
         for (UserInfo info : infos) {
-            final StorageResult result = getAppsAndGamesSize(info.id);
-
-            result.imagesSize = getFilesSize(info.id, MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
-                    null /* queryArgs */);
-            result.videosSize = getFilesSize(info.id, MediaStore.Video.Media.EXTERNAL_CONTENT_URI,
-                    null /* queryArgs */);
-            result.audioSize = getFilesSize(info.id, MediaStore.Audio.Media.EXTERNAL_CONTENT_URI,
-                    null /* queryArgs */);
-
-            final Bundle documentsAndOtherQueryArgs = new Bundle();
-            documentsAndOtherQueryArgs.putString(ContentResolver.QUERY_ARG_SQL_SELECTION,
-                    FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_IMAGE
-                    + " AND " + FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_VIDEO
-                    + " AND " + FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_AUDIO
-                    + " AND " + FileColumns.MIME_TYPE + " IS NOT NULL");
-            result.documentsAndOtherSize = getFilesSize(info.id,
-                    MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL),
-                    documentsAndOtherQueryArgs);
-
-            final Bundle trashQueryArgs = new Bundle();
-            trashQueryArgs.putInt(MediaStore.QUERY_ARG_MATCH_TRASHED, MediaStore.MATCH_ONLY);
-            result.trashSize = getFilesSize(info.id,
-                    MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL), trashQueryArgs);
-
-            results.put(info.id, result);
+            final int userId = info.id;
+            final StorageResult result = new StorageResult();
+            final ArrayMap<String, Long> userCodeSizes = new ArrayMap<>();
+            results.put(userId, result);
+            codeSizes.put(userId, userCodeSizes);
+
+            futures.add(executor.submit(() -> {
+                loadAppsAndGamesSize(userId, result, userCodeSizes);
+                publish(generation, userId, SIZE_APPS, result.allAppsExceptGamesSize);
+                publish(generation, userId, SIZE_GAMES, result.gamesSize);
+            }));
+            futures.add(executor.submit(() -> loadExternalStats(userId, result)));
+
+            final Context userContext = getUserContext(userId);
+            if (userContext == null) {
+                continue;
+            }
+            futures.add(executor.submit(() -> {
+                result.trashSize = getFilesSize(userContext,
+                        MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL),
+                        getTrashQueryArgs());
+                publish(generation, userId, SIZE_TRASH, result.trashSize);
+            }));
+            if (!sGroupedMediaQueryUnsupported) {
+                futures.add(executor.submit(() -> {
+                    if (!loadMediaSizesGrouped(userContext, result)) {
+                        loadMediaSizes(userContext, result);
+                    }
+                    publish(generation, userId, SIZE_IMAGES, result.imagesSize);
+                    publish(generation, userId, SIZE_VIDEOS, result.videosSize);
+                    publish(generation, userId, SIZE_AUDIO, result.audioSize);
+                    publish(generation, userId, SIZE_DOCUMENTS_AND_OTHER,
+                            result.documentsAndOtherSize);
+                }));
+            } else {
+                futures.add(executor.submit(() -> {
+                    result.imagesSize = getFilesSize(userContext,
+                            MediaStore.Images.Media.EXTERNAL_CONTENT_URI, null /* queryArgs */);
+                    publish(generation, userId, SIZE_IMAGES, result.imagesSize);
+                }));
+                futures.add(executor.submit(() -> {
+                    result.videosSize = getFilesSize(userContext,
+                            MediaStore.Video.Media.EXTERNAL_CONTENT_URI, null /* queryArgs */);
+                    publish(generation, userId, SIZE_VIDEOS, result.videosSize);
+                }));
+                futures.add(executor.submit(() -> {
+                    result.audioSize = getFilesSize(userContext,
+                            MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, null /* queryArgs */);
+                    publish(generation, userId, SIZE_AUDIO, result.audioSize);
+                }));
+                futures.add(executor.submit(() -> {
+                    result.documentsAndOtherSize = getFilesSize(userContext,
+                            MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL),
+                            getDocumentsAndOtherQueryArgs());
+                    publish(generation, userId, SIZE_DOCUMENTS_AND_OTHER,
+                            result.documentsAndOtherSize);
+                }));
+            }
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (int j = i; j < futures.size(); j++) {
+                    futures.get(j).cancel(true /* mayInterruptIfRunning */);
+                }
+                break;
+            } catch (ExecutionException e) {
+                Log.w(TAG, "Failed to measure storage", e.getCause());
+            }
+        }
+
+        // Code bytes may share between different profiles. To know all the duplicate code size
+        // and we can get a reasonable system size in StorageItemPreferenceController. The first
+        // user in id order owns the code of a package.
+        final ArraySet<String> seenPackages = new ArraySet<>();
+        for (int i = 0; i < codeSizes.size(); i++) {
+            final ArrayMap<String, Long> userCodeSizes = codeSizes.valueAt(i);
+            final StorageResult result = results.get(codeSizes.keyAt(i));
+            for (int j = 0; j < userCodeSizes.size(); j++) {
+                if (!seenPackages.add(userCodeSizes.keyAt(j))) {
+                    result.duplicateCodeSize += userCodeSizes.valueAt(j);
+                }
+            }
         }
         return results;
     }
 
-    private long getFilesSize(int userId, Uri uri, Bundle queryArgs) {
-        final Context perUserContext;
+    private void publish(int generation, int userId, @SizeCategory int category,
+            long sizeBytes) {
+        if (mCategoryListener == null) {
+            return;
+        }
+        mMainHandler.post(() -> {
+            final CategoryListener listener = mCategoryListener;
+            if (listener != null && isStarted() && generation == mLoadGeneration.get()) {
+                listener.onCategorySizeLoaded(userId, category, sizeBytes);
+            }
+        });
+    }
+
+    private Context getUserContext(int userId) {
         try {
-            perUserContext = getContext().createPackageContextAsUser(
+            return getContext().createPackageContextAsUser(
                 getContext().getApplicationContext().getPackageName(),
                 0 /* flags= */,
                 UserHandle.of(userId));
         } catch (NameNotFoundException e) {
             Log.e(TAG, "Not able to get Context for user ID " + userId);
-            return 0L;
+            return null;
+        }
+    }
+
+    /**
+     * Measures images, videos, audio and documents with one query grouped by media type. Returns
+     * {@code false} if MediaStore did not honor the grouping.
+     */
+    private boolean loadMediaSizesGrouped(Context userContext, StorageResult result) {
+        final Bundle queryArgs = new Bundle();
+        queryArgs.putString(ContentResolver.QUERY_ARG_SQL_SELECTION,
+                FileColumns.MIME_TYPE + " IS NOT NULL");
+        queryArgs.putString(ContentResolver.QUERY_ARG_SQL_GROUP_BY, FileColumns.MEDIA_TYPE);
+        try (Cursor cursor = userContext.getContentResolver().query(
+                MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL),
+                new String[] {FileColumns.MEDIA_TYPE, "sum(" + MediaColumns.SIZE + ")"},
+                queryArgs,
+                null /* cancellationSignal */)) {
+            if (cursor == null) {
+                return false;
+            }
+            final String[] honoredArgs = cursor.getExtras()
+                    .getStringArray(ContentResolver.EXTRA_HONORED_ARGS);
+            if (!ArrayUtils.contains(honoredArgs, ContentResolver.QUERY_ARG_SQL_GROUP_BY)) {
+                sGroupedMediaQueryUnsupported = true;
+                return false;
+            }
+            while (cursor.moveToNext()) {
+                final long size = cursor.getLong(1);
+                switch (cursor.getInt(0)) {
+                    case FileColumns.MEDIA_TYPE_IMAGE:
+                        result.imagesSize += size;
+                        break;
+                    case FileColumns.MEDIA_TYPE_VIDEO:
+                        result.videosSize += size;
+                        break;
+                    case FileColumns.MEDIA_TYPE_AUDIO:
+                        result.audioSize += size;
+                        break;
+                    default:
+                        result.documentsAndOtherSize += size;
+                        break;
+                }
+            }
+            return true;
+        } catch (IllegalArgumentException | SecurityException e) {
+            Log.w(TAG, "Grouped media query not supported", e);
+            sGroupedMediaQueryUnsupported = true;
+            return false;
         }
+    }
 
-        try (Cursor cursor = perUserContext.getContentResolver().query(
+    private void loadMediaSizes(Context userContext, StorageResult result) {
+        result.imagesSize = getFilesSize(userContext,
+                MediaStore.Images.Media.EXTERNAL_CONTENT_URI, null /* queryArgs */);
+        result.videosSize = getFilesSize(userContext,
+                MediaStore.Video.Media.EXTERNAL_CONTENT_URI, null /* queryArgs */);
+        result.audioSize = getFilesSize(userContext,
+                MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, null /* queryArgs */);
+        result.documentsAndOtherSize = getFilesSize(userContext,
+                MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL),
+                getDocumentsAndOtherQueryArgs());
+    }
+
+    private static Bundle getDocumentsAndOtherQueryArgs() {
+        final Bundle documentsAndOtherQueryArgs = new Bundle();
+        documentsAndOtherQueryArgs.putString(ContentResolver.QUERY_ARG_SQL_SELECTION,
+                FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_IMAGE
+                + " AND " + FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_VIDEO
+                + " AND " + FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_AUDIO
+                + " AND " + FileColumns.MIME_TYPE + " IS NOT NULL");
+        return documentsAndOtherQueryArgs;
+    }
+
+    private static Bundle getTrashQueryArgs() {
+        final Bundle trashQueryArgs = new Bundle();
+        trashQueryArgs.putInt(MediaStore.QUERY_ARG_MATCH_TRASHED, MediaStore.MATCH_ONLY);
+        return trashQueryArgs;
+    }
+
+    private long getFilesSize(Context userContext, Uri uri, Bundle queryArgs) {
+        try (Cursor cursor = userContext.getContentResolver().query(
                 uri,
                 new String[] {"sum(" + MediaColumns.SIZE + ")"},
                 queryArgs,
@@ -137,11 +346,11 @@ public class StorageAsyncLoader
         }
     }
 
-    private StorageResult getAppsAndGamesSize(int userId) {
+    private void loadAppsAndGamesSize(int userId, StorageResult result,
+            ArrayMap<String, Long> codeSizes) {
         Log.d(TAG, "Loading apps");
         final List<ApplicationInfo> applicationInfos =
                 mPackageManager.getInstalledApplicationsAsUser(0, userId);
-        final StorageResult result = new StorageResult();
         final UserHandle myUser = UserHandle.of(userId);
         for (int i = 0, size = applicationInfos.size(); i < size; i++) {
             final ApplicationInfo app = applicationInfos.get(i);
@@ -167,13 +376,7 @@ public class StorageAsyncLoader
                 blamedSize = blamedSize - cacheBytes + cacheQuota;
             }
 
-            // Code bytes may share between different profiles. To know all the duplicate code size
-            // and we can get a reasonable system size in StorageItemPreferenceController.
-            if (mSeenPackages.contains(app.packageName)) {
-                result.duplicateCodeSize += stats.getCodeBytes();
-            } else {
-                mSeenPackages.add(app.packageName);
-            }
+            codeSizes.put(app.packageName, stats.getCodeBytes());
 
             switch (app.category) {
                 case CATEGORY_GAME:
@@ -194,7 +397,9 @@ public class StorageAsyncLoader
                     break;
             }
         }
+    }
 
+    private void loadExternalStats(int userId, StorageResult result) {
         Log.d(TAG, "Loading external stats");
         try {
             result.externalStats = mStatsManager.getExternalStorageStats(mUuid,
@@ -203,7 +408,16 @@ public class StorageAsyncLoader
             Log.w(TAG, e);
         }
         Log.d(TAG, "Obtaining result completed");
-        return result;
+    }
+
+    private static synchronized ExecutorService getExecutor() {
+        if (sExecutor == null) {
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS,
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+            executor.allowCoreThreadTimeOut(true);
+            sExecutor = executor;
+        }
+        return sExecutor;
     }
 
     @Override
@@ -236,4 +450,10 @@ public class StorageAsyncLoader
         /** Overrides this method to get storage result once it's available. */
         void handleResult(SparseArray<StorageResult> result);
     }
+
+    /** Receives the size of each category as soon as it has been measured. */
+    public interface CategoryListener {
+        /** Called on the main thread when {@code category} of {@code userId} is measured. */
+        void onCategorySizeLoaded(int userId, @SizeCategory int category, long sizeBytes);
+    }
 }
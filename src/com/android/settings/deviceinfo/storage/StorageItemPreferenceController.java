@@ -410,6 +410,40 @@ public class StorageItemPreferenceController extends AbstractPreferenceControlle
         setPrivateStorageCategoryPreferencesVisibility(true);
     }
 
+    /**
+     * Updates the preference of a single category as soon as {@link StorageAsyncLoader} has
+     * measured it, ahead of {@link #onLoadFinished}.
+     */
+    public void onCategorySizeLoaded(@StorageAsyncLoader.SizeCategory int category,
+            long sizeBytes) {
+        final StorageItemPreference preference = getCategoryPreference(category);
+        if (preference != null) {
+            preference.setStorageSize(sizeBytes, mTotalSize, mIsPreferenceOrderedBySize);
+        }
+    }
+
+    private StorageItemPreference getCategoryPreference(
+            @StorageAsyncLoader.SizeCategory int category) {
+        switch (category) {
+            case StorageAsyncLoader.SIZE_IMAGES:
+                return mImagesPreference;
+            case StorageAsyncLoader.SIZE_VIDEOS:
+                return mVideosPreference;
+            case StorageAsyncLoader.SIZE_AUDIO:
+                return mAudioPreference;
+            case StorageAsyncLoader.SIZE_APPS:
+                return mAppsPreference;
+            case StorageAsyncLoader.SIZE_GAMES:
+                return mGamesPreference;
+            case StorageAsyncLoader.SIZE_DOCUMENTS_AND_OTHER:
+                return mDocumentsAndOtherPreference;
+            case StorageAsyncLoader.SIZE_TRASH:
+                return mTrashPreference;
+            default:
+                return null;
+        }
+    }
+
     private StorageCacheHelper.StorageCache getSizeInfo(
             SparseArray<StorageAsyncLoader.StorageResult> result, int userId) {
         if (result == null) {
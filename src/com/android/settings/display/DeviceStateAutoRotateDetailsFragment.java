@@ -66,6 +66,11 @@ public class DeviceStateAutoRotateDetailsFragment extends DashboardFragment {
 
     public static final Indexable.SearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
             new BaseSearchIndexProvider(R.xml.device_state_auto_rotate_settings) {
+                @Override
+                public boolean isStaticDataSnapshotable() {
+                    // The rows depend on the device state rotation settings.
+                    return false;
+                }
 
                 @Override
                 public List<SearchIndexableRaw> getRawDataToIndex(Context context,
@@ -331,6 +331,12 @@ public class ScreenTimeoutSettings extends RadioButtonPickerFragment implements
 
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
             new BaseSearchIndexProvider(R.xml.screen_timeout_settings) {
+                @Override
+                public boolean isStaticDataSnapshotable() {
+                    // The adaptive sleep row depends on the attention service.
+                    return false;
+                }
+
                 public List<SearchIndexableRaw> getRawDataToIndex(Context context,
                         boolean enabled) {
                     if (!isScreenAttentionAvailable(context)) {
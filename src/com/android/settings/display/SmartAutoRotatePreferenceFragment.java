@@ -140,6 +140,11 @@ public class SmartAutoRotatePreferenceFragment extends DashboardFragment {
 
     public static final Indexable.SearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
             new BaseSearchIndexProvider(R.xml.auto_rotate_settings) {
+                @Override
+                public boolean isStaticDataSnapshotable() {
+                    // The rows depend on the device state rotation settings.
+                    return false;
+                }
 
                 @Override
                 public List<SearchIndexableRaw> getRawDataToIndex(
@@ -175,6 +175,11 @@ public class EnterprisePrivacySettings extends DashboardFragment {
 
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
             new BaseSearchIndexProvider() {
+                @Override
+                public boolean isStaticDataSnapshotable() {
+                    // The page depends on the device owner.
+                    return false;
+                }
 
                 private PrivacySettingsPreference mPrivacySettingsPreference;
 
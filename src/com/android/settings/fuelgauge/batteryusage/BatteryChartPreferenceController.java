@@ -34,6 +34,7 @@ import android.view.accessibility.AccessibilityManager;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import androidx.preference.Preference;
 import androidx.preference.PreferenceGroup;
@@ -55,6 +56,7 @@ import com.android.settingslib.core.lifecycle.events.OnDestroy;
 import com.android.settingslib.core.lifecycle.events.OnResume;
 import com.android.settingslib.core.lifecycle.events.OnSaveInstanceState;
 import com.android.settingslib.utils.StringUtil;
+import com.android.settingslib.utils.ThreadUtils;
 import com.android.settingslib.widget.FooterPreference;
 
 import java.util.ArrayList;
@@ -84,6 +86,9 @@ public class BatteryChartPreferenceController extends AbstractPreferenceControll
 
     @VisibleForTesting
     Map<Integer, Map<Integer, BatteryDiffData>> mBatteryUsageMap;
+    // Whether mBatteryUsageMap only holds the days loaded so far.
+    @VisibleForTesting
+    boolean mIsBatteryUsageMapPartial = false;
 
     @VisibleForTesting
     Context mPrefContext;
@@ -139,6 +144,12 @@ public class BatteryChartPreferenceController extends AbstractPreferenceControll
     @VisibleForTesting
     final Map<String, Preference> mPreferenceCache = new HashMap<>();
 
+    // Prepared entries of each [daily][hourly] slot, valid for mPreparedUsageMap only. Guarded by
+    // itself since adjacent slots are prepared in the background, but only held to publish them.
+    @VisibleForTesting
+    final Map<Integer, Map<Integer, PreparedSlot>> mPreparedSlots = new HashMap<>();
+    private Map<Integer, Map<Integer, BatteryDiffData>> mPreparedUsageMap;
+
     public BatteryChartPreferenceController(
             Context context, String preferenceKey,
             Lifecycle lifecycle, SettingsActivity activity,
@@ -182,6 +193,7 @@ public class BatteryChartPreferenceController extends AbstractPreferenceControll
         if (sUiMode != currentUiMode) {
             sUiMode = currentUiMode;
             BatteryDiffEntry.clearCache();
+            clearPreparedSlots();
             Log.d(TAG, "clear icon and label cache since uiMode is changed");
         }
         mIs24HourFormat = DateFormat.is24HourFormat(mContext);
@@ -207,6 +219,7 @@ public class BatteryChartPreferenceController extends AbstractPreferenceControll
         }
         mHandler.removeCallbacksAndMessages(/*token=*/ null);
         mPreferenceCache.clear();
+        clearPreparedSlots();
         if (mAppListPrefGroup != null) {
             mAppListPrefGroup.removeAll();
         }
@@ -281,9 +294,20 @@ public class BatteryChartPreferenceController extends AbstractPreferenceControll
         animateBatteryChartViewGroup();
         final BatteryLevelData batteryLevelData =
                 DataProcessor.getBatteryLevelData(mContext, mHandler, batteryHistoryMap,
-                        batteryUsageMap -> {
-                            mBatteryUsageMap = batteryUsageMap;
-                            refreshUi();
+                        new DataProcessor.DailyUsageMapAsyncResponse() {
+                            @Override
+                            public void onDailyBatteryUsageMapLoaded(int dailyIndex,
+                                    Map<Integer, BatteryDiffData> dailyUsageMap) {
+                                setDailyBatteryUsageMap(dailyIndex, dailyUsageMap);
+                            }
+
+                            @Override
+                            public void onBatteryUsageMapLoaded(
+                                    Map<Integer, Map<Integer, BatteryDiffData>> batteryUsageMap) {
+                                mBatteryUsageMap = batteryUsageMap;
+                                mIsBatteryUsageMapPartial = false;
+                                refreshUi();
+                            }
                         });
         Log.d(TAG, "getBatteryLevelData: " + batteryLevelData);
         mMetricsFeatureProvider.action(
@@ -316,6 +340,25 @@ public class BatteryChartPreferenceController extends AbstractPreferenceControll
         refreshUi();
     }
 
+    @VisibleForTesting
+    void setDailyBatteryUsageMap(int dailyIndex,
+            final Map<Integer, BatteryDiffData> dailyUsageMap) {
+        if (mBatteryUsageMap != null && !mIsBatteryUsageMapPartial) {
+            // Keeps showing the complete data until the new one is completely loaded.
+            return;
+        }
+        final Map<Integer, Map<Integer, BatteryDiffData>> batteryUsageMap =
+                mBatteryUsageMap == null ? new HashMap<>() : new HashMap<>(mBatteryUsageMap);
+        batteryUsageMap.put(dailyIndex, dailyUsageMap);
+        mBatteryUsageMap = batteryUsageMap;
+        mIsBatteryUsageMapPartial = true;
+        // Only the slots of the selected day, or of the whole period loaded so far, can be shown
+        // before all days are loaded.
+        if (mDailyChartIndex == dailyIndex) {
+            refreshUi();
+        }
+    }
+
     void setBatteryChartView(@NonNull final BatteryChartView dailyChartView,
             @NonNull final BatteryChartView hourlyChartView) {
         final View parentView = (View) dailyChartView.getParent();
@@ -397,6 +440,7 @@ public class BatteryChartPreferenceController extends AbstractPreferenceControll
             refreshCategoryTitle();
             Log.d(TAG, String.format("refreshUi is finished in %d/ms",
                     (System.currentTimeMillis() - start)));
+            prepareAdjacentSlotsInBackground();
         });
         return true;
     }
@@ -458,22 +502,24 @@ public class BatteryChartPreferenceController extends AbstractPreferenceControll
     }
 
     private void addAllPreferences() {
-        final BatteryDiffData batteryDiffData =
-                mBatteryUsageMap.get(mDailyChartIndex).get(mHourlyChartIndex);
-        addFooterPreferenceIfNeeded(batteryDiffData != null
-                && (!batteryDiffData.getAppDiffEntryList().isEmpty()
-                || !batteryDiffData.getSystemDiffEntryList().isEmpty()));
-        if (batteryDiffData == null) {
+        final PreparedSlot preparedSlot =
+                getPreparedSlot(mBatteryUsageMap, mDailyChartIndex, mHourlyChartIndex);
+        if (preparedSlot == null && mIsBatteryUsageMapPartial) {
+            // The selected slot is not loaded yet, it is shown once its day is loaded.
+            return;
+        }
+        addFooterPreferenceIfNeeded(preparedSlot != null
+                && (!preparedSlot.mBatteryDiffData.getAppDiffEntryList().isEmpty()
+                || !preparedSlot.mBatteryDiffData.getSystemDiffEntryList().isEmpty()));
+        if (preparedSlot == null) {
             Log.w(TAG, "cannot find BatteryDiffEntry for daily_index: " + mDailyChartIndex
                     + " hourly_index: " + mHourlyChartIndex);
             return;
         }
         // Adds app entries to the list if it is not empty.
-        if (!batteryDiffData.getAppDiffEntryList().isEmpty()) {
-            addPreferenceToScreen(batteryDiffData.getAppDiffEntryList());
-        }
+        addPreparedEntriesToScreen(preparedSlot.mAppEntries);
         // Adds the expandable divider if we have system entries data.
-        if (!batteryDiffData.getSystemDiffEntryList().isEmpty()) {
+        if (!preparedSlot.mBatteryDiffData.getSystemDiffEntryList().isEmpty()) {
             if (mExpandDividerPreference == null) {
                 mExpandDividerPreference = new ExpandDividerPreference(mPrefContext);
                 mExpandDividerPreference.setOnExpandListener(this);
@@ -488,18 +534,17 @@ public class BatteryChartPreferenceController extends AbstractPreferenceControll
 
     @VisibleForTesting
     void addPreferenceToScreen(List<BatteryDiffEntry> entries) {
+        addPreparedEntriesToScreen(prepareEntries(entries));
+    }
+
+    private void addPreparedEntriesToScreen(List<PreparedEntry> entries) {
         if (mAppListPrefGroup == null || entries.isEmpty()) {
             return;
         }
         int prefIndex = mAppListPrefGroup.getPreferenceCount();
-        for (BatteryDiffEntry entry : entries) {
+        for (PreparedEntry preparedEntry : entries) {
             boolean isAdded = false;
-            final String appLabel = entry.getAppLabel();
-            final Drawable appIcon = entry.getAppIcon();
-            if (TextUtils.isEmpty(appLabel) || appIcon == null) {
-                Log.w(TAG, "cannot find app resource for:" + entry.getPackageName());
-                continue;
-            }
+            final BatteryDiffEntry entry = preparedEntry.mEntry;
             final String prefKey = entry.mBatteryHistEntry.getKey();
             PowerGaugePreference pref = mAppListPrefGroup.findPreference(prefKey);
             if (pref != null) {
@@ -514,23 +559,136 @@ public class BatteryChartPreferenceController extends AbstractPreferenceControll
                 pref.setKey(prefKey);
                 mPreferenceCache.put(prefKey, pref);
             }
-            pref.setIcon(appIcon);
-            pref.setTitle(appLabel);
+            pref.setIcon(preparedEntry.mIcon);
+            pref.setTitle(preparedEntry.mLabel);
             pref.setOrder(prefIndex);
             pref.setPercent(entry.getPercentOfTotal());
             pref.setSingleLineTitle(true);
             // Sets the BatteryDiffEntry to preference for launching detailed page.
             pref.setBatteryDiffEntry(entry);
-            pref.setEnabled(entry.validForRestriction());
-            setPreferenceSummary(pref, entry);
+            pref.setEnabled(preparedEntry.mEnabled);
+            pref.setSummary(preparedEntry.mSummary);
             if (!isAdded) {
                 mAppListPrefGroup.addPreference(pref);
             }
-            appIcon.setAlpha(pref.isEnabled() ? ENABLED_ICON_ALPHA : DISABLED_ICON_ALPHA);
+            preparedEntry.mIcon.setAlpha(
+                    pref.isEnabled() ? ENABLED_ICON_ALPHA : DISABLED_ICON_ALPHA);
             prefIndex++;
         }
     }
 
+    // Returns the prepared entries of the slot, preparing them now if they are not cached.
+    @Nullable
+    private PreparedSlot getPreparedSlot(
+            @Nullable final Map<Integer, Map<Integer, BatteryDiffData>> batteryUsageMap,
+            int dailyIndex, int hourlyIndex) {
+        if (batteryUsageMap == null) {
+            return null;
+        }
+        synchronized (mPreparedSlots) {
+            if (mPreparedUsageMap != batteryUsageMap) {
+                // New battery history arrived, the prepared entries are stale.
+                mPreparedSlots.clear();
+                mPreparedUsageMap = batteryUsageMap;
+            }
+            final PreparedSlot preparedSlot = findPreparedSlot(dailyIndex, hourlyIndex);
+            if (preparedSlot != null) {
+                return preparedSlot;
+            }
+        }
+        return prepareSlot(batteryUsageMap, dailyIndex, hourlyIndex);
+    }
+
+    // Prepares the slots next to the selected one on both charts, so that selecting them only
+    // binds the cached entries.
+    private void prepareAdjacentSlotsInBackground() {
+        final Map<Integer, Map<Integer, BatteryDiffData>> batteryUsageMap = mBatteryUsageMap;
+        final int dailyIndex = mDailyChartIndex;
+        final int hourlyIndex = mHourlyChartIndex;
+        ThreadUtils.postOnBackgroundThread(() -> {
+            prepareSlotIfCurrent(batteryUsageMap, dailyIndex, hourlyIndex - 1);
+            prepareSlotIfCurrent(batteryUsageMap, dailyIndex, hourlyIndex + 1);
+            prepareSlotIfCurrent(batteryUsageMap, dailyIndex - 1,
+                    BatteryChartViewModel.SELECTED_INDEX_ALL);
+            prepareSlotIfCurrent(batteryUsageMap, dailyIndex + 1,
+                    BatteryChartViewModel.SELECTED_INDEX_ALL);
+        });
+    }
+
+    private void prepareSlotIfCurrent(
+            final Map<Integer, Map<Integer, BatteryDiffData>> batteryUsageMap,
+            int dailyIndex, int hourlyIndex) {
+        synchronized (mPreparedSlots) {
+            // Skips the slots of a battery usage map replaced in the meantime.
+            if (mPreparedUsageMap != batteryUsageMap
+                    || findPreparedSlot(dailyIndex, hourlyIndex) != null) {
+                return;
+            }
+        }
+        prepareSlot(batteryUsageMap, dailyIndex, hourlyIndex);
+    }
+
+    // Prepares the entries of the slot without holding the lock, which only guards publishing
+    // them, so that selecting a slot does not wait for the slots prepared in the background.
+    @Nullable
+    private PreparedSlot prepareSlot(
+            final Map<Integer, Map<Integer, BatteryDiffData>> batteryUsageMap,
+            int dailyIndex, int hourlyIndex) {
+        final Map<Integer, BatteryDiffData> dailyUsageMap = batteryUsageMap.get(dailyIndex);
+        final BatteryDiffData batteryDiffData =
+                dailyUsageMap == null ? null : dailyUsageMap.get(hourlyIndex);
+        if (batteryDiffData == null) {
+            return null;
+        }
+        final PreparedSlot preparedSlot = new PreparedSlot(batteryDiffData,
+                prepareEntries(batteryDiffData.getAppDiffEntryList()),
+                prepareEntries(batteryDiffData.getSystemDiffEntryList()));
+        synchronized (mPreparedSlots) {
+            if (mPreparedUsageMap != batteryUsageMap) {
+                // The battery usage map was replaced in the meantime, skips caching stale entries.
+                return preparedSlot;
+            }
+            // Keeps the entries of the same slot prepared by the other thread in the meantime.
+            final PreparedSlot publishedSlot = findPreparedSlot(dailyIndex, hourlyIndex);
+            if (publishedSlot != null) {
+                return publishedSlot;
+            }
+            mPreparedSlots.computeIfAbsent(dailyIndex, key -> new HashMap<>())
+                    .put(hourlyIndex, preparedSlot);
+        }
+        return preparedSlot;
+    }
+
+    // Must be called with the lock of mPreparedSlots held.
+    @Nullable
+    private PreparedSlot findPreparedSlot(int dailyIndex, int hourlyIndex) {
+        final Map<Integer, PreparedSlot> dailySlots = mPreparedSlots.get(dailyIndex);
+        return dailySlots == null ? null : dailySlots.get(hourlyIndex);
+    }
+
+    private void clearPreparedSlots() {
+        synchronized (mPreparedSlots) {
+            mPreparedSlots.clear();
+            mPreparedUsageMap = null;
+        }
+    }
+
+    // Loads the label, icon and summary of the entries that can be shown.
+    private List<PreparedEntry> prepareEntries(List<BatteryDiffEntry> entries) {
+        final List<PreparedEntry> preparedEntries = new ArrayList<>(entries.size());
+        for (BatteryDiffEntry entry : entries) {
+            final String appLabel = entry.getAppLabel();
+            final Drawable appIcon = entry.getAppIcon();
+            if (TextUtils.isEmpty(appLabel) || appIcon == null) {
+                Log.w(TAG, "cannot find app resource for:" + entry.getPackageName());
+                continue;
+            }
+            preparedEntries.add(new PreparedEntry(entry, appLabel, appIcon,
+                    getPreferenceSummary(entry), entry.validForRestriction()));
+        }
+        return preparedEntries;
+    }
+
     private void removeAndCacheAllPrefs() {
         if (mAppListPrefGroup == null
                 || mAppListPrefGroup.getPreferenceCount() == 0) {
@@ -548,13 +706,17 @@ public class BatteryChartPreferenceController extends AbstractPreferenceControll
     }
 
     private void refreshExpandUi() {
-        final List<BatteryDiffEntry> systemEntries = mBatteryUsageMap.get(mDailyChartIndex).get(
-                mHourlyChartIndex).getSystemDiffEntryList();
+        final PreparedSlot preparedSlot =
+                getPreparedSlot(mBatteryUsageMap, mDailyChartIndex, mHourlyChartIndex);
+        if (preparedSlot == null) {
+            return;
+        }
         if (mIsExpanded) {
-            addPreferenceToScreen(systemEntries);
+            addPreparedEntriesToScreen(preparedSlot.mSystemEntries);
         } else {
             // Removes and recycles all system entries to hide all of them.
-            for (BatteryDiffEntry entry : systemEntries) {
+            for (BatteryDiffEntry entry :
+                    preparedSlot.mBatteryDiffData.getSystemDiffEntryList()) {
                 final String prefKey = entry.mBatteryHistEntry.getKey();
                 final Preference pref = mAppListPrefGroup.findPreference(prefKey);
                 if (pref != null) {
@@ -632,18 +794,22 @@ public class BatteryChartPreferenceController extends AbstractPreferenceControll
     @VisibleForTesting
     void setPreferenceSummary(
             PowerGaugePreference preference, BatteryDiffEntry entry) {
+        preference.setSummary(getPreferenceSummary(entry));
+    }
+
+    @Nullable
+    private String getPreferenceSummary(BatteryDiffEntry entry) {
         final long foregroundUsageTimeInMs = entry.mForegroundUsageTimeInMs;
         final long backgroundUsageTimeInMs = entry.mBackgroundUsageTimeInMs;
         final long totalUsageTimeInMs = foregroundUsageTimeInMs + backgroundUsageTimeInMs;
         // Checks whether the package is allowed to show summary or not.
         if (!isValidToShowSummary(entry.getPackageName())) {
-            preference.setSummary(null);
-            return;
+            return null;
         }
         String usageTimeSummary = null;
         // Not shows summary for some system components without usage time.
         if (totalUsageTimeInMs == 0) {
-            preference.setSummary(null);
+            return null;
             // Shows background summary only if we don't have foreground usage time.
         } else if (foregroundUsageTimeInMs == 0 && backgroundUsageTimeInMs != 0) {
             usageTimeSummary = buildUsageTimeInfo(backgroundUsageTimeInMs, true);
@@ -658,7 +824,7 @@ public class BatteryChartPreferenceController extends AbstractPreferenceControll
                         "\n" + buildUsageTimeInfo(backgroundUsageTimeInMs, true);
             }
         }
-        preference.setSummary(usageTimeSummary);
+        return usageTimeSummary;
     }
 
     private String buildUsageTimeInfo(long usageTimeInMs, boolean isBackground) {
@@ -818,6 +984,38 @@ public class BatteryChartPreferenceController extends AbstractPreferenceControll
         return null;
     }
 
+    /** The entries of a slot, with the ones that can be shown ready to bind. */
+    @VisibleForTesting
+    static final class PreparedSlot {
+        final BatteryDiffData mBatteryDiffData;
+        final List<PreparedEntry> mAppEntries;
+        final List<PreparedEntry> mSystemEntries;
+
+        PreparedSlot(BatteryDiffData batteryDiffData, List<PreparedEntry> appEntries,
+                List<PreparedEntry> systemEntries) {
+            mBatteryDiffData = batteryDiffData;
+            mAppEntries = appEntries;
+            mSystemEntries = systemEntries;
+        }
+    }
+
+    static final class PreparedEntry {
+        final BatteryDiffEntry mEntry;
+        final String mLabel;
+        final Drawable mIcon;
+        final String mSummary;
+        final boolean mEnabled;
+
+        PreparedEntry(BatteryDiffEntry entry, String label, Drawable icon, String summary,
+                boolean enabled) {
+            mEntry = entry;
+            mLabel = label;
+            mIcon = icon;
+            mSummary = summary;
+            mEnabled = enabled;
+        }
+    }
+
     private final class DailyChartLabelTextGenerator implements
             BatteryChartViewModel.LabelTextGenerator {
         @Override
@@ -50,6 +50,7 @@ import com.android.settings.R;
 import com.android.settingslib.Utils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 
@@ -70,6 +71,23 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
     private final Rect mIndent = new Rect();
     private final Rect[] mPercentageBounds = new Rect[]{new Rect(), new Rect(), new Rect()};
     private final List<Rect> mAxisLabelsBounds = new ArrayList<>();
+    // The geometry of the chart for the current size and view model, computed once by
+    // updateLayoutIfNeeded() so that drawing neither measures nor allocates.
+    private final float[] mHorizontalDividerOffsetYs = new float[3];
+    private float[] mVerticalDividerXs = new float[0];
+    private float mVerticalDividerTop;
+    private float mVerticalDividerBottom;
+    private Rect[] mAxisLabelDisplayAreas = new Rect[0];
+    private boolean[] mIsAxisLabelShown = new boolean[0];
+    private float mAxisLabelBaselineY;
+    private Path[] mTrapezoidPaths = new Path[0];
+    @VisibleForTesting
+    boolean mIsLayoutValid = false;
+    private int mLayoutWidth;
+    private int mLayoutHeight;
+    // Whether the text bounds are measured with the current text paint and view model.
+    private boolean mIsPercentageBoundsValid = false;
+    private boolean mIsAxisLabelsBoundsValid = false;
 
     private BatteryChartViewModel mViewModel;
     private int mHoveredIndex = BatteryChartViewModel.SELECTED_INDEX_INVALID;
@@ -113,6 +131,11 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
             invalidate();
             return;
         }
+        if (viewModel == mViewModel) {
+            // Only the selected index may change, which does not affect the layout.
+            invalidate();
+            return;
+        }
 
         Log.d(TAG, String.format("setViewModel(): size: %d, selectedIndex: %d.",
                 viewModel.size(), viewModel.selectedIndex()));
@@ -120,6 +143,8 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
         initializeAxisLabelsBounds();
         initializeTrapezoidSlots(viewModel.size() - 1);
         setClickable(hasAnyValidTrapezoid(viewModel));
+        mIsAxisLabelsBoundsValid = false;
+        mIsLayoutValid = false;
         requestLayout();
     }
 
@@ -137,19 +162,32 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
         } else {
             mTextPaint = null;
         }
+        mIsPercentageBoundsValid = false;
+        mIsAxisLabelsBoundsValid = false;
+        mIsLayoutValid = false;
         requestLayout();
     }
 
     @Override
     public void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        if (mIsPercentageBoundsValid && mIsAxisLabelsBoundsValid) {
+            // The text bounds are measured already.
+            return;
+        }
+        final boolean isPercentageBoundsValid = mIsPercentageBoundsValid;
+        mIsPercentageBoundsValid = true;
+        mIsAxisLabelsBoundsValid = true;
+        mIsLayoutValid = false;
         // Measures text bounds and updates indent configuration.
         if (mTextPaint != null) {
             mTextPaint.setTextAlign(Paint.Align.LEFT);
-            for (int index = 0; index < mPercentages.length; index++) {
-                mTextPaint.getTextBounds(
-                        mPercentages[index], 0, mPercentages[index].length(),
-                        mPercentageBounds[index]);
+            if (!isPercentageBoundsValid) {
+                for (int index = 0; index < mPercentages.length; index++) {
+                    mTextPaint.getTextBounds(
+                            mPercentages[index], 0, mPercentages[index].length(),
+                            mPercentageBounds[index]);
+                }
             }
             // Updates the indent configurations.
             mIndent.top = mPercentageBounds[0].height();
@@ -173,6 +211,7 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
     @Override
     public void draw(Canvas canvas) {
         super.draw(canvas);
+        updateLayoutIfNeeded();
         // Before mLevels initialized, the count of trapezoids is unknown. Only draws the
         // horizontal percentages and dividers.
         drawHorizontalDividers(canvas);
@@ -327,50 +366,51 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
         mTextPadding = resources.getDimensionPixelSize(R.dimen.chartview_text_padding);
     }
 
-    private void drawHorizontalDividers(Canvas canvas) {
-        final int width = getWidth() - mIndent.right;
-        final int height = getHeight() - mIndent.top - mIndent.bottom;
-        // Draws the top divider line for 100% curve.
-        float offsetY = mIndent.top + mDividerWidth * .5f;
-        canvas.drawLine(0, offsetY, width, offsetY, mDividerPaint);
-        drawPercentage(canvas, /*index=*/ 0, offsetY);
+    // Updates the cached geometry if the size or the view model changed since the last draw.
+    private void updateLayoutIfNeeded() {
+        final int width = getWidth();
+        final int height = getHeight();
+        if (mIsLayoutValid && mLayoutWidth == width && mLayoutHeight == height) {
+            return;
+        }
+        mIsLayoutValid = true;
+        mLayoutWidth = width;
+        mLayoutHeight = height;
+        updateHorizontalDividersLayout();
+        if (mViewModel == null) {
+            return;
+        }
+        updateVerticalDividersLayout();
+        updateTrapezoidsLayout();
+    }
 
-        // Draws the center divider line for 50% curve.
+    private void updateHorizontalDividersLayout() {
+        final int height = getHeight() - mIndent.top - mIndent.bottom;
+        // The top divider line for 100% curve.
+        mHorizontalDividerOffsetYs[0] = mIndent.top + mDividerWidth * .5f;
+        // The center divider line for 50% curve.
         final float availableSpace =
                 height - mDividerWidth * 2 - mTrapezoidVOffset - mDividerHeight;
-        offsetY = mIndent.top + mDividerWidth + availableSpace * .5f;
-        canvas.drawLine(0, offsetY, width, offsetY, mDividerPaint);
-        drawPercentage(canvas, /*index=*/ 1, offsetY);
-
-        // Draws the bottom divider line for 0% curve.
-        offsetY = mIndent.top + (height - mDividerHeight - mDividerWidth * .5f);
-        canvas.drawLine(0, offsetY, width, offsetY, mDividerPaint);
-        drawPercentage(canvas, /*index=*/ 2, offsetY);
-    }
-
-    private void drawPercentage(Canvas canvas, int index, float offsetY) {
-        if (mTextPaint != null) {
-            mTextPaint.setTextAlign(Paint.Align.RIGHT);
-            canvas.drawText(
-                    mPercentages[index],
-                    getWidth(),
-                    offsetY + mPercentageBounds[index].height() * .5f,
-                    mTextPaint);
-        }
+        mHorizontalDividerOffsetYs[1] = mIndent.top + mDividerWidth + availableSpace * .5f;
+        // The bottom divider line for 0% curve.
+        mHorizontalDividerOffsetYs[2] =
+                mIndent.top + (height - mDividerHeight - mDividerWidth * .5f);
     }
 
-    private void drawVerticalDividers(Canvas canvas) {
+    private void updateVerticalDividersLayout() {
         final int width = getWidth() - mIndent.right;
         final int dividerCount = mTrapezoidSlots.length + 1;
         final float dividerSpace = dividerCount * mDividerWidth;
         final float unitWidth = (width - dividerSpace) / (float) mTrapezoidSlots.length;
-        final float bottomY = getHeight() - mIndent.bottom;
-        final float startY = bottomY - mDividerHeight;
+        mVerticalDividerBottom = getHeight() - mIndent.bottom;
+        mVerticalDividerTop = mVerticalDividerBottom - mDividerHeight;
         final float trapezoidSlotOffset = mTrapezoidHOffset + mDividerWidth * .5f;
-        // Draws each vertical dividers.
+        if (mVerticalDividerXs.length != dividerCount) {
+            mVerticalDividerXs = new float[dividerCount];
+        }
         float startX = mDividerWidth * .5f;
         for (int index = 0; index < dividerCount; index++) {
-            canvas.drawLine(startX, startY, startX, bottomY, mDividerPaint);
+            mVerticalDividerXs[index] = startX;
             final float nextX = startX + mDividerWidth + unitWidth;
             // Updates the trapezoid slots for drawing.
             if (index < mTrapezoidSlots.length) {
@@ -379,38 +419,40 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
             }
             startX = nextX;
         }
-        // Draws the axis label slot information.
-        if (mViewModel != null) {
-            final float baselineY = getHeight() - mTextPadding;
-            Rect[] axisLabelDisplayAreas;
-            switch (mViewModel.axisLabelPosition()) {
-                case CENTER_OF_TRAPEZOIDS:
-                    axisLabelDisplayAreas = getAxisLabelDisplayAreas(
-                            /* size= */ mViewModel.size() - 1,
-                            /* baselineX= */ mDividerWidth + unitWidth * .5f,
-                            /* offsetX= */ mDividerWidth + unitWidth,
-                            baselineY,
-                            /* shiftFirstAndLast= */ false);
-                    break;
-                case BETWEEN_TRAPEZOIDS:
-                default:
-                    axisLabelDisplayAreas = getAxisLabelDisplayAreas(
-                            /* size= */ mViewModel.size(),
-                            /* baselineX= */ mDividerWidth * .5f,
-                            /* offsetX= */ mDividerWidth + unitWidth,
-                            baselineY,
-                            /* shiftFirstAndLast= */ true);
-                    break;
-            }
-            drawAxisLabels(canvas, axisLabelDisplayAreas, baselineY);
+        // Updates the axis label slot information.
+        mAxisLabelBaselineY = getHeight() - mTextPadding;
+        switch (mViewModel.axisLabelPosition()) {
+            case CENTER_OF_TRAPEZOIDS:
+                updateAxisLabelDisplayAreas(
+                        /* size= */ mViewModel.size() - 1,
+                        /* baselineX= */ mDividerWidth + unitWidth * .5f,
+                        /* offsetX= */ mDividerWidth + unitWidth,
+                        mAxisLabelBaselineY,
+                        /* shiftFirstAndLast= */ false);
+                break;
+            case BETWEEN_TRAPEZOIDS:
+            default:
+                updateAxisLabelDisplayAreas(
+                        /* size= */ mViewModel.size(),
+                        /* baselineX= */ mDividerWidth * .5f,
+                        /* offsetX= */ mDividerWidth + unitWidth,
+                        mAxisLabelBaselineY,
+                        /* shiftFirstAndLast= */ true);
+                break;
         }
+        updateShownAxisLabels();
     }
 
-    /** Gets all the axis label texts displaying area positions if they are shown. */
-    private Rect[] getAxisLabelDisplayAreas(final int size, final float baselineX,
+    /** Updates all the axis label texts displaying area positions if they are shown. */
+    private void updateAxisLabelDisplayAreas(final int size, final float baselineX,
             final float offsetX, final float baselineY, final boolean shiftFirstAndLast) {
-        final Rect[] result = new Rect[size];
-        for (int index = 0; index < result.length; index++) {
+        if (mAxisLabelDisplayAreas.length != size) {
+            mAxisLabelDisplayAreas = new Rect[size];
+            for (int index = 0; index < size; index++) {
+                mAxisLabelDisplayAreas[index] = new Rect();
+            }
+        }
+        for (int index = 0; index < size; index++) {
             final float width = mAxisLabelsBounds.get(index).width();
             float middle = baselineX + index * offsetX;
             if (shiftFirstAndLast) {
@@ -425,74 +467,142 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
             final float right = left + width;
             final float top = baselineY + mAxisLabelsBounds.get(index).top;
             final float bottom = top + mAxisLabelsBounds.get(index).height();
-            result[index] = new Rect(round(left), round(top), round(right), round(bottom));
+            mAxisLabelDisplayAreas[index].set(
+                    round(left), round(top), round(right), round(bottom));
         }
-        return result;
     }
 
-    private void drawAxisLabels(Canvas canvas, final Rect[] displayAreas, final float baselineY) {
-        final int lastIndex = displayAreas.length - 1;
+    private void updateShownAxisLabels() {
+        final int size = mAxisLabelDisplayAreas.length;
+        if (mIsAxisLabelShown.length != size) {
+            mIsAxisLabelShown = new boolean[size];
+        }
+        if (size == 0) {
+            return;
+        }
+        Arrays.fill(mIsAxisLabelShown, false);
+        final int lastIndex = size - 1;
         // Suppose first and last labels are always able to draw.
-        drawAxisLabelText(canvas, 0, displayAreas[0], baselineY);
-        drawAxisLabelText(canvas, lastIndex, displayAreas[lastIndex], baselineY);
-        drawAxisLabelsBetweenStartIndexAndEndIndex(canvas, displayAreas, 0, lastIndex, baselineY);
+        mIsAxisLabelShown[0] = true;
+        mIsAxisLabelShown[lastIndex] = true;
+        updateShownAxisLabelsBetweenStartIndexAndEndIndex(0, lastIndex);
     }
 
     /**
-     * Recursively draws axis labels between the start index and the end index. If the inner number
-     * can be exactly divided into 2 parts, check and draw the middle index label and then
-     * recursively draw the 2 parts. Otherwise, divide into 3 parts. Check and draw the middle two
-     * labels and then recursively draw the 3 parts. If there are any overlaps, skip drawing and go
-     * back to the uplevel of the recursion.
+     * Recursively selects the axis labels to draw between the start index and the end index. If
+     * the inner number can be exactly divided into 2 parts, check and show the middle index label
+     * and then recursively check the 2 parts. Otherwise, divide into 3 parts. Check and show the
+     * middle two labels and then recursively check the 3 parts. If there are any overlaps, skip
+     * showing and go back to the uplevel of the recursion.
      */
-    private void drawAxisLabelsBetweenStartIndexAndEndIndex(Canvas canvas,
-            final Rect[] displayAreas, final int startIndex, final int endIndex,
-            final float baselineY) {
+    private void updateShownAxisLabelsBetweenStartIndexAndEndIndex(
+            final int startIndex, final int endIndex) {
         if (endIndex - startIndex <= 1) {
             return;
         }
         if ((endIndex - startIndex) % 2 == 0) {
             int middleIndex = (startIndex + endIndex) / 2;
-            if (hasOverlap(displayAreas, startIndex, middleIndex)
-                    || hasOverlap(displayAreas, middleIndex, endIndex)) {
+            if (hasOverlap(startIndex, middleIndex) || hasOverlap(middleIndex, endIndex)) {
                 return;
             }
-            drawAxisLabelText(canvas, middleIndex, displayAreas[middleIndex], baselineY);
-            drawAxisLabelsBetweenStartIndexAndEndIndex(
-                    canvas, displayAreas, startIndex, middleIndex, baselineY);
-            drawAxisLabelsBetweenStartIndexAndEndIndex(
-                    canvas, displayAreas, middleIndex, endIndex, baselineY);
+            mIsAxisLabelShown[middleIndex] = true;
+            updateShownAxisLabelsBetweenStartIndexAndEndIndex(startIndex, middleIndex);
+            updateShownAxisLabelsBetweenStartIndexAndEndIndex(middleIndex, endIndex);
         } else {
             int middleIndex1 = startIndex + round((endIndex - startIndex) / 3f);
             int middleIndex2 = startIndex + round((endIndex - startIndex) * 2 / 3f);
-            if (hasOverlap(displayAreas, startIndex, middleIndex1)
-                    || hasOverlap(displayAreas, middleIndex1, middleIndex2)
-                    || hasOverlap(displayAreas, middleIndex2, endIndex)) {
+            if (hasOverlap(startIndex, middleIndex1)
+                    || hasOverlap(middleIndex1, middleIndex2)
+                    || hasOverlap(middleIndex2, endIndex)) {
                 return;
             }
-            drawAxisLabelText(canvas, middleIndex1, displayAreas[middleIndex1], baselineY);
-            drawAxisLabelText(canvas, middleIndex2, displayAreas[middleIndex2], baselineY);
-            drawAxisLabelsBetweenStartIndexAndEndIndex(
-                    canvas, displayAreas, startIndex, middleIndex1, baselineY);
-            drawAxisLabelsBetweenStartIndexAndEndIndex(
-                    canvas, displayAreas, middleIndex1, middleIndex2, baselineY);
-            drawAxisLabelsBetweenStartIndexAndEndIndex(
-                    canvas, displayAreas, middleIndex2, endIndex, baselineY);
+            mIsAxisLabelShown[middleIndex1] = true;
+            mIsAxisLabelShown[middleIndex2] = true;
+            updateShownAxisLabelsBetweenStartIndexAndEndIndex(startIndex, middleIndex1);
+            updateShownAxisLabelsBetweenStartIndexAndEndIndex(middleIndex1, middleIndex2);
+            updateShownAxisLabelsBetweenStartIndexAndEndIndex(middleIndex2, endIndex);
+        }
+    }
+
+    private boolean hasOverlap(final int leftIndex, final int rightIndex) {
+        return mAxisLabelDisplayAreas[leftIndex].right + mTextPadding * 2.3f
+                > mAxisLabelDisplayAreas[rightIndex].left;
+    }
+
+    private void updateTrapezoidsLayout() {
+        final float trapezoidBottom =
+                getHeight() - mIndent.bottom - mDividerHeight - mDividerWidth
+                        - mTrapezoidVOffset;
+        final float availableSpace =
+                trapezoidBottom - mDividerWidth * .5f - mIndent.top - mTrapezoidVOffset;
+        final float unitHeight = availableSpace / 100f;
+        if (mTrapezoidPaths.length != mTrapezoidSlots.length) {
+            mTrapezoidPaths = new Path[mTrapezoidSlots.length];
+            for (int index = 0; index < mTrapezoidPaths.length; index++) {
+                mTrapezoidPaths[index] = new Path();
+            }
+        }
+        for (int index = 0; index < mTrapezoidSlots.length; index++) {
+            final Path trapezoidPath = mTrapezoidPaths[index];
+            trapezoidPath.reset();
+            // Not draws the trapezoid for corner or not initialization cases.
+            if (!isValidToDraw(mViewModel, index)) {
+                continue;
+            }
+            final float leftTop = round(
+                    trapezoidBottom - requireNonNull(mViewModel.getLevel(index)) * unitHeight);
+            final float rightTop = round(trapezoidBottom
+                    - requireNonNull(mViewModel.getLevel(index + 1)) * unitHeight);
+            trapezoidPath.moveTo(mTrapezoidSlots[index].mLeft, trapezoidBottom);
+            trapezoidPath.lineTo(mTrapezoidSlots[index].mLeft, leftTop);
+            trapezoidPath.lineTo(mTrapezoidSlots[index].mRight, rightTop);
+            trapezoidPath.lineTo(mTrapezoidSlots[index].mRight, trapezoidBottom);
+            // A tricky way to make the trapezoid shape drawing the rounded corner.
+            trapezoidPath.lineTo(mTrapezoidSlots[index].mLeft, trapezoidBottom);
+            trapezoidPath.lineTo(mTrapezoidSlots[index].mLeft, leftTop);
+        }
+    }
+
+    private void drawHorizontalDividers(Canvas canvas) {
+        final int width = getWidth() - mIndent.right;
+        for (int index = 0; index < mHorizontalDividerOffsetYs.length; index++) {
+            final float offsetY = mHorizontalDividerOffsetYs[index];
+            canvas.drawLine(0, offsetY, width, offsetY, mDividerPaint);
+            drawPercentage(canvas, index, offsetY);
+        }
+    }
+
+    private void drawPercentage(Canvas canvas, int index, float offsetY) {
+        if (mTextPaint != null) {
+            mTextPaint.setTextAlign(Paint.Align.RIGHT);
+            canvas.drawText(
+                    mPercentages[index],
+                    getWidth(),
+                    offsetY + mPercentageBounds[index].height() * .5f,
+                    mTextPaint);
         }
     }
 
-    private boolean hasOverlap(
-            final Rect[] displayAreas, final int leftIndex, final int rightIndex) {
-        return displayAreas[leftIndex].right + mTextPadding * 2.3f > displayAreas[rightIndex].left;
+    private void drawVerticalDividers(Canvas canvas) {
+        for (float dividerX : mVerticalDividerXs) {
+            canvas.drawLine(
+                    dividerX, mVerticalDividerTop, dividerX, mVerticalDividerBottom,
+                    mDividerPaint);
+        }
+        // Draws the axis label slot information.
+        for (int index = 0; index < mIsAxisLabelShown.length; index++) {
+            if (mIsAxisLabelShown[index]) {
+                drawAxisLabelText(canvas, index, mAxisLabelDisplayAreas[index]);
+            }
+        }
     }
 
-    private void drawAxisLabelText(
-            Canvas canvas, final int index, final Rect displayArea, final float baselineY) {
+    private void drawAxisLabelText(Canvas canvas, final int index, final Rect displayArea) {
         mTextPaint.setTextAlign(Paint.Align.CENTER);
         canvas.drawText(
                 mViewModel.getText(index),
                 displayArea.centerX(),
-                baselineY,
+                mAxisLabelBaselineY,
                 mTextPaint);
     }
 
@@ -501,15 +611,7 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
         if (mViewModel == null) {
             return;
         }
-        final float trapezoidBottom =
-                getHeight() - mIndent.bottom - mDividerHeight - mDividerWidth
-                        - mTrapezoidVOffset;
-        final float availableSpace =
-                trapezoidBottom - mDividerWidth * .5f - mIndent.top - mTrapezoidVOffset;
-        final float unitHeight = availableSpace / 100f;
         // Draws all trapezoid shapes into the canvas.
-        final Path trapezoidPath = new Path();
-        Path trapezoidCurvePath = null;
         for (int index = 0; index < mTrapezoidSlots.length; index++) {
             // Not draws the trapezoid for corner or not initialization cases.
             if (!isValidToDraw(mViewModel, index)) {
@@ -522,21 +624,7 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
             final boolean isHoverState = mHoveredIndex == index && isValidToDraw(mViewModel,
                     mHoveredIndex);
             mTrapezoidPaint.setColor(isHoverState ? mTrapezoidHoverColor : trapezoidColor);
-
-            final float leftTop = round(
-                    trapezoidBottom - requireNonNull(mViewModel.getLevel(index)) * unitHeight);
-            final float rightTop = round(trapezoidBottom
-                    - requireNonNull(mViewModel.getLevel(index + 1)) * unitHeight);
-            trapezoidPath.reset();
-            trapezoidPath.moveTo(mTrapezoidSlots[index].mLeft, trapezoidBottom);
-            trapezoidPath.lineTo(mTrapezoidSlots[index].mLeft, leftTop);
-            trapezoidPath.lineTo(mTrapezoidSlots[index].mRight, rightTop);
-            trapezoidPath.lineTo(mTrapezoidSlots[index].mRight, trapezoidBottom);
-            // A tricky way to make the trapezoid shape drawing the rounded corner.
-            trapezoidPath.lineTo(mTrapezoidSlots[index].mLeft, trapezoidBottom);
-            trapezoidPath.lineTo(mTrapezoidSlots[index].mLeft, leftTop);
-            // Draws the trapezoid shape into canvas.
-            canvas.drawPath(trapezoidPath, mTrapezoidPaint);
+            canvas.drawPath(mTrapezoidPaths[index], mTrapezoidPaint);
         }
     }
 
@@ -32,20 +32,22 @@ import com.android.settings.fuelgauge.BatteryUtils;
 import com.android.settingslib.utils.StringUtil;
 
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /** A container class to carry battery data in a specific time slot. */
 public class BatteryDiffEntry {
     private static final String TAG = "BatteryDiffEntry";
 
     static Locale sCurrentLocale = null;
-    // Caches app label and icon to improve loading performance.
-    static final Map<String, BatteryEntry.NameAndIcon> sResourceCache = new HashMap<>();
+    // Caches app label and icon to improve loading performance. Loaded on both the main and the
+    // background threads.
+    static final Map<String, BatteryEntry.NameAndIcon> sResourceCache =
+            new ConcurrentHashMap<>();
     // Whether a specific item is valid to launch restriction page?
     @VisibleForTesting(otherwise = VisibleForTesting.PACKAGE_PRIVATE)
-    public static final Map<String, Boolean> sValidForRestriction = new HashMap<>();
+    public static final Map<String, Boolean> sValidForRestriction = new ConcurrentHashMap<>();
 
     /** A comparator for {@link BatteryDiffEntry} based on consumed percentage. */
     public static final Comparator<BatteryDiffEntry> COMPARATOR =
@@ -296,11 +298,13 @@ public class BatteryDiffEntry {
 
     private BatteryEntry.NameAndIcon getCache() {
         final Locale locale = Locale.getDefault();
-        if (sCurrentLocale != locale) {
-            Log.d(TAG, String.format("clearCache() locale is changed from %s to %s",
-                    sCurrentLocale, locale));
-            sCurrentLocale = locale;
-            clearCache();
+        synchronized (BatteryDiffEntry.class) {
+            if (sCurrentLocale != locale) {
+                Log.d(TAG, String.format("clearCache() locale is changed from %s to %s",
+                        sCurrentLocale, locale));
+                sCurrentLocale = locale;
+                clearCache();
+            }
         }
         return sResourceCache.get(getKey());
     }
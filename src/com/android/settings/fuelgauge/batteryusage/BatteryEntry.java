@@ -41,9 +41,11 @@ import com.android.settings.fuelgauge.BatteryUtils;
 import com.android.settingslib.Utils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * Wraps the power usage data of a BatterySipper with information about package name
@@ -77,7 +79,8 @@ public class BatteryEntry {
     private static final String TAG = "BatteryEntry";
     private static final String PACKAGE_SYSTEM = "android";
 
-    static final HashMap<String, UidToDetail> sUidCache = new HashMap<>();
+    // Loaded on both the main and the background threads.
+    static final Map<String, UidToDetail> sUidCache = Collections.synchronizedMap(new HashMap<>());
 
     static final ArrayList<BatteryEntry> sRequestQueue = new ArrayList<BatteryEntry>();
     static Handler sHandler;
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import android.util.ArrayMap;
+
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A columnar copy of the processed battery history, built once so that the usage diff of every
+ * time slot can be computed without looking up or allocating maps.
+ *
+ * Entry keys are interned into int ids, and each timestamp holds a {@link Row} of primitive
+ * columns sorted by key id, so that the rows of consecutive timestamps are merged in one pass.
+ */
+final class BatteryHistoryColumns {
+
+    private final int mKeyCount;
+    private final long[] mTimestamps;
+    private final Row[] mRows;
+
+    private BatteryHistoryColumns(int keyCount, long[] timestamps, Row[] rows) {
+        mKeyCount = keyCount;
+        mTimestamps = timestamps;
+        mRows = rows;
+    }
+
+    /** Builds the columns of {@code batteryHistoryMap}. */
+    static BatteryHistoryColumns from(
+            final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap) {
+        final long[] timestamps = new long[batteryHistoryMap.size()];
+        int index = 0;
+        for (Long timestamp : batteryHistoryMap.keySet()) {
+            timestamps[index++] = timestamp;
+        }
+        Arrays.sort(timestamps);
+
+        final ArrayMap<String, Integer> keyIds = new ArrayMap<>();
+        for (long timestamp : timestamps) {
+            final Map<String, BatteryHistEntry> entryMap = batteryHistoryMap.get(timestamp);
+            if (entryMap == null) {
+                continue;
+            }
+            for (String key : entryMap.keySet()) {
+                if (!keyIds.containsKey(key)) {
+                    keyIds.put(key, keyIds.size());
+                }
+            }
+        }
+
+        // Entries are placed by key id, then compacted, which sorts each row by key id.
+        final int keyCount = keyIds.size();
+        final BatteryHistEntry[] entriesById = new BatteryHistEntry[keyCount];
+        final Row[] rows = new Row[timestamps.length];
+        for (int i = 0; i < timestamps.length; i++) {
+            final Map<String, BatteryHistEntry> entryMap = batteryHistoryMap.get(timestamps[i]);
+            if (entryMap == null || entryMap.isEmpty()) {
+                rows[i] = Row.EMPTY;
+                continue;
+            }
+            for (Map.Entry<String, BatteryHistEntry> entry : entryMap.entrySet()) {
+                entriesById[keyIds.get(entry.getKey())] = entry.getValue();
+            }
+            final Row row = new Row(entryMap.size());
+            int size = 0;
+            for (int keyId = 0; keyId < keyCount && size < row.mSize; keyId++) {
+                final BatteryHistEntry entry = entriesById[keyId];
+                if (entry == null) {
+                    continue;
+                }
+                entriesById[keyId] = null;
+                row.mKeyIds[size] = keyId;
+                row.mForegroundUsageTimeInMs[size] = entry.mForegroundUsageTimeInMs;
+                row.mBackgroundUsageTimeInMs[size] = entry.mBackgroundUsageTimeInMs;
+                row.mConsumePower[size] = entry.mConsumePower;
+                row.mEntries[size] = entry;
+                size++;
+            }
+            rows[i] = row;
+        }
+        return new BatteryHistoryColumns(keyCount, timestamps, rows);
+    }
+
+    /** Returns the number of distinct entry keys. */
+    int getKeyCount() {
+        return mKeyCount;
+    }
+
+    /** Returns the row recorded at {@code timestamp}, or {@code null} if there is none. */
+    @Nullable
+    Row getRow(long timestamp) {
+        final int index = Arrays.binarySearch(mTimestamps, timestamp);
+        return index < 0 ? null : mRows[index];
+    }
+
+    /** The entries recorded at one timestamp, sorted by key id. */
+    static final class Row {
+        static final Row EMPTY = new Row(0);
+
+        final int mSize;
+        final int[] mKeyIds;
+        final long[] mForegroundUsageTimeInMs;
+        final long[] mBackgroundUsageTimeInMs;
+        final double[] mConsumePower;
+        final BatteryHistEntry[] mEntries;
+
+        private Row(int size) {
+            mSize = size;
+            mKeyIds = new int[size];
+            mForegroundUsageTimeInMs = new long[size];
+            mBackgroundUsageTimeInMs = new long[size];
+            mConsumePower = new double[size];
+            mEntries = new BatteryHistEntry[size];
+        }
+
+        boolean isEmpty() {
+            return mSize == 0;
+        }
+
+        /** Returns the key id at {@code index}, or {@link Integer#MAX_VALUE} past the end. */
+        int getKeyId(int index) {
+            return index < mSize ? mKeyIds[index] : Integer.MAX_VALUE;
+        }
+    }
+}
@@ -31,13 +31,13 @@ import android.os.UserHandle;
 import android.os.UserManager;
 import android.text.TextUtils;
 import android.text.format.DateUtils;
-import android.util.ArraySet;
 import android.util.Log;
 
 import androidx.annotation.Nullable;
 
 import com.android.internal.annotations.VisibleForTesting;
 import com.android.settings.Utils;
+import com.android.settings.core.instrumentation.LoaderLatencyStats;
 import com.android.settings.fuelgauge.BatteryUtils;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
@@ -53,6 +53,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 /**
@@ -68,9 +69,6 @@ public final class DataProcessor {
     // Maximum total time value for each hourly slot cumulative data at most 2 hours.
     private static final float TOTAL_HOURLY_TIME_THRESHOLD = DateUtils.HOUR_IN_MILLIS * 2;
     private static final long MIN_TIME_SLOT = DateUtils.HOUR_IN_MILLIS * 2;
-    private static final Map<String, BatteryHistEntry> EMPTY_BATTERY_MAP = new HashMap<>();
-    private static final BatteryHistEntry EMPTY_BATTERY_HIST_ENTRY =
-            new BatteryHistEntry(new ContentValues());
 
     @VisibleForTesting
     static final double PERCENTAGE_OF_TOTAL_THRESHOLD = 1f;
@@ -87,6 +85,18 @@ public final class DataProcessor {
                 Map<Integer, Map<Integer, BatteryDiffData>> batteryUsageMap);
     }
 
+    /** A callback which also receives the usage data of each day as soon as it is loaded. */
+    public interface DailyUsageMapAsyncResponse extends UsageMapAsyncResponse {
+        /**
+         * The callback function when the usage data of the day at {@code dailyIndex} is loaded,
+         * keyed by hourly index and {@code SELECTED_INDEX_ALL}. Called before
+         * {@link #onBatteryUsageMapLoaded}. With {@code SELECTED_INDEX_ALL} as
+         * {@code dailyIndex}, receives the whole-period data of the days loaded so far.
+         */
+        void onDailyBatteryUsageMapLoaded(
+                int dailyIndex, Map<Integer, BatteryDiffData> dailyUsageMap);
+    }
+
     private DataProcessor() {
     }
 
@@ -374,20 +384,71 @@ public final class DataProcessor {
             final Context context,
             final List<BatteryLevelData.PeriodBatteryLevelData> hourlyBatteryLevelsPerDay,
             final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap) {
+        return getBatteryUsageMap(context, hourlyBatteryLevelsPerDay, batteryHistoryMap,
+                /*dailyUsageMapConsumer=*/ null);
+    }
+
+    /**
+     * Same as {@link #getBatteryUsageMap(Context, List, Map)}, but also passes the purged usage
+     * data of each day to {@code dailyUsageMapConsumer} as soon as that day is computed, followed
+     * by the whole-period data of the days computed so far with {@code SELECTED_INDEX_ALL}.
+     */
+    @VisibleForTesting
+    @Nullable
+    static Map<Integer, Map<Integer, BatteryDiffData>> getBatteryUsageMap(
+            final Context context,
+            final List<BatteryLevelData.PeriodBatteryLevelData> hourlyBatteryLevelsPerDay,
+            final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap,
+            @Nullable final BiConsumer<Integer, Map<Integer, BatteryDiffData>>
+                    dailyUsageMapConsumer) {
         if (batteryHistoryMap.isEmpty()) {
             return null;
         }
         final Map<Integer, Map<Integer, BatteryDiffData>> resultMap = new HashMap<>();
-        // Insert diff data from [0][0] to [maxDailyIndex][maxHourlyIndex].
-        insertHourlyUsageDiffData(
-                context, hourlyBatteryLevelsPerDay, batteryHistoryMap, resultMap);
-        // Insert diff data from [0][SELECTED_INDEX_ALL] to [maxDailyIndex][SELECTED_INDEX_ALL].
-        insertDailyUsageDiffData(hourlyBatteryLevelsPerDay, resultMap);
+        final Set<CharSequence> backgroundUsageTimeHideList =
+                getBackgroundUsageTimeHideList(context);
+        final CharSequence[] notAllowShowEntryPackages = getNotAllowShowEntryPackages(context);
+        final HourlyUsageDiffDataGenerator hourlyUsageDiffDataGenerator =
+                new HourlyUsageDiffDataGenerator(context, batteryHistoryMap);
+        // The [SELECTED_INDEX_ALL][SELECTED_INDEX_ALL] data sums up each day before it is purged.
+        final UsageDiffDataAccumulator allUsageDiffDataAccumulator =
+                new UsageDiffDataAccumulator();
+        for (int dailyIndex = 0; dailyIndex < hourlyBatteryLevelsPerDay.size(); dailyIndex++) {
+            // Insert diff data from [dailyIndex][0] to [dailyIndex][maxHourlyIndex].
+            final Map<Integer, BatteryDiffData> dailyUsageMap =
+                    hourlyUsageDiffDataGenerator.generate(
+                            hourlyBatteryLevelsPerDay.get(dailyIndex));
+            // Insert diff data [dailyIndex][SELECTED_INDEX_ALL].
+            final BatteryDiffData dailyBatteryDiffData =
+                    getAccumulatedUsageDiffData(dailyUsageMap.values());
+            dailyUsageMap.put(SELECTED_INDEX_ALL, dailyBatteryDiffData);
+            allUsageDiffDataAccumulator.add(dailyBatteryDiffData);
+            purgeLowPercentageAndFakeData(
+                    dailyUsageMap, backgroundUsageTimeHideList, notAllowShowEntryPackages);
+            resultMap.put(dailyIndex, dailyUsageMap);
+            if (dailyUsageMapConsumer == null) {
+                continue;
+            }
+            dailyUsageMapConsumer.accept(dailyIndex, dailyUsageMap);
+            // Passes the data of the days loaded so far as the whole-period data, since it is
+            // the one selected by default. The complete one follows the last day.
+            if (dailyIndex < hourlyBatteryLevelsPerDay.size() - 1) {
+                final Map<Integer, BatteryDiffData> partialAllUsageMap = new HashMap<>();
+                partialAllUsageMap.put(
+                        SELECTED_INDEX_ALL, allUsageDiffDataAccumulator.buildSnapshot());
+                purgeLowPercentageAndFakeData(partialAllUsageMap, backgroundUsageTimeHideList,
+                        notAllowShowEntryPackages);
+                dailyUsageMapConsumer.accept(SELECTED_INDEX_ALL, partialAllUsageMap);
+            }
+        }
         // Insert diff data [SELECTED_INDEX_ALL][SELECTED_INDEX_ALL].
-        insertAllUsageDiffData(resultMap);
+        final Map<Integer, BatteryDiffData> allUsageMap = new HashMap<>();
+        allUsageMap.put(SELECTED_INDEX_ALL, allUsageDiffDataAccumulator.build());
+        resultMap.put(SELECTED_INDEX_ALL, allUsageMap);
         // Compute the apps number before purge. Must put before purgeLowPercentageAndFakeData.
         final int countOfAppBeforePurge = getCountOfApps(resultMap);
-        purgeLowPercentageAndFakeData(context, resultMap);
+        purgeLowPercentageAndFakeData(
+                allUsageMap, backgroundUsageTimeHideList, notAllowShowEntryPackages);
         // Compute the apps number after purge. Must put after purgeLowPercentageAndFakeData.
         final int countOfAppAfterPurge = getCountOfApps(resultMap);
         if (!isUsageMapValid(resultMap, hourlyBatteryLevelsPerDay)) {
@@ -787,66 +848,6 @@ public final class DataProcessor {
         return Math.round(batteryLevelCounter / entryMap.size());
     }
 
-    private static void insertHourlyUsageDiffData(
-            Context context,
-            final List<BatteryLevelData.PeriodBatteryLevelData> hourlyBatteryLevelsPerDay,
-            final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap,
-            final Map<Integer, Map<Integer, BatteryDiffData>> resultMap) {
-        final int currentUserId = context.getUserId();
-        final UserHandle userHandle =
-                Utils.getManagedProfile(context.getSystemService(UserManager.class));
-        final int workProfileUserId =
-                userHandle != null ? userHandle.getIdentifier() : Integer.MIN_VALUE;
-        // Each time slot usage diff data =
-        //     Math.abs(timestamp[i+2] data - timestamp[i+1] data) +
-        //     Math.abs(timestamp[i+1] data - timestamp[i] data);
-        // since we want to aggregate every two hours data into a single time slot.
-        for (int dailyIndex = 0; dailyIndex < hourlyBatteryLevelsPerDay.size(); dailyIndex++) {
-            final Map<Integer, BatteryDiffData> dailyDiffMap = new HashMap<>();
-            resultMap.put(dailyIndex, dailyDiffMap);
-            if (hourlyBatteryLevelsPerDay.get(dailyIndex) == null) {
-                continue;
-            }
-            final List<Long> timestamps = hourlyBatteryLevelsPerDay.get(dailyIndex).getTimestamps();
-            for (int hourlyIndex = 0; hourlyIndex < timestamps.size() - 1; hourlyIndex++) {
-                final BatteryDiffData hourlyBatteryDiffData =
-                        insertHourlyUsageDiffDataPerSlot(
-                                context,
-                                currentUserId,
-                                workProfileUserId,
-                                hourlyIndex,
-                                timestamps,
-                                batteryHistoryMap);
-                dailyDiffMap.put(hourlyIndex, hourlyBatteryDiffData);
-            }
-        }
-    }
-
-    private static void insertDailyUsageDiffData(
-            final List<BatteryLevelData.PeriodBatteryLevelData> hourlyBatteryLevelsPerDay,
-            final Map<Integer, Map<Integer, BatteryDiffData>> resultMap) {
-        for (int index = 0; index < hourlyBatteryLevelsPerDay.size(); index++) {
-            Map<Integer, BatteryDiffData> dailyUsageMap = resultMap.get(index);
-            if (dailyUsageMap == null) {
-                dailyUsageMap = new HashMap<>();
-                resultMap.put(index, dailyUsageMap);
-            }
-            dailyUsageMap.put(
-                    SELECTED_INDEX_ALL,
-                    getAccumulatedUsageDiffData(dailyUsageMap.values()));
-        }
-    }
-
-    private static void insertAllUsageDiffData(
-            final Map<Integer, Map<Integer, BatteryDiffData>> resultMap) {
-        final List<BatteryDiffData> diffDataList = new ArrayList<>();
-        resultMap.keySet().forEach(
-                key -> diffDataList.add(resultMap.get(key).get(SELECTED_INDEX_ALL)));
-        final Map<Integer, BatteryDiffData> allUsageMap = new HashMap<>();
-        allUsageMap.put(SELECTED_INDEX_ALL, getAccumulatedUsageDiffData(diffDataList));
-        resultMap.put(SELECTED_INDEX_ALL, allUsageMap);
-    }
-
     @Nullable
     private static BatteryDiffData insertHourlyUsageDiffDataPerSlot(
             Context context,
@@ -854,72 +855,73 @@ public final class DataProcessor {
             final int workProfileUserId,
             final int currentIndex,
             final List<Long> timestamps,
-            final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap) {
+            final BatteryHistoryColumns batteryHistoryColumns) {
         final List<BatteryDiffEntry> appEntries = new ArrayList<>();
         final List<BatteryDiffEntry> systemEntries = new ArrayList<>();
 
-        final Long currentTimestamp = timestamps.get(currentIndex);
-        final Long nextTimestamp = currentTimestamp + DateUtils.HOUR_IN_MILLIS;
-        final Long nextTwoTimestamp = nextTimestamp + DateUtils.HOUR_IN_MILLIS;
+        final long currentTimestamp = timestamps.get(currentIndex);
+        final long nextTimestamp = currentTimestamp + DateUtils.HOUR_IN_MILLIS;
+        final long nextTwoTimestamp = nextTimestamp + DateUtils.HOUR_IN_MILLIS;
         // Fetches BatteryHistEntry data from corresponding time slot.
-        final Map<String, BatteryHistEntry> currentBatteryHistMap =
-                batteryHistoryMap.getOrDefault(currentTimestamp, EMPTY_BATTERY_MAP);
-        final Map<String, BatteryHistEntry> nextBatteryHistMap =
-                batteryHistoryMap.getOrDefault(nextTimestamp, EMPTY_BATTERY_MAP);
-        final Map<String, BatteryHistEntry> nextTwoBatteryHistMap =
-                batteryHistoryMap.getOrDefault(nextTwoTimestamp, EMPTY_BATTERY_MAP);
+        final BatteryHistoryColumns.Row currentRow =
+                batteryHistoryColumns.getRow(currentTimestamp);
+        final BatteryHistoryColumns.Row nextRow = batteryHistoryColumns.getRow(nextTimestamp);
+        final BatteryHistoryColumns.Row nextTwoRow =
+                batteryHistoryColumns.getRow(nextTwoTimestamp);
         // We should not get the empty list since we have at least one fake data to record
         // the battery level and status in each time slot, the empty list is used to
         // represent there is no enough data to apply interpolation arithmetic.
-        if (currentBatteryHistMap.isEmpty()
-                || nextBatteryHistMap.isEmpty()
-                || nextTwoBatteryHistMap.isEmpty()) {
+        if (currentRow == null || currentRow.isEmpty()
+                || nextRow == null || nextRow.isEmpty()
+                || nextTwoRow == null || nextTwoRow.isEmpty()) {
             return null;
         }
 
-        // Collects all keys in these three time slot records as all populations.
-        final Set<String> allBatteryHistEntryKeys = new ArraySet<>();
-        allBatteryHistEntryKeys.addAll(currentBatteryHistMap.keySet());
-        allBatteryHistEntryKeys.addAll(nextBatteryHistMap.keySet());
-        allBatteryHistEntryKeys.addAll(nextTwoBatteryHistMap.keySet());
-
         double totalConsumePower = 0.0;
         double consumePowerFromOtherUsers = 0f;
-        // Calculates all packages diff usage data in a specific time slot.
-        for (String key : allBatteryHistEntryKeys) {
-            final BatteryHistEntry currentEntry =
-                    currentBatteryHistMap.getOrDefault(key, EMPTY_BATTERY_HIST_ENTRY);
-            final BatteryHistEntry nextEntry =
-                    nextBatteryHistMap.getOrDefault(key, EMPTY_BATTERY_HIST_ENTRY);
-            final BatteryHistEntry nextTwoEntry =
-                    nextTwoBatteryHistMap.getOrDefault(key, EMPTY_BATTERY_HIST_ENTRY);
+        // Calculates all packages diff usage data in a specific time slot. The rows are sorted
+        // by key id, so all keys in these three time slot records are visited in one merge.
+        int currentIndexInRow = 0;
+        int nextIndexInRow = 0;
+        int nextTwoIndexInRow = 0;
+        while (currentIndexInRow < currentRow.mSize
+                || nextIndexInRow < nextRow.mSize
+                || nextTwoIndexInRow < nextTwoRow.mSize) {
+            final int keyId = Math.min(currentRow.getKeyId(currentIndexInRow),
+                    Math.min(nextRow.getKeyId(nextIndexInRow),
+                            nextTwoRow.getKeyId(nextTwoIndexInRow)));
+            // Entries missing from a slot count as zero.
+            final int current = currentRow.getKeyId(currentIndexInRow) == keyId
+                    ? currentIndexInRow++ : -1;
+            final int next = nextRow.getKeyId(nextIndexInRow) == keyId
+                    ? nextIndexInRow++ : -1;
+            final int nextTwo = nextTwoRow.getKeyId(nextTwoIndexInRow) == keyId
+                    ? nextTwoIndexInRow++ : -1;
             // Cumulative values is a specific time slot for a specific app.
             long foregroundUsageTimeInMs =
                     getDiffValue(
-                            currentEntry.mForegroundUsageTimeInMs,
-                            nextEntry.mForegroundUsageTimeInMs,
-                            nextTwoEntry.mForegroundUsageTimeInMs);
+                            current < 0 ? 0 : currentRow.mForegroundUsageTimeInMs[current],
+                            next < 0 ? 0 : nextRow.mForegroundUsageTimeInMs[next],
+                            nextTwo < 0 ? 0 : nextTwoRow.mForegroundUsageTimeInMs[nextTwo]);
             long backgroundUsageTimeInMs =
                     getDiffValue(
-                            currentEntry.mBackgroundUsageTimeInMs,
-                            nextEntry.mBackgroundUsageTimeInMs,
-                            nextTwoEntry.mBackgroundUsageTimeInMs);
+                            current < 0 ? 0 : currentRow.mBackgroundUsageTimeInMs[current],
+                            next < 0 ? 0 : nextRow.mBackgroundUsageTimeInMs[next],
+                            nextTwo < 0 ? 0 : nextTwoRow.mBackgroundUsageTimeInMs[nextTwo]);
             double consumePower =
                     getDiffValue(
-                            currentEntry.mConsumePower,
-                            nextEntry.mConsumePower,
-                            nextTwoEntry.mConsumePower);
+                            current < 0 ? 0 : currentRow.mConsumePower[current],
+                            next < 0 ? 0 : nextRow.mConsumePower[next],
+                            nextTwo < 0 ? 0 : nextTwoRow.mConsumePower[nextTwo]);
             // Excludes entry since we don't have enough data to calculate.
             if (foregroundUsageTimeInMs == 0
                     && backgroundUsageTimeInMs == 0
                     && consumePower == 0) {
                 continue;
             }
-            final BatteryHistEntry selectedBatteryEntry =
-                    selectBatteryHistEntry(currentEntry, nextEntry, nextTwoEntry);
-            if (selectedBatteryEntry == null) {
-                continue;
-            }
+            final BatteryHistEntry selectedBatteryEntry = current >= 0
+                    ? currentRow.mEntries[current]
+                    : next >= 0 ? nextRow.mEntries[next] : nextTwoRow.mEntries[nextTwo];
             // Forces refine the cumulative value since it may introduce deviation error since we
             // will apply the interpolation arithmetic.
             final float totalUsageTimeInMs =
@@ -930,7 +932,7 @@ public final class DataProcessor {
                     Log.w(TAG, String.format("abnormal usage time %d|%d for:\n%s",
                             Duration.ofMillis(foregroundUsageTimeInMs).getSeconds(),
                             Duration.ofMillis(backgroundUsageTimeInMs).getSeconds(),
-                            currentEntry));
+                            selectedBatteryEntry));
                 }
                 foregroundUsageTimeInMs =
                         Math.round(foregroundUsageTimeInMs * ratio);
@@ -984,37 +986,11 @@ public final class DataProcessor {
     @Nullable
     private static BatteryDiffData getAccumulatedUsageDiffData(
             final Collection<BatteryDiffData> diffEntryListData) {
-        double totalConsumePower = 0f;
-        final Map<String, BatteryDiffEntry> diffEntryMap = new HashMap<>();
-        final List<BatteryDiffEntry> appEntries = new ArrayList<>();
-        final List<BatteryDiffEntry> systemEntries = new ArrayList<>();
-
+        final UsageDiffDataAccumulator accumulator = new UsageDiffDataAccumulator();
         for (BatteryDiffData diffEntryList : diffEntryListData) {
-            if (diffEntryList == null) {
-                continue;
-            }
-            for (BatteryDiffEntry entry : diffEntryList.getAppDiffEntryList()) {
-                computeUsageDiffDataPerEntry(entry, diffEntryMap);
-                totalConsumePower += entry.mConsumePower;
-            }
-            for (BatteryDiffEntry entry : diffEntryList.getSystemDiffEntryList()) {
-                computeUsageDiffDataPerEntry(entry, diffEntryMap);
-                totalConsumePower += entry.mConsumePower;
-            }
+            accumulator.add(diffEntryList);
         }
-
-        final Collection<BatteryDiffEntry> diffEntryList = diffEntryMap.values();
-        for (BatteryDiffEntry entry : diffEntryList) {
-            // Sets total daily consume power data into all BatteryDiffEntry.
-            entry.setTotalConsumePower(totalConsumePower);
-            if (entry.isSystemEntry()) {
-                systemEntries.add(entry);
-            } else {
-                appEntries.add(entry);
-            }
-        }
-
-        return diffEntryList.isEmpty() ? null : new BatteryDiffData(appEntries, systemEntries);
+        return accumulator.build();
     }
 
     private static void computeUsageDiffDataPerEntry(
@@ -1040,29 +1016,41 @@ public final class DataProcessor {
             final Context context,
             final Map<Integer, Map<Integer, BatteryDiffData>> resultMap) {
         final Set<CharSequence> backgroundUsageTimeHideList =
-                FeatureFactory.getFactory(context)
-                        .getPowerUsageFeatureProvider(context)
-                        .getHideBackgroundUsageTimeSet(context);
-        final CharSequence[] notAllowShowEntryPackages =
-                FeatureFactory.getFactory(context)
-                        .getPowerUsageFeatureProvider(context)
-                        .getHideApplicationEntries(context);
-        resultMap.keySet().forEach(dailyKey -> {
-            final Map<Integer, BatteryDiffData> dailyUsageMap = resultMap.get(dailyKey);
-            dailyUsageMap.values().forEach(diffEntryLists -> {
-                if (diffEntryLists == null) {
-                    return;
-                }
-                purgeLowPercentageAndFakeData(
-                        diffEntryLists.getAppDiffEntryList(), backgroundUsageTimeHideList,
-                        notAllowShowEntryPackages);
-                purgeLowPercentageAndFakeData(
-                        diffEntryLists.getSystemDiffEntryList(), backgroundUsageTimeHideList,
-                        notAllowShowEntryPackages);
-            });
+                getBackgroundUsageTimeHideList(context);
+        final CharSequence[] notAllowShowEntryPackages = getNotAllowShowEntryPackages(context);
+        resultMap.values().forEach(dailyUsageMap -> purgeLowPercentageAndFakeData(
+                dailyUsageMap, backgroundUsageTimeHideList, notAllowShowEntryPackages));
+    }
+
+    private static void purgeLowPercentageAndFakeData(
+            final Map<Integer, BatteryDiffData> dailyUsageMap,
+            final Set<CharSequence> backgroundUsageTimeHideList,
+            final CharSequence[] notAllowShowEntryPackages) {
+        dailyUsageMap.values().forEach(diffEntryLists -> {
+            if (diffEntryLists == null) {
+                return;
+            }
+            purgeLowPercentageAndFakeData(
+                    diffEntryLists.getAppDiffEntryList(), backgroundUsageTimeHideList,
+                    notAllowShowEntryPackages);
+            purgeLowPercentageAndFakeData(
+                    diffEntryLists.getSystemDiffEntryList(), backgroundUsageTimeHideList,
+                    notAllowShowEntryPackages);
         });
     }
 
+    private static Set<CharSequence> getBackgroundUsageTimeHideList(Context context) {
+        return FeatureFactory.getFactory(context)
+                .getPowerUsageFeatureProvider(context)
+                .getHideBackgroundUsageTimeSet(context);
+    }
+
+    private static CharSequence[] getNotAllowShowEntryPackages(Context context) {
+        return FeatureFactory.getFactory(context)
+                .getPowerUsageFeatureProvider(context)
+                .getHideApplicationEntries(context);
+    }
+
     private static void purgeLowPercentageAndFakeData(
             final List<BatteryDiffEntry> entries,
             final Set<CharSequence> backgroundUsageTimeHideList,
@@ -1121,12 +1109,14 @@ public final class DataProcessor {
             return;
         }
         // Pre-loads each BatteryDiffEntry relative icon and label for all slots.
-        final BatteryDiffData batteryUsageMapForAll =
-                batteryUsageMap.get(SELECTED_INDEX_ALL).get(SELECTED_INDEX_ALL);
-        if (batteryUsageMapForAll != null) {
-            batteryUsageMapForAll.getAppDiffEntryList().forEach(
+        loadLabelAndIcon(batteryUsageMap.get(SELECTED_INDEX_ALL).get(SELECTED_INDEX_ALL));
+    }
+
+    private static void loadLabelAndIcon(@Nullable final BatteryDiffData batteryDiffData) {
+        if (batteryDiffData != null) {
+            batteryDiffData.getAppDiffEntryList().forEach(
                     entry -> entry.loadLabelAndIcon());
-            batteryUsageMapForAll.getSystemDiffEntryList().forEach(
+            batteryDiffData.getSystemDiffEntryList().forEach(
                     entry -> entry.loadLabelAndIcon());
         }
     }
@@ -1169,17 +1159,6 @@ public final class DataProcessor {
         return (v2 > v1 ? v2 - v1 : 0) + (v3 > v2 ? v3 - v2 : 0);
     }
 
-    @Nullable
-    private static BatteryHistEntry selectBatteryHistEntry(
-            final BatteryHistEntry... batteryHistEntries) {
-        for (BatteryHistEntry entry : batteryHistEntries) {
-            if (entry != null && entry != EMPTY_BATTERY_HIST_ENTRY) {
-                return entry;
-            }
-        }
-        return null;
-    }
-
     private static BatteryDiffEntry createOtherUsersEntry(
             Context context, final double consumePower) {
         final ContentValues values = new ContentValues();
@@ -1220,6 +1199,97 @@ public final class DataProcessor {
         }
     }
 
+    // Computes the hourly usage diff data of each day from the same columnar history.
+    private static final class HourlyUsageDiffDataGenerator {
+        private final Context mContext;
+        private final int mCurrentUserId;
+        private final int mWorkProfileUserId;
+        private final BatteryHistoryColumns mBatteryHistoryColumns;
+
+        HourlyUsageDiffDataGenerator(
+                Context context, final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap) {
+            mContext = context;
+            mCurrentUserId = context.getUserId();
+            final UserHandle userHandle =
+                    Utils.getManagedProfile(context.getSystemService(UserManager.class));
+            mWorkProfileUserId =
+                    userHandle != null ? userHandle.getIdentifier() : Integer.MIN_VALUE;
+            mBatteryHistoryColumns = BatteryHistoryColumns.from(batteryHistoryMap);
+        }
+
+        // Each time slot usage diff data =
+        //     Math.abs(timestamp[i+2] data - timestamp[i+1] data) +
+        //     Math.abs(timestamp[i+1] data - timestamp[i] data);
+        // since we want to aggregate every two hours data into a single time slot.
+        Map<Integer, BatteryDiffData> generate(
+                @Nullable final BatteryLevelData.PeriodBatteryLevelData hourlyBatteryLevels) {
+            final Map<Integer, BatteryDiffData> dailyDiffMap = new HashMap<>();
+            if (hourlyBatteryLevels == null) {
+                return dailyDiffMap;
+            }
+            final List<Long> timestamps = hourlyBatteryLevels.getTimestamps();
+            for (int hourlyIndex = 0; hourlyIndex < timestamps.size() - 1; hourlyIndex++) {
+                dailyDiffMap.put(hourlyIndex, insertHourlyUsageDiffDataPerSlot(
+                        mContext,
+                        mCurrentUserId,
+                        mWorkProfileUserId,
+                        hourlyIndex,
+                        timestamps,
+                        mBatteryHistoryColumns));
+            }
+            return dailyDiffMap;
+        }
+    }
+
+    // Sums up the usage diff data of several time slots into a single one.
+    private static final class UsageDiffDataAccumulator {
+        private final Map<String, BatteryDiffEntry> mDiffEntryMap = new HashMap<>();
+        private double mTotalConsumePower = 0f;
+
+        void add(@Nullable final BatteryDiffData diffEntryList) {
+            if (diffEntryList == null) {
+                return;
+            }
+            for (BatteryDiffEntry entry : diffEntryList.getAppDiffEntryList()) {
+                computeUsageDiffDataPerEntry(entry, mDiffEntryMap);
+                mTotalConsumePower += entry.mConsumePower;
+            }
+            for (BatteryDiffEntry entry : diffEntryList.getSystemDiffEntryList()) {
+                computeUsageDiffDataPerEntry(entry, mDiffEntryMap);
+                mTotalConsumePower += entry.mConsumePower;
+            }
+        }
+
+        // Builds the data summed up so far, leaving the entries being summed up untouched.
+        @Nullable
+        BatteryDiffData buildSnapshot() {
+            final UsageDiffDataAccumulator snapshot = new UsageDiffDataAccumulator();
+            for (BatteryDiffEntry entry : mDiffEntryMap.values()) {
+                computeUsageDiffDataPerEntry(entry, snapshot.mDiffEntryMap);
+            }
+            snapshot.mTotalConsumePower = mTotalConsumePower;
+            return snapshot.build();
+        }
+
+        @Nullable
+        BatteryDiffData build() {
+            final List<BatteryDiffEntry> appEntries = new ArrayList<>();
+            final List<BatteryDiffEntry> systemEntries = new ArrayList<>();
+            final Collection<BatteryDiffEntry> diffEntryList = mDiffEntryMap.values();
+            for (BatteryDiffEntry entry : diffEntryList) {
+                // Sets total daily consume power data into all BatteryDiffEntry.
+                entry.setTotalConsumePower(mTotalConsumePower);
+                if (entry.isSystemEntry()) {
+                    systemEntries.add(entry);
+                } else {
+                    appEntries.add(entry);
+                }
+            }
+            return diffEntryList.isEmpty()
+                    ? null : new BatteryDiffData(appEntries, systemEntries);
+        }
+    }
+
     // Compute diff map and loads all items (icon and label) in the background.
     private static class ComputeUsageMapAndLoadItemsTask
             extends AsyncTask<Void, Void, Map<Integer, Map<Integer, BatteryDiffData>>> {
@@ -1256,13 +1326,28 @@ public final class DataProcessor {
             final long startTime = System.currentTimeMillis();
             final Map<Integer, Map<Integer, BatteryDiffData>> batteryUsageMap =
                     getBatteryUsageMap(
-                            mApplicationContext, mHourlyBatteryLevelsPerDay, mBatteryHistoryMap);
+                            mApplicationContext, mHourlyBatteryLevelsPerDay, mBatteryHistoryMap,
+                            mAsyncResponseDelegate instanceof DailyUsageMapAsyncResponse
+                                    ? this::postDailyUsageMap : null);
             loadLabelAndIcon(batteryUsageMap);
-            Log.d(TAG, String.format("execute ComputeUsageMapAndLoadItemsTask in %d/ms",
-                    (System.currentTimeMillis() - startTime)));
+            final long latencyMs = System.currentTimeMillis() - startTime;
+            LoaderLatencyStats.log(LoaderLatencyStats.LOADER_BATTERY_USAGE_MAP, latencyMs);
+            Log.d(TAG, String.format("execute ComputeUsageMapAndLoadItemsTask in %d/ms", latencyMs));
             return batteryUsageMap;
         }
 
+        // Posts the usage data of a day back to main thread, so it can be shown before the
+        // [SELECTED_INDEX_ALL][SELECTED_INDEX_ALL] data is ready. Its items are loaded first,
+        // so the main thread does not load them again.
+        private void postDailyUsageMap(
+                int dailyIndex, final Map<Integer, BatteryDiffData> dailyUsageMap) {
+            dailyUsageMap.values().forEach(batteryDiffData -> loadLabelAndIcon(batteryDiffData));
+            final DailyUsageMapAsyncResponse asyncResponseDelegate =
+                    (DailyUsageMapAsyncResponse) mAsyncResponseDelegate;
+            mHandler.post(() -> asyncResponseDelegate.onDailyBatteryUsageMapLoaded(
+                    dailyIndex, dailyUsageMap));
+        }
+
         @Override
         protected void onPostExecute(
                 final Map<Integer, Map<Integer, BatteryDiffData>> batteryUsageMap) {
@@ -1303,8 +1388,9 @@ public final class DataProcessor {
             final Map<Integer, Map<Integer, BatteryDiffData>> batteryUsageMap =
                     getBatteryUsageMapFromStatsService(mApplicationContext);
             loadLabelAndIcon(batteryUsageMap);
-            Log.d(TAG, String.format("execute LoadUsageMapFromBatteryStatsServiceTask in %d/ms",
-                    (System.currentTimeMillis() - startTime)));
+            final long latencyMs = System.currentTimeMillis() - startTime;
+            LoaderLatencyStats.log(LoaderLatencyStats.LOADER_BATTERY_USAGE_MAP, latencyMs);
+            Log.d(TAG, String.format("execute LoadUsageMapFromBatteryStatsServiceTask in %d/ms", latencyMs));
             return batteryUsageMap;
         }
     }
@@ -325,6 +325,11 @@ public class SystemNavigationGestureSettings extends RadioButtonPickerFragment i
 
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
             new BaseSearchIndexProvider(R.xml.system_navigation_gesture_settings) {
+                @Override
+                public boolean isStaticDataSnapshotable() {
+                    // The rows depend on the navigation overlays installed.
+                    return false;
+                }
 
                 @Override
                 protected boolean isPageSearchEnabled(Context context) {
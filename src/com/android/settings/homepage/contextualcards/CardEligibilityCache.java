@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.homepage.contextualcards;
+
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.ArrayMap;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the result of {@link EligibleCardChecker} for each card slice for a short time, so
+ * that back to back homepage loads don't bind the same slices again.
+ */
+public class CardEligibilityCache {
+
+    @VisibleForTesting
+    static final long TTL_MS = 5000L;
+
+    private static final CardEligibilityCache sInstance = new CardEligibilityCache();
+    private static final AtomicLong sHits = new AtomicLong();
+    private static final AtomicLong sMisses = new AtomicLong();
+
+    private final ArrayMap<Uri, Entry> mEntries = new ArrayMap<>();
+
+    static CardEligibilityCache getInstance() {
+        return sInstance;
+    }
+
+    /** Returns {@code true} if there is an unexpired result for {@code card}. */
+    synchronized boolean contains(ContextualCard card) {
+        final boolean contains = getEntry(card.getSliceUri()) != null;
+        (contains ? sHits : sMisses).incrementAndGet();
+        return contains;
+    }
+
+    /** Returns the number of cards whose eligibility check was skipped thanks to the cache. */
+    public static long getHitCount() {
+        return sHits.get();
+    }
+
+    /** Returns the number of cards that had to be checked. */
+    public static long getMissCount() {
+        return sMisses.get();
+    }
+
+    /**
+     * Returns {@code card} updated with the cached eligibility result, or {@code null} if the card
+     * was found not eligible or has no unexpired result.
+     */
+    @Nullable
+    synchronized ContextualCard get(ContextualCard card) {
+        final Entry entry = getEntry(card.getSliceUri());
+        if (entry == null || entry.mResult == null) {
+            return null;
+        }
+        return card.mutate()
+                .setSlice(entry.mResult.getSlice())
+                .setHasInlineAction(entry.mResult.hasInlineAction())
+                .build();
+    }
+
+    /**
+     * Records the eligibility result of {@code card}; {@code result} is {@code null} if the card
+     * is not eligible.
+     */
+    synchronized void put(ContextualCard card, @Nullable ContextualCard result) {
+        mEntries.put(card.getSliceUri(), new Entry(result, SystemClock.elapsedRealtime()));
+    }
+
+    synchronized void clear() {
+        mEntries.clear();
+    }
+
+    private Entry getEntry(Uri uri) {
+        final Entry entry = mEntries.get(uri);
+        if (entry == null) {
+            return null;
+        }
+        if (SystemClock.elapsedRealtime() - entry.mTimestamp > TTL_MS) {
+            mEntries.remove(uri);
+            return null;
+        }
+        return entry;
+    }
+
+    private static class Entry {
+        final ContextualCard mResult;
+        final long mTimestamp;
+
+        Entry(ContextualCard result, long timestamp) {
+            mResult = result;
+            mTimestamp = timestamp;
+        }
+    }
+}
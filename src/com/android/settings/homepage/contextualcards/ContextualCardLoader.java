@@ -27,7 +27,9 @@ import android.database.Cursor;
 import android.net.Uri;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.provider.Settings;
+import android.util.ArrayMap;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -41,11 +43,16 @@ import com.android.settingslib.utils.AsyncLoaderCompat;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>> {
 
@@ -57,6 +64,11 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
 
     private static final String TAG = "ContextualCardLoader";
     private static final long ELIGIBILITY_CHECKER_TIMEOUT_MS = 400;
+    private static final long ELIGIBILITY_CHECKER_KEEP_ALIVE_SECONDS = 30;
+    @VisibleForTesting
+    static final int MAX_ELIGIBILITY_CHECKER_THREADS = 6;
+
+    private static ExecutorService sEligibilityCheckerExecutor;
 
     private final ContentObserver mObserver = new ContentObserver(
             new Handler(Looper.getMainLooper())) {
@@ -73,12 +85,23 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
     Uri mNotifyUri;
 
     private final Context mContext;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicInteger mLoadGeneration = new AtomicInteger();
+    private volatile CardContentLoaderListener mPartialResultListener;
 
     ContextualCardLoader(Context context) {
         super(context);
         mContext = context.getApplicationContext();
     }
 
+    /**
+     * Sets a listener that receives the displayable cards on the main thread each time another
+     * card becomes ready, before the final result is delivered.
+     */
+    void setPartialResultListener(CardContentLoaderListener listener) {
+        mPartialResultListener = listener;
+    }
+
     @Override
     protected void onStartLoading() {
         super.onStartLoading();
@@ -103,6 +126,7 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
     @NonNull
     @Override
     public List<ContextualCard> loadInBackground() {
+        mLoadGeneration.incrementAndGet();
         final List<ContextualCard> result = new ArrayList<>();
         if (mContext.getResources().getBoolean(R.bool.config_use_legacy_suggestion)) {
             Log.d(TAG, "Skipping - in legacy suggestion mode");
@@ -127,9 +151,24 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
     @VisibleForTesting
     List<ContextualCard> getDisplayableCards(List<ContextualCard> candidates) {
         final List<ContextualCard> eligibleCards = filterEligibleCards(candidates);
+        final List<ContextualCard> hiddenCards = new ArrayList<>();
+        final List<ContextualCard> visibleCards = pickDisplayableCards(eligibleCards, hiddenCards);
+
+        if (!CardContentProvider.DELETE_CARD_URI.equals(mNotifyUri)) {
+            final MetricsFeatureProvider metricsFeatureProvider =
+                    FeatureFactory.getFactory(mContext).getMetricsFeatureProvider();
+
+            metricsFeatureProvider.action(mContext,
+                    SettingsEnums.ACTION_CONTEXTUAL_CARD_NOT_SHOW,
+                    ContextualCardLogUtils.buildCardListLog(hiddenCards));
+        }
+        return visibleCards;
+    }
+
+    private List<ContextualCard> pickDisplayableCards(List<ContextualCard> eligibleCards,
+            List<ContextualCard> hiddenCards) {
         final List<ContextualCard> stickyCards = new ArrayList<>();
         final List<ContextualCard> visibleCards = new ArrayList<>();
-        final List<ContextualCard> hiddenCards = new ArrayList<>();
 
         final int maxCardCount = getCardCount();
         eligibleCards.forEach(card -> {
@@ -155,15 +194,6 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
             }
         });
         visibleCards.addAll(stickyCards);
-
-        if (!CardContentProvider.DELETE_CARD_URI.equals(mNotifyUri)) {
-            final MetricsFeatureProvider metricsFeatureProvider =
-                    FeatureFactory.getFactory(mContext).getMetricsFeatureProvider();
-
-            metricsFeatureProvider.action(mContext,
-                    SettingsEnums.ACTION_CONTEXTUAL_CARD_NOT_SHOW,
-                    ContextualCardLogUtils.buildCardListLog(hiddenCards));
-        }
         return visibleCards;
     }
 
@@ -188,42 +218,123 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
             return candidates;
         }
 
-        final ExecutorService executor = Executors.newFixedThreadPool(candidates.size());
-        final List<ContextualCard> cards = new ArrayList<>();
-        List<Future<ContextualCard>> eligibleCards = new ArrayList<>();
-
-        final List<EligibleCardChecker> checkers = candidates.stream()
-                .map(card -> new EligibleCardChecker(mContext, card))
-                .collect(Collectors.toList());
-        try {
-            eligibleCards = executor.invokeAll(checkers, ELIGIBILITY_CHECKER_TIMEOUT_MS,
-                    TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            Log.w(TAG, "Failed to get eligible states for all cards", e);
+        final CardEligibilityCache cache = CardEligibilityCache.getInstance();
+        final CompletionService<ContextualCard> completionService =
+                new ExecutorCompletionService<>(getEligibilityCheckerExecutor());
+        final Map<Future<ContextualCard>, ContextualCard> pendingCards = new ArrayMap<>();
+        final Map<Future<ContextualCard>, EligibleCardChecker> checkers = new ArrayMap<>();
+        for (ContextualCard card : candidates) {
+            if (!cache.contains(card)) {
+                final EligibleCardChecker checker = new EligibleCardChecker(mContext, card);
+                final Future<ContextualCard> cardFuture;
+                try {
+                    cardFuture = completionService.submit(checker);
+                } catch (RejectedExecutionException e) {
+                    // All checker threads are busy, e.g. with checks stuck in bindSlice. Treat the
+                    // card as ineligible for this load rather than waiting for a free thread.
+                    Log.w(TAG, "No thread to check eligible state for card: "
+                            + card.getSliceUri());
+                    checker.logTimeout(ELIGIBILITY_CHECKER_TIMEOUT_MS);
+                    continue;
+                }
+                pendingCards.put(cardFuture, card);
+                checkers.put(cardFuture, checker);
+            }
         }
-        executor.shutdown();
-
-        // Collect future and eligible cards
-        for (int i = 0; i < eligibleCards.size(); i++) {
-            final Future<ContextualCard> cardFuture = eligibleCards.get(i);
-            if (cardFuture.isCancelled()) {
-                Log.w(TAG, "Timeout getting eligible state for card: "
-                        + candidates.get(i).getSliceUri());
-                continue;
+        List<ContextualCard> publishedCards = publishPartialResult(candidates,
+                null /* publishedCards */);
+
+        // Collect futures as they complete and store eligibility results
+        final long deadline = SystemClock.elapsedRealtime() + ELIGIBILITY_CHECKER_TIMEOUT_MS;
+        while (!pendingCards.isEmpty()) {
+            final long remaining = deadline - SystemClock.elapsedRealtime();
+            final Future<ContextualCard> cardFuture;
+            try {
+                cardFuture = remaining > 0
+                        ? completionService.poll(remaining, TimeUnit.MILLISECONDS) : null;
+            } catch (InterruptedException e) {
+                Log.w(TAG, "Failed to get eligible states for all cards", e);
+                break;
+            }
+            if (cardFuture == null) {
+                break;
             }
 
+            final ContextualCard candidate = pendingCards.remove(cardFuture);
             try {
-                final ContextualCard card = cardFuture.get();
-                if (card != null) {
-                    cards.add(card);
-                }
+                cache.put(candidate, cardFuture.get());
             } catch (Exception e) {
                 Log.w(TAG, "Failed to get eligible state for card", e);
             }
+            publishedCards = publishPartialResult(candidates, publishedCards);
+        }
+
+        for (Map.Entry<Future<ContextualCard>, ContextualCard> entry : pendingCards.entrySet()) {
+            final ContextualCard candidate = entry.getValue();
+            entry.getKey().cancel(true /* mayInterruptIfRunning */);
+            Log.w(TAG, "Timeout getting eligible state for card: " + candidate.getSliceUri());
+            checkers.get(entry.getKey()).logTimeout(ELIGIBILITY_CHECKER_TIMEOUT_MS);
+        }
+
+        return getEligibleCards(candidates);
+    }
+
+    /**
+     * Posts the cards that are displayable so far to the partial result listener, if they differ
+     * from {@code publishedCards}. Returns the cards that have been published.
+     */
+    private List<ContextualCard> publishPartialResult(List<ContextualCard> candidates,
+            List<ContextualCard> publishedCards) {
+        if (mPartialResultListener == null) {
+            return publishedCards;
+        }
+        final List<ContextualCard> cards = pickDisplayableCards(getEligibleCards(candidates),
+                new ArrayList<>());
+        if (cards.isEmpty() || cards.equals(publishedCards)) {
+            return publishedCards;
+        }
+        final int generation = mLoadGeneration.get();
+        mMainHandler.post(() -> {
+            final CardContentLoaderListener listener = mPartialResultListener;
+            if (listener != null && isStarted() && generation == mLoadGeneration.get()) {
+                listener.onPartialCardLoading(cards);
+            }
+        });
+        return cards;
+    }
+
+    // Keep the order of the candidates. Cards still being checked have no cached result yet.
+    private List<ContextualCard> getEligibleCards(List<ContextualCard> candidates) {
+        final CardEligibilityCache cache = CardEligibilityCache.getInstance();
+        final List<ContextualCard> cards = new ArrayList<>();
+        for (ContextualCard candidate : candidates) {
+            final ContextualCard card = cache.get(candidate);
+            if (card != null) {
+                cards.add(card);
+            }
         }
         return cards;
     }
 
+    @VisibleForTesting
+    ExecutorService getEligibilityCheckerExecutor() {
+        return getSharedEligibilityCheckerExecutor();
+    }
+
+    private static synchronized ExecutorService getSharedEligibilityCheckerExecutor() {
+        if (sEligibilityCheckerExecutor == null) {
+            // Every check starts right away on an idle or a new thread instead of waiting in a
+            // queue, so the timeout only covers its running time and a check stuck in bindSlice
+            // does not delay the others. The thread count is capped, and checks beyond the cap
+            // are rejected. Idle threads are not kept once the homepage is loaded.
+            sEligibilityCheckerExecutor = new ThreadPoolExecutor(
+                    0 /* corePoolSize */, MAX_ELIGIBILITY_CHECKER_THREADS /* maximumPoolSize */,
+                    ELIGIBILITY_CHECKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new SynchronousQueue<>());
+        }
+        return sEligibilityCheckerExecutor;
+    }
+
     private boolean isLargeCard(ContextualCard card) {
         return card.getSliceUri().equals(CONTEXTUAL_WIFI_SLICE_URI)
                 || card.getSliceUri().equals(BLUETOOTH_DEVICES_SLICE_URI);
@@ -231,5 +342,12 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
 
     public interface CardContentLoaderListener {
         void onFinishCardLoading(List<ContextualCard> contextualCards);
+
+        /**
+         * Called with the cards that are ready so far, when partial results are requested through
+         * {@link ContextualCardLoader#setPartialResultListener}.
+         */
+        default void onPartialCardLoading(List<ContextualCard> contextualCards) {
+        }
     }
 }
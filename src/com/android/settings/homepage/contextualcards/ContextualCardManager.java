@@ -69,6 +69,9 @@ import java.util.stream.Collectors;
  * {@link ContextualCardController} will end up building a list of {@link ContextualCard} for
  * {@link ContextualCardsAdapter} and {@link BaseAdapter#notifyDataSetChanged()} will be called to
  * get the page refreshed.
+ *
+ * When {@link FeatureFlags#PROGRESSIVE_CONTEXTUAL_CARDS} is enabled, the cards are also passed
+ * here each time another card becomes ready, so a slow slice doesn't hold back the other cards.
  */
 public class ContextualCardManager implements ContextualCardLoader.CardContentLoaderListener,
         ContextualCardUpdateListener, LifecycleObserver, OnSaveInstanceState {
@@ -126,17 +129,28 @@ public class ContextualCardManager implements ContextualCardLoader.CardContentLo
         final CardContentLoaderCallbacks cardContentLoaderCallbacks =
                 new CardContentLoaderCallbacks(mContext);
         cardContentLoaderCallbacks.setListener(this);
+        final Loader<List<ContextualCard>> loader;
         if (!restartLoaderNeeded) {
             // Use the cached data when navigating back to the first page and upon screen rotation.
-            loaderManager.initLoader(CARD_CONTENT_LOADER_ID, null /* bundle */,
+            loader = loaderManager.initLoader(CARD_CONTENT_LOADER_ID, null /* bundle */,
                     cardContentLoaderCallbacks);
         } else {
             // Reload all cards when navigating back after pressing home key, recent app key, or
             // turn off screen.
             mIsFirstLaunch = true;
-            loaderManager.restartLoader(CARD_CONTENT_LOADER_ID, null /* bundle */,
+            loader = loaderManager.restartLoader(CARD_CONTENT_LOADER_ID, null /* bundle */,
                     cardContentLoaderCallbacks);
         }
+        if (loader instanceof ContextualCardLoader) {
+            // The loader may be retained from a previous manager, so always set the listener.
+            ((ContextualCardLoader) loader).setPartialResultListener(
+                    isProgressiveLoadingEnabled() ? this : null);
+        }
+    }
+
+    @VisibleForTesting
+    boolean isProgressiveLoadingEnabled() {
+        return FeatureFlagUtils.isEnabled(mContext, FeatureFlags.PROGRESSIVE_CONTEXTUAL_CARDS);
     }
 
     private void loadCardControllers() {
@@ -229,6 +243,18 @@ public class ContextualCardManager implements ContextualCardLoader.CardContentLo
         }
     }
 
+    @Override
+    public void onPartialCardLoading(List<ContextualCard> cards) {
+        // Partial results only matter while the first result of a fresh launch is pending.
+        if (!mIsFirstLaunch) {
+            return;
+        }
+        Log.d(TAG, "Partial loading time = " + (System.currentTimeMillis() - mStartTime)
+                + ", cards = " + cards.size());
+        onContextualCardUpdated(cards.stream()
+                .collect(groupingBy(ContextualCard::getCardType)));
+    }
+
     @Override
     public void onFinishCardLoading(List<ContextualCard> cards) {
         final long loadTime = System.currentTimeMillis() - mStartTime;
@@ -250,13 +276,16 @@ public class ContextualCardManager implements ContextualCardLoader.CardContentLo
         }
 
         final long timeoutLimit = getCardLoaderTimeout();
-        if (loadTime <= timeoutLimit) {
+        // In progressive mode the cards are already on screen, so a slow load only settles the
+        // final list instead of dropping it.
+        if (loadTime <= timeoutLimit || isProgressiveLoadingEnabled()) {
             onContextualCardUpdated(cards.stream()
                     .collect(groupingBy(ContextualCard::getCardType)));
             metricsFeatureProvider.action(mContext,
                     SettingsEnums.ACTION_CONTEXTUAL_CARD_SHOW,
                     ContextualCardLogUtils.buildCardListLog(cards));
-        } else {
+        }
+        if (loadTime > timeoutLimit) {
             // log timeout occurrence
             metricsFeatureProvider.action(SettingsEnums.PAGE_UNKNOWN,
                     SettingsEnums.ACTION_CONTEXTUAL_CARD_LOAD_TIMEOUT,
@@ -31,18 +31,24 @@ import androidx.slice.SliceMetadata;
 import androidx.slice.SliceViewManager;
 import androidx.slice.core.SliceAction;
 
+import com.android.settings.homepage.contextualcards.logging.ContextualCardLogUtils;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
 import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class EligibleCardChecker implements Callable<ContextualCard> {
 
     private static final String TAG = "EligibleCardChecker";
 
     private final Context mContext;
+    private final String mTextSliceUri;
+    // Set by whichever logs the check first: the check when it finishes, or the loader when it
+    // times out.
+    private final AtomicBoolean mLogged = new AtomicBoolean();
 
     @VisibleForTesting
     ContextualCard mCard;
@@ -50,6 +56,7 @@ public class EligibleCardChecker implements Callable<ContextualCard> {
     EligibleCardChecker(Context context, ContextualCard card) {
         mContext = context;
         mCard = card;
+        mTextSliceUri = card.getTextSliceUri();
     }
 
     @Override
@@ -73,15 +80,28 @@ public class EligibleCardChecker implements Callable<ContextualCard> {
             result = null;
         }
         // Log individual card loading time
+        final long latency = System.currentTimeMillis() - startTime;
         metricsFeatureProvider.action(SettingsEnums.PAGE_UNKNOWN,
                 SettingsEnums.ACTION_CONTEXTUAL_CARD_LOAD,
                 SettingsEnums.SETTINGS_HOMEPAGE,
                 mCard.getTextSliceUri() /* key */,
-                (int) (System.currentTimeMillis() - startTime) /* value */);
+                (int) latency /* value */);
+        if (mLogged.compareAndSet(false, true)) {
+            ContextualCardLogUtils.logEligibilityCheck(mTextSliceUri, latency,
+                    false /* timedOut */);
+        }
 
         return result;
     }
 
+    /** Logs the check as timed out, unless it has already finished. */
+    void logTimeout(long timeoutMs) {
+        if (mLogged.compareAndSet(false, true)) {
+            ContextualCardLogUtils.logEligibilityCheck(mTextSliceUri, timeoutMs,
+                    true /* timedOut */);
+        }
+    }
+
     @VisibleForTesting
     boolean isCardEligibleToDisplay(ContextualCard card) {
         if (card.getRankingScore() < 0) {
@@ -16,8 +16,10 @@
 
 package com.android.settings.homepage.contextualcards.logging;
 
+import android.util.ArrayMap;
 import android.util.Log;
 
+import androidx.annotation.VisibleForTesting;
 import androidx.slice.widget.EventInfo;
 
 import com.android.settings.homepage.contextualcards.ContextualCard;
@@ -32,6 +34,9 @@ public class ContextualCardLogUtils {
 
     private static final String TAG = "ContextualCardLogUtils";
 
+    private static final ArrayMap<String, EligibilityCheckStats> sEligibilityCheckStats =
+            new ArrayMap<>();
+
     private static final class TapTarget {
         static int TARGET_DEFAULT = 0;
         static int TARGET_TITLE = 1;
@@ -247,6 +252,110 @@ public class ContextualCardLogUtils {
         return logList;
     }
 
+    /**
+     * Record the latency of an eligibility check of a card.
+     *
+     * @param sliceUri Slice uri of the checked card.
+     * @param latencyMs Time spent on the check, or the timeout if it did not finish in time.
+     * @param timedOut Whether the check was cancelled by the loader timeout.
+     */
+    public static void logEligibilityCheck(String sliceUri, long latencyMs, boolean timedOut) {
+        synchronized (sEligibilityCheckStats) {
+            EligibilityCheckStats stats = sEligibilityCheckStats.get(sliceUri);
+            if (stats == null) {
+                stats = new EligibilityCheckStats(sliceUri);
+                sEligibilityCheckStats.put(sliceUri, stats);
+            }
+            stats.add(latencyMs, timedOut);
+        }
+        if (timedOut) {
+            Log.w(TAG, "Eligibility check timed out after " + latencyMs + "ms: " + sliceUri);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the eligibility check statistics of every card checked so far.
+     */
+    public static List<EligibilityCheckStats> getEligibilityCheckStats() {
+        final List<EligibilityCheckStats> result = new ArrayList<>();
+        synchronized (sEligibilityCheckStats) {
+            for (EligibilityCheckStats stats : sEligibilityCheckStats.values()) {
+                result.add(stats.copy());
+            }
+        }
+        return result;
+    }
+
+    @VisibleForTesting
+    public static void resetEligibilityCheckStats() {
+        synchronized (sEligibilityCheckStats) {
+            sEligibilityCheckStats.clear();
+        }
+    }
+
+    /**
+     * Latency and timeout statistics of the eligibility checks of a card
+     */
+    public static class EligibilityCheckStats {
+        private final String mSliceUri;
+        private int mCount;
+        private int mTimeoutCount;
+        private long mTotalLatencyMs;
+        private long mMaxLatencyMs;
+
+        EligibilityCheckStats(String sliceUri) {
+            mSliceUri = sliceUri;
+        }
+
+        public String getSliceUri() {
+            return mSliceUri;
+        }
+
+        public int getCount() {
+            return mCount;
+        }
+
+        public int getTimeoutCount() {
+            return mTimeoutCount;
+        }
+
+        public long getTotalLatencyMs() {
+            return mTotalLatencyMs;
+        }
+
+        public long getMaxLatencyMs() {
+            return mMaxLatencyMs;
+        }
+
+        public double getTimeoutRate() {
+            return mCount == 0 ? 0 : (double) mTimeoutCount / mCount;
+        }
+
+        @Override
+        public String toString() {
+            return mSliceUri + "|" + mCount + "|" + mTimeoutCount + "|"
+                    + (mCount == 0 ? 0 : mTotalLatencyMs / mCount) + "|" + mMaxLatencyMs;
+        }
+
+        private void add(long latencyMs, boolean timedOut) {
+            mCount++;
+            if (timedOut) {
+                mTimeoutCount++;
+            }
+            mTotalLatencyMs += latencyMs;
+            mMaxLatencyMs = Math.max(mMaxLatencyMs, latencyMs);
+        }
+
+        private EligibilityCheckStats copy() {
+            final EligibilityCheckStats copy = new EligibilityCheckStats(mSliceUri);
+            copy.mCount = mCount;
+            copy.mTimeoutCount = mTimeoutCount;
+            copy.mTotalLatencyMs = mTotalLatencyMs;
+            copy.mMaxLatencyMs = mMaxLatencyMs;
+            return copy;
+        }
+    }
+
     public static int actionTypeToTapTarget(int actionType) {
         switch (actionType) {
             case EventInfo.ACTION_TYPE_CONTENT:
@@ -612,6 +612,11 @@ public class LiveDisplaySettings extends SettingsPreferenceFragment implements
 
     public static final SearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
             new BaseSearchIndexProvider() {
+                @Override
+                public boolean isStaticDataSnapshotable() {
+                    // The rows depend on the display modes of the hardware.
+                    return false;
+                }
 
                 @Override
                 public List<String> getNonIndexableKeys(Context context) {
@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import android.util.ArraySet;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes the operations turning a displayed list of keyed items, positioned by an int order as
+ * in a {@link androidx.preference.PreferenceGroup}, into a new list of keys.
+ *
+ * The longest run of kept items whose relative position did not change keeps its order values.
+ * Every other kept item is moved, and new items are inserted with order values picked in the gap
+ * between their neighbours, so a scan that inserts or reorders a few networks only touches those.
+ * All items are renumbered only when a gap is too narrow.
+ */
+final class KeyedListReconciler {
+
+    // Spacing of the order values when every item is renumbered.
+    @VisibleForTesting
+    static final int ORDER_SPACING = 1 << 10;
+    /** Exclusive upper bound of the order values, leaving room for trailing items. */
+    static final int MAX_ORDER = Integer.MAX_VALUE / 2;
+
+    private KeyedListReconciler() {
+    }
+
+    /**
+     * Returns the operations turning the items of {@code displayedOrders}, keyed by key with their
+     * current order, into the items of {@code keys}, in this order. Keys must be unique.
+     */
+    @NonNull
+    static Result reconcile(@NonNull Map<String, Integer> displayedOrders,
+            @NonNull List<String> keys) {
+        final int size = keys.size();
+        final Result result = new Result(size);
+
+        final Set<String> newKeys = new ArraySet<>(keys);
+        for (String key : displayedOrders.keySet()) {
+            if (!newKeys.contains(key)) {
+                result.mRemovedKeys.add(key);
+            }
+        }
+
+        final int[] oldOrders = new int[size];
+        for (int i = 0; i < size; i++) {
+            final Integer order = displayedOrders.get(keys.get(i));
+            if (order == null || order < 0 || order >= MAX_ORDER) {
+                // Out of range orders can't be kept, so treat the item as moved.
+                result.mInserted[i] = order == null;
+                oldOrders[i] = -1;
+            } else {
+                oldOrders[i] = order;
+            }
+        }
+
+        final boolean[] anchors = findLongestIncreasingRun(oldOrders);
+        if (!placeBetweenAnchors(oldOrders, anchors, result.mOrders)) {
+            for (int i = 0; i < size; i++) {
+                result.mOrders[i] = (i + 1) * ORDER_SPACING;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            result.mMoved[i] = !result.mInserted[i] && result.mOrders[i] != oldOrders[i];
+        }
+        return result;
+    }
+
+    /**
+     * Gives the items between anchors evenly spaced orders in the gap between the anchors.
+     *
+     * @return {@code false} if a gap is too narrow.
+     */
+    private static boolean placeBetweenAnchors(int[] oldOrders, boolean[] anchors, int[] orders) {
+        final int size = oldOrders.length;
+        int previous = -1;
+        int start = 0;
+        while (start < size) {
+            if (anchors[start]) {
+                orders[start] = oldOrders[start];
+                previous = oldOrders[start];
+                start++;
+                continue;
+            }
+            int end = start;
+            while (end < size && !anchors[end]) {
+                end++;
+            }
+            final int next = end < size ? oldOrders[end] : MAX_ORDER;
+            final int count = end - start;
+            if (next - previous - 1 < count) {
+                return false;
+            }
+            final int step = (next - previous) / (count + 1);
+            for (int i = 0; i < count; i++) {
+                orders[start + i] = previous + step * (i + 1);
+            }
+            previous = orders[end - 1];
+            start = end;
+        }
+        return true;
+    }
+
+    /**
+     * Marks the longest strictly increasing subsequence of the non-negative values of
+     * {@code orders}, found in O(n log n) by patience sorting.
+     */
+    private static boolean[] findLongestIncreasingRun(int[] orders) {
+        final int size = orders.length;
+        // tails[k] is the position ending the smallest tail of an increasing run of length k + 1.
+        final int[] tails = new int[size];
+        final int[] predecessors = new int[size];
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            if (orders[i] < 0) {
+                continue;
+            }
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (orders[tails[middle]] < orders[i]) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            predecessors[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+        final boolean[] run = new boolean[size];
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = predecessors[i]) {
+            run[i] = true;
+        }
+        return run;
+    }
+
+    /** The operations computed by {@link #reconcile(Map, List)}. */
+    static final class Result {
+        /** The keys of the displayed items that are gone. */
+        final List<String> mRemovedKeys = new ArrayList<>();
+        /** The order of each new key. */
+        final int[] mOrders;
+        /** Whether each new key was not displayed. */
+        final boolean[] mInserted;
+        /** Whether each new key was displayed with another order. */
+        final boolean[] mMoved;
+
+        private Result(int size) {
+            mOrders = new int[size];
+            mInserted = new boolean[size];
+            mMoved = new boolean[size];
+        }
+
+        /** Returns the number of insertions. */
+        int getInsertCount() {
+            return count(mInserted);
+        }
+
+        /** Returns the number of moves. */
+        int getMoveCount() {
+            return count(mMoved);
+        }
+
+        private static int count(boolean[] values) {
+            int count = 0;
+            for (boolean value : values) {
+                if (value) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return "removed=" + mRemovedKeys + " orders=" + Arrays.toString(mOrders);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.wifi.WifiManager;
+import android.telephony.SubscriptionManager;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the changes of the saved Wi-Fi networks and of the subscriptions in this process, so
+ * that search index fingerprints can tell whether either changed without querying them.
+ *
+ * The counters only grow while the process is alive, which matches the lifetime of the search
+ * index caches that use them.
+ */
+public final class NetworkIndexStateTracker {
+
+    private static final AtomicLong sSavedNetworksGeneration = new AtomicLong();
+    private static final AtomicLong sSubscriptionsGeneration = new AtomicLong();
+
+    private static boolean sStarted;
+
+    private NetworkIndexStateTracker() {
+    }
+
+    /** Returns a value that changes whenever a Wi-Fi network is saved, updated or forgotten. */
+    public static long getSavedNetworksGeneration(@NonNull Context context) {
+        ensureStarted(context);
+        return sSavedNetworksGeneration.get();
+    }
+
+    /** Returns a value that changes whenever the subscriptions change. */
+    public static long getSubscriptionsGeneration(@NonNull Context context) {
+        ensureStarted(context);
+        return sSubscriptionsGeneration.get();
+    }
+
+    private static synchronized void ensureStarted(Context context) {
+        if (sStarted) {
+            return;
+        }
+        final Context appContext = context.getApplicationContext();
+        appContext.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                sSavedNetworksGeneration.incrementAndGet();
+            }
+        }, new IntentFilter(WifiManager.CONFIGURED_NETWORKS_CHANGED_ACTION));
+        final SubscriptionManager subscriptionManager =
+                appContext.getSystemService(SubscriptionManager.class);
+        if (subscriptionManager != null) {
+            subscriptionManager.addOnSubscriptionsChangedListener(Runnable::run,
+                    new SubscriptionManager.OnSubscriptionsChangedListener() {
+                        @Override
+                        public void onSubscriptionsChanged() {
+                            sSubscriptionsGeneration.incrementAndGet();
+                        }
+                    });
+        }
+        sStarted = true;
+    }
+
+    @VisibleForTesting
+    static void onSavedNetworksChanged() {
+        sSavedNetworksGeneration.incrementAndGet();
+    }
+
+    @VisibleForTesting
+    static void onSubscriptionsChanged() {
+        sSubscriptionsGeneration.incrementAndGet();
+    }
+}
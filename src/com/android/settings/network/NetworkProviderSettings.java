@@ -32,13 +32,14 @@ import android.net.NetworkTemplate;
 import android.net.wifi.WifiConfiguration;
 import android.net.wifi.WifiManager;
 import android.os.Bundle;
-import android.os.Handler;
 import android.os.PowerManager;
 import android.os.UserHandle;
 import android.os.UserManager;
 import android.provider.Settings;
 import android.telephony.TelephonyManager;
 import android.text.TextUtils;
+import android.util.ArrayMap;
+import android.util.ArraySet;
 import android.util.EventLog;
 import android.util.FeatureFlagUtils;
 import android.util.Log;
@@ -100,6 +101,7 @@ import com.google.android.setupcompat.template.FooterButtonStyleUtils;
 import com.google.android.setupcompat.util.WizardManagerHelper;
 import com.google.android.setupdesign.GlifPreferenceLayout;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -134,7 +136,13 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
     static final int MANAGE_SUBSCRIPTION = 4;
 
     private static final String PREF_KEY_AIRPLANE_MODE_MSG = "airplane_mode_message";
-    private static final String PREF_KEY_EMPTY_WIFI_LIST = "wifi_empty_list";
+    @VisibleForTesting
+    static final String PREF_KEY_EMPTY_WIFI_LIST = "wifi_empty_list";
+    // Trailing preferences of the Wi-Fi list, ordered after every Wi-Fi entry.
+    @VisibleForTesting
+    static final int ORDER_EMPTY_WIFI_LIST = KeyedListReconciler.MAX_ORDER;
+    @VisibleForTesting
+    static final int ORDER_ADD_WIFI_NETWORK = KeyedListReconciler.MAX_ORDER + 1;
     @VisibleForTesting
     static final String PREF_KEY_WIFI_TOGGLE = "main_toggle_wifi";
     // TODO(b/70983952): Rename these to use WifiEntry instead of AccessPoint.
@@ -195,8 +203,11 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
     };
 
     private boolean mIsWifiEntryListStale = true;
+    // Whether an update is posted for the next frame, so that bursts of scans are coalesced.
+    private boolean mIsWifiEntryUpdatePending;
     @VisibleForTesting
     final Runnable mUpdateWifiEntryPreferencesRunnable = () -> {
+        mIsWifiEntryUpdatePending = false;
         updateWifiEntryPreferences();
         getView().postDelayed(mRemoveLoadingRunnable, 10);
     };
@@ -550,6 +561,7 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
     @Override
     public void onStop() {
         mIsWifiEntryListStale = true;
+        mIsWifiEntryUpdatePending = false;
         getView().removeCallbacks(mRemoveLoadingRunnable);
         getView().removeCallbacks(mUpdateWifiEntryPreferencesRunnable);
         getView().removeCallbacks(mHideProgressBarRunnable);
@@ -963,20 +975,19 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
     }
 
     /**
-     * Updates WifiEntries from {@link WifiPickerTracker#getWifiEntries()}. Adds a delay to have
-     * progress bar displayed before starting to modify entries.
+     * Updates WifiEntries from {@link WifiPickerTracker#getWifiEntries()} on the next frame, so
+     * that the progress bar is displayed first and every change until then is applied at once.
      */
     private void updateWifiEntryPreferencesDelayed() {
         // Safeguard from some delayed event handling
         if (getActivity() != null && !mIsRestricted && mWifiPickerTracker != null
                 && mWifiPickerTracker.getWifiState() == WifiManager.WIFI_STATE_ENABLED) {
-            final View view = getView();
-            final Handler handler = view.getHandler();
-            if (handler != null && handler.hasCallbacks(mUpdateWifiEntryPreferencesRunnable)) {
+            if (mIsWifiEntryUpdatePending) {
                 return;
             }
+            mIsWifiEntryUpdatePending = true;
             setProgressBarVisible(true);
-            view.postDelayed(mUpdateWifiEntryPreferencesRunnable, 300);
+            getView().postOnAnimation(mUpdateWifiEntryPreferencesRunnable);
         }
     }
 
@@ -991,7 +1002,6 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
             return;
         }
 
-        boolean hasAvailableWifiEntries = false;
         mWifiEntryPreferenceCategory.setVisible(true);
 
         final WifiEntry connectedEntry = mWifiPickerTracker.getConnectedWifiEntry();
@@ -1030,57 +1040,96 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
             connectedWifiPreferenceCategory.removeAll();
         }
 
-        int index = 0;
-        cacheRemoveAllPrefs(mWifiEntryPreferenceCategory);
-        List<WifiEntry> wifiEntries = mWifiPickerTracker.getWifiEntries();
-        for (WifiEntry wifiEntry : wifiEntries) {
-            hasAvailableWifiEntries = true;
-
-            String key = wifiEntry.getKey();
-            LongPressWifiEntryPreference pref =
-                    (LongPressWifiEntryPreference) getCachedPreference(key);
-            if (pref != null) {
-                if (pref.getWifiEntry() == wifiEntry) {
-                    pref.setOrder(index++);
-                    continue;
-                } else {
-                    // Create a new preference if the underlying WifiEntry object has changed
-                    removePreference(key);
-                }
-            }
-
-            pref = createLongPressWifiEntryPreference(wifiEntry);
-            pref.setKey(wifiEntry.getKey());
-            pref.setOrder(index++);
-            pref.refresh();
-
-            if (wifiEntry.getHelpUriString() != null) {
-                pref.setOnButtonClickListener(preference -> {
-                    openSubscriptionHelpPage(wifiEntry);
-                });
-            }
-            mWifiEntryPreferenceCategory.addPreference(pref);
-        }
-        removeCachedPrefs(mWifiEntryPreferenceCategory);
+        final boolean hasAvailableWifiEntries =
+                updateWifiEntryList(mWifiPickerTracker.getWifiEntries());
 
+        final Preference emptyListPreference =
+                mWifiEntryPreferenceCategory.findPreference(PREF_KEY_EMPTY_WIFI_LIST);
         if (!hasAvailableWifiEntries) {
             setProgressBarVisible(true);
-            Preference pref = new Preference(getPrefContext());
-            pref.setSelectable(false);
-            pref.setSummary(R.string.wifi_empty_list_wifi_on);
-            pref.setOrder(index++);
-            pref.setKey(PREF_KEY_EMPTY_WIFI_LIST);
-            mWifiEntryPreferenceCategory.addPreference(pref);
+            if (emptyListPreference == null) {
+                Preference pref = new Preference(getPrefContext());
+                pref.setSelectable(false);
+                pref.setSummary(R.string.wifi_empty_list_wifi_on);
+                pref.setOrder(ORDER_EMPTY_WIFI_LIST);
+                pref.setKey(PREF_KEY_EMPTY_WIFI_LIST);
+                mWifiEntryPreferenceCategory.addPreference(pref);
+            }
         } else {
+            if (emptyListPreference != null) {
+                mWifiEntryPreferenceCategory.removePreference(emptyListPreference);
+            }
             // Continuing showing progress bar for an additional delay to overlap with animation
             getView().postDelayed(mHideProgressBarRunnable, 1700 /* delay millis */);
         }
 
-        mAddWifiNetworkPreference.setOrder(index++);
-        mWifiEntryPreferenceCategory.addPreference(mAddWifiNetworkPreference);
+        if (mAddWifiNetworkPreference.getParent() != mWifiEntryPreferenceCategory) {
+            mAddWifiNetworkPreference.setOrder(ORDER_ADD_WIFI_NETWORK);
+            mWifiEntryPreferenceCategory.addPreference(mAddWifiNetworkPreference);
+        }
         setAdditionalSettingsSummaries();
     }
 
+    /**
+     * Applies the difference between the displayed Wi-Fi entries and {@code wifiEntries}: removes,
+     * inserts and moves only the preferences whose network changed, and lets the others show the
+     * latest entry of their network.
+     *
+     * @return {@code true} if there is any Wi-Fi entry to show.
+     */
+    @VisibleForTesting
+    boolean updateWifiEntryList(List<WifiEntry> wifiEntries) {
+        final ArrayMap<String, LongPressWifiEntryPreference> displayedPrefs = new ArrayMap<>();
+        final ArrayMap<String, Integer> displayedOrders = new ArrayMap<>();
+        for (int i = 0; i < mWifiEntryPreferenceCategory.getPreferenceCount(); i++) {
+            final Preference pref = mWifiEntryPreferenceCategory.getPreference(i);
+            if (pref instanceof LongPressWifiEntryPreference
+                    && !TextUtils.isEmpty(pref.getKey())) {
+                displayedPrefs.put(pref.getKey(), (LongPressWifiEntryPreference) pref);
+                displayedOrders.put(pref.getKey(), pref.getOrder());
+            }
+        }
+
+        final List<WifiEntry> entries = new ArrayList<>(wifiEntries.size());
+        final List<String> keys = new ArrayList<>(wifiEntries.size());
+        final ArraySet<String> seenKeys = new ArraySet<>(wifiEntries.size());
+        for (WifiEntry wifiEntry : wifiEntries) {
+            if (seenKeys.add(wifiEntry.getKey())) {
+                entries.add(wifiEntry);
+                keys.add(wifiEntry.getKey());
+            }
+        }
+
+        final KeyedListReconciler.Result result =
+                KeyedListReconciler.reconcile(displayedOrders, keys);
+        for (String key : result.mRemovedKeys) {
+            mWifiEntryPreferenceCategory.removePreference(displayedPrefs.get(key));
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            final WifiEntry wifiEntry = entries.get(i);
+            if (!result.mInserted[i]) {
+                final LongPressWifiEntryPreference pref = displayedPrefs.get(keys.get(i));
+                if (result.mMoved[i]) {
+                    pref.setOrder(result.mOrders[i]);
+                }
+                // A recreated entry of the same network only rebinds its changed fields.
+                pref.setWifiEntry(wifiEntry);
+                continue;
+            }
+
+            final LongPressWifiEntryPreference pref = createLongPressWifiEntryPreference(wifiEntry);
+            pref.setKey(wifiEntry.getKey());
+            pref.setOrder(result.mOrders[i]);
+            pref.refresh();
+            // Reads the current entry, which may be replaced by a later update.
+            pref.setOnButtonClickListener(preference -> {
+                openSubscriptionHelpPage(preference.getWifiEntry());
+            });
+            mWifiEntryPreferenceCategory.addPreference(pref);
+        }
+        return !entries.isEmpty();
+    }
+
     @VisibleForTesting
     PreferenceCategory getConnectedWifiPreferenceCategory() {
         if (mInternetUpdater.getInternetType() == InternetUpdater.INTERNET_WIFI) {
@@ -1358,6 +1407,19 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
             }
             return keys;
         }
+
+        // The keys depend on the Wi-Fi restriction, on whether networks are saved and on the
+        // subscriptions listed by NetworkMobileProviderController, hidden in airplane mode. The
+        // saved networks and subscriptions are tracked by their change counts, which are cheap
+        // to read, rather than queried.
+        @Override
+        public String getIndexFingerprint(Context context) {
+            return mWifiRestriction.isChangeWifiStateAllowed(context)
+                    + "|" + NetworkIndexStateTracker.getSavedNetworksGeneration(context)
+                    + "|" + NetworkIndexStateTracker.getSubscriptionsGeneration(context)
+                    + "|" + Settings.Global.getInt(context.getContentResolver(),
+                            Settings.Global.AIRPLANE_MODE_ON, 0);
+        }
     }
 
     @VisibleForTesting
@@ -118,6 +118,12 @@ public class PrivacyDashboardFragment extends DashboardFragment {
 
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
             new BaseSearchIndexProvider() {
+                @Override
+                public boolean isStaticDataSnapshotable() {
+                    // The page depends on whether the Safety Center is enabled.
+                    return false;
+                }
+
                 @Override
                 public List<SearchIndexableResource> getXmlResourcesToIndex(
                         Context context, boolean enabled) {
@@ -29,6 +29,7 @@ import android.provider.SearchIndexableResource;
 import android.util.Log;
 
 import androidx.annotation.CallSuper;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.core.BasePreferenceController;
@@ -175,6 +176,32 @@ public class BaseSearchIndexProvider implements Indexable.SearchIndexProvider {
         return true;
     }
 
+    /**
+     * Returns a fingerprint of the state that {@link #getNonIndexableKeys(Context)} and
+     * {@link #getDynamicRawDataToIndex(Context, boolean)} depend on, e.g. the active
+     * subscription ids or whether Wi-Fi is enabled.
+     *
+     * While the fingerprint stays the same, the results from the previous index pass are reused
+     * and no controller is created. It must be much cheaper to compute than the data itself.
+     * Returns {@code null} by default, which means the data is recomputed on every pass.
+     */
+    @Nullable
+    public String getIndexFingerprint(Context context) {
+        return null;
+    }
+
+    /**
+     * Returns true if {@link #getXmlResourcesToIndex(Context, boolean)} and
+     * {@link #getRawDataToIndex(Context, boolean)} only depend on the build, the Settings package
+     * and the locale, so that their rows can be served from {@link SearchIndexSnapshot}.
+     *
+     * Pages whose static rows depend on the device state, e.g. on available hardware or installed
+     * overlays, return false to have them computed on every query.
+     */
+    public boolean isStaticDataSnapshotable() {
+        return true;
+    }
+
     /**
      * Get all non-indexable keys from xml. If {@param suppressAllPage} is set, all keys are
      * considered non-indexable. Otherwise, only keys with searchable="false" are included.
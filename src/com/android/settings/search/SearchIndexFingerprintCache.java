@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import android.content.Context;
+import android.util.ArrayMap;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.search.Indexable;
+import com.android.settingslib.search.SearchIndexableData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the per-provider results of the previous search index pass, keyed by
+ * {@link BaseSearchIndexProvider#getIndexFingerprint(Context)}.
+ *
+ * Providers whose fingerprint did not change are served from the cache, so only the providers
+ * affected by a change (e.g. a SIM swap or a Wi-Fi toggle) create their controllers again.
+ */
+public class SearchIndexFingerprintCache<T> {
+
+    private static final String TAG = "SearchIndexFpCache";
+
+    // Shared by all caches, which are queried together in each index pass.
+    private static final AtomicLong sHits = new AtomicLong();
+    private static final AtomicLong sMisses = new AtomicLong();
+
+    private final String mName;
+    private final Map<String, Entry<T>> mEntries = new ArrayMap<>();
+
+    public SearchIndexFingerprintCache(@NonNull String name) {
+        mName = name;
+    }
+
+    /**
+     * Returns a copy of the data of {@code bundle}, loading it with {@code loader} unless the
+     * provider's fingerprint and the locales match the ones cached in the previous pass.
+     * {@code loader} may return {@code null}.
+     *
+     * The fingerprint and the data are computed without holding the lock, so a slow provider
+     * does not block the other queries of the cache.
+     */
+    @Nullable
+    public List<T> get(@NonNull Context context, @NonNull SearchIndexableData bundle,
+            @NonNull Supplier<List<T>> loader) {
+        final String className = bundle.getTargetClass().getName();
+        final String fingerprint = getFingerprint(context, bundle.getSearchIndexProvider());
+        synchronized (this) {
+            final Entry<T> cached = mEntries.get(className);
+            if (fingerprint != null && cached != null
+                    && fingerprint.equals(cached.mFingerprint)) {
+                sHits.incrementAndGet();
+                return cached.mData == null ? null : new ArrayList<>(cached.mData);
+            }
+        }
+        sMisses.incrementAndGet();
+
+        final List<T> data = loader.get();
+        if (SettingsSearchIndexablesProvider.DEBUG) {
+            Log.d(TAG, mName + ": recomputed " + className);
+        }
+        synchronized (this) {
+            if (fingerprint == null) {
+                mEntries.remove(className);
+            } else {
+                mEntries.put(className, new Entry<>(fingerprint,
+                        data == null ? null : new ArrayList<>(data)));
+            }
+        }
+        return data;
+    }
+
+    /** Returns the number of providers served from any cache. */
+    public static long getHitCount() {
+        return sHits.get();
+    }
+
+    /** Returns the number of providers whose data had to be loaded again. */
+    public static long getMissCount() {
+        return sMisses.get();
+    }
+
+    /** Ends an index pass, dropping the cached providers that were not seen in this pass. */
+    public synchronized void endPass(@NonNull Set<String> seenProviders) {
+        mEntries.keySet().retainAll(seenProviders);
+    }
+
+    @VisibleForTesting
+    static String getFingerprint(Context context, Indexable.SearchIndexProvider provider) {
+        if (!(provider instanceof BaseSearchIndexProvider)) {
+            return null;
+        }
+        try {
+            final String fingerprint =
+                    ((BaseSearchIndexProvider) provider).getIndexFingerprint(context);
+            // The dynamic raw data holds localized titles.
+            return fingerprint == null ? null : fingerprint + "|"
+                    + context.getResources().getConfiguration().getLocales().toLanguageTags();
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Failed to get fingerprint from " + provider, e);
+            return null;
+        }
+    }
+
+    private static class Entry<T> {
+        final String mFingerprint;
+        final List<T> mData;
+
+        Entry(String fingerprint, List<T> data) {
+            mFingerprint = fingerprint;
+            mData = data;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compact binary snapshot of the static search index rows, stored per locale.
+ *
+ * The static rows of most pages only depend on the build, the installed Settings package and the
+ * locale, so they are computed once and then served from disk. The rows of pages that depend on
+ * the device state, see {@link BaseSearchIndexProvider#isStaticDataSnapshotable()}, dynamic rows
+ * and non-indexable keys are still computed live. The snapshot is discarded when the build
+ * fingerprint, the package update time, the resource overlays of Settings or the format version
+ * changes.
+ *
+ * The provider is queried from concurrent binder threads, so the files are accessed under a
+ * process-wide lock.
+ */
+public class SearchIndexSnapshot {
+
+    private static final String TAG = "SearchIndexSnapshot";
+    private static final String DIR_NAME = "search_index_snapshot";
+    private static final int MAGIC = 0x53495358; // "SISX"
+    @VisibleForTesting
+    static final int VERSION = 1;
+
+    /** Rows returned by {@code queryXmlResources}. */
+    public static final String SECTION_XML_RESOURCES = "xml";
+    /** Rows returned by {@code queryRawData}. */
+    public static final String SECTION_RAW_DATA = "raw";
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_INT = 1;
+    private static final byte TYPE_STRING = 2;
+
+    private static final Object sFileLock = new Object();
+
+    private final File mDir;
+    private final String mLocale;
+    private final String mStamp;
+
+    public SearchIndexSnapshot(@NonNull Context context) {
+        this(new File(context.getCacheDir(), DIR_NAME),
+                context.getResources().getConfiguration().getLocales().get(0).toLanguageTag(),
+                Build.FINGERPRINT + "/" + getPackageUpdateTime(context) + "/"
+                        + Arrays.toString(context.getApplicationInfo().overlayPaths));
+    }
+
+    @VisibleForTesting
+    SearchIndexSnapshot(File dir, String locale, String stamp) {
+        mDir = dir;
+        mLocale = locale;
+        mStamp = stamp;
+    }
+
+    /**
+     * Returns the rows stored for {@code section}, or {@code null} if there is no snapshot for
+     * the current build and locale.
+     */
+    @Nullable
+    public List<Object[]> read(@NonNull String section) {
+        synchronized (sFileLock) {
+            return readLocked(section);
+        }
+    }
+
+    @Nullable
+    private List<Object[]> readLocked(String section) {
+        final AtomicFile file = getFile(section);
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(file.openRead()))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                    || !mStamp.equals(in.readUTF())) {
+                return null;
+            }
+            final int rowCount = in.readInt();
+            final int columnCount = in.readInt();
+            final List<Object[]> rows = new ArrayList<>(rowCount);
+            for (int i = 0; i < rowCount; i++) {
+                final Object[] row = new Object[columnCount];
+                for (int j = 0; j < columnCount; j++) {
+                    row[j] = readValue(in);
+                }
+                rows.add(row);
+            }
+            return rows;
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to read snapshot " + section + " for " + mLocale, e);
+            return null;
+        }
+    }
+
+    /** Stores {@code rows} for {@code section} under the current build and locale. */
+    public void write(@NonNull String section, @NonNull List<Object[]> rows, int columnCount) {
+        synchronized (sFileLock) {
+            writeLocked(section, rows, columnCount);
+        }
+    }
+
+    private void writeLocked(String section, List<Object[]> rows, int columnCount) {
+        mDir.mkdirs();
+        final AtomicFile file = getFile(section);
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(mStamp);
+            out.writeInt(rows.size());
+            out.writeInt(columnCount);
+            for (Object[] row : rows) {
+                for (int j = 0; j < columnCount; j++) {
+                    writeValue(out, row[j]);
+                }
+            }
+            out.flush();
+            file.finishWrite(stream);
+        } catch (IOException | IllegalArgumentException e) {
+            Log.w(TAG, "Failed to write snapshot " + section + " for " + mLocale, e);
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+        }
+    }
+
+    private AtomicFile getFile(String section) {
+        return new AtomicFile(new File(mDir, section + "_" + mLocale + ".bin"));
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        final byte type = in.readByte();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_INT:
+                return in.readInt();
+            case TYPE_STRING:
+                return in.readUTF();
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value instanceof Integer) {
+            out.writeByte(TYPE_INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof CharSequence) {
+            out.writeByte(TYPE_STRING);
+            out.writeUTF(value.toString());
+        } else {
+            throw new IllegalArgumentException("Unsupported value " + value.getClass());
+        }
+    }
+
+    private static long getPackageUpdateTime(Context context) {
+        try {
+            return context.getPackageManager()
+                    .getPackageInfo(context.getPackageName(), 0 /* flags */).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            return 0L;
+        }
+    }
+}
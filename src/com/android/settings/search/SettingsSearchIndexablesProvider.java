@@ -81,6 +81,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
 
@@ -100,6 +101,12 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
     // Search enabled states for injection (key: category key, value: search enabled)
     private Map<String, Boolean> mSearchEnabledByCategoryKeyMap;
 
+    // Results of the previous index pass, reused while a provider's fingerprint is unchanged.
+    private final SearchIndexFingerprintCache<String> mNonIndexableKeysCache =
+            new SearchIndexFingerprintCache<>("non_indexable_keys");
+    private final SearchIndexFingerprintCache<SearchIndexableRaw> mDynamicRawDataCache =
+            new SearchIndexFingerprintCache<>("dynamic_raw_data");
+
     static {
         INVALID_KEYS = new ArraySet<>();
         INVALID_KEYS.add(null);
@@ -115,8 +122,28 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
     @Override
     public Cursor queryXmlResources(String[] projection) {
         final MatrixCursor cursor = new MatrixCursor(INDEXABLES_XML_RES_COLUMNS);
-        final List<SearchIndexableResource> resources =
-                getSearchIndexableResourcesFromProvider(getContext());
+        final SearchIndexSnapshot snapshot = getSearchIndexSnapshot();
+        List<Object[]> rows = snapshot.read(SearchIndexSnapshot.SECTION_XML_RESOURCES);
+        if (rows == null) {
+            rows = createXmlResourceRows(getSearchIndexableResourcesFromProvider(getContext(),
+                    true /* snapshotable */));
+            snapshot.write(SearchIndexSnapshot.SECTION_XML_RESOURCES, rows,
+                    INDEXABLES_XML_RES_COLUMNS.length);
+        }
+        for (Object[] row : rows) {
+            cursor.addRow(row);
+        }
+        // The rows that depend on the device state are never stored in the snapshot.
+        for (Object[] row : createXmlResourceRows(getSearchIndexableResourcesFromProvider(
+                getContext(), false /* snapshotable */))) {
+            cursor.addRow(row);
+        }
+
+        return cursor;
+    }
+
+    private static List<Object[]> createXmlResourceRows(List<SearchIndexableResource> resources) {
+        final List<Object[]> rows = new ArrayList<>(resources.size());
         for (SearchIndexableResource val : resources) {
             final Object[] ref = new Object[INDEXABLES_XML_RES_COLUMNS.length];
             ref[COLUMN_INDEX_XML_RES_RANK] = val.rank;
@@ -126,10 +153,9 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
             ref[COLUMN_INDEX_XML_RES_INTENT_ACTION] = val.intentAction;
             ref[COLUMN_INDEX_XML_RES_INTENT_TARGET_PACKAGE] = val.intentTargetPackage;
             ref[COLUMN_INDEX_XML_RES_INTENT_TARGET_CLASS] = null; // intent target class
-            cursor.addRow(ref);
+            rows.add(ref);
         }
-
-        return cursor;
+        return rows;
     }
 
     /**
@@ -138,8 +164,24 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
     @Override
     public Cursor queryRawData(String[] projection) {
         final MatrixCursor cursor = new MatrixCursor(INDEXABLES_RAW_COLUMNS);
-        final List<SearchIndexableRaw> raws = getSearchIndexableRawFromProvider(getContext());
-        for (SearchIndexableRaw val : raws) {
+        final SearchIndexSnapshot snapshot = getSearchIndexSnapshot();
+        List<Object[]> rows = snapshot.read(SearchIndexSnapshot.SECTION_RAW_DATA);
+        if (rows == null) {
+            rows = new ArrayList<>();
+            final List<SearchIndexableRaw> raws = getSearchIndexableRawFromProvider(getContext(),
+                    true /* snapshotable */);
+            for (SearchIndexableRaw val : raws) {
+                rows.add(createIndexableRawColumnObjects(val));
+            }
+            snapshot.write(SearchIndexSnapshot.SECTION_RAW_DATA, rows,
+                    INDEXABLES_RAW_COLUMNS.length);
+        }
+        for (Object[] row : rows) {
+            cursor.addRow(row);
+        }
+        // The rows that depend on the device state are never stored in the snapshot.
+        for (SearchIndexableRaw val : getSearchIndexableRawFromProvider(getContext(),
+                false /* snapshotable */)) {
             cursor.addRow(createIndexableRawColumnObjects(val));
         }
 
@@ -176,8 +218,14 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
         final Collection<SearchIndexableData> bundles = FeatureFactory.getFactory(context)
                 .getSearchFeatureProvider().getSearchIndexableResources().getProviderValues();
 
+        final Set<String> seenProviders = new ArraySet<>();
         for (SearchIndexableData bundle : bundles) {
-            rawList.addAll(getDynamicSearchIndexableRawData(context, bundle));
+            seenProviders.add(bundle.getTargetClass().getName());
+            final List<SearchIndexableRaw> providerRaws = mDynamicRawDataCache.get(context, bundle,
+                    () -> getDynamicSearchIndexableRawData(context, bundle));
+            if (providerRaws != null) {
+                rawList.addAll(providerRaws);
+            }
 
             // Refresh the search enabled state for indexing injection raw data
             final Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
@@ -185,6 +233,7 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
                 refreshSearchEnabledState(context, (BaseSearchIndexProvider) provider);
             }
         }
+        mDynamicRawDataCache.endPass(seenProviders);
         rawList.addAll(getInjectionIndexableRawData(context));
 
         final MatrixCursor cursor = new MatrixCursor(INDEXABLES_RAW_COLUMNS);
@@ -275,13 +324,16 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
                 .getSearchFeatureProvider().getSearchIndexableResources().getProviderValues();
 
         final List<String> nonIndexableKeys = new ArrayList<>();
+        final Set<String> seenProviders = new ArraySet<>();
 
         for (SearchIndexableData bundle : bundles) {
             final long startTime = System.currentTimeMillis();
             Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
+            seenProviders.add(bundle.getTargetClass().getName());
             List<String> providerNonIndexableKeys;
             try {
-                providerNonIndexableKeys = provider.getNonIndexableKeys(context);
+                providerNonIndexableKeys = mNonIndexableKeysCache.get(context, bundle,
+                        () -> provider.getNonIndexableKeys(context));
             } catch (Exception e) {
                 // Catch a generic crash. In the absence of the catch, the background thread will
                 // silently fail anyway, so we aren't losing information by catching the exception.
@@ -317,17 +369,22 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
 
             nonIndexableKeys.addAll(providerNonIndexableKeys);
         }
+        mNonIndexableKeysCache.endPass(seenProviders);
 
         return nonIndexableKeys;
     }
 
-    private List<SearchIndexableResource> getSearchIndexableResourcesFromProvider(Context context) {
+    private List<SearchIndexableResource> getSearchIndexableResourcesFromProvider(Context context,
+            boolean snapshotable) {
         final Collection<SearchIndexableData> bundles = FeatureFactory.getFactory(context)
                 .getSearchFeatureProvider().getSearchIndexableResources().getProviderValues();
         List<SearchIndexableResource> resourceList = new ArrayList<>();
 
         for (SearchIndexableData bundle : bundles) {
             Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
+            if (isStaticDataSnapshotable(provider) != snapshotable) {
+                continue;
+            }
             final List<SearchIndexableResource> resList =
                     provider.getXmlResourcesToIndex(context, true);
 
@@ -347,13 +404,17 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
         return resourceList;
     }
 
-    private List<SearchIndexableRaw> getSearchIndexableRawFromProvider(Context context) {
+    private List<SearchIndexableRaw> getSearchIndexableRawFromProvider(Context context,
+            boolean snapshotable) {
         final Collection<SearchIndexableData> bundles = FeatureFactory.getFactory(context)
                 .getSearchFeatureProvider().getSearchIndexableResources().getProviderValues();
         final List<SearchIndexableRaw> rawList = new ArrayList<>();
 
         for (SearchIndexableData bundle : bundles) {
             Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
+            if (isStaticDataSnapshotable(provider) != snapshotable) {
+                continue;
+            }
             final List<SearchIndexableRaw> providerRaws = provider.getRawDataToIndex(context,
                     true /* enabled */);
 
@@ -372,6 +433,11 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
         return rawList;
     }
 
+    private static boolean isStaticDataSnapshotable(Indexable.SearchIndexProvider provider) {
+        return provider instanceof BaseSearchIndexProvider
+                && ((BaseSearchIndexProvider) provider).isStaticDataSnapshotable();
+    }
+
     private List<SearchIndexableRaw> getDynamicSearchIndexableRawData(Context context,
             SearchIndexableData bundle) {
         final Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
@@ -423,6 +489,11 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
         return rawList;
     }
 
+    @VisibleForTesting
+    SearchIndexSnapshot getSearchIndexSnapshot() {
+        return new SearchIndexSnapshot(getContext());
+    }
+
     @VisibleForTesting
     void refreshSearchEnabledState(Context context, BaseSearchIndexProvider provider) {
         // Provider's class name is like "com.android.settings.Settings$1"
@@ -24,8 +24,10 @@ import android.database.sqlite.SQLiteDatabase;
 import android.net.Uri;
 import android.os.Binder;
 import android.text.TextUtils;
+import android.util.LruCache;
 import android.util.Pair;
 
+import androidx.annotation.VisibleForTesting;
 import androidx.slice.Slice;
 
 import com.android.settings.overlay.FeatureFactory;
@@ -33,6 +35,7 @@ import com.android.settings.slices.SlicesDatabaseHelper.IndexColumns;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Class used to map a {@link Uri} from {@link SettingsSliceProvider} to a Slice.
@@ -53,6 +56,17 @@ public class SlicesDatabaseAccessor {
             IndexColumns.HIGHLIGHT_MENU_RESOURCE,
     };
 
+    private static final int CACHE_SIZE = 128;
+
+    // Read-through cache of indexed rows by key, shared by all accessors and dropped whenever
+    // SlicesIndexer rewrites the database. Entries have no uri and keep their indexed slice type.
+    private static final LruCache<String, SliceData> sSliceDataCache = new LruCache<>(CACHE_SIZE);
+    // Incremented on every invalidation, so that a row queried before it is not cached after it.
+    // Guarded by sSliceDataCache.
+    private static int sCacheGeneration;
+    private static final AtomicLong sCacheHits = new AtomicLong();
+    private static final AtomicLong sCacheMisses = new AtomicLong();
+
     private final Context mContext;
     private final SlicesDatabaseHelper mHelper;
 
@@ -72,9 +86,8 @@ public class SlicesDatabaseAccessor {
         if (pathData == null) {
             throw new IllegalStateException("Invalid Slices uri: " + uri);
         }
-        try (Cursor cursor = getIndexedSliceData(pathData.second /* key */)) {
-            return buildSliceData(cursor, uri, pathData.first /* isIntentOnly */);
-        }
+        return copySliceData(getCachedSliceData(pathData.second /* key */), uri,
+                pathData.first /* isIntentOnly */);
     }
 
     /**
@@ -83,9 +96,58 @@ public class SlicesDatabaseAccessor {
      * Used when handling the action of the {@link Slice}.
      */
     public SliceData getSliceDataFromKey(String key) {
+        return copySliceData(getCachedSliceData(key), null /* uri */, false /* isIntentOnly */);
+    }
+
+    /** Drops all cached rows. Called when the slices database is rewritten. */
+    public static void onSliceDataIndexed() {
+        synchronized (sSliceDataCache) {
+            sCacheGeneration++;
+            sSliceDataCache.evictAll();
+        }
+    }
+
+    /** Returns the number of lookups served from the cache. */
+    public static long getCacheHitCount() {
+        return sCacheHits.get();
+    }
+
+    /** Returns the number of lookups that had to query the database. */
+    public static long getCacheMissCount() {
+        return sCacheMisses.get();
+    }
+
+    @VisibleForTesting
+    static void resetCache() {
+        onSliceDataIndexed();
+        sCacheHits.set(0);
+        sCacheMisses.set(0);
+    }
+
+    private SliceData getCachedSliceData(String key) {
+        // Make sure a pending re-index runs, and invalidates the cache, before the lookup.
+        verifyIndexing();
+        final SliceData cached = key == null ? null : sSliceDataCache.get(key);
+        if (cached != null) {
+            sCacheHits.incrementAndGet();
+            return cached;
+        }
+        sCacheMisses.incrementAndGet();
+        final int generation;
+        synchronized (sSliceDataCache) {
+            generation = sCacheGeneration;
+        }
+        final SliceData sliceData;
         try (Cursor cursor = getIndexedSliceData(key)) {
-            return buildSliceData(cursor, null /* uri */, false /* isIntentOnly */);
+            sliceData = buildSliceData(cursor, null /* uri */, false /* isIntentOnly */);
         }
+        synchronized (sSliceDataCache) {
+            // Skip the row if the database was rewritten while it was queried.
+            if (key != null && generation == sCacheGeneration) {
+                sSliceDataCache.put(key, sliceData);
+            }
+        }
+        return sliceData;
     }
 
     /**
@@ -116,9 +178,8 @@ public class SlicesDatabaseAccessor {
         return uris;
     }
 
-    private Cursor getIndexedSliceData(String path) {
-        verifyIndexing();
-
+    @VisibleForTesting
+    Cursor getIndexedSliceData(String path) {
         final String whereClause = buildKeyMatchWhereClause();
         final SQLiteDatabase database = mHelper.getReadableDatabase();
         final String[] selection = new String[]{path};
@@ -142,6 +203,23 @@ public class SlicesDatabaseAccessor {
         return resultCursor;
     }
 
+    private static SliceData copySliceData(SliceData sliceData, Uri uri, boolean isIntentOnly) {
+        return new SliceData.Builder()
+                .setKey(sliceData.getKey())
+                .setTitle(sliceData.getTitle())
+                .setSummary(sliceData.getSummary())
+                .setScreenTitle(sliceData.getScreenTitle())
+                .setKeywords(sliceData.getKeywords())
+                .setIcon(sliceData.getIconResource())
+                .setFragmentName(sliceData.getFragmentClassName())
+                .setPreferenceControllerClassName(sliceData.getPreferenceController())
+                .setUri(uri)
+                .setSliceType(isIntentOnly ? SliceData.SliceType.INTENT : sliceData.getSliceType())
+                .setUnavailableSliceSubtitle(sliceData.getUnavailableSliceSubtitle())
+                .setHighlightMenuRes(sliceData.getHighlightMenuRes())
+                .build();
+    }
+
     private String buildKeyMatchWhereClause() {
         return new StringBuilder(IndexColumns.KEY)
                 .append(" = ?")
@@ -36,7 +36,7 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
     private static final String DATABASE_NAME = "slices_index.db";
     private static final String SHARED_PREFS_TAG = "slices_shared_prefs";
 
-    private static final int DATABASE_VERSION = 9;
+    private static final int DATABASE_VERSION = 11;
 
     public interface Tables {
         String TABLE_SLICES_INDEX = "slices_index";
@@ -108,6 +108,12 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
          * Resource ID for the menu entry of the setting.
          */
         String HIGHLIGHT_MENU_RESOURCE = "highlight_menu";
+
+        /**
+         * SHA-256 digest of all the other columns, used to skip unchanged rows when re-indexing.
+         * Not part of the full-text index.
+         */
+        String CONTENT_HASH = "content_hash";
     }
 
     private static final String CREATE_SLICES_TABLE =
@@ -139,6 +145,10 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
                     + ", "
                     + IndexColumns.HIGHLIGHT_MENU_RESOURCE
                     + " INTEGER DEFAULT 0 "
+                    + ", "
+                    + IndexColumns.CONTENT_HASH
+                    + ", notindexed="
+                    + IndexColumns.CONTENT_HASH
                     + ");";
 
     private final Context mContext;
@@ -176,12 +186,21 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
      * {@link#isNewIndexingState(Context)} will return {@code true}.
      */
     void reconstruct(SQLiteDatabase db) {
+        clearIndexedState();
+        dropTables(db);
+        createDatabases(db);
+    }
+
+    /**
+     * Un-marks the state of the data without dropping the stored rows, such that any subsequent
+     * call to {@link #isSliceDataIndexed()} will return {@code false} until the next
+     * {@link #setIndexedState()}.
+     */
+    void clearIndexedState() {
         mContext.getSharedPreferences(SHARED_PREFS_TAG, Context.MODE_PRIVATE)
                 .edit()
                 .clear()
                 .apply();
-        dropTables(db);
-        createDatabases(db);
     }
 
     /**
@@ -16,9 +16,14 @@
 
 package com.android.settings.slices;
 
-import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.text.TextUtils;
+import android.util.ArrayMap;
+import android.util.Base64;
 import android.util.Log;
 
 import androidx.annotation.VisibleForTesting;
@@ -29,7 +34,13 @@ import com.android.settings.overlay.FeatureFactory;
 import com.android.settings.slices.SlicesDatabaseHelper.IndexColumns;
 import com.android.settings.slices.SlicesDatabaseHelper.Tables;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Manages the conversion of {@link DashboardFragment} and {@link BasePreferenceController} to
@@ -39,6 +50,34 @@ class SlicesIndexer implements Runnable {
 
     private static final String TAG = "SlicesIndexer";
 
+    // Must match the binding order in bindSliceData().
+    private static final String[] COLUMNS = {
+            IndexColumns.KEY,
+            IndexColumns.SLICE_URI,
+            IndexColumns.TITLE,
+            IndexColumns.SUMMARY,
+            IndexColumns.SCREENTITLE,
+            IndexColumns.KEYWORDS,
+            IndexColumns.ICON_RESOURCE,
+            IndexColumns.FRAGMENT,
+            IndexColumns.CONTROLLER,
+            IndexColumns.SLICE_TYPE,
+            IndexColumns.UNAVAILABLE_SLICE_SUBTITLE,
+            IndexColumns.PUBLIC_SLICE,
+            IndexColumns.HIGHLIGHT_MENU_RESOURCE,
+            IndexColumns.CONTENT_HASH
+    };
+
+    private static final String INSERT_SQL = "INSERT INTO " + Tables.TABLE_SLICES_INDEX
+            + " (" + TextUtils.join(", ", COLUMNS) + ") VALUES ("
+            + TextUtils.join(", ", Collections.nCopies(COLUMNS.length, "?")) + ")";
+
+    private static final String UPDATE_SQL = "UPDATE " + Tables.TABLE_SLICES_INDEX
+            + " SET " + TextUtils.join(" = ?, ", COLUMNS) + " = ? WHERE rowid = ?";
+
+    private static final String DELETE_SQL = "DELETE FROM " + Tables.TABLE_SLICES_INDEX
+            + " WHERE rowid = ?";
+
     private Context mContext;
 
     private SlicesDatabaseHelper mHelper;
@@ -66,24 +105,41 @@ class SlicesIndexer implements Runnable {
             return;
         }
 
+        // Only rewrite the rows that changed if there is a previous index to compare against.
+        final SQLiteDatabase database = mHelper.getWritableDatabase();
+        indexSliceData(DatabaseUtils.queryNumEntries(database, Tables.TABLE_SLICES_INDEX) > 0);
+    }
+
+    /**
+     * Indexes all slice data, either by rebuilding the table or by only applying the rows that
+     * changed since the previous index.
+     */
+    @VisibleForTesting
+    void indexSliceData(boolean delta) {
         final SQLiteDatabase database = mHelper.getWritableDatabase();
 
         long startTime = System.currentTimeMillis();
         database.beginTransaction();
         try {
-            mHelper.reconstruct(database);
             List<SliceData> indexData = getSliceData();
-            insertSliceData(database, indexData);
+            if (delta) {
+                mHelper.clearIndexedState();
+                updateSliceData(database, indexData);
+            } else {
+                mHelper.reconstruct(database);
+                insertSliceData(database, indexData);
+            }
 
             mHelper.setIndexedState();
 
             // TODO (b/71503044) Log indexing time.
-            Log.d(TAG,
-                    "Indexing slices database took: " + (System.currentTimeMillis() - startTime));
+            Log.d(TAG, "Indexing slices database (delta=" + delta + ") took: "
+                    + (System.currentTimeMillis() - startTime));
             database.setTransactionSuccessful();
         } finally {
             database.endTransaction();
         }
+        SlicesDatabaseAccessor.onSliceDataIndexed();
     }
 
     @VisibleForTesting
@@ -96,30 +152,157 @@ class SlicesIndexer implements Runnable {
 
     @VisibleForTesting
     void insertSliceData(SQLiteDatabase database, List<SliceData> indexData) {
-        ContentValues values;
-
-        for (SliceData dataRow : indexData) {
-            values = new ContentValues();
-            values.put(IndexColumns.KEY, dataRow.getKey());
-            values.put(IndexColumns.SLICE_URI, dataRow.getUri().toString());
-            values.put(IndexColumns.TITLE, dataRow.getTitle());
-            values.put(IndexColumns.SUMMARY, dataRow.getSummary());
-            final CharSequence screenTitle = dataRow.getScreenTitle();
-            if (screenTitle != null) {
-                values.put(IndexColumns.SCREENTITLE, screenTitle.toString());
+        final SQLiteStatement insert = database.compileStatement(INSERT_SQL);
+        try {
+            for (SliceData dataRow : indexData) {
+                bindSliceData(insert, dataRow);
+                insert.executeInsert();
+            }
+        } finally {
+            insert.close();
+        }
+    }
+
+    /**
+     * Applies {@code indexData} on top of the rows already stored: rows whose key and content hash
+     * match are left untouched, changed rows are updated in place, new keys are inserted and keys
+     * that are gone are deleted.
+     */
+    @VisibleForTesting
+    void updateSliceData(SQLiteDatabase database, List<SliceData> indexData) {
+        final Map<String, StoredRow> storedRows = new ArrayMap<>();
+        final List<Long> staleRowIds = new ArrayList<>();
+        try (Cursor cursor = database.query(Tables.TABLE_SLICES_INDEX,
+                new String[]{"rowid", IndexColumns.KEY, IndexColumns.CONTENT_HASH},
+                null /* selection */, null /* selectionArgs */, null /* groupBy */,
+                null /* having */, null /* orderBy */)) {
+            while (cursor.moveToNext()) {
+                final long rowId = cursor.getLong(0);
+                final String key = cursor.getString(1);
+                if (key == null || storedRows.containsKey(key)) {
+                    staleRowIds.add(rowId);
+                    continue;
+                }
+                storedRows.put(key, new StoredRow(rowId, cursor.getString(2)));
+            }
+        }
+
+        final SQLiteStatement insert = database.compileStatement(INSERT_SQL);
+        final SQLiteStatement update = database.compileStatement(UPDATE_SQL);
+        final SQLiteStatement delete = database.compileStatement(DELETE_SQL);
+        int inserted = 0;
+        int updated = 0;
+        try {
+            for (SliceData dataRow : indexData) {
+                final StoredRow storedRow = storedRows.remove(dataRow.getKey());
+                if (storedRow == null) {
+                    bindSliceData(insert, dataRow);
+                    insert.executeInsert();
+                    inserted++;
+                } else if (!computeContentHash(dataRow).equals(storedRow.mContentHash)) {
+                    bindSliceData(update, dataRow);
+                    update.bindLong(COLUMNS.length + 1, storedRow.mRowId);
+                    update.executeUpdateDelete();
+                    updated++;
+                }
+            }
+            for (StoredRow storedRow : storedRows.values()) {
+                staleRowIds.add(storedRow.mRowId);
             }
-            values.put(IndexColumns.KEYWORDS, dataRow.getKeywords());
-            values.put(IndexColumns.ICON_RESOURCE, dataRow.getIconResource());
-            values.put(IndexColumns.FRAGMENT, dataRow.getFragmentClassName());
-            values.put(IndexColumns.CONTROLLER, dataRow.getPreferenceController());
-            values.put(IndexColumns.SLICE_TYPE, dataRow.getSliceType());
-            values.put(IndexColumns.UNAVAILABLE_SLICE_SUBTITLE,
-                    dataRow.getUnavailableSliceSubtitle());
-            values.put(IndexColumns.PUBLIC_SLICE, dataRow.isPublicSlice());
-            values.put(IndexColumns.HIGHLIGHT_MENU_RESOURCE, dataRow.getHighlightMenuRes());
-
-            database.replaceOrThrow(Tables.TABLE_SLICES_INDEX, null /* nullColumnHack */,
-                    values);
+            for (long rowId : staleRowIds) {
+                delete.bindLong(1, rowId);
+                delete.executeUpdateDelete();
+            }
+        } finally {
+            insert.close();
+            update.close();
+            delete.close();
+        }
+        Log.d(TAG, "Delta indexing: inserted " + inserted + ", updated " + updated
+                + ", deleted " + staleRowIds.size() + " of " + indexData.size());
+    }
+
+    /**
+     * Returns a SHA-256 digest of every indexed column of {@code dataRow}, encoded in Base64.
+     * Each value is length-prefixed, so different rows cannot produce the same input.
+     */
+    @VisibleForTesting
+    static String computeContentHash(SliceData dataRow) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        final CharSequence screenTitle = dataRow.getScreenTitle();
+        updateDigest(digest, dataRow.getKey());
+        updateDigest(digest, String.valueOf(dataRow.getUri()));
+        updateDigest(digest, dataRow.getTitle());
+        updateDigest(digest, dataRow.getSummary());
+        updateDigest(digest, screenTitle == null ? null : screenTitle.toString());
+        updateDigest(digest, dataRow.getKeywords());
+        updateDigest(digest, dataRow.getIconResource());
+        updateDigest(digest, dataRow.getFragmentClassName());
+        updateDigest(digest, dataRow.getPreferenceController());
+        updateDigest(digest, dataRow.getSliceType());
+        updateDigest(digest, dataRow.getUnavailableSliceSubtitle());
+        updateDigest(digest, dataRow.isPublicSlice() ? 1 : 0);
+        updateDigest(digest, dataRow.getHighlightMenuRes());
+        return Base64.encodeToString(digest.digest(), Base64.NO_WRAP);
+    }
+
+    private static void updateDigest(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) 1);
+        updateDigest(digest, bytes.length);
+        digest.update(bytes);
+    }
+
+    private static void updateDigest(MessageDigest digest, int value) {
+        digest.update((byte) (value >>> 24));
+        digest.update((byte) (value >>> 16));
+        digest.update((byte) (value >>> 8));
+        digest.update((byte) value);
+    }
+
+    private static void bindSliceData(SQLiteStatement statement, SliceData dataRow) {
+        final CharSequence screenTitle = dataRow.getScreenTitle();
+        statement.clearBindings();
+        bindString(statement, 1, dataRow.getKey());
+        bindString(statement, 2, dataRow.getUri().toString());
+        bindString(statement, 3, dataRow.getTitle());
+        bindString(statement, 4, dataRow.getSummary());
+        bindString(statement, 5, screenTitle == null ? null : screenTitle.toString());
+        bindString(statement, 6, dataRow.getKeywords());
+        statement.bindLong(7, dataRow.getIconResource());
+        bindString(statement, 8, dataRow.getFragmentClassName());
+        bindString(statement, 9, dataRow.getPreferenceController());
+        statement.bindLong(10, dataRow.getSliceType());
+        bindString(statement, 11, dataRow.getUnavailableSliceSubtitle());
+        statement.bindLong(12, dataRow.isPublicSlice() ? 1 : 0);
+        statement.bindLong(13, dataRow.getHighlightMenuRes());
+        statement.bindString(14, computeContentHash(dataRow));
+    }
+
+    private static void bindString(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    private static class StoredRow {
+        final long mRowId;
+        final String mContentHash;
+
+        StoredRow(long rowId, String contentHash) {
+            mRowId = rowId;
+            mContentHash = contentHash;
         }
     }
 }
@@ -93,6 +93,22 @@ public class WifiEntryPreference extends Preference implements WifiEntry.WifiEnt
         return mWifiEntry;
     }
 
+    /**
+     * Shows {@code wifiEntry} instead of the current entry, e.g. when the picker recreated the
+     * entry of the same network. Nothing is bound again if the entry did not change.
+     */
+    public void setWifiEntry(@NonNull WifiEntry wifiEntry) {
+        if (wifiEntry == mWifiEntry) {
+            return;
+        }
+        mWifiEntry.setListener(null);
+        mWifiEntry = wifiEntry;
+        mWifiEntry.setListener(this);
+        refresh();
+        // The help and friction icons bound from the entry may have changed too.
+        notifyChanged();
+    }
+
     @Override
     public void onBindViewHolder(final PreferenceViewHolder view) {
         super.onBindViewHolder(view);
@@ -65,6 +65,7 @@ import com.android.settings.core.SubSettingLauncher;
 import com.android.settings.datausage.DataUsagePreference;
 import com.android.settings.datausage.DataUsageUtils;
 import com.android.settings.location.WifiScanningFragment;
+import com.android.settings.network.NetworkIndexStateTracker;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settings.search.BaseSearchIndexProvider;
 import com.android.settings.widget.MainSwitchBarController;
@@ -1103,6 +1104,13 @@ public class WifiSettings extends RestrictedSettingsFragment
                     }
                     return keys;
                 }
+
+                // Only the saved networks key depends on the device state.
+                @Override
+                public String getIndexFingerprint(Context context) {
+                    return IS_ENABLED_PROVIDER_MODEL + "|"
+                            + NetworkIndexStateTracker.getSavedNetworksGeneration(context);
+                }
             };
 
     private class WifiEntryConnectCallback implements ConnectCallback {
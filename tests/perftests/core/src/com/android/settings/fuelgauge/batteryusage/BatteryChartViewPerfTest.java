@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.perftests.utils.BenchmarkState;
+import android.perftests.utils.PerfStatusReporter;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Benchmarks drawing a frame of the hourly battery chart after each slot selection change. */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public final class BatteryChartViewPerfTest {
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 600;
+    private static final int LEVEL_COUNT = 13;
+
+    @Rule
+    public final PerfStatusReporter mPerfStatusReporter = new PerfStatusReporter();
+
+    private BatteryChartView mBatteryChartView;
+    private BatteryChartViewModel mViewModel;
+    private Bitmap mBitmap;
+    private Canvas mCanvas;
+
+    @Before
+    public void setUp() {
+        final Context context = ApplicationProvider.getApplicationContext();
+        final List<Integer> levels = new ArrayList<>();
+        final List<Long> timestamps = new ArrayList<>();
+        for (int index = 0; index < LEVEL_COUNT; index++) {
+            levels.add(100 - index * 5);
+            timestamps.add(index * 2 * 60 * 60 * 1000L);
+        }
+        mViewModel = new BatteryChartViewModel(levels, timestamps,
+                BatteryChartViewModel.AxisLabelPosition.BETWEEN_TRAPEZOIDS,
+                new BatteryChartViewModel.LabelTextGenerator() {
+                    @Override
+                    public String generateText(List<Long> timestamps, int index) {
+                        return index * 2 + " am";
+                    }
+
+                    @Override
+                    public String generateFullText(List<Long> timestamps, int index) {
+                        return generateText(timestamps, index);
+                    }
+                });
+        mBatteryChartView = new BatteryChartView(context, /*attrs=*/ null);
+        mBatteryChartView.setCompanionTextView(new TextView(context));
+        mBatteryChartView.setViewModel(mViewModel);
+        mBatteryChartView.measure(
+                View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mBatteryChartView.layout(0, 0, WIDTH, HEIGHT);
+        mBitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        mCanvas = new Canvas(mBitmap);
+    }
+
+    @After
+    public void tearDown() {
+        mBitmap.recycle();
+    }
+
+    @UiThreadTest
+    @Test
+    public void selectSlotAndDraw() {
+        final BenchmarkState state = mPerfStatusReporter.getBenchmarkState();
+        int selectedIndex = 0;
+        while (state.keepRunning()) {
+            mViewModel.setSelectedIndex(selectedIndex);
+            mBatteryChartView.setViewModel(mViewModel);
+            mBatteryChartView.draw(mCanvas);
+            selectedIndex = (selectedIndex + 1) % (LEVEL_COUNT - 1);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.os.BatteryManager;
+import android.perftests.utils.BenchmarkState;
+import android.perftests.utils.PerfStatusReporter;
+import android.text.format.DateUtils;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** Benchmarks the battery usage computation over seven days of history with 500 apps. */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public final class DataProcessorPerfTest {
+    private static final int DAY_COUNT = 7;
+    private static final int APP_COUNT = 500;
+    private static final int BASE_UID = 10000;
+
+    @Rule
+    public final PerfStatusReporter mPerfStatusReporter = new PerfStatusReporter();
+
+    private Context mContext;
+    private Map<Long, Map<String, BatteryHistEntry>> mBatteryHistoryMap;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mBatteryHistoryMap = createBatteryHistoryMap();
+    }
+
+    @Test
+    public void getBatteryUsageData_sevenDaysOf500Apps() {
+        final BenchmarkState state = mPerfStatusReporter.getBenchmarkState();
+        while (state.keepRunning()) {
+            DataProcessor.getBatteryUsageData(mContext, mBatteryHistoryMap);
+        }
+    }
+
+    // Hourly snapshots of cumulative usage since the first full charge, starting at an even hour.
+    private static Map<Long, Map<String, BatteryHistEntry>> createBatteryHistoryMap() {
+        final long endTimestamp = System.currentTimeMillis() / DateUtils.HOUR_IN_MILLIS
+                * DateUtils.HOUR_IN_MILLIS;
+        final int hourCount = DAY_COUNT * 24;
+        final long startTimestamp = endTimestamp - hourCount * DateUtils.HOUR_IN_MILLIS
+                - (endTimestamp / DateUtils.HOUR_IN_MILLIS % 2) * DateUtils.HOUR_IN_MILLIS;
+        final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap = new HashMap<>();
+        for (int hour = 0; hour <= hourCount; hour++) {
+            final long timestamp = startTimestamp + hour * DateUtils.HOUR_IN_MILLIS;
+            final int batteryLevel = 100 - hour % 100;
+            final Map<String, BatteryHistEntry> entryMap = new HashMap<>();
+            for (int app = 0; app < APP_COUNT; app++) {
+                final BatteryHistEntry entry = createBatteryHistEntry(
+                        timestamp, startTimestamp, BASE_UID + app, batteryLevel,
+                        /* consumePower= */ hour * (app % 7 + 1) * 0.1,
+                        /* foregroundUsageTimeInMs= */ hour * (app % 5) * 1000L,
+                        /* backgroundUsageTimeInMs= */ hour * (app % 3) * 1000L);
+                entryMap.put(entry.getKey(), entry);
+            }
+            batteryHistoryMap.put(timestamp, entryMap);
+        }
+        return batteryHistoryMap;
+    }
+
+    private static BatteryHistEntry createBatteryHistEntry(long timestamp, long bootTimestamp,
+            long uid, int batteryLevel, double consumePower, long foregroundUsageTimeInMs,
+            long backgroundUsageTimeInMs) {
+        final ContentValues values = new ContentValues();
+        values.put(BatteryHistEntry.KEY_UID, uid);
+        values.put(BatteryHistEntry.KEY_USER_ID, 0L);
+        values.put(BatteryHistEntry.KEY_PACKAGE_NAME, "com.example.app" + uid);
+        values.put(BatteryHistEntry.KEY_APP_LABEL, "App " + uid);
+        values.put(BatteryHistEntry.KEY_TIMESTAMP, timestamp);
+        values.put(BatteryHistEntry.KEY_BOOT_TIMESTAMP, timestamp - bootTimestamp);
+        values.put(BatteryHistEntry.KEY_CONSUMER_TYPE, ConvertUtils.CONSUMER_TYPE_UID_BATTERY);
+        values.put(BatteryHistEntry.KEY_CONSUME_POWER, consumePower);
+        values.put(BatteryHistEntry.KEY_FOREGROUND_USAGE_TIME, foregroundUsageTimeInMs);
+        values.put(BatteryHistEntry.KEY_BACKGROUND_USAGE_TIME, backgroundUsageTimeInMs);
+        values.put(BatteryHistEntry.KEY_BATTERY_LEVEL, batteryLevel);
+        values.put(BatteryHistEntry.KEY_BATTERY_STATUS, BatteryManager.BATTERY_STATUS_DISCHARGING);
+        return new BatteryHistEntry(values);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.slices;
+
+import android.content.Context;
+import android.perftests.utils.BenchmarkState;
+import android.perftests.utils.PerfStatusReporter;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+/** Benchmarks full and delta indexing of the real slice corpus. */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public final class SlicesIndexerPerfTest {
+
+    @Rule
+    public final PerfStatusReporter mPerfStatusReporter = new PerfStatusReporter();
+
+    private SlicesIndexer mIndexer;
+    private List<SliceData> mSliceData;
+
+    @Before
+    public void setUp() {
+        final Context context = ApplicationProvider.getApplicationContext();
+        mSliceData = new SlicesIndexer(context).getSliceData();
+        mIndexer = new SlicesIndexer(context) {
+            @Override
+            List<SliceData> getSliceData() {
+                // Keep the corpus conversion out of the measured time.
+                return mSliceData;
+            }
+        };
+        // Make sure there is a previous index for the delta runs.
+        mIndexer.indexSliceData(false /* delta */);
+    }
+
+    @Test
+    public void fullIndexing() {
+        final BenchmarkState state = mPerfStatusReporter.getBenchmarkState();
+        while (state.keepRunning()) {
+            mIndexer.indexSliceData(false /* delta */);
+        }
+    }
+
+    @Test
+    public void deltaIndexing() {
+        final BenchmarkState state = mPerfStatusReporter.getBenchmarkState();
+        while (state.keepRunning()) {
+            mIndexer.indexSliceData(true /* delta */);
+        }
+    }
+}
@@ -28,11 +28,16 @@ import android.content.SharedPreferences;
 import android.content.pm.ActivityInfo;
 import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
+import android.util.JsonWriter;
 
 import androidx.annotation.NonNull;
 
+import com.android.settings.core.instrumentation.LoaderLatencyStats;
+import com.android.settings.core.instrumentation.PerformanceLogWriter;
 import com.android.settings.fuelgauge.batterytip.AnomalyConfigJobService;
+import com.android.settings.testutils.FakeFeatureFactory;
 
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.junit.Before;
@@ -43,8 +48,11 @@ import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.concurrent.FutureTask;
 
 @RunWith(RobolectricTestRunner.class)
 public class SettingsDumpServiceTest {
@@ -113,6 +121,94 @@ public class SettingsDumpServiceTest {
         assertThat(object.get(TestService.KEY_SERVICE)).isNotNull();
     }
 
+    @Test
+    public void testDump_stream_writesJsonObject() throws JSONException {
+        FakeFeatureFactory.setupForTest();
+        mResolveInfo.activityInfo = new ActivityInfo();
+        mResolveInfo.activityInfo.packageName = PACKAGE_BROWSER;
+        final StringWriter stringWriter = new StringWriter();
+
+        mTestService.dump(null, new PrintWriter(stringWriter),
+                new String[] {TestService.ARG_STREAM});
+        final JSONObject object = new JSONObject(stringWriter.toString());
+
+        assertThat(object.get(TestService.KEY_SERVICE)).isNotNull();
+        assertThat(object.getString(TestService.KEY_DEFAULT_BROWSER_APP))
+                .isEqualTo(PACKAGE_BROWSER);
+        assertThat(object.getJSONObject(TestService.KEY_PERF).has("slice_data_cache")).isTrue();
+    }
+
+    @Test
+    public void testDumpPerf_returnCounters() throws JSONException {
+        FakeFeatureFactory.setupForTest();
+
+        final JSONObject perf = new JSONObject(write(mTestService.dumpPerf()));
+
+        assertThat(perf.getJSONObject("dynamic_data_observers").has("timed_out")).isTrue();
+        assertThat(perf.getJSONObject("slice_data_cache").has("hit_rate")).isTrue();
+        assertThat(perf.getJSONObject("preference_metadata_cache").has("hit_rate")).isTrue();
+        assertThat(perf.getJSONObject("tile_icon_cache").has("hit_rate")).isTrue();
+        assertThat(perf.getJSONObject("search_index_fingerprint_cache").has("hit_rate"))
+                .isTrue();
+        assertThat(perf.getJSONObject("card_eligibility_cache").has("hit_rate")).isTrue();
+        assertThat(perf.get("card_eligibility_checks")).isInstanceOf(JSONArray.class);
+    }
+
+    @Test
+    public void testDumpPerf_returnLoaderLatencies() throws JSONException {
+        LoaderLatencyStats.reset();
+        LoaderLatencyStats.log(LoaderLatencyStats.LOADER_STORAGE, 100L /* latencyMs */);
+        LoaderLatencyStats.log(LoaderLatencyStats.LOADER_STORAGE, 300L /* latencyMs */);
+
+        final JSONArray loaders =
+                new JSONObject(write(mTestService.dumpPerf())).getJSONArray("loaders");
+
+        assertThat(loaders.length()).isEqualTo(1);
+        final JSONObject storage = loaders.getJSONObject(0);
+        assertThat(storage.getString("loader")).isEqualTo(LoaderLatencyStats.LOADER_STORAGE);
+        assertThat(storage.getInt("count")).isEqualTo(2);
+        assertThat(storage.getLong("avg_latency_ms")).isEqualTo(200L);
+        assertThat(storage.getLong("max_latency_ms")).isEqualTo(300L);
+        assertThat(storage.getLong("last_latency_ms")).isEqualTo(300L);
+    }
+
+    @Test
+    public void testDumpPerformanceTrace_writesRecords() throws JSONException {
+        final PerformanceLogWriter performanceLogWriter = new PerformanceLogWriter();
+        performanceLogWriter.phase(1 /* pageId */, PerformanceLogWriter.PHASE_FIRST_BIND,
+                0L /* startNanos */, 2_000L /* endNanos */);
+        doReturn(performanceLogWriter).when(mTestService).getPerformanceLogWriter();
+
+        final JSONArray trace = new JSONArray(write(mTestService.dumpPerformanceTrace()));
+
+        assertThat(trace.length()).isEqualTo(1);
+        assertThat(trace.getJSONObject(0).getInt("page")).isEqualTo(1);
+        assertThat(trace.getJSONObject(0).getString("phase")).isEqualTo("first_bind");
+        assertThat(trace.getJSONObject(0).getLong("duration_us")).isEqualTo(2L);
+    }
+
+    @Test
+    public void testGetSection_notReadyByDeadline_returnTimeoutError() throws JSONException {
+        final FutureTask<SettingsDumpService.SectionWriter> section =
+                new FutureTask<>(() -> json -> json.value("never run"));
+
+        final SettingsDumpService.SectionWriter value = SettingsDumpService.getSection(
+                TestService.KEY_MEMORY, section, 0L /* deadline */);
+
+        assertThat(new JSONObject(write(value)).getString("error")).isEqualTo("timeout");
+        assertThat(section.isCancelled()).isTrue();
+    }
+
+    private static String write(SettingsDumpService.SectionWriter section) {
+        final StringWriter stringWriter = new StringWriter();
+        try {
+            section.write(new JsonWriter(stringWriter));
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return stringWriter.toString();
+    }
+
     /**
      * Test service used to pass in the mock {@link PackageManager}
      */
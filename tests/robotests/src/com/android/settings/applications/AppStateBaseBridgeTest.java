@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.pm.ApplicationInfo;
+import android.os.Looper;
+import android.os.UserHandle;
+
+import com.android.settingslib.applications.ApplicationsState;
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class AppStateBaseBridgeTest {
+
+    private static final int WORK_USER_ID = 10;
+
+    @Mock
+    private ApplicationsState mState;
+    @Mock
+    private ApplicationsState.Session mSession;
+    @Mock
+    private AppStateBaseBridge.Callback mCallback;
+
+    private TestBridge mBridge;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(mState.newSession(any())).thenReturn(mSession);
+        when(mState.getBackgroundLooper()).thenReturn(mock(Looper.class));
+        mBridge = new TestBridge(mState, mCallback);
+    }
+
+    @Test
+    public void loadAllExtraInfoInBatches_multipleUsers_shouldLoadEveryApp() {
+        final ArrayList<AppEntry> apps = new ArrayList<>();
+        for (int i = 0; i < AppStateBaseBridge.BATCH_SIZE * 2 + 1; i++) {
+            apps.add(getAppEntry("pkg" + i, UserHandle.USER_SYSTEM));
+            apps.add(getAppEntry("pkg" + i, WORK_USER_ID));
+        }
+        when(mSession.getAllApps()).thenReturn(apps);
+
+        mBridge.loadAllExtraInfo();
+
+        for (AppEntry app : apps) {
+            assertThat(app.extraInfo)
+                    .isEqualTo("user" + UserHandle.getUserId(app.info.uid) + ":"
+                            + app.info.packageName);
+        }
+    }
+
+    @Test
+    public void loadAllExtraInfoInBatches_userStateFailed_shouldFallBackToPerAppPath() {
+        final ArrayList<AppEntry> apps = new ArrayList<>();
+        apps.add(getAppEntry("pkg", UserHandle.USER_SYSTEM));
+        apps.add(getAppEntry("pkg", WORK_USER_ID));
+        when(mSession.getAllApps()).thenReturn(apps);
+        mBridge.mFailingUserId = WORK_USER_ID;
+
+        mBridge.loadAllExtraInfo();
+
+        assertThat(apps.get(0).extraInfo).isEqualTo("user0:pkg");
+        assertThat(apps.get(1).extraInfo).isEqualTo("app:pkg");
+    }
+
+    @Test
+    public void loadAllExtraInfoInBatches_shouldPublishPartialResults() {
+        final ArrayList<AppEntry> apps = new ArrayList<>();
+        apps.add(getAppEntry("pkg", UserHandle.USER_SYSTEM));
+        when(mSession.getAllApps()).thenReturn(apps);
+
+        mBridge.loadAllExtraInfo();
+        ShadowLooper.idleMainLooper();
+
+        verify(mCallback, atLeastOnce()).onExtraInfoUpdated();
+    }
+
+    @Test
+    public void loadAllExtraInfoInBatches_noApps_shouldNotCrash() {
+        when(mSession.getAllApps()).thenReturn(new ArrayList<>());
+
+        mBridge.loadAllExtraInfo();
+    }
+
+    private static AppEntry getAppEntry(String packageName, int userId) {
+        final AppEntry entry = mock(AppEntry.class);
+        entry.info = new ApplicationInfo();
+        entry.info.packageName = packageName;
+        entry.info.uid = UserHandle.getUid(userId, 10000);
+        return entry;
+    }
+
+    private static class TestBridge extends AppStateBaseBridge {
+
+        private int mFailingUserId = UserHandle.USER_NULL;
+
+        TestBridge(ApplicationsState appState, Callback callback) {
+            super(appState, callback);
+        }
+
+        @Override
+        protected void loadAllExtraInfo() {
+            loadAllExtraInfoInBatches(new BatchLoader<String>() {
+                @Override
+                public String loadUserState(int userId) {
+                    if (userId == mFailingUserId) {
+                        throw new IllegalStateException("Failed to load user " + userId);
+                    }
+                    return "user" + userId;
+                }
+
+                @Override
+                public void loadExtraInfo(int userId, String userState, List<AppEntry> apps) {
+                    for (AppEntry app : apps) {
+                        app.extraInfo = userState + ":" + app.info.packageName;
+                    }
+                }
+            });
+        }
+
+        @Override
+        protected void updateExtraInfo(AppEntry app, String pkg, int uid) {
+            app.extraInfo = "app:" + pkg;
+        }
+    }
+}
@@ -129,7 +129,7 @@ public class AppStateNotificationBridgeTest {
         when(mUsageStats.queryEventsForUser(anyLong(), anyLong(), anyInt(), anyString()))
                 .thenReturn(mock(UsageEvents.class));
 
-        assertThat(mBridge.getAggregatedUsageEvents()).isEmpty();
+        assertThat(mBridge.getAggregatedUsageEvents(0 /* userId */)).isEmpty();
     }
 
     @Test
@@ -150,7 +150,8 @@ public class AppStateNotificationBridgeTest {
         when(mUsageStats.queryEventsForUser(anyLong(), anyLong(), anyInt(), anyString()))
                 .thenReturn(usageEvents);
 
-        Map<String, NotificationsSentState> map = mBridge.getAggregatedUsageEvents();
+        Map<String, NotificationsSentState> map =
+                mBridge.getAggregatedUsageEvents(0 /* userId */);
         assertThat(map.get(AppStateNotificationBridge.getKey(0, PKG1)).sentCount).isEqualTo(1);
     }
 
@@ -172,7 +173,8 @@ public class AppStateNotificationBridgeTest {
         when(mUsageStats.queryEventsForUser(anyLong(), anyLong(), anyInt(), anyString()))
                 .thenReturn(usageEvents);
 
-        Map<String, NotificationsSentState> map  = mBridge.getAggregatedUsageEvents();
+        Map<String, NotificationsSentState> map =
+                mBridge.getAggregatedUsageEvents(0 /* userId */);
         assertThat(map.get(AppStateNotificationBridge.getKey(0, PKG1)).sentCount).isEqualTo(2);
         assertThat(map.get(AppStateNotificationBridge.getKey(0, PKG1)).lastSent).isEqualTo(6);
     }
@@ -196,7 +198,7 @@ public class AppStateNotificationBridgeTest {
                 .thenReturn(usageEvents);
 
         Map<String, NotificationsSentState> map
-                = mBridge.getAggregatedUsageEvents();
+                = mBridge.getAggregatedUsageEvents(0 /* userId */);
         assertThat(map.get(AppStateNotificationBridge.getKey(0, PKG1)).sentCount).isEqualTo(1);
         assertThat(map.get(AppStateNotificationBridge.getKey(0, PKG2)).sentCount).isEqualTo(1);
         assertThat(map.get(AppStateNotificationBridge.getKey(0, PKG1)).lastSent).isEqualTo(6);
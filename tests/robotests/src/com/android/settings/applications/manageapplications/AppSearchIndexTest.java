@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.manageapplications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+
+import android.content.pm.ApplicationInfo;
+
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class AppSearchIndexTest {
+
+    private List<AppEntry> mEntries;
+    private AppSearchIndex mIndex;
+
+    @Before
+    public void setUp() {
+        mEntries = new ArrayList<>();
+        mEntries.add(createAppEntry("Apricot", "com.example.apricot"));
+        mEntries.add(createAppEntry("Banana", "org.fruit.yellow"));
+        mEntries.add(createAppEntry("Cantaloupe", "com.example.melon"));
+        mEntries.add(createAppEntry("Mango", null));
+        mIndex = new AppSearchIndex(mEntries);
+    }
+
+    @Test
+    public void search_shouldMatchLabelIgnoringCase() {
+        assertThat(mIndex.search(AppSearchIndex.normalize("AN"), null)).asList()
+                .containsExactly(1, 2, 3).inOrder();
+    }
+
+    @Test
+    public void search_shouldMatchPackageName() {
+        assertThat(mIndex.search(AppSearchIndex.normalize("yellow"), null)).asList()
+                .containsExactly(1);
+        assertThat(mIndex.search(AppSearchIndex.normalize("com.example"), null)).asList()
+                .containsExactly(0, 2).inOrder();
+    }
+
+    @Test
+    public void search_singleCharacter_shouldScanAllEntries() {
+        assertThat(mIndex.search(AppSearchIndex.normalize("g"), null)).asList()
+                .containsExactly(3);
+    }
+
+    @Test
+    public void search_unknownCharacterPair_shouldReturnEmpty() {
+        assertThat(mIndex.search(AppSearchIndex.normalize("orange"), null)).isEmpty();
+    }
+
+    @Test
+    public void search_withCandidates_shouldOnlyVerifyCandidates() {
+        final int[] previous = mIndex.search(AppSearchIndex.normalize("an"), null);
+
+        assertThat(mIndex.search(AppSearchIndex.normalize("ana"), previous)).asList()
+                .containsExactly(1);
+    }
+
+    @Test
+    public void getEntries_shouldReturnEntriesInOrder() {
+        assertThat(mIndex.getEntries(new int[] {0, 3}))
+                .containsExactly(mEntries.get(0), mEntries.get(3)).inOrder();
+    }
+
+    @Test
+    public void isBuiltFrom_otherList_shouldReturnFalse() {
+        assertThat(mIndex.isBuiltFrom(mEntries)).isTrue();
+        assertThat(mIndex.isBuiltFrom(new ArrayList<>(mEntries))).isFalse();
+    }
+
+    private static AppEntry createAppEntry(String label, String packageName) {
+        final AppEntry entry = mock(AppEntry.class);
+        entry.label = label;
+        if (packageName != null) {
+            entry.info = new ApplicationInfo();
+            entry.info.packageName = packageName;
+        }
+        return entry;
+    }
+}
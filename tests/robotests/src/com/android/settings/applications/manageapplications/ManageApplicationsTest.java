@@ -34,6 +34,8 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import android.content.Context;
@@ -339,6 +341,43 @@ public class ManageApplicationsTest {
         verify(adapter).notifyDataSetChanged();
     }
 
+    @Test
+    public void onPackageSizeChanged_shouldOnlyNotifyAffectedRow() {
+        final ManageApplications.ApplicationsAdapter adapter =
+                new ManageApplications.ApplicationsAdapter(mState, mFragment,
+                        AppFilterRegistry.getInstance().get(FILTER_APPS_ALL), new Bundle());
+        final ManageApplications.ApplicationsAdapter.OnScrollListener listener =
+                mock(ManageApplications.ApplicationsAdapter.OnScrollListener.class);
+        adapter.mOnScrollListener = listener;
+        ReflectionHelpers.setField(adapter, "mEntries",
+                getTestAppListWithPackages(new String[]{"pkg.a", "pkg.b", "pkg.c"}));
+
+        adapter.onPackageSizeChanged("pkg.b");
+        adapter.onPackageSizeChanged("pkg.b");
+        adapter.onPackageSizeChanged("pkg.unknown");
+        adapter.notifyPendingSizeChanges();
+
+        verify(listener).postNotifyItemChange(1);
+        verifyNoMoreInteractions(listener);
+    }
+
+    @Test
+    public void onPackageSizeChanged_packageNotListed_shouldNotNotify() {
+        final ManageApplications.ApplicationsAdapter adapter =
+                new ManageApplications.ApplicationsAdapter(mState, mFragment,
+                        AppFilterRegistry.getInstance().get(FILTER_APPS_ALL), new Bundle());
+        final ManageApplications.ApplicationsAdapter.OnScrollListener listener =
+                mock(ManageApplications.ApplicationsAdapter.OnScrollListener.class);
+        adapter.mOnScrollListener = listener;
+        ReflectionHelpers.setField(adapter, "mEntries",
+                getTestAppListWithPackages(new String[]{"pkg.a", "pkg.b"}));
+
+        adapter.onPackageSizeChanged("pkg.unknown");
+        adapter.notifyPendingSizeChanges();
+
+        verifyNoInteractions(listener);
+    }
+
     @Test
     public void applicationsAdapter_onBindViewHolder_notifications_wrongExtraInfo() {
         when(mUserManager.getProfileIdsWithDisabled(anyInt())).thenReturn(new int[]{});
@@ -446,6 +485,21 @@ public class ManageApplicationsTest {
         assertThat(adapter.getAppEntry(2).label).isEqualTo("Mango");
     }
 
+    @Test
+    public void applicationsAdapter_filterSearch_narrowingQuery_shouldRefineResults() {
+        final ManageApplications.ApplicationsAdapter adapter =
+                new ManageApplications.ApplicationsAdapter(
+                        mState, mFragment, mock(AppFilterItem.class), Bundle.EMPTY);
+        final String[] appNames = {"Apricot", "Banana", "Cantaloupe", "Fig", "Mango"};
+        ReflectionHelpers.setField(adapter, "mOriginalEntries", getTestAppList(appNames));
+
+        adapter.filterSearch("an");
+        adapter.filterSearch("ang");
+
+        assertThat(adapter.getItemCount()).isEqualTo(1);
+        assertThat(adapter.getAppEntry(0).label).isEqualTo("Mango");
+    }
+
     @Test
     public void sortOrderSavedOnRebuild() {
         when(mUserManager.getProfileIdsWithDisabled(anyInt())).thenReturn(new int[]{});
@@ -627,6 +681,17 @@ public class ManageApplicationsTest {
         return appList;
     }
 
+    private ArrayList<AppEntry> getTestAppListWithPackages(String[] packageNames) {
+        final ArrayList<AppEntry> appList = new ArrayList<>();
+        for (String packageName : packageNames) {
+            final AppEntry appEntry = mock(AppEntry.class);
+            appEntry.info = new ApplicationInfo();
+            appEntry.info.packageName = packageName;
+            appList.add(appEntry);
+        }
+        return appList;
+    }
+
     private AppEntry createPowerAllowListApp(boolean isPowerAllowListed) {
         final ApplicationInfo info = new ApplicationInfo();
         info.sourceDir = "abc";
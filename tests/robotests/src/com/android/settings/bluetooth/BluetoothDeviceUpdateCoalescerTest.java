@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package com.android.settings.bluetooth;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothProfile;
+import android.content.Context;
+
+import com.android.settings.connecteddevice.DevicePreferenceCallback;
+import com.android.settings.dashboard.DashboardFragment;
+import com.android.settings.testutils.shadow.ShadowBluetoothAdapter;
+import com.android.settings.testutils.shadow.ShadowThreadUtils;
+import com.android.settingslib.bluetooth.CachedBluetoothDevice;
+import com.android.settingslib.bluetooth.CachedBluetoothDeviceManager;
+import com.android.settingslib.bluetooth.LocalBluetoothManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadow.api.Shadow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(shadows = {ShadowBluetoothAdapter.class, ShadowThreadUtils.class})
+public class BluetoothDeviceUpdateCoalescerTest {
+
+    @Mock
+    private DashboardFragment mDashboardFragment;
+    @Mock
+    private DevicePreferenceCallback mDevicePreferenceCallback;
+    @Mock
+    private CachedBluetoothDevice mCachedBluetoothDevice;
+    @Mock
+    private CachedBluetoothDevice mOtherCachedBluetoothDevice;
+    @Mock
+    private BluetoothDevice mBluetoothDevice;
+    @Mock
+    private BluetoothDevice mOtherBluetoothDevice;
+    @Mock
+    private LocalBluetoothManager mLocalManager;
+    @Mock
+    private CachedBluetoothDeviceManager mCachedDeviceManager;
+
+    private Context mContext;
+    private BluetoothDeviceUpdater mFirstUpdater;
+    private BluetoothDeviceUpdater mSecondUpdater;
+    private BluetoothDeviceUpdateCoalescer mCoalescer;
+    private List<CachedBluetoothDevice> mCachedDevices = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        mContext = RuntimeEnvironment.application;
+        final ShadowBluetoothAdapter shadowBluetoothAdapter =
+                Shadow.extract(BluetoothAdapter.getDefaultAdapter());
+        shadowBluetoothAdapter.setEnabled(true);
+        mCachedDevices.add(mCachedBluetoothDevice);
+        mCachedDevices.add(mOtherCachedBluetoothDevice);
+        doReturn(mContext).when(mDashboardFragment).getContext();
+        when(mCachedBluetoothDevice.getDevice()).thenReturn(mBluetoothDevice);
+        when(mOtherCachedBluetoothDevice.getDevice()).thenReturn(mOtherBluetoothDevice);
+        when(mLocalManager.getCachedDeviceManager()).thenReturn(mCachedDeviceManager);
+        when(mCachedDeviceManager.getCachedDevicesCopy()).thenReturn(mCachedDevices);
+
+        mFirstUpdater = createUpdater();
+        mSecondUpdater = createUpdater();
+        mCoalescer = BluetoothDeviceUpdateCoalescer.get(mDashboardFragment);
+    }
+
+    @Test
+    public void get_samePage_returnsSameCoalescer() {
+        assertThat(BluetoothDeviceUpdateCoalescer.get(mDashboardFragment))
+                .isSameInstanceAs(mCoalescer);
+    }
+
+    @Test
+    public void onProfileConnectionStateChanged_updatesOnFlushOnly() {
+        when(mFirstUpdater.isFilterMatched(mCachedBluetoothDevice)).thenReturn(true);
+
+        mFirstUpdater.onProfileConnectionStateChanged(mCachedBluetoothDevice,
+                BluetoothProfile.STATE_CONNECTED, BluetoothProfile.A2DP);
+        mFirstUpdater.onAclConnectionStateChanged(mCachedBluetoothDevice,
+                BluetoothAdapter.STATE_CONNECTED);
+
+        verify(mFirstUpdater, never()).isFilterMatched(any());
+        verify(mFirstUpdater, never()).addPreference(any());
+        assertThat(mCoalescer.hasPendingUpdates()).isTrue();
+
+        mCoalescer.flush();
+
+        verify(mFirstUpdater).isFilterMatched(mCachedBluetoothDevice);
+        verify(mFirstUpdater).addPreference(mCachedBluetoothDevice);
+        assertThat(mCoalescer.hasPendingUpdates()).isFalse();
+    }
+
+    @Test
+    public void flush_filterNotMatched_removePreference() {
+        when(mFirstUpdater.isFilterMatched(mCachedBluetoothDevice)).thenReturn(false);
+
+        mFirstUpdater.onDeviceAdded(mCachedBluetoothDevice);
+        mCoalescer.flush();
+
+        verify(mFirstUpdater).removePreference(mCachedBluetoothDevice);
+        verify(mFirstUpdater, never()).addPreference(any());
+    }
+
+    @Test
+    public void forceUpdate_severalUpdaters_readCachedDevicesOnce() {
+        when(mFirstUpdater.isFilterMatched(any())).thenReturn(true);
+        when(mSecondUpdater.isFilterMatched(any())).thenReturn(true);
+
+        mFirstUpdater.forceUpdate();
+        mSecondUpdater.forceUpdate();
+        mCoalescer.flush();
+
+        verify(mCachedDeviceManager, times(1)).getCachedDevicesCopy();
+        verify(mFirstUpdater).addPreference(mCachedBluetoothDevice);
+        verify(mFirstUpdater).addPreference(mOtherCachedBluetoothDevice);
+        verify(mSecondUpdater).addPreference(mCachedBluetoothDevice);
+        verify(mSecondUpdater).addPreference(mOtherCachedBluetoothDevice);
+    }
+
+    @Test
+    public void onDeviceDeleted_dropsPendingUpdate() {
+        when(mFirstUpdater.isFilterMatched(mCachedBluetoothDevice)).thenReturn(true);
+
+        mFirstUpdater.onDeviceAdded(mCachedBluetoothDevice);
+        mFirstUpdater.onDeviceDeleted(mCachedBluetoothDevice);
+        mCoalescer.flush();
+
+        verify(mFirstUpdater, never()).addPreference(any());
+    }
+
+    @Test
+    public void onDeviceDeleted_lastPendingDevice_noPendingUpdates() {
+        mFirstUpdater.onDeviceAdded(mCachedBluetoothDevice);
+        mFirstUpdater.onDeviceDeleted(mCachedBluetoothDevice);
+
+        assertThat(mCoalescer.hasPendingUpdates()).isFalse();
+    }
+
+    @Test
+    public void onDeviceDeleted_whileBatchIsMatched_dropsResult() {
+        doAnswer(invocation -> {
+            // The device is deleted after its batch left the main thread.
+            mFirstUpdater.onDeviceDeleted(mCachedBluetoothDevice);
+            return true;
+        }).when(mFirstUpdater).isFilterMatched(mCachedBluetoothDevice);
+        when(mFirstUpdater.isFilterMatched(mOtherCachedBluetoothDevice)).thenReturn(true);
+
+        mFirstUpdater.onDeviceAdded(mCachedBluetoothDevice);
+        mFirstUpdater.onDeviceAdded(mOtherCachedBluetoothDevice);
+        mCoalescer.flush();
+
+        verify(mFirstUpdater, never()).addPreference(mCachedBluetoothDevice);
+        verify(mFirstUpdater).addPreference(mOtherCachedBluetoothDevice);
+    }
+
+    @Test
+    public void removeAllDevicesFromPreference_dropsPendingUpdatesOfThisUpdaterOnly() {
+        when(mSecondUpdater.isFilterMatched(mCachedBluetoothDevice)).thenReturn(true);
+
+        mFirstUpdater.onDeviceAdded(mCachedBluetoothDevice);
+        mSecondUpdater.onDeviceAdded(mCachedBluetoothDevice);
+        mFirstUpdater.removeAllDevicesFromPreference();
+        mCoalescer.flush();
+
+        verify(mFirstUpdater, never()).isFilterMatched(any());
+        verify(mSecondUpdater).addPreference(mCachedBluetoothDevice);
+    }
+
+    @Test
+    public void onDeviceAdded_coalescingNotEnabled_updateImmediately() {
+        final BluetoothDeviceUpdater updater = spy(new TestBluetoothDeviceUpdater(mContext,
+                mDashboardFragment, mDevicePreferenceCallback, mLocalManager));
+        doNothing().when(updater).addPreference(any());
+        when(updater.isFilterMatched(mCachedBluetoothDevice)).thenReturn(true);
+
+        updater.onDeviceAdded(mCachedBluetoothDevice);
+
+        verify(updater).addPreference(mCachedBluetoothDevice);
+    }
+
+    private BluetoothDeviceUpdater createUpdater() {
+        final BluetoothDeviceUpdater updater = spy(new TestBluetoothDeviceUpdater(mContext,
+                mDashboardFragment, mDevicePreferenceCallback, mLocalManager));
+        doNothing().when(updater).addPreference(any());
+        doNothing().when(updater).removePreference(any());
+        updater.enableUpdateCoalescing();
+        return updater;
+    }
+
+    private static class TestBluetoothDeviceUpdater extends BluetoothDeviceUpdater {
+
+        TestBluetoothDeviceUpdater(Context context, DashboardFragment fragment,
+                DevicePreferenceCallback devicePreferenceCallback,
+                LocalBluetoothManager localManager) {
+            super(context, fragment, devicePreferenceCallback, localManager);
+        }
+
+        @Override
+        public boolean isFilterMatched(CachedBluetoothDevice cachedBluetoothDevice) {
+            return false;
+        }
+
+        @Override
+        protected String getPreferenceKey() {
+            return "test_bt";
+        }
+    }
+}
@@ -27,8 +27,10 @@ import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_UNAVAI
 import static com.google.common.truth.Truth.assertThat;
 
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.XmlResourceParser;
 import android.os.Bundle;
+import android.os.LocaleList;
 import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.Xml;
@@ -63,6 +65,7 @@ public class PreferenceXmlParserUtilsTest {
     @Before
     public void setUp() {
         mContext = getApplicationContext();
+        PreferenceMetadataCache.clear();
     }
 
     @Test
@@ -207,6 +210,67 @@ public class PreferenceXmlParserUtilsTest {
         }
     }
 
+    @Test
+    public void extractMetadata_calledTwice_shouldParseOnceAndReturnNewBundles()
+            throws IOException, XmlPullParserException {
+        final List<Bundle> first = PreferenceXmlParserUtils.extractMetadata(mContext,
+                R.xml.location_settings, MetadataFlag.FLAG_NEED_KEY);
+        first.get(0).putString(METADATA_KEY, "modified");
+
+        final List<Bundle> second = PreferenceXmlParserUtils.extractMetadata(mContext,
+                R.xml.location_settings, MetadataFlag.FLAG_NEED_KEY);
+
+        assertThat(PreferenceMetadataCache.size()).isEqualTo(1);
+        assertThat(second).hasSize(first.size());
+        assertThat(second.get(0).getString(METADATA_KEY)).isNotEqualTo("modified");
+    }
+
+    @Test
+    public void extractMetadata_differentLocale_shouldCacheSeparately()
+            throws IOException, XmlPullParserException {
+        final Configuration config = new Configuration(mContext.getResources().getConfiguration());
+        config.setLocales(LocaleList.forLanguageTags("fr-FR"));
+        final Context frenchContext = mContext.createConfigurationContext(config);
+
+        PreferenceXmlParserUtils.extractMetadata(mContext, R.xml.location_settings,
+                MetadataFlag.FLAG_NEED_PREF_TITLE);
+        PreferenceXmlParserUtils.extractMetadata(frenchContext, R.xml.location_settings,
+                MetadataFlag.FLAG_NEED_PREF_TITLE);
+        PreferenceXmlParserUtils.extractMetadata(mContext, R.xml.location_settings,
+                MetadataFlag.FLAG_NEED_PREF_TITLE);
+
+        assertThat(PreferenceMetadataCache.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void extractMetadata_unrelatedConfigurationChange_shouldReuseCachedMetadata()
+            throws IOException, XmlPullParserException {
+        final Configuration config = new Configuration(mContext.getResources().getConfiguration());
+        config.fontScale = config.fontScale * 2;
+        final Context largeFontContext = mContext.createConfigurationContext(config);
+
+        PreferenceXmlParserUtils.extractMetadata(mContext, R.xml.location_settings,
+                MetadataFlag.FLAG_NEED_KEY);
+        PreferenceXmlParserUtils.extractMetadata(largeFontContext, R.xml.location_settings,
+                MetadataFlag.FLAG_NEED_KEY);
+
+        assertThat(PreferenceMetadataCache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void extractMetadata_differentFlags_shouldCacheSeparately()
+            throws IOException, XmlPullParserException {
+        PreferenceXmlParserUtils.extractMetadata(mContext, R.xml.location_settings,
+                MetadataFlag.FLAG_NEED_KEY);
+        final List<Bundle> metadata = PreferenceXmlParserUtils.extractMetadata(mContext,
+                R.xml.location_settings, MetadataFlag.FLAG_NEED_PREF_TITLE);
+
+        assertThat(PreferenceMetadataCache.size()).isEqualTo(2);
+        for (Bundle bundle : metadata) {
+            assertThat(bundle.containsKey(METADATA_KEY)).isFalse();
+        }
+    }
+
     @Test
     @Config(qualifiers = "mcc999")
     public void extractMetadata_requestTitle_shouldContainTitle()
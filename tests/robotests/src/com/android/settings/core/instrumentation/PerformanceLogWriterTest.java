@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core.instrumentation;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.app.settings.SettingsEnums;
+import android.content.Context;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class PerformanceLogWriterTest {
+
+    private Context mContext;
+    private PerformanceLogWriter mWriter;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mWriter = new PerformanceLogWriter(3 /* capacity */);
+    }
+
+    @Test
+    public void phase_shouldRecordPageAndDuration() {
+        mWriter.phase(SettingsEnums.SETTINGS_HOMEPAGE,
+                PerformanceLogWriter.PHASE_CREATE_CONTROLLERS, 1_000L, 3_000L);
+
+        final List<PerformanceLogWriter.Record> records = mWriter.getRecords();
+        assertThat(records).hasSize(1);
+        assertThat(records.get(0).mPageId).isEqualTo(SettingsEnums.SETTINGS_HOMEPAGE);
+        assertThat(records.get(0).mPhase)
+                .isEqualTo(PerformanceLogWriter.PHASE_CREATE_CONTROLLERS);
+        assertThat(records.get(0).mStartNanos).isEqualTo(1_000L);
+        assertThat(records.get(0).mDurationNanos).isEqualTo(2_000L);
+    }
+
+    @Test
+    public void phase_bufferFull_shouldOverwriteOldest() {
+        for (int i = 0; i < 5; i++) {
+            mWriter.phase(i /* pageId */, PerformanceLogWriter.PHASE_TILE_INJECTION, 0L, 1L);
+        }
+
+        final List<PerformanceLogWriter.Record> records = mWriter.getRecords();
+        assertThat(records).hasSize(3);
+        assertThat(records.get(0).mPageId).isEqualTo(2);
+        assertThat(records.get(2).mPageId).isEqualTo(4);
+        assertThat(mWriter.getDroppedCount()).isEqualTo(2L);
+    }
+
+    @Test
+    public void visible_shouldRecordLatency() {
+        mWriter.visible(mContext, SettingsEnums.PAGE_UNKNOWN, SettingsEnums.SETTINGS_HOMEPAGE,
+                20 /* latency */);
+        mWriter.action(mContext, SettingsEnums.ACTION_SETTINGS_ADVANCED_BUTTON_EXPAND, 1);
+
+        final List<PerformanceLogWriter.Record> records = mWriter.getRecords();
+        assertThat(records).hasSize(1);
+        assertThat(records.get(0).mPhase).isEqualTo(PerformanceLogWriter.PHASE_VISIBLE);
+        assertThat(records.get(0).mDurationNanos).isEqualTo(20_000_000L);
+    }
+
+    @Test
+    public void dump_shouldPrintPhaseNames() {
+        mWriter.phase(SettingsEnums.SETTINGS_HOMEPAGE, PerformanceLogWriter.PHASE_FULLY_DRAWN,
+                0L, 5_000_000L);
+        final StringWriter stringWriter = new StringWriter();
+
+        mWriter.dump(new PrintWriter(stringWriter));
+
+        assertThat(stringWriter.toString()).contains("fully_drawn 5000us");
+    }
+}
@@ -25,15 +25,16 @@ import com.android.settings.intelligence.LogProto.SettingsLog;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.junit.runner.RunWith;
 import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 
 import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
+@RunWith(RobolectricTestRunner.class)
 public class SettingsIntelligenceLogWriterTest {
     private Context mContext;
 
@@ -44,19 +45,18 @@ public class SettingsIntelligenceLogWriterTest {
     }
 
     @Test
-    public void serialize_hasSizeOne_returnCorrectData() throws IOException {
-        final SettingsLog event = SettingsLog.newBuilder()
-                .setAttribution(SettingsEnums.DASHBOARD_SUMMARY)
-                .setAction(SettingsEnums.ACTION_SET_NEW_PASSWORD)
-                .setPageId(SettingsEnums.SET_NEW_PASSWORD_ACTIVITY)
-                .setChangedPreferenceKey("package")
-                .setChangedPreferenceIntValue(100)
-                .build();
-        List<SettingsLog> events = new ArrayList<>();
-        events.add(event);
+    public void drainEvents_hasSizeOne_returnCorrectData() throws IOException {
+        final SettingsIntelligenceLogWriter writer = new SettingsIntelligenceLogWriter();
+        writer.action(SettingsEnums.DASHBOARD_SUMMARY,
+                SettingsEnums.ACTION_SET_NEW_PASSWORD,
+                SettingsEnums.SET_NEW_PASSWORD_ACTIVITY,
+                "package",
+                100);
 
         // execute
-        final byte[] data = SettingsIntelligenceLogWriter.serialize(events);
+        final SettingsLogEncoder encoder = new SettingsLogEncoder(0 /* initialCapacity */);
+        writer.drainEvents(encoder);
+        final byte[] data = encoder.toByteArray();
 
         // parse data
         final ByteArrayInputStream bin = new ByteArrayInputStream(data);
@@ -68,11 +68,43 @@ public class SettingsIntelligenceLogWriterTest {
         final SettingsLog settingsLog = SettingsLog.parseFrom(change);
 
         // assert
-        assertThat(events.size()).isEqualTo(size);
+        assertThat(size).isEqualTo(1);
         assertThat(settingsLog.getAttribution()).isEqualTo(SettingsEnums.DASHBOARD_SUMMARY);
         assertThat(settingsLog.getAction()).isEqualTo(SettingsEnums.ACTION_SET_NEW_PASSWORD);
         assertThat(settingsLog.getPageId()).isEqualTo(SettingsEnums.SET_NEW_PASSWORD_ACTIVITY);
         assertThat(settingsLog.getChangedPreferenceKey()).isEqualTo("package");
         assertThat(settingsLog.getChangedPreferenceIntValue()).isEqualTo(100);
+        assertThat(settingsLog.getTimestamp()).isNotEmpty();
+    }
+
+    @Test
+    public void encoder_matchesProtoSerialization() throws IOException {
+        final SettingsLog event = SettingsLog.newBuilder()
+                .setAttribution(SettingsEnums.PAGE_UNKNOWN)
+                .setAction(SettingsEnums.PAGE_VISIBLE)
+                .setPageId(SettingsEnums.DASHBOARD_SUMMARY)
+                .setChangedPreferenceKey("")
+                .setChangedPreferenceIntValue(-1)
+                .setTimestamp("2026-01-01T00:00Z[UTC]")
+                .build();
+        final SettingsLogEncoder encoder = new SettingsLogEncoder(0 /* initialCapacity */);
+
+        encoder.append(event.getAttribution(), event.getAction(), event.getPageId(),
+                event.getChangedPreferenceKey(), event.getChangedPreferenceIntValue(),
+                event.getTimestamp());
+        encoder.append(event.getAttribution(), event.getAction(), event.getPageId(),
+                event.getChangedPreferenceKey(), event.getChangedPreferenceIntValue(),
+                event.getTimestamp());
+
+        final byte[] expected = event.toByteArray();
+        final DataInputStream inputStream =
+                new DataInputStream(new ByteArrayInputStream(encoder.toByteArray()));
+        assertThat(inputStream.readInt()).isEqualTo(2);
+        for (int i = 0; i < 2; i++) {
+            final byte[] change = new byte[inputStream.readInt()];
+            inputStream.readFully(change);
+            assertThat(change).isEqualTo(expected);
+        }
+        assertThat(inputStream.available()).isEqualTo(0);
     }
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core.instrumentation;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class SettingsLogEventBufferTest {
+
+    @Test
+    public void poll_returnsEventsInOrder() {
+        final SettingsLogEventBuffer buffer = new SettingsLogEventBuffer(4);
+        final SettingsLogEventBuffer.Event event = new SettingsLogEventBuffer.Event();
+
+        assertThat(buffer.offer(1, 2, 3, "key1", 4, 5L)).isEqualTo(1);
+        assertThat(buffer.offer(6, 7, 8, "key2", 9, 10L)).isEqualTo(2);
+
+        assertThat(buffer.poll(event)).isTrue();
+        assertThat(event.mAttribution).isEqualTo(1);
+        assertThat(event.mAction).isEqualTo(2);
+        assertThat(event.mPageId).isEqualTo(3);
+        assertThat(event.mKey).isEqualTo("key1");
+        assertThat(event.mValue).isEqualTo(4);
+        assertThat(event.mTimestampMillis).isEqualTo(5L);
+        assertThat(buffer.poll(event)).isTrue();
+        assertThat(event.mKey).isEqualTo("key2");
+        assertThat(buffer.poll(event)).isFalse();
+        assertThat(buffer.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void offer_full_dropsAndCountsEvent() {
+        final SettingsLogEventBuffer buffer = new SettingsLogEventBuffer(2);
+        final SettingsLogEventBuffer.Event event = new SettingsLogEventBuffer.Event();
+        buffer.offer(0, 1, 0, "", 0, 0L);
+        buffer.offer(0, 2, 0, "", 0, 0L);
+
+        assertThat(buffer.offer(0, 3, 0, "", 0, 0L)).isEqualTo(-1);
+        assertThat(buffer.getAndResetDroppedCount()).isEqualTo(1);
+        assertThat(buffer.getAndResetDroppedCount()).isEqualTo(0);
+
+        // Reading an event frees its slot.
+        buffer.poll(event);
+        assertThat(event.mAction).isEqualTo(1);
+        assertThat(buffer.offer(0, 4, 0, "", 0, 0L)).isEqualTo(2);
+        buffer.poll(event);
+        assertThat(event.mAction).isEqualTo(2);
+        buffer.poll(event);
+        assertThat(event.mAction).isEqualTo(4);
+    }
+
+    @Test
+    public void offer_fromManyThreads_keepsEveryEvent() throws InterruptedException {
+        final int threadCount = 4;
+        final int eventsPerThread = 200;
+        // Room for every event, rounded up to a power of two.
+        final SettingsLogEventBuffer buffer = new SettingsLogEventBuffer(
+                Integer.highestOneBit(threadCount * eventsPerThread - 1) << 1);
+        final Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            final int attribution = i;
+            threads[i] = new Thread(() -> {
+                for (int value = 0; value < eventsPerThread; value++) {
+                    buffer.offer(attribution, 0, 0, "", value, 0L);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        final SettingsLogEventBuffer.Event event = new SettingsLogEventBuffer.Event();
+        final int[] nextValues = new int[threadCount];
+        while (buffer.poll(event)) {
+            // Events of one thread stay in the order they were recorded.
+            assertThat(event.mValue).isEqualTo(nextValues[event.mAttribution]++);
+        }
+        for (int nextValue : nextValues) {
+            assertThat(nextValue).isEqualTo(eventsPerThread);
+        }
+    }
+}
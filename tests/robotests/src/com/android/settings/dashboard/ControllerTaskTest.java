@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.settings.dashboard;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+
+import androidx.preference.Preference;
+
+import com.android.settings.core.BasePreferenceController;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+@RunWith(RobolectricTestRunner.class)
+public class ControllerTaskTest {
+    private static final String KEY = "key";
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+    }
+
+    @Test
+    public void run_availableLoader_shouldLoadStateAndFinish() {
+        final TestController controller = new TestController(mContext, true /* available */);
+        final ControllerTask task = new ControllerTask(controller);
+
+        task.run();
+
+        assertThat(task.isFinished()).isTrue();
+        assertThat(task.isAvailable()).isTrue();
+        assertThat(controller.mLoaded).isTrue();
+    }
+
+    @Test
+    public void run_unavailableLoader_shouldNotLoadState() {
+        final TestController controller = new TestController(mContext, false /* available */);
+        final ControllerTask task = new ControllerTask(controller);
+
+        task.run();
+
+        assertThat(task.isAvailable()).isFalse();
+        assertThat(controller.mLoaded).isFalse();
+    }
+
+    @Test
+    public void runWhenFinished_alreadyFinished_shouldRunImmediately() {
+        final ControllerTask task = new ControllerTask(
+                new TestController(mContext, true /* available */));
+        final boolean[] ran = new boolean[1];
+        task.run();
+
+        task.runWhenFinished(() -> ran[0] = true);
+
+        assertThat(ran[0]).isTrue();
+    }
+
+    @Test
+    public void runWhenFinished_notFinished_shouldRunOnMainThreadAfterCompletion() {
+        final ControllerTask task = new ControllerTask(
+                new TestController(mContext, true /* available */));
+        final boolean[] ran = new boolean[1];
+
+        task.runWhenFinished(() -> ran[0] = true);
+        assertThat(ran[0]).isFalse();
+
+        task.run();
+        ShadowLooper.idleMainLooper();
+
+        assertThat(ran[0]).isTrue();
+    }
+
+    @Test
+    public void updateState_shouldCallController() {
+        final TestController controller = new TestController(mContext, true /* available */);
+        final ControllerTask task = new ControllerTask(controller);
+        task.run();
+
+        task.updateState(new Preference(mContext));
+
+        assertThat(controller.mStateUpdated).isTrue();
+    }
+
+    private static class TestController extends BasePreferenceController
+            implements BasePreferenceController.BackgroundStateLoader {
+        private final boolean mAvailable;
+        private boolean mLoaded;
+        private boolean mStateUpdated;
+
+        TestController(Context context, boolean available) {
+            super(context, KEY);
+            mAvailable = available;
+        }
+
+        @Override
+        public int getAvailabilityStatus() {
+            return mAvailable ? AVAILABLE : UNSUPPORTED_ON_DEVICE;
+        }
+
+        @Override
+        public void loadStateInBackground() {
+            mLoaded = true;
+        }
+
+        @Override
+        public void updateState(Preference preference) {
+            mStateUpdated = true;
+        }
+    }
+}
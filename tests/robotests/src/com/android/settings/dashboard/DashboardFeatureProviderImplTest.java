@@ -34,6 +34,7 @@ import static com.google.common.truth.Truth.assertThat;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
@@ -46,9 +47,11 @@ import static org.mockito.Mockito.when;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.ActivityInfo;
+import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.content.pm.ProviderInfo;
 import android.content.pm.ResolveInfo;
+import android.content.res.Configuration;
 import android.graphics.Bitmap;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.Icon;
@@ -66,6 +69,7 @@ import com.android.settings.R;
 import com.android.settings.SettingsActivity;
 import com.android.settings.Utils;
 import com.android.settings.testutils.FakeFeatureFactory;
+import com.android.settings.testutils.shadow.ShadowThreadUtils;
 import com.android.settings.testutils.shadow.ShadowTileUtils;
 import com.android.settings.testutils.shadow.ShadowUserManager;
 import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
@@ -94,7 +98,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @RunWith(RobolectricTestRunner.class)
-@Config(shadows = ShadowUserManager.class)
+@Config(shadows = {ShadowUserManager.class, ShadowThreadUtils.class})
 public class DashboardFeatureProviderImplTest {
 
     private static final String KEY = "key";
@@ -115,9 +119,10 @@ public class DashboardFeatureProviderImplTest {
     private DashboardFeatureProviderImpl mImpl;
     private boolean mForceRoundedIcon;
     private DashboardFragment mFragment;
+    private PackageInfo mPackageInfo;
 
     @Before
-    public void setUp() {
+    public void setUp() throws PackageManager.NameNotFoundException {
         MockitoAnnotations.initMocks(this);
         mContext = spy(RuntimeEnvironment.application);
         doReturn(RuntimeEnvironment.application).when(mActivity).getApplicationContext();
@@ -143,9 +148,12 @@ public class DashboardFeatureProviderImplTest {
         doReturn(mPackageManager).when(mContext).getPackageManager();
         when(mPackageManager.resolveActivity(any(Intent.class), anyInt()))
                 .thenReturn(new ResolveInfo());
+        mPackageInfo = new PackageInfo();
+        when(mPackageManager.getPackageInfo(anyString(), anyInt())).thenReturn(mPackageInfo);
         mFeatureFactory = FakeFeatureFactory.setupForTest();
         mImpl = new DashboardFeatureProviderImpl(mContext);
         mFragment = new TestFragment();
+        TileIconCache.clear();
     }
 
     @Test
@@ -428,6 +436,76 @@ public class DashboardFeatureProviderImplTest {
         assertThat(preferenceBmp.sameAs(staticIconBmp)).isTrue();
     }
 
+    @Test
+    public void bindIcon_withStaticIcon_shouldCacheDecodedIcon() {
+        mActivityInfo.packageName = RuntimeEnvironment.application.getPackageName();
+        final Tile tile = new ActivityTile(mActivityInfo, CategoryKey.CATEGORY_HOMEPAGE);
+        mActivityInfo.metaData.putString(META_DATA_PREFERENCE_KEYHINT, "key");
+        mActivityInfo.metaData.putInt(META_DATA_PREFERENCE_ICON, R.drawable.ic_add_40dp);
+
+        mImpl.bindIcon(new Preference(RuntimeEnvironment.application), tile,
+                false /* forceRoundedIcon */);
+        final Preference preference = new Preference(RuntimeEnvironment.application);
+        mImpl.bindIcon(preference, tile, false /* forceRoundedIcon */);
+
+        assertThat(TileIconCache.size()).isEqualTo(1);
+        final Bitmap preferenceBmp = Utils.createIconWithDrawable(preference.getIcon()).getBitmap();
+        final Drawable staticIcon = Icon.createWithResource(mActivityInfo.packageName,
+                R.drawable.ic_add_40dp).loadDrawable(preference.getContext());
+        final Bitmap staticIconBmp = Utils.createIconWithDrawable(staticIcon).getBitmap();
+        assertThat(preferenceBmp.sameAs(staticIconBmp)).isTrue();
+    }
+
+    @Test
+    public void bindIcon_uiModeChanged_shouldNotReuseCachedIcon() {
+        mActivityInfo.packageName = RuntimeEnvironment.application.getPackageName();
+        final Tile tile = new ActivityTile(mActivityInfo, CategoryKey.CATEGORY_HOMEPAGE);
+        mActivityInfo.metaData.putString(META_DATA_PREFERENCE_KEYHINT, "key");
+        mActivityInfo.metaData.putInt(META_DATA_PREFERENCE_ICON, R.drawable.ic_add_40dp);
+        final Configuration config =
+                new Configuration(RuntimeEnvironment.application.getResources().getConfiguration());
+        config.uiMode = (config.uiMode & ~Configuration.UI_MODE_NIGHT_MASK)
+                | Configuration.UI_MODE_NIGHT_YES;
+        final Context nightContext =
+                RuntimeEnvironment.application.createConfigurationContext(config);
+
+        mImpl.bindIcon(new Preference(RuntimeEnvironment.application), tile,
+                false /* forceRoundedIcon */);
+        mImpl.bindIcon(new Preference(nightContext), tile, false /* forceRoundedIcon */);
+
+        assertThat(TileIconCache.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void bindIcon_packageUpdated_shouldInvalidateCachedIcon() {
+        mActivityInfo.packageName = RuntimeEnvironment.application.getPackageName();
+        final Tile tile = new ActivityTile(mActivityInfo, CategoryKey.CATEGORY_HOMEPAGE);
+        mActivityInfo.metaData.putString(META_DATA_PREFERENCE_KEYHINT, "key");
+        mActivityInfo.metaData.putInt(META_DATA_PREFERENCE_ICON, R.drawable.ic_add_40dp);
+        mImpl.bindIcon(new Preference(RuntimeEnvironment.application), tile,
+                false /* forceRoundedIcon */);
+
+        TileIconCache.invalidate(mActivityInfo.packageName);
+
+        assertThat(TileIconCache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void bindIcon_packageUpdatedInBackground_shouldNotReuseCachedIcon() {
+        mActivityInfo.packageName = RuntimeEnvironment.application.getPackageName();
+        final Tile tile = new ActivityTile(mActivityInfo, CategoryKey.CATEGORY_HOMEPAGE);
+        mActivityInfo.metaData.putString(META_DATA_PREFERENCE_KEYHINT, "key");
+        mActivityInfo.metaData.putInt(META_DATA_PREFERENCE_ICON, R.drawable.ic_add_40dp);
+        mImpl.bindIcon(new Preference(RuntimeEnvironment.application), tile,
+                false /* forceRoundedIcon */);
+
+        mPackageInfo.lastUpdateTime = 1000L;
+        mImpl.bindIcon(new Preference(RuntimeEnvironment.application), tile,
+                false /* forceRoundedIcon */);
+
+        assertThat(TileIconCache.size()).isEqualTo(2);
+    }
+
     @Test
     @Config(shadows = {ShadowTileUtils.class})
     public void bindIcon_withIconUri_shouldLoadIconFromContentProvider() {
@@ -22,6 +22,9 @@ import static com.android.settingslib.drawer.TileUtils.META_DATA_PREFERENCE_SWIT
 import static com.google.common.truth.Truth.assertThat;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -37,6 +40,7 @@ import android.content.pm.ActivityInfo;
 import android.content.pm.ProviderInfo;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.UserHandle;
 
 import androidx.preference.Preference;
 import androidx.preference.PreferenceFragmentCompat;
@@ -48,6 +52,7 @@ import com.android.internal.logging.nano.MetricsProto.MetricsEvent;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settings.slices.BlockingSlicePrefController;
 import com.android.settings.testutils.FakeFeatureFactory;
+import com.android.settings.testutils.shadow.ShadowThreadUtils;
 import com.android.settingslib.PrimarySwitchPreference;
 import com.android.settingslib.core.AbstractPreferenceController;
 import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
@@ -71,8 +76,10 @@ import org.robolectric.util.ReflectionHelpers;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RunWith(RobolectricTestRunner.class)
 public class DashboardFragmentTest {
@@ -206,6 +213,35 @@ public class DashboardFragmentTest {
         verify(mTestFragment.mScreen, never()).addPreference(nullable(Preference.class));
     }
 
+    @Test
+    public void refreshDashboardTiles_unchangedTile_shouldNotRebindPreference() {
+        final DashboardFeatureProvider provider = mFakeFeatureFactory.dashboardFeatureProvider;
+        when(provider.getDashboardKeyForTile(any(ActivityTile.class))).thenReturn("test_key");
+        mTestFragment.onCreatePreferences(new Bundle(), "rootKey");
+        when(mTestFragment.mScreen.findPreference("test_key"))
+                .thenReturn(new Preference(mContext));
+
+        mTestFragment.onCategoriesChanged(getCategories());
+
+        verify(provider).bindPreferenceToTileAndGetObservers(any(), any(), anyBoolean(),
+                any(Preference.class), eq(mActivityTile), eq("test_key"), anyInt());
+    }
+
+    @Test
+    public void refreshDashboardTiles_tileUsersChanged_shouldRebindPreference() {
+        final DashboardFeatureProvider provider = mFakeFeatureFactory.dashboardFeatureProvider;
+        when(provider.getDashboardKeyForTile(any(ActivityTile.class))).thenReturn("test_key");
+        mTestFragment.onCreatePreferences(new Bundle(), "rootKey");
+        when(mTestFragment.mScreen.findPreference("test_key"))
+                .thenReturn(new Preference(mContext));
+
+        mActivityTile.userHandle.add(UserHandle.of(10));
+        mTestFragment.onCategoriesChanged(getCategories());
+
+        verify(provider, times(2)).bindPreferenceToTileAndGetObservers(any(), any(),
+                anyBoolean(), any(Preference.class), eq(mActivityTile), eq("test_key"), anyInt());
+    }
+
     @Test
     public void onAttach_shouldCreatePlaceholderPreferenceController() {
         final AbstractPreferenceController controller = mTestFragment.use(
@@ -274,6 +310,76 @@ public class DashboardFragmentTest {
         verify(mockController2).getPreferenceKey();
     }
 
+    @Test
+    @Config(shadows = ShadowThreadUtils.class)
+    public void updatePreferenceStatesInParallel_shouldApplyEvaluatedControllers() {
+        final AbstractPreferenceController availableController =
+                mock(AbstractPreferenceController.class);
+        final AbstractPreferenceController unavailableController =
+                mock(AbstractPreferenceController.class);
+        final Preference availablePreference = new Preference(mContext);
+        final Preference unavailablePreference = new Preference(mContext);
+        when(availableController.getPreferenceKey()).thenReturn("key1");
+        when(unavailableController.getPreferenceKey()).thenReturn("key2");
+        when(availableController.isAvailable()).thenReturn(true);
+        when(unavailableController.isAvailable()).thenReturn(false);
+        when(mTestFragment.mScreen.findPreference("key1")).thenReturn(availablePreference);
+        when(mTestFragment.mScreen.findPreference("key2")).thenReturn(unavailablePreference);
+        mTestFragment.addPreferenceController(availableController);
+        mTestFragment.addPreferenceController(unavailableController);
+
+        mTestFragment.updatePreferenceStatesInParallel(true /* updateVisibility */);
+
+        verify(availableController).updateState(availablePreference);
+        verify(unavailableController, never()).updateState(any());
+        assertThat(availablePreference.isVisible()).isTrue();
+        assertThat(unavailablePreference.isVisible()).isFalse();
+    }
+
+    @Test
+    @Config(shadows = ShadowThreadUtils.class)
+    public void updatePreferenceStatesInParallel_supersededUpdate_shouldNotApplyStaleState() {
+        final AbstractPreferenceController controller = mock(AbstractPreferenceController.class);
+        final Preference preference = new Preference(mContext);
+        final boolean[] newerUpdateStarted = new boolean[1];
+        when(controller.getPreferenceKey()).thenReturn("key1");
+        when(controller.isAvailable()).thenAnswer(invocation -> {
+            if (newerUpdateStarted[0]) {
+                return true;
+            }
+            // A newer update starts while the first one evaluates the controller.
+            newerUpdateStarted[0] = true;
+            mTestFragment.updatePreferenceStatesInParallel(true /* updateVisibility */);
+            return false;
+        });
+        when(mTestFragment.mScreen.findPreference("key1")).thenReturn(preference);
+        mTestFragment.addPreferenceController(controller);
+
+        mTestFragment.updatePreferenceStatesInParallel(true /* updateVisibility */);
+
+        verify(controller).updateState(preference);
+        assertThat(preference.isVisible()).isTrue();
+    }
+
+    @Test
+    @Config(shadows = {ShadowThreadUtils.class, ShadowPreferenceFragmentCompat.class})
+    public void updatePreferenceStatesInParallel_stoppedBeforeApply_shouldNotApplyState() {
+        final AbstractPreferenceController controller = mock(AbstractPreferenceController.class);
+        final Preference preference = new Preference(mContext);
+        when(controller.getPreferenceKey()).thenReturn("key1");
+        when(controller.isAvailable()).thenAnswer(invocation -> {
+            // The fragment stops while the controller is evaluated.
+            mTestFragment.onStop();
+            return false;
+        });
+        when(mTestFragment.mScreen.findPreference("key1")).thenReturn(preference);
+        mTestFragment.addPreferenceController(controller);
+
+        mTestFragment.updatePreferenceStatesInParallel(true /* updateVisibility */);
+
+        assertThat(preference.isVisible()).isTrue();
+    }
+
     @Test
     public void onExpandButtonClick_shouldLogAdvancedButtonExpand() {
         final MetricsFeatureProvider metricsFeatureProvider
@@ -356,6 +462,12 @@ public class DashboardFragmentTest {
         assertThat(pref).isInstanceOf(PrimarySwitchPreference.class);
     }
 
+    private Set<String> getCategories() {
+        final Set<String> categories = new HashSet<>();
+        categories.add(mTestFragment.getCategoryKey());
+        return categories;
+    }
+
     public static class TestPreferenceController extends AbstractPreferenceController
             implements PreferenceControllerMixin {
 
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.settings.dashboard;
+
+import static com.android.settingslib.drawer.TileUtils.META_DATA_PREFERENCE_KEYHINT;
+import static com.android.settingslib.drawer.TileUtils.META_DATA_PREFERENCE_SUMMARY;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.content.pm.ActivityInfo;
+import android.os.Bundle;
+import android.os.UserHandle;
+
+import com.android.settingslib.drawer.ActivityTile;
+import com.android.settingslib.drawer.CategoryKey;
+import com.android.settingslib.drawer.Tile;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class DashboardTileDifferTest {
+    private static final String KEY = "injected_tile_key";
+
+    private Context mContext;
+    private DashboardTileDiffer mDiffer;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mDiffer = new DashboardTileDiffer();
+    }
+
+    @Test
+    public void hasChanged_newTile_shouldReturnTrue() {
+        assertThat(mDiffer.hasChanged(mContext, KEY, createTile("summary"))).isTrue();
+    }
+
+    @Test
+    public void hasChanged_sameContent_shouldReturnFalse() {
+        mDiffer.hasChanged(mContext, KEY, createTile("summary"));
+
+        assertThat(mDiffer.hasChanged(mContext, KEY, createTile("summary"))).isFalse();
+    }
+
+    @Test
+    public void hasChanged_differentSummary_shouldReturnTrue() {
+        mDiffer.hasChanged(mContext, KEY, createTile("summary"));
+
+        assertThat(mDiffer.hasChanged(mContext, KEY, createTile("new summary"))).isTrue();
+    }
+
+    @Test
+    public void hasChanged_differentUsers_shouldReturnTrue() {
+        mDiffer.hasChanged(mContext, KEY, createTile("summary"));
+        final Tile tile = createTile("summary");
+        tile.userHandle.add(UserHandle.of(10));
+
+        assertThat(mDiffer.hasChanged(mContext, KEY, tile)).isTrue();
+    }
+
+    @Test
+    public void hasChanged_afterClear_shouldReturnTrue() {
+        mDiffer.hasChanged(mContext, KEY, createTile("summary"));
+
+        mDiffer.clear();
+
+        assertThat(mDiffer.hasChanged(mContext, KEY, createTile("summary"))).isTrue();
+    }
+
+    @Test
+    public void hasChanged_afterRemove_shouldReturnTrue() {
+        mDiffer.hasChanged(mContext, KEY, createTile("summary"));
+
+        mDiffer.remove(KEY);
+
+        assertThat(mDiffer.hasChanged(mContext, KEY, createTile("summary"))).isTrue();
+    }
+
+    private static Tile createTile(String summary) {
+        final ActivityInfo activityInfo = new ActivityInfo();
+        activityInfo.packageName = "pkg";
+        activityInfo.name = "class";
+        activityInfo.metaData = new Bundle();
+        activityInfo.metaData.putString(META_DATA_PREFERENCE_KEYHINT, KEY);
+        activityInfo.metaData.putString(META_DATA_PREFERENCE_SUMMARY, summary);
+        return new ActivityTile(activityInfo, CategoryKey.CATEGORY_HOMEPAGE);
+    }
+}
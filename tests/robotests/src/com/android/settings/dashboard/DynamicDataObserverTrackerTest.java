@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.settings.dashboard;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.net.Uri;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+@RunWith(RobolectricTestRunner.class)
+public class DynamicDataObserverTrackerTest {
+
+    private DynamicDataObserverTracker mTracker;
+
+    @Before
+    public void setUp() {
+        DynamicDataObserverTracker.resetCounts();
+        mTracker = new DynamicDataObserverTracker("test", 100L /* timeoutMillis */);
+    }
+
+    @Test
+    public void track_resultAlreadyLoaded_shouldApplyImmediately() {
+        final TestObserver observer = new TestObserver();
+        final boolean[] applied = new boolean[1];
+        observer.post(() -> applied[0] = true);
+
+        mTracker.track(Collections.singletonList(observer));
+
+        assertThat(applied[0]).isTrue();
+    }
+
+    @Test
+    public void track_resultArrivesLater_shouldPatchOnMainThread() {
+        final TestObserver observer = new TestObserver();
+        final boolean[] applied = new boolean[1];
+        mTracker.track(Collections.singletonList(observer));
+
+        observer.post(() -> applied[0] = true);
+        ShadowLooper.idleMainLooper();
+
+        assertThat(applied[0]).isTrue();
+        assertThat(DynamicDataObserverTracker.getTimedOutCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void onTimeout_pendingObservers_shouldCountTimedOut() {
+        final TestObserver loaded = new TestObserver();
+        final TestObserver pending = new TestObserver();
+        mTracker.track(Arrays.asList(loaded, pending));
+        loaded.skipUpdate();
+
+        mTracker.onTimeout();
+
+        assertThat(DynamicDataObserverTracker.getTrackedCount()).isEqualTo(2);
+        assertThat(DynamicDataObserverTracker.getTimedOutCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void track_allResultsArrive_shouldNotifyWaitFinished() {
+        final TestObserver first = new TestObserver();
+        final TestObserver second = new TestObserver();
+        final long[] waitStartNanos = {-1L};
+        mTracker.setOnWaitFinishedListener(startNanos -> waitStartNanos[0] = startNanos);
+        mTracker.track(Arrays.asList(first, second));
+
+        first.skipUpdate();
+        ShadowLooper.idleMainLooper();
+        assertThat(waitStartNanos[0]).isEqualTo(-1L);
+
+        second.skipUpdate();
+        ShadowLooper.idleMainLooper();
+        assertThat(waitStartNanos[0]).isAtLeast(0L);
+        assertThat(DynamicDataObserverTracker.getTimedOutCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void onTimeout_shouldNotifyWaitFinished() {
+        final long[] waitStartNanos = {-1L};
+        mTracker.setOnWaitFinishedListener(startNanos -> waitStartNanos[0] = startNanos);
+        mTracker.track(Collections.singletonList(new TestObserver()));
+
+        mTracker.onTimeout();
+
+        assertThat(waitStartNanos[0]).isAtLeast(0L);
+    }
+
+    @Test
+    public void cancel_shouldNotCountTimedOut() {
+        mTracker.track(Collections.singletonList(new TestObserver()));
+
+        mTracker.cancel();
+        mTracker.onTimeout();
+
+        assertThat(DynamicDataObserverTracker.getTimedOutCount()).isEqualTo(0);
+    }
+
+    private static class TestObserver extends DynamicDataObserver {
+        @Override
+        public Uri getUri() {
+            return Uri.EMPTY;
+        }
+
+        @Override
+        public void onDataChanged() {
+        }
+    }
+}
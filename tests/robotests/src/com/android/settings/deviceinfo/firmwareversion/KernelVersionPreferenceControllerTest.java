@@ -48,4 +48,12 @@ public class KernelVersionPreferenceControllerTest {
         assertThat(mController.getSummary()).isEqualTo(
                 DeviceInfoUtils.getFormattedKernelVersion(mContext));
     }
+
+    @Test
+    public void getSummary_loadedInBackground_shouldGetKernalVersion() {
+        mController.loadStateInBackground();
+
+        assertThat(mController.getSummary()).isEqualTo(
+                DeviceInfoUtils.getFormattedKernelVersion(mContext));
+    }
 }
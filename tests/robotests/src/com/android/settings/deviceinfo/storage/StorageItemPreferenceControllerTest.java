@@ -414,6 +414,18 @@ public class StorageItemPreferenceControllerTest {
         assertThat(mController.mDocumentsAndOtherPreference.isVisible()).isTrue();
     }
 
+    @Test
+    public void onCategorySizeLoaded_shouldOnlyUpdateThatCategory() {
+        mController.displayPreference(mPreferenceScreen);
+        mController.setTotalSize(KILOBYTE_IN_BYTES * 10);
+
+        mController.onCategorySizeLoaded(StorageAsyncLoader.SIZE_IMAGES, KILOBYTE_IN_BYTES);
+
+        assertThat(mController.mImagesPreference.getStorageSize()).isEqualTo(KILOBYTE_IN_BYTES);
+        assertThat(mController.mVideosPreference.getStorageSize()).isEqualTo(0L);
+        assertThat(mController.mAppsPreference.getStorageSize()).isEqualTo(0L);
+    }
+
     @Test
     public void setVolume_publicStorage_showFilePreference() {
         // This will hide it initially.
@@ -329,6 +329,91 @@ public final class BatteryChartPreferenceControllerTest {
         assertThat(mBatteryChartPreferenceController.refreshUi()).isFalse();
     }
 
+    @Test
+    public void refreshUi_prepareSelectedAndAdjacentSlots() {
+        final int selectedAll = BatteryChartViewModel.SELECTED_INDEX_ALL;
+        mBatteryChartPreferenceController.setBatteryHistoryMap(createBatteryHistoryMap(6));
+        mBatteryChartPreferenceController.mBatteryUsageMap = createBatteryUsageMap();
+        doReturn("label").when(mBatteryDiffEntry).getAppLabel();
+        doReturn(mDrawable).when(mBatteryDiffEntry).getAppIcon();
+
+        mBatteryChartPreferenceController.refreshUi();
+
+        // Only 1 day data, so the daily chart index is reset to 0.
+        final Map<Integer, Map<Integer, BatteryChartPreferenceController.PreparedSlot>>
+                preparedSlots = mBatteryChartPreferenceController.mPreparedSlots;
+        assertThat(preparedSlots.get(0)).containsKey(selectedAll);
+        assertThat(preparedSlots.get(0)).containsKey(0);
+        assertThat(preparedSlots.get(selectedAll)).containsKey(selectedAll);
+        assertThat(preparedSlots.get(0).get(0).mAppEntries).hasSize(1);
+    }
+
+    @Test
+    public void refreshUi_newBatteryUsageMap_dropPreparedSlots() {
+        final int selectedAll = BatteryChartViewModel.SELECTED_INDEX_ALL;
+        mBatteryChartPreferenceController.setBatteryHistoryMap(createBatteryHistoryMap(6));
+        mBatteryChartPreferenceController.mBatteryUsageMap = createBatteryUsageMap();
+        mBatteryChartPreferenceController.refreshUi();
+        final BatteryChartPreferenceController.PreparedSlot preparedSlot =
+                mBatteryChartPreferenceController.mPreparedSlots.get(0).get(selectedAll);
+
+        mBatteryChartPreferenceController.refreshUi();
+        assertThat(mBatteryChartPreferenceController.mPreparedSlots.get(0).get(selectedAll))
+                .isSameInstanceAs(preparedSlot);
+
+        mBatteryChartPreferenceController.mBatteryUsageMap = createBatteryUsageMap();
+        mBatteryChartPreferenceController.refreshUi();
+        assertThat(mBatteryChartPreferenceController.mPreparedSlots.get(0).get(selectedAll))
+                .isNotSameInstanceAs(preparedSlot);
+    }
+
+    @Test
+    public void setDailyBatteryUsageMap_selectedDay_refreshWithPartialData() {
+        final int selectedAll = BatteryChartViewModel.SELECTED_INDEX_ALL;
+        mBatteryChartPreferenceController.setBatteryHistoryMap(createBatteryHistoryMap(6));
+        mBatteryChartPreferenceController.mBatteryUsageMap = null;
+        final Map<Integer, BatteryDiffData> dailyUsageMap = createBatteryUsageMap().get(0);
+
+        mBatteryChartPreferenceController.setDailyBatteryUsageMap(0, dailyUsageMap);
+
+        assertThat(mBatteryChartPreferenceController.mIsBatteryUsageMapPartial).isTrue();
+        assertThat(mBatteryChartPreferenceController.mBatteryUsageMap.get(0))
+                .isSameInstanceAs(dailyUsageMap);
+        assertThat(mBatteryChartPreferenceController.mPreparedSlots.get(0))
+                .containsKey(selectedAll);
+    }
+
+    @Test
+    public void setDailyBatteryUsageMap_allDaysSelected_refreshWithPartialAllData() {
+        final int selectedAll = BatteryChartViewModel.SELECTED_INDEX_ALL;
+        mBatteryChartPreferenceController.setBatteryHistoryMap(createBatteryHistoryMap(60));
+        mBatteryChartPreferenceController.mBatteryUsageMap = null;
+        final Map<Integer, BatteryDiffData> partialAllUsageMap =
+                createBatteryUsageMap().get(selectedAll);
+
+        mBatteryChartPreferenceController.setDailyBatteryUsageMap(
+                selectedAll, partialAllUsageMap);
+
+        assertThat(mBatteryChartPreferenceController.mDailyChartIndex).isEqualTo(selectedAll);
+        assertThat(mBatteryChartPreferenceController.mIsBatteryUsageMapPartial).isTrue();
+        assertThat(mBatteryChartPreferenceController.mPreparedSlots.get(selectedAll))
+                .containsKey(selectedAll);
+    }
+
+    @Test
+    public void setDailyBatteryUsageMap_completeDataLoaded_ignorePartialData() {
+        final Map<Integer, Map<Integer, BatteryDiffData>> batteryUsageMap =
+                createBatteryUsageMap();
+        mBatteryChartPreferenceController.mBatteryUsageMap = batteryUsageMap;
+
+        mBatteryChartPreferenceController.setDailyBatteryUsageMap(
+                0, createBatteryUsageMap().get(0));
+
+        assertThat(mBatteryChartPreferenceController.mIsBatteryUsageMapPartial).isFalse();
+        assertThat(mBatteryChartPreferenceController.mBatteryUsageMap)
+                .isSameInstanceAs(batteryUsageMap);
+    }
+
     @Test
     public void removeAndCacheAllPrefs_emptyContent_ignoreRemoveAll() {
         mBatteryChartPreferenceController.setBatteryHistoryMap(createBatteryHistoryMap(6));
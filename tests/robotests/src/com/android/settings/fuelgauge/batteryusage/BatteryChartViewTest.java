@@ -59,6 +59,37 @@ public final class BatteryChartViewTest {
         mBatteryChartView = new BatteryChartView(mContext);
     }
 
+    @Test
+    public void setViewModel_sameViewModelWithNewSelection_keepLayout() {
+        final BatteryChartViewModel batteryChartViewModel = new BatteryChartViewModel(
+                List.of(90, 80, 70, 60), List.of(0L, 0L, 0L, 0L),
+                BatteryChartViewModel.AxisLabelPosition.BETWEEN_TRAPEZOIDS, null);
+        mBatteryChartView.setViewModel(batteryChartViewModel);
+        assertThat(mBatteryChartView.mIsLayoutValid).isFalse();
+        // Simulates the layout computed by the next draw.
+        mBatteryChartView.mIsLayoutValid = true;
+
+        batteryChartViewModel.setSelectedIndex(1);
+        mBatteryChartView.setViewModel(batteryChartViewModel);
+
+        assertThat(mBatteryChartView.mIsLayoutValid).isTrue();
+    }
+
+    @Test
+    public void setViewModel_newViewModel_invalidateLayout() {
+        mBatteryChartView.setViewModel(new BatteryChartViewModel(
+                List.of(90, 80, 70, 60), List.of(0L, 0L, 0L, 0L),
+                BatteryChartViewModel.AxisLabelPosition.BETWEEN_TRAPEZOIDS, null));
+        mBatteryChartView.mIsLayoutValid = true;
+
+        mBatteryChartView.setViewModel(new BatteryChartViewModel(
+                List.of(90, 80, 70), List.of(0L, 0L, 0L),
+                BatteryChartViewModel.AxisLabelPosition.BETWEEN_TRAPEZOIDS, null));
+
+        assertThat(mBatteryChartView.mIsLayoutValid).isFalse();
+        assertThat(mBatteryChartView.mTrapezoidSlots).hasLength(2);
+    }
+
     @Test
     public void onClick_invokesCallback() {
         final int originalSelectedIndex = 2;
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.ContentValues;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RunWith(RobolectricTestRunner.class)
+public final class BatteryHistoryColumnsTest {
+
+    @Test
+    public void from_shouldInternKeysAcrossTimestamps() {
+        final Map<Long, Map<String, BatteryHistEntry>> historyMap = new HashMap<>();
+        historyMap.put(1L, createEntryMap("a", "b"));
+        historyMap.put(2L, createEntryMap("b", "c"));
+
+        final BatteryHistoryColumns columns = BatteryHistoryColumns.from(historyMap);
+
+        assertThat(columns.getKeyCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void getRow_shouldHoldPrimitiveColumnsSortedByKeyId() {
+        final Map<Long, Map<String, BatteryHistEntry>> historyMap = new HashMap<>();
+        final Map<String, BatteryHistEntry> entryMap = createEntryMap("a", "b", "c");
+        historyMap.put(1L, entryMap);
+
+        final BatteryHistoryColumns.Row row = BatteryHistoryColumns.from(historyMap).getRow(1L);
+
+        assertThat(row.mSize).isEqualTo(3);
+        for (int i = 0; i < row.mSize; i++) {
+            if (i > 0) {
+                assertThat(row.mKeyIds[i]).isGreaterThan(row.mKeyIds[i - 1]);
+            }
+            final BatteryHistEntry entry = row.mEntries[i];
+            assertThat(row.mForegroundUsageTimeInMs[i])
+                    .isEqualTo(entry.mForegroundUsageTimeInMs);
+            assertThat(row.mBackgroundUsageTimeInMs[i])
+                    .isEqualTo(entry.mBackgroundUsageTimeInMs);
+            assertThat(row.mConsumePower[i]).isEqualTo(entry.mConsumePower);
+        }
+        assertThat(row.getKeyId(row.mSize)).isEqualTo(Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void getRow_emptyOrMissingTimestamp() {
+        final Map<Long, Map<String, BatteryHistEntry>> historyMap = new HashMap<>();
+        historyMap.put(1L, new HashMap<>());
+
+        final BatteryHistoryColumns columns = BatteryHistoryColumns.from(historyMap);
+
+        assertThat(columns.getRow(1L).isEmpty()).isTrue();
+        assertThat(columns.getRow(2L)).isNull();
+    }
+
+    private static Map<String, BatteryHistEntry> createEntryMap(String... keys) {
+        final Map<String, BatteryHistEntry> entryMap = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            final ContentValues values = new ContentValues();
+            values.put(BatteryHistEntry.KEY_PACKAGE_NAME, keys[i]);
+            values.put(BatteryHistEntry.KEY_CONSUME_POWER, (double) i + 1);
+            values.put(BatteryHistEntry.KEY_FOREGROUND_USAGE_TIME, (long) i * 10);
+            values.put(BatteryHistEntry.KEY_BACKGROUND_USAGE_TIME, (long) i * 20);
+            entryMap.put(keys[i], new BatteryHistEntry(values));
+        }
+        return entryMap;
+    }
+}
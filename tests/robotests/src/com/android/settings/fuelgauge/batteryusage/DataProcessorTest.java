@@ -657,6 +657,74 @@ public class DataProcessorTest {
                         0);
     }
 
+    @Test
+    public void getBatteryUsageMap_withDailyUsageMapConsumer_passesEachDayAndPartialAllInOrder() {
+        final long[] batteryHistoryKeys = new long[]{
+                1641045600000L, // 2022-01-01 22:00:00
+                1641049200000L, // 2022-01-01 23:00:00
+                1641052800000L, // 2022-01-02 00:00:00
+                1641056400000L, // 2022-01-02 01:00:00
+                1641060000000L, // 2022-01-02 02:00:00
+        };
+        final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap = new HashMap<>();
+        final int currentUserId = mContext.getUserId();
+        for (int index = 0; index < batteryHistoryKeys.length; index++) {
+            final Map<String, BatteryHistEntry> entryMap = new HashMap<>();
+            final BatteryHistEntry entry = createBatteryHistEntry(
+                    "package1", "label1", /*consumePower=*/ 10.0 * index, /*uid=*/ 1L,
+                    currentUserId, ConvertUtils.CONSUMER_TYPE_UID_BATTERY,
+                    /*foregroundUsageTimeInMs=*/ 10L * index,
+                    /*backgroundUsageTimeInMs=*/ 20L * index);
+            entryMap.put(entry.getKey(), entry);
+            batteryHistoryMap.put(batteryHistoryKeys[index], entryMap);
+        }
+        final List<BatteryLevelData.PeriodBatteryLevelData> hourlyBatteryLevelsPerDay =
+                new ArrayList<>();
+        final List<Integer> levels = List.of(100, 100);
+        hourlyBatteryLevelsPerDay.add(new BatteryLevelData.PeriodBatteryLevelData(
+                List.of(batteryHistoryKeys[0], batteryHistoryKeys[2]), levels));
+        hourlyBatteryLevelsPerDay.add(new BatteryLevelData.PeriodBatteryLevelData(
+                List.of(batteryHistoryKeys[2], batteryHistoryKeys[4]), levels));
+        final List<Integer> dailyIndexes = new ArrayList<>();
+        final List<Map<Integer, BatteryDiffData>> dailyUsageMaps = new ArrayList<>();
+
+        final Map<Integer, Map<Integer, BatteryDiffData>> resultMap =
+                DataProcessor.getBatteryUsageMap(
+                        mContext, hourlyBatteryLevelsPerDay, batteryHistoryMap,
+                        (dailyIndex, dailyUsageMap) -> {
+                            // The whole usage map is only computed after all days.
+                            verify(mMetricsFeatureProvider, never()).action(
+                                    mContext.getApplicationContext(),
+                                    SettingsEnums.ACTION_BATTERY_USAGE_SHOWN_APP_COUNT, 1);
+                            dailyIndexes.add(dailyIndex);
+                            dailyUsageMaps.add(dailyUsageMap);
+                        });
+
+        assertThat(dailyIndexes)
+                .containsExactly(0, DataProcessor.SELECTED_INDEX_ALL, 1).inOrder();
+        assertThat(dailyUsageMaps.get(0)).isSameInstanceAs(resultMap.get(0));
+        assertThat(dailyUsageMaps.get(2)).isSameInstanceAs(resultMap.get(1));
+        // The whole-period data of the first day only.
+        assertBatteryDiffEntry(
+                dailyUsageMaps.get(1).get(DataProcessor.SELECTED_INDEX_ALL)
+                        .getAppDiffEntryList().get(0),
+                currentUserId, /*uid=*/ 1L, ConvertUtils.CONSUMER_TYPE_UID_BATTERY,
+                /*consumePercentage=*/ 100.0, /*foregroundUsageTimeInMs=*/ 20,
+                /*backgroundUsageTimeInMs=*/ 40);
+        final BatteryDiffData resultDiffData =
+                resultMap
+                        .get(DataProcessor.SELECTED_INDEX_ALL)
+                        .get(DataProcessor.SELECTED_INDEX_ALL);
+        assertBatteryDiffEntry(
+                resultDiffData.getAppDiffEntryList().get(0), currentUserId, /*uid=*/ 1L,
+                ConvertUtils.CONSUMER_TYPE_UID_BATTERY, /*consumePercentage=*/ 100.0,
+                /*foregroundUsageTimeInMs=*/ 40, /*backgroundUsageTimeInMs=*/ 80);
+        verify(mMetricsFeatureProvider)
+                .action(mContext.getApplicationContext(),
+                        SettingsEnums.ACTION_BATTERY_USAGE_SHOWN_APP_COUNT,
+                        1);
+    }
+
     @Test
     public void getBatteryUsageMap_multipleUsers_returnsExpectedResult() {
         final long[] batteryHistoryKeys = new long[]{
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.homepage.contextualcards;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.net.Uri;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import java.time.Duration;
+
+@RunWith(RobolectricTestRunner.class)
+public class CardEligibilityCacheTest {
+
+    private static final Uri TEST_SLICE_URI = Uri.parse("content://test/test");
+
+    private CardEligibilityCache mCache;
+    private ContextualCard mCard;
+
+    @Before
+    public void setUp() {
+        mCache = CardEligibilityCache.getInstance();
+        mCache.clear();
+        mCard = new ContextualCard.Builder()
+                .setName("test_card")
+                .setRankingScore(0.5)
+                .setSliceUri(TEST_SLICE_URI)
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        mCache.clear();
+    }
+
+    @Test
+    public void get_eligibleCardCached_shouldApplyResultToCandidate() {
+        mCache.put(mCard, mCard.mutate().setHasInlineAction(true).build());
+        final ContextualCard candidate = mCard.mutate().setRankingScore(0.9).build();
+
+        final ContextualCard result = mCache.get(candidate);
+
+        assertThat(mCache.contains(candidate)).isTrue();
+        assertThat(result.hasInlineAction()).isTrue();
+        assertThat(result.getRankingScore()).isEqualTo(0.9);
+    }
+
+    @Test
+    public void get_notEligibleCardCached_shouldReturnNull() {
+        mCache.put(mCard, null);
+
+        assertThat(mCache.contains(mCard)).isTrue();
+        assertThat(mCache.get(mCard)).isNull();
+    }
+
+    @Test
+    public void contains_resultExpired_shouldReturnFalse() {
+        mCache.put(mCard, mCard);
+
+        ShadowSystemClock.advanceBy(Duration.ofMillis(CardEligibilityCache.TTL_MS + 1));
+
+        assertThat(mCache.contains(mCard)).isFalse();
+        assertThat(mCache.get(mCard)).isNull();
+    }
+}
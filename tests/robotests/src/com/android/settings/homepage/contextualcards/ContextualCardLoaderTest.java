@@ -25,6 +25,8 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
@@ -35,6 +37,7 @@ import android.net.Uri;
 import android.provider.Settings;
 
 import com.android.settings.R;
+import com.android.settings.homepage.contextualcards.logging.ContextualCardLogUtils;
 import com.android.settings.slices.CustomSliceRegistry;
 import com.android.settings.testutils.FakeFeatureFactory;
 
@@ -46,6 +49,8 @@ import org.robolectric.RuntimeEnvironment;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @RunWith(RobolectricTestRunner.class)
@@ -151,6 +156,23 @@ public class ContextualCardLoaderTest {
         assertThat(mContextualCardLoader.getCardCount()).isEqualTo(configCount);
     }
 
+    @Test
+    public void filterEligibleCards_checkRejected_shouldTreatCardAsIneligible() {
+        final ExecutorService executor = mock(ExecutorService.class);
+        doThrow(new RejectedExecutionException()).when(executor).execute(any(Runnable.class));
+        doReturn(executor).when(mContextualCardLoader).getEligibilityCheckerExecutor();
+        CardEligibilityCache.getInstance().clear();
+        ContextualCardLogUtils.resetEligibilityCheckStats();
+        final List<ContextualCard> cards = getContextualCardList().stream().limit(1)
+                .collect(Collectors.toList());
+
+        assertThat(mContextualCardLoader.filterEligibleCards(cards)).isEmpty();
+        final List<ContextualCardLogUtils.EligibilityCheckStats> statsList =
+                ContextualCardLogUtils.getEligibilityCheckStats();
+        assertThat(statsList).hasSize(1);
+        assertThat(statsList.get(0).getTimeoutCount()).isEqualTo(1);
+    }
+
     private List<ContextualCard> getContextualCardList() {
         final List<ContextualCard> cards = new ArrayList<>();
         cards.add(new ContextualCard.Builder()
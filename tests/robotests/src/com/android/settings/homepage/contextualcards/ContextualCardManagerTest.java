@@ -328,6 +328,39 @@ public class ContextualCardManagerTest {
         verify(manager, never()).onContextualCardUpdated(anyMap());
     }
 
+    @Test
+    public void onFinishCardLoading_slowLoadInProgressiveMode_shouldCallOnContextualCardUpdated() {
+        mManager.mStartTime = 0;
+        final ContextualCardManager manager = spy(mManager);
+        doReturn(true).when(manager).isProgressiveLoadingEnabled();
+        doNothing().when(manager).onContextualCardUpdated(anyMap());
+
+        manager.onFinishCardLoading(new ArrayList<>());
+
+        verify(manager).onContextualCardUpdated(anyMap());
+    }
+
+    @Test
+    public void onPartialCardLoading_newLaunch_shouldShowLoadedCards() {
+        mManager.mStartTime = System.currentTimeMillis();
+        mManager.setListener(mListener);
+
+        mManager.onPartialCardLoading(Arrays.asList(buildContextualCard(TEST_SLICE_URI)));
+
+        assertThat(mManager.mContextualCards).hasSize(1);
+        assertThat(mManager.mIsFirstLaunch).isTrue();
+    }
+
+    @Test
+    public void onPartialCardLoading_notFirstLaunch_shouldIgnoreLoadedCards() {
+        mManager.mIsFirstLaunch = false;
+        final ContextualCardManager manager = spy(mManager);
+
+        manager.onPartialCardLoading(Arrays.asList(buildContextualCard(TEST_SLICE_URI)));
+
+        verify(manager, never()).onContextualCardUpdated(anyMap());
+    }
+
     @Test
     public void onFinishCardLoading_newLaunch_twoLoadedCards_shouldShowTwoCards() {
         mManager.mStartTime = System.currentTimeMillis();
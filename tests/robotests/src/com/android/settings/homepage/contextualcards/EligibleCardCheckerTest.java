@@ -38,7 +38,9 @@ import androidx.slice.builders.ListBuilder;
 import androidx.slice.builders.SliceAction;
 
 import com.android.settings.R;
+import com.android.settings.homepage.contextualcards.logging.ContextualCardLogUtils;
 import com.android.settings.slices.CustomSliceRegistry;
+import com.android.settings.testutils.FakeFeatureFactory;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -47,6 +49,8 @@ import org.robolectric.Robolectric;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 
+import java.util.List;
+
 @RunWith(RobolectricTestRunner.class)
 public class EligibleCardCheckerTest {
 
@@ -131,6 +135,38 @@ public class EligibleCardCheckerTest {
         assertThat(mEligibleCardChecker.mCard.getSlice()).isNotNull();
     }
 
+    @Test
+    public void logTimeout_beforeCheckFinished_shouldOnlyLogTimeout() {
+        FakeFeatureFactory.setupForTest();
+        ContextualCardLogUtils.resetEligibilityCheckStats();
+        doReturn(null).when(mEligibleCardChecker).bindSlice(any(Uri.class));
+
+        mEligibleCardChecker.logTimeout(400L);
+        mEligibleCardChecker.call();
+
+        final List<ContextualCardLogUtils.EligibilityCheckStats> statsList =
+                ContextualCardLogUtils.getEligibilityCheckStats();
+        assertThat(statsList).hasSize(1);
+        assertThat(statsList.get(0).getCount()).isEqualTo(1);
+        assertThat(statsList.get(0).getTimeoutCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void logTimeout_afterCheckFinished_shouldNotLogTimeout() {
+        FakeFeatureFactory.setupForTest();
+        ContextualCardLogUtils.resetEligibilityCheckStats();
+        doReturn(null).when(mEligibleCardChecker).bindSlice(any(Uri.class));
+
+        mEligibleCardChecker.call();
+        mEligibleCardChecker.logTimeout(400L);
+
+        final List<ContextualCardLogUtils.EligibilityCheckStats> statsList =
+                ContextualCardLogUtils.getEligibilityCheckStats();
+        assertThat(statsList).hasSize(1);
+        assertThat(statsList.get(0).getCount()).isEqualTo(1);
+        assertThat(statsList.get(0).getTimeoutCount()).isEqualTo(0);
+    }
+
     private ContextualCard getContextualCard(Uri sliceUri) {
         return new ContextualCard.Builder()
                 .setName("test_card")
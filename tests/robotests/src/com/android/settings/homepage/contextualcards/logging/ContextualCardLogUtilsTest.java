@@ -97,4 +97,23 @@ public class ContextualCardLogUtilsTest {
         assertThat(cardClickLogList.get(1).getSliceUri()).isEqualTo("testtest");
         assertThat(cardClickLogList.get(1).getRankingScore()).isEqualTo(-1d);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void logEligibilityCheck_shouldAggregateLatencyAndTimeouts() {
+        ContextualCardLogUtils.resetEligibilityCheckStats();
+
+        ContextualCardLogUtils.logEligibilityCheck(TEST_URI, 100L, false /* timedOut */);
+        ContextualCardLogUtils.logEligibilityCheck(TEST_URI, 400L, true /* timedOut */);
+
+        final List<ContextualCardLogUtils.EligibilityCheckStats> statsList =
+                ContextualCardLogUtils.getEligibilityCheckStats();
+        assertThat(statsList).hasSize(1);
+        final ContextualCardLogUtils.EligibilityCheckStats stats = statsList.get(0);
+        assertThat(stats.getSliceUri()).isEqualTo(TEST_URI);
+        assertThat(stats.getCount()).isEqualTo(2);
+        assertThat(stats.getTimeoutCount()).isEqualTo(1);
+        assertThat(stats.getTotalLatencyMs()).isEqualTo(500L);
+        assertThat(stats.getMaxLatencyMs()).isEqualTo(400L);
+        assertThat(stats.getTimeoutRate()).isEqualTo(0.5d);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.util.ArrayMap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(RobolectricTestRunner.class)
+public class KeyedListReconcilerTest {
+
+    @Test
+    public void reconcile_emptyDisplay_shouldInsertAllInOrder() {
+        final KeyedListReconciler.Result result = KeyedListReconciler.reconcile(
+                Collections.emptyMap(), Arrays.asList("a", "b", "c"));
+
+        assertThat(result.getInsertCount()).isEqualTo(3);
+        assertThat(result.getMoveCount()).isEqualTo(0);
+        assertIncreasing(result.mOrders);
+        assertThat(result.mOrders[2]).isLessThan(KeyedListReconciler.MAX_ORDER);
+    }
+
+    @Test
+    public void reconcile_sameKeys_shouldDoNothing() {
+        final List<String> keys = Arrays.asList("a", "b", "c");
+        final KeyedListReconciler.Result first =
+                KeyedListReconciler.reconcile(Collections.emptyMap(), keys);
+
+        final KeyedListReconciler.Result result =
+                KeyedListReconciler.reconcile(toOrders(keys, first.mOrders), keys);
+
+        assertThat(result.mRemovedKeys).isEmpty();
+        assertThat(result.getInsertCount()).isEqualTo(0);
+        assertThat(result.getMoveCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void reconcile_insertAndRemove_shouldKeepOtherOrders() {
+        final List<String> keys = Arrays.asList("a", "b", "c", "d");
+        final Map<String, Integer> displayed = toOrders(keys,
+                KeyedListReconciler.reconcile(Collections.emptyMap(), keys).mOrders);
+
+        final List<String> newKeys = Arrays.asList("new", "a", "c", "d");
+        final KeyedListReconciler.Result result =
+                KeyedListReconciler.reconcile(displayed, newKeys);
+
+        assertThat(result.mRemovedKeys).containsExactly("b");
+        assertThat(result.getInsertCount()).isEqualTo(1);
+        assertThat(result.mInserted[0]).isTrue();
+        assertThat(result.getMoveCount()).isEqualTo(0);
+        assertThat(result.mOrders[1]).isEqualTo(displayed.get("a"));
+        assertIncreasing(result.mOrders);
+    }
+
+    @Test
+    public void reconcile_oneEntryMovedToTop_shouldMoveOnlyIt() {
+        final List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            keys.add("ssid" + i);
+        }
+        final Map<String, Integer> displayed = toOrders(keys,
+                KeyedListReconciler.reconcile(Collections.emptyMap(), keys).mOrders);
+
+        final List<String> newKeys = new ArrayList<>(keys);
+        newKeys.add(0, newKeys.remove(79));
+        final KeyedListReconciler.Result result =
+                KeyedListReconciler.reconcile(displayed, newKeys);
+
+        assertThat(result.getMoveCount()).isEqualTo(1);
+        assertThat(result.mMoved[0]).isTrue();
+        assertIncreasing(result.mOrders);
+    }
+
+    @Test
+    public void reconcile_noRoomBetweenNeighbours_shouldRenumber() {
+        final Map<String, Integer> displayed = new ArrayMap<>();
+        displayed.put("a", 0);
+        displayed.put("b", 1);
+
+        final KeyedListReconciler.Result result =
+                KeyedListReconciler.reconcile(displayed, Arrays.asList("a", "new", "b"));
+
+        assertThat(result.mOrders).asList().containsExactly(
+                KeyedListReconciler.ORDER_SPACING,
+                2 * KeyedListReconciler.ORDER_SPACING,
+                3 * KeyedListReconciler.ORDER_SPACING).inOrder();
+        assertThat(result.getMoveCount()).isEqualTo(2);
+    }
+
+    private static Map<String, Integer> toOrders(List<String> keys, int[] orders) {
+        final Map<String, Integer> displayed = new ArrayMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            displayed.put(keys.get(i), orders[i]);
+        }
+        return displayed;
+    }
+
+    private static void assertIncreasing(int[] orders) {
+        for (int i = 1; i < orders.length; i++) {
+            assertThat(orders[i]).isGreaterThan(orders[i - 1]);
+        }
+    }
+}
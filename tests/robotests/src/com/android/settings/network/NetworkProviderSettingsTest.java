@@ -778,6 +778,41 @@ public class NetworkProviderSettingsTest {
         assertThat(keys).contains(NetworkProviderSettings.PREF_KEY_WIFI_TOGGLE);
     }
 
+    @Test
+    public void getIndexFingerprint_changeWifiStateRestricted_fingerprintChanged() {
+        when(mWifiRestriction.isChangeWifiStateAllowed(mContext)).thenReturn(true);
+        NetworkProviderSettings.SearchIndexProvider searchIndexProvider =
+                new NetworkProviderSettings.SearchIndexProvider(XML_RES, mWifiRestriction);
+        final String fingerprint = searchIndexProvider.getIndexFingerprint(mContext);
+
+        when(mWifiRestriction.isChangeWifiStateAllowed(mContext)).thenReturn(false);
+
+        assertThat(fingerprint).isNotNull();
+        assertThat(searchIndexProvider.getIndexFingerprint(mContext)).isNotEqualTo(fingerprint);
+    }
+
+    @Test
+    public void getIndexFingerprint_savedNetworksChanged_fingerprintChanged() {
+        NetworkProviderSettings.SearchIndexProvider searchIndexProvider =
+                new NetworkProviderSettings.SearchIndexProvider(XML_RES, mWifiRestriction);
+        final String fingerprint = searchIndexProvider.getIndexFingerprint(mContext);
+
+        NetworkIndexStateTracker.onSavedNetworksChanged();
+
+        assertThat(searchIndexProvider.getIndexFingerprint(mContext)).isNotEqualTo(fingerprint);
+    }
+
+    @Test
+    public void getIndexFingerprint_subscriptionsChanged_fingerprintChanged() {
+        NetworkProviderSettings.SearchIndexProvider searchIndexProvider =
+                new NetworkProviderSettings.SearchIndexProvider(XML_RES, mWifiRestriction);
+        final String fingerprint = searchIndexProvider.getIndexFingerprint(mContext);
+
+        NetworkIndexStateTracker.onSubscriptionsChanged();
+
+        assertThat(searchIndexProvider.getIndexFingerprint(mContext)).isNotEqualTo(fingerprint);
+    }
+
     @Test
     public void launchConfigNewNetworkFragment_fragmentIsRestricted_ignoreWifiEntry() {
         mNetworkProviderSettings.mIsRestricted = true;
@@ -787,6 +822,84 @@ public class NetworkProviderSettingsTest {
         verify(mWifiEntry, never()).getKey();
     }
 
+    @Test
+    public void updateWifiEntryList_entryRecreated_keepsPreferenceAndRebindsEntry() {
+        final PreferenceCategory category = setUpWifiEntryPreferenceCategory();
+        mNetworkProviderSettings.updateWifiEntryList(List.of(mockWifiEntry("a")));
+        final LongPressWifiEntryPreference pref = category.findPreference("a");
+        final WifiEntry recreatedWifiEntry = mockWifiEntry("a");
+
+        final boolean hasWifiEntries =
+                mNetworkProviderSettings.updateWifiEntryList(List.of(recreatedWifiEntry));
+
+        assertThat(hasWifiEntries).isTrue();
+        assertThat(category.getPreferenceCount()).isEqualTo(1);
+        assertThat((Preference) category.findPreference("a")).isSameInstanceAs(pref);
+        assertThat(pref.getWifiEntry()).isSameInstanceAs(recreatedWifiEntry);
+    }
+
+    @Test
+    public void updateWifiEntryList_entryGone_removesOnlyItsPreference() {
+        final PreferenceCategory category = setUpWifiEntryPreferenceCategory();
+        final WifiEntry wifiEntryB = mockWifiEntry("b");
+        mNetworkProviderSettings.updateWifiEntryList(List.of(mockWifiEntry("a"), wifiEntryB));
+        final Preference prefB = category.findPreference("b");
+
+        mNetworkProviderSettings.updateWifiEntryList(List.of(wifiEntryB));
+
+        assertThat((Preference) category.findPreference("a")).isNull();
+        assertThat((Preference) category.findPreference("b")).isSameInstanceAs(prefB);
+        assertThat(category.getPreferenceCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void updateWifiEntryList_keepsTrailingPreferencesAfterWifiEntries() {
+        final PreferenceCategory category = setUpWifiEntryPreferenceCategory();
+        final Preference emptyListPreference = new Preference(mContext);
+        emptyListPreference.setKey(NetworkProviderSettings.PREF_KEY_EMPTY_WIFI_LIST);
+        emptyListPreference.setOrder(NetworkProviderSettings.ORDER_EMPTY_WIFI_LIST);
+        category.addPreference(emptyListPreference);
+        final Preference addWifiNetworkPreference =
+                mNetworkProviderSettings.mAddWifiNetworkPreference;
+        addWifiNetworkPreference.setOrder(NetworkProviderSettings.ORDER_ADD_WIFI_NETWORK);
+        category.addPreference(addWifiNetworkPreference);
+
+        mNetworkProviderSettings.updateWifiEntryList(
+                List.of(mockWifiEntry("a"), mockWifiEntry("b")));
+        mNetworkProviderSettings.updateWifiEntryList(
+                List.of(mockWifiEntry("b"), mockWifiEntry("c"), mockWifiEntry("a")));
+
+        assertThat(category.getPreferenceCount()).isEqualTo(5);
+        assertThat(emptyListPreference.getParent()).isSameInstanceAs(category);
+        assertThat(addWifiNetworkPreference.getParent()).isSameInstanceAs(category);
+        assertThat(emptyListPreference.getOrder())
+                .isEqualTo(NetworkProviderSettings.ORDER_EMPTY_WIFI_LIST);
+        assertThat(addWifiNetworkPreference.getOrder())
+                .isEqualTo(NetworkProviderSettings.ORDER_ADD_WIFI_NETWORK);
+        final int orderB = category.findPreference("b").getOrder();
+        final int orderC = category.findPreference("c").getOrder();
+        final int orderA = category.findPreference("a").getOrder();
+        assertThat(orderB).isLessThan(orderC);
+        assertThat(orderC).isLessThan(orderA);
+        assertThat(orderA).isLessThan(NetworkProviderSettings.ORDER_EMPTY_WIFI_LIST);
+    }
+
+    private PreferenceCategory setUpWifiEntryPreferenceCategory() {
+        final PreferenceManager preferenceManager = new PreferenceManager(mContext);
+        final PreferenceScreen screen = preferenceManager.createPreferenceScreen(mContext);
+        final PreferenceCategory category = new PreferenceCategory(mContext);
+        screen.addPreference(category);
+        mNetworkProviderSettings.mWifiEntryPreferenceCategory = category;
+        return category;
+    }
+
+    private static WifiEntry mockWifiEntry(String key) {
+        final WifiEntry wifiEntry = mock(WifiEntry.class);
+        when(wifiEntry.getKey()).thenReturn(key);
+        when(wifiEntry.getTitle()).thenReturn(key);
+        return wifiEntry;
+    }
+
     @Implements(PreferenceFragmentCompat.class)
     public static class ShadowPreferenceFragmentCompat {
 
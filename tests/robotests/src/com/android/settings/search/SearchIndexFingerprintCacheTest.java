@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.util.ArraySet;
+
+import com.android.settingslib.search.SearchIndexableData;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class SearchIndexFingerprintCacheTest {
+
+    private Context mContext;
+    private SearchIndexFingerprintCache<String> mCache;
+    private TestProvider mProvider;
+    private SearchIndexableData mBundle;
+    private int mLoadCount;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mCache = new SearchIndexFingerprintCache<>("test");
+        mProvider = new TestProvider();
+        mBundle = new SearchIndexableData(FakeSettingsFragment.class, mProvider);
+        mLoadCount = 0;
+    }
+
+    @Test
+    public void get_sameFingerprint_shouldReuseCachedData() {
+        mProvider.mFingerprint = "1";
+        mCache.get(mContext, mBundle, this::load);
+
+        final List<String> result = mCache.get(mContext, mBundle, this::load);
+
+        assertThat(mLoadCount).isEqualTo(1);
+        assertThat(result).containsExactly("key");
+    }
+
+    @Test
+    public void get_fingerprintChanged_shouldReload() {
+        mProvider.mFingerprint = "1";
+        mCache.get(mContext, mBundle, this::load);
+        mProvider.mFingerprint = "2";
+
+        final List<String> result = mCache.get(mContext, mBundle, this::load);
+
+        assertThat(mLoadCount).isEqualTo(2);
+        assertThat(result).containsExactly("key");
+    }
+
+    @Test
+    @Config(qualifiers = "en")
+    public void get_localeChanged_shouldReload() {
+        mProvider.mFingerprint = "1";
+        mCache.get(mContext, mBundle, this::load);
+        RuntimeEnvironment.setQualifiers("fr");
+
+        mCache.get(mContext, mBundle, this::load);
+
+        assertThat(mLoadCount).isEqualTo(2);
+    }
+
+    @Test
+    public void get_noFingerprint_shouldAlwaysReload() {
+        mCache.get(mContext, mBundle, this::load);
+        mCache.get(mContext, mBundle, this::load);
+
+        assertThat(mLoadCount).isEqualTo(2);
+    }
+
+    @Test
+    public void endPass_providerGone_shouldDropCachedData() {
+        mProvider.mFingerprint = "1";
+        mCache.get(mContext, mBundle, this::load);
+
+        mCache.endPass(new ArraySet<>());
+        mCache.get(mContext, mBundle, this::load);
+
+        assertThat(mLoadCount).isEqualTo(2);
+    }
+
+    @Test
+    public void get_whileLoading_shouldNotHoldLock() {
+        final Thread thread = new Thread(() -> mCache.endPass(new ArraySet<>()));
+
+        mCache.get(mContext, mBundle, () -> {
+            thread.start();
+            try {
+                thread.join(1000 /* millis */);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return load();
+        });
+
+        assertThat(thread.isAlive()).isFalse();
+    }
+
+    private List<String> load() {
+        mLoadCount++;
+        return new ArrayList<>(Arrays.asList("key"));
+    }
+
+    private static class TestProvider extends BaseSearchIndexProvider {
+        String mFingerprint;
+
+        @Override
+        public String getIndexFingerprint(Context context) {
+            return mFingerprint;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class SearchIndexSnapshotTest {
+
+    private File mDir;
+
+    @Before
+    public void setUp() {
+        mDir = new File(RuntimeEnvironment.application.getCacheDir(), "snapshot_test");
+    }
+
+    @Test
+    public void read_noSnapshot_shouldReturnNull() {
+        final SearchIndexSnapshot snapshot = new SearchIndexSnapshot(mDir, "en-US", "build/1");
+
+        assertThat(snapshot.read(SearchIndexSnapshot.SECTION_RAW_DATA)).isNull();
+    }
+
+    @Test
+    public void write_thenRead_shouldReturnSameRows() {
+        final SearchIndexSnapshot snapshot = new SearchIndexSnapshot(mDir, "en-US", "build/1");
+        final List<Object[]> rows = Arrays.asList(
+                new Object[]{"title", 42, null},
+                new Object[]{"other", 0, "key"});
+
+        snapshot.write(SearchIndexSnapshot.SECTION_RAW_DATA, rows, 3 /* columnCount */);
+        final List<Object[]> result = snapshot.read(SearchIndexSnapshot.SECTION_RAW_DATA);
+
+        assertThat(result).hasSize(2);
+        assertThat(result.get(0)).asList().containsExactly("title", 42, null).inOrder();
+        assertThat(result.get(1)).asList().containsExactly("other", 0, "key").inOrder();
+    }
+
+    @Test
+    public void read_differentStamp_shouldReturnNull() {
+        new SearchIndexSnapshot(mDir, "en-US", "build/1").write(
+                SearchIndexSnapshot.SECTION_XML_RESOURCES,
+                Arrays.<Object[]>asList(new Object[]{1}), 1 /* columnCount */);
+
+        final SearchIndexSnapshot snapshot = new SearchIndexSnapshot(mDir, "en-US", "build/2");
+
+        assertThat(snapshot.read(SearchIndexSnapshot.SECTION_XML_RESOURCES)).isNull();
+    }
+
+    @Test
+    public void read_differentLocale_shouldReturnNull() {
+        new SearchIndexSnapshot(mDir, "en-US", "build/1").write(
+                SearchIndexSnapshot.SECTION_XML_RESOURCES,
+                Arrays.<Object[]>asList(new Object[]{1}), 1 /* columnCount */);
+
+        final SearchIndexSnapshot snapshot = new SearchIndexSnapshot(mDir, "fr-FR", "build/1");
+
+        assertThat(snapshot.read(SearchIndexSnapshot.SECTION_XML_RESOURCES)).isNull();
+    }
+}
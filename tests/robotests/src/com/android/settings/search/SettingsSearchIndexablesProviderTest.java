@@ -27,6 +27,7 @@ import com.android.settingslib.drawer.ActivityTile;
 import com.android.settingslib.drawer.CategoryKey;
 import com.android.settingslib.drawer.DashboardCategory;
 import com.android.settingslib.search.SearchIndexableData;
+import com.android.settingslib.search.SearchIndexableRaw;
 
 import org.junit.After;
 import org.junit.Before;
@@ -113,6 +114,38 @@ public class SettingsSearchIndexablesProviderTest {
         assertThat(cursor.getString(12)).isEqualTo(FakeSettingsFragment.KEY);
     }
 
+    @Test
+    public void testRawColumnFetched_notSnapshotable_shouldComputeRowsOnEveryQuery() {
+        final String[] title = {"before"};
+        final BaseSearchIndexProvider provider = new BaseSearchIndexProvider() {
+            @Override
+            public boolean isStaticDataSnapshotable() {
+                return false;
+            }
+
+            @Override
+            public List<SearchIndexableRaw> getRawDataToIndex(Context context, boolean enabled) {
+                final SearchIndexableRaw raw = new SearchIndexableRaw(context);
+                raw.title = title[0];
+                return Arrays.asList(raw);
+            }
+        };
+        mFakeFeatureFactory.searchFeatureProvider.getSearchIndexableResources().getProviderValues()
+                .add(new SearchIndexableData(FakeSettingsFragment.class, provider));
+        final Uri rawUri = Uri.parse(BASE_AUTHORITY + SearchIndexablesContract.INDEXABLES_RAW_PATH);
+        mProvider.query(rawUri, SearchIndexablesContract.INDEXABLES_RAW_COLUMNS, null, null, null);
+
+        title[0] = "after";
+        final Cursor cursor = mProvider.query(rawUri,
+                SearchIndexablesContract.INDEXABLES_RAW_COLUMNS, null, null, null);
+
+        final List<String> titles = new ArrayList<>();
+        while (cursor.moveToNext()) {
+            titles.add(cursor.getString(1));
+        }
+        assertThat(titles).containsExactly(FakeSettingsFragment.TITLE, "after");
+    }
+
     @Test
     public void testResourcesColumnFetched() {
         Uri rawUri = Uri.parse(BASE_AUTHORITY + SearchIndexablesContract.INDEXABLES_XML_RES_PATH);
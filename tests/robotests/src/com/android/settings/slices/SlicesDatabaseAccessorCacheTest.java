@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.slices;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+import android.content.Context;
+
+import com.android.settings.testutils.DatabaseTestUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class SlicesDatabaseAccessorCacheTest {
+
+    private static final String KEY = "key";
+
+    private Context mContext;
+    private SlicesDatabaseAccessor mAccessor;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        SlicesDatabaseHelper.getInstance(mContext).setIndexedState();
+        SlicesDatabaseAccessor.resetCache();
+        SliceTestUtils.insertSliceToDb(mContext, KEY);
+        mAccessor = spy(new SlicesDatabaseAccessor(mContext));
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseTestUtils.clearDb(mContext);
+        SlicesDatabaseAccessor.resetCache();
+    }
+
+    @Test
+    public void getSliceDataFromKey_calledTwice_secondCallHitsCache() {
+        final SliceData first = mAccessor.getSliceDataFromKey(KEY);
+        final SliceData second = mAccessor.getSliceDataFromKey(KEY);
+
+        assertThat(SlicesDatabaseAccessor.getCacheMissCount()).isEqualTo(1);
+        assertThat(SlicesDatabaseAccessor.getCacheHitCount()).isEqualTo(1);
+        assertThat(second.getTitle()).isEqualTo(first.getTitle());
+        assertThat(second).isNotSameInstanceAs(first);
+    }
+
+    @Test
+    public void onSliceDataIndexed_shouldInvalidateCache() {
+        mAccessor.getSliceDataFromKey(KEY);
+
+        SlicesDatabaseAccessor.onSliceDataIndexed();
+        mAccessor.getSliceDataFromKey(KEY);
+
+        assertThat(SlicesDatabaseAccessor.getCacheMissCount()).isEqualTo(2);
+        assertThat(SlicesDatabaseAccessor.getCacheHitCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void onSliceDataIndexed_duringLookup_shouldNotCacheStaleRow() {
+        doAnswer(invocation -> {
+            // The database is rewritten after the row was read.
+            final Object cursor = invocation.callRealMethod();
+            SlicesDatabaseAccessor.onSliceDataIndexed();
+            return cursor;
+        }).when(mAccessor).getIndexedSliceData(anyString());
+        mAccessor.getSliceDataFromKey(KEY);
+
+        mAccessor.getSliceDataFromKey(KEY);
+
+        assertThat(SlicesDatabaseAccessor.getCacheMissCount()).isEqualTo(2);
+        assertThat(SlicesDatabaseAccessor.getCacheHitCount()).isEqualTo(0);
+    }
+}
@@ -2,13 +2,22 @@ package com.android.settings.applications;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.app.AppOpsManager;
 import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.os.Looper;
 
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 
+import com.android.settingslib.applications.ApplicationsState;
 import com.android.settingslib.applications.ApplicationsState.AppEntry;
 import com.android.settingslib.fuelgauge.PowerAllowlistBackend;
 
@@ -19,6 +28,9 @@ import org.mockito.Answers;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.ArrayList;
+import java.util.Collections;
+
 @RunWith(AndroidJUnit4.class)
 public final class AppStateAppBatteryUsageBridgeTest {
   private static final String TEST_PACKAGE_1 = "com.example.test.pkg1";
@@ -75,4 +87,43 @@ public final class AppStateAppBatteryUsageBridgeTest {
     assertThat(AppStateAppBatteryUsageBridge.getAppBatteryUsageDetailsMode(entry))
             .isEqualTo(AppStateAppBatteryUsageBridge.MODE_UNRESTRICTED);
   }
+
+  @Test
+  public void loadAllExtraInfo_readsAppOpsModesInBulk() {
+    final ApplicationsState appState = mock(ApplicationsState.class);
+    final ApplicationsState.Session session = mock(ApplicationsState.Session.class);
+    when(appState.newSession(any())).thenReturn(session);
+    when(appState.getBackgroundLooper()).thenReturn(Looper.getMainLooper());
+    final ArrayList<AppEntry> apps = new ArrayList<>();
+    apps.add(getAppEntry(TEST_PACKAGE_1, UID_1));
+    apps.add(getAppEntry(TEST_PACKAGE_2, UID_2));
+    when(session.getAllApps()).thenReturn(apps);
+    final AppOpsManager.PackageOps packageOps = new AppOpsManager.PackageOps(
+            TEST_PACKAGE_1, UID_1, Collections.singletonList(new AppOpsManager.OpEntry(
+                    AppOpsManager.OP_RUN_ANY_IN_BACKGROUND, AppOpsManager.MODE_IGNORED,
+                    Collections.emptyMap())));
+    when(mAppOpsManager.getPackagesForOps(any(int[].class)))
+            .thenReturn(Collections.singletonList(packageOps));
+    when(mPowerAllowlistBackend.isAllowlisted(TEST_PACKAGE_2)).thenReturn(true);
+    AppStateAppBatteryUsageBridge bridge =
+            new AppStateAppBatteryUsageBridge(mContext, appState, null);
+    bridge.mAppOpsManager = mAppOpsManager;
+    bridge.mPowerAllowlistBackend = mPowerAllowlistBackend;
+
+    bridge.loadAllExtraInfo();
+
+    verify(mAppOpsManager, never()).checkOpNoThrow(anyInt(), anyInt(), anyString());
+    assertThat(AppStateAppBatteryUsageBridge.getAppBatteryUsageDetailsMode(apps.get(0)))
+            .isEqualTo(AppStateAppBatteryUsageBridge.MODE_RESTRICTED);
+    assertThat(AppStateAppBatteryUsageBridge.getAppBatteryUsageDetailsMode(apps.get(1)))
+            .isEqualTo(AppStateAppBatteryUsageBridge.MODE_UNRESTRICTED);
+  }
+
+  private AppEntry getAppEntry(String packageName, int uid) {
+    final AppEntry entry = mock(AppEntry.class);
+    entry.info = new ApplicationInfo();
+    entry.info.packageName = packageName;
+    entry.info.uid = uid;
+    return entry;
+  }
 }